@@ -150,6 +150,11 @@ public class FalconHook extends AtlasHook implements FalconEventPublisher {
         return HOOK_NUM_RETRIES;
     }
 
+    @Override
+    protected String getConfigPrefix() {
+        return CONF_PREFIX;
+    }
+
     private void fireAndForget(FalconEvent event) throws FalconException, URISyntaxException {
         LOG.info("Entered Atlas hook for Falcon hook operation {}", event.getOperation());
         List<HookNotification> messages = new ArrayList<>();
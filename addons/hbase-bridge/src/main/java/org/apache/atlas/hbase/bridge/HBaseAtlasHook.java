@@ -213,6 +213,11 @@ public class HBaseAtlasHook extends AtlasHook {
         return HOOK_NUM_RETRIES;
     }
 
+    @Override
+    protected String getConfigPrefix() {
+        return CONF_PREFIX;
+    }
+
 
     public void createAtlasInstances(HBaseOperationContext hbaseOperationContext) {
         HBaseAtlasHook.OPERATION operation = hbaseOperationContext.getOperation();
@@ -616,7 +621,7 @@ public class HBaseAtlasHook extends AtlasHook {
      */
     protected void notifyEntities(List<HookNotification> messages) {
         final int maxRetries = atlasProperties.getInt(HOOK_NUM_RETRIES, 3);
-        notifyEntities(messages, maxRetries);
+        notifyEntities(CONF_PREFIX, messages, maxRetries);
     }
 
     public void sendHBaseNameSpaceOperation(final NamespaceDescriptor namespaceDescriptor, final String nameSpace, final OPERATION operation) {
@@ -170,6 +170,11 @@ public class HiveHook extends AtlasHook implements ExecuteWithHookContext {
         return HOOK_NUM_RETRIES;
     }
 
+    @Override
+    protected String getConfigPrefix() {
+        return CONF_PREFIX;
+    }
+
     @Override
     public void run(final HookContext hookContext) throws Exception {
         // clone to avoid concurrent access
@@ -91,7 +91,7 @@ public class SqoopHook extends SqoopJobDataPublisher {
 
             HookNotification message  = new EntityUpdateRequestV2(AtlasHook.getUser(), entities);
 
-            AtlasHook.notifyEntities(Arrays.asList(message), atlasProperties.getInt(HOOK_NUM_RETRIES, 3));
+            AtlasHook.notifyEntities(CONF_PREFIX, Arrays.asList(message), atlasProperties.getInt(HOOK_NUM_RETRIES, 3));
         } catch(Exception e) {
             throw new AtlasHookException("SqoopHook.publish() failed.", e);
         }
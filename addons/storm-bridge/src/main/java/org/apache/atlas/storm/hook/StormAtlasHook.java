@@ -72,6 +72,11 @@ public class StormAtlasHook extends AtlasHook implements ISubmitterHook {
         return HOOK_NUM_RETRIES;
     }
 
+    @Override
+    protected String getConfigPrefix() {
+        return CONF_PREFIX;
+    }
+
     /**
      * This is the client-side hook that storm fires when a topology is added.
      *
@@ -32,7 +32,9 @@ public enum AtlasPrivilege {
      ENTITY_REMOVE_CLASSIFICATION("entity-remove-classification"),
 
      ADMIN_EXPORT("admin-export"),
-     ADMIN_IMPORT("admin-import");
+     ADMIN_IMPORT("admin-import"),
+     ADMIN_METRICS("admin-metrics"),
+     ADMIN_INDEX_BACKFILL("admin-index-backfill");
 
      private final String type;
 
@@ -27,6 +27,7 @@ import org.apache.atlas.model.instance.AtlasClassification;
 import org.apache.atlas.model.instance.AtlasClassification.AtlasClassifications;
 import org.apache.atlas.model.instance.AtlasEntity.AtlasEntitiesWithExtInfo;
 import org.apache.atlas.model.instance.AtlasEntity.AtlasEntityWithExtInfo;
+import org.apache.atlas.model.instance.AtlasEntityHeader;
 import org.apache.atlas.model.instance.AtlasRelationship;
 import org.apache.atlas.model.instance.EntityMutationResponse;
 import org.apache.atlas.model.lineage.AtlasLineageInfo;
@@ -45,8 +46,14 @@ import javax.ws.rs.HttpMethod;
 import javax.ws.rs.core.Cookie;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 public class AtlasClientV2 extends AtlasBaseClient {
     // Type APIs
@@ -69,6 +76,7 @@ public class AtlasClientV2 extends AtlasBaseClient {
     private static final String FULL_TEXT_URI      = DISCOVERY_URI + "/fulltext";
     private static final String BASIC_SEARCH_URI   = DISCOVERY_URI + "/basic";
     private static final String FACETED_SEARCH_URI = BASIC_SEARCH_URI;
+    private static final String NDJSON_MEDIA_TYPE  = "application/x-ndjson";
 
     // Relationships APIs
     private static final String RELATIONSHIPS_URI  = BASE_URI + "v2/relationship/";
@@ -383,6 +391,34 @@ public class AtlasClientV2 extends AtlasBaseClient {
         return callAPI(API_V2.FACETED_SEARCH, AtlasSearchResult.class, searchParameters);
     }
 
+    /**
+     * Basic search, with results streamed from the server as they are found.
+     *
+     * @param searchParameters search parameters; limit, if specified, caps the total number of results
+     * @param consumer         called for each matching entity
+     * @return number of entities passed to the consumer
+     */
+    public long facetedSearchStream(SearchParameters searchParameters, Consumer<AtlasEntityHeader> consumer) throws AtlasServiceException {
+        InputStream inputStream = callAPI(API_V2.FACETED_SEARCH_STREAM, InputStream.class, searchParameters);
+        long        ret         = 0;
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+
+                consumer.accept(AtlasType.fromJson(line, AtlasEntityHeader.class));
+
+                ret++;
+            }
+        } catch (IOException e) {
+            throw new AtlasServiceException(API_V2.FACETED_SEARCH_STREAM, e);
+        }
+
+        return ret;
+    }
+
     public AtlasRelationship getRelationshipByGuid(String guid) throws AtlasServiceException {
         return callAPI(API_V2.GET_RELATIONSHIP_BY_GUID, AtlasRelationship.class, null, guid);
     }
@@ -468,11 +504,16 @@ public class AtlasClientV2 extends AtlasBaseClient {
         public static final API_V2 FULL_TEXT_SEARCH            = new API_V2(FULL_TEXT_URI, HttpMethod.GET, Response.Status.OK);
         public static final API_V2 BASIC_SEARCH                = new API_V2(BASIC_SEARCH_URI, HttpMethod.GET, Response.Status.OK);
         public static final API_V2 FACETED_SEARCH              = new API_V2(FACETED_SEARCH_URI, HttpMethod.POST, Response.Status.OK);
+        public static final API_V2 FACETED_SEARCH_STREAM       = new API_V2(FACETED_SEARCH_URI + "/stream", HttpMethod.POST, Response.Status.OK, JSON_MEDIA_TYPE, NDJSON_MEDIA_TYPE);
         public static final API_V2 GET_RELATIONSHIP_BY_GUID    = new API_V2(RELATIONSHIPS_URI + "guid/", HttpMethod.GET, Response.Status.OK);
         public static final API_V2 DELETE_RELATIONSHIP_BY_GUID = new API_V2(RELATIONSHIPS_URI + "guid/", HttpMethod.DELETE, Response.Status.NO_CONTENT);
 
         private API_V2(String path, String method, Response.Status status) {
             super(path, method, status);
         }
+
+        private API_V2(String path, String method, Response.Status status, String consumes, String produces) {
+            super(path, method, status, consumes, produces);
+        }
     }
 }
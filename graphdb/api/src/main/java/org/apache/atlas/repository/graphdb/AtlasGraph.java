@@ -19,6 +19,7 @@ package org.apache.atlas.repository.graphdb;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 
@@ -106,6 +107,14 @@ public interface AtlasGraph<V, E> {
      */
     AtlasVertex<V, E> getVertex(String vertexId);
 
+    /**
+     * Loads the properties of the given vertices with a single backend query, so that
+     * subsequent property reads on these vertices don't need a backend call per vertex.
+     *
+     * @param vertices
+     */
+    void preloadProperties(Collection<AtlasVertex<V, E>> vertices);
+
     /**
      * Gets the names of the indexes on edges
      * type.
@@ -293,6 +302,21 @@ public interface AtlasGraph<V, E> {
      */
     Object executeGremlinScript(String query, boolean isPath) throws AtlasBaseException;
 
+    /**
+     * Executes a parameterized Gremlin script, returns an object with the result.
+     * Variable parts of the query should be passed in bindings, so that the compiled script can be reused
+     * across executions of the same query.
+     *
+     * @param query
+     * @param bindings values for the variables referenced in the query
+     * @param isPath whether this is a path query
+     *
+     * @return the result from executing the script
+     *
+     * @throws AtlasBaseException
+     */
+    Object executeGremlinScript(String query, Map<String, Object> bindings, boolean isPath) throws AtlasBaseException;
+
     /**
      * Executes a Gremlin script using a ScriptEngineManager provided by consumer, returns an object with the result.
      * This is useful for scenarios where an operation executes large number of queries.
@@ -317,4 +341,12 @@ public interface AtlasGraph<V, E> {
      * @return
      */
     boolean isMultiProperty(String name);
+
+    /**
+     * Returns counters for Gremlin script execution, like script-engine pool usage, compiled script cache
+     * hits/misses and time spent compiling scripts.
+     *
+     * @return map of metric name to value
+     */
+    Map<String, Number> getGremlinScriptMetrics();
 }
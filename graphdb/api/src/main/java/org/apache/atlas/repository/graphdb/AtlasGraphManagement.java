@@ -18,6 +18,8 @@
 
 package org.apache.atlas.repository.graphdb;
 
+import org.apache.atlas.exception.AtlasBaseException;
+
 import java.util.List;
 
 /**
@@ -157,4 +159,21 @@ public interface AtlasGraphManagement {
      * @param propertyKey
      */
     void addMixedIndex(String vertexIndex, AtlasPropertyKey propertyKey);
+
+    /**
+     * Waits for the given index - created for a property key that elements already have values for - to be registered
+     * with all instances. Once registered, elements written update the index, though it is not used by queries till
+     * enabled; hence the values of existing elements can be added to the index by rewriting them.
+     *
+     * @param indexName the name of the index
+     */
+    void awaitIndexRegistered(String indexName) throws AtlasBaseException;
+
+    /**
+     * Enables the given registered index, once the values of existing elements are added to it. The management is to
+     * be committed afterwards.
+     *
+     * @param indexName the name of the index
+     */
+    void enableIndex(String indexName) throws AtlasBaseException;
 }
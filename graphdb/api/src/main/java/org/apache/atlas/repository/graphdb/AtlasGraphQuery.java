@@ -18,6 +18,8 @@
 
 package org.apache.atlas.repository.graphdb;
 
+import org.apache.atlas.SortOrder;
+
 import java.util.Collection;
 import java.util.List;
 
@@ -115,6 +117,16 @@ public interface AtlasGraphQuery<V, E> {
      */
     AtlasGraphQuery<V, E> or(List<AtlasGraphQuery<V, E>> childQueries);
 
+    /**
+     * Orders the returned vertices on the given property; vertices without a value for the property are at the end.
+     * The ordering is done by the index backend when the index covers the property and the query predicates.
+     *
+     * @param propertyKey
+     * @param sortOrder
+     * @return
+     */
+    AtlasGraphQuery<V, E> orderBy(String propertyKey, SortOrder sortOrder);
+
     /**
      * Creates a child query that can be used to add "or" conditions.
      *
@@ -0,0 +1,70 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.graphdb;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Comparator;
+import java.util.Date;
+
+/**
+ * Orders non-null vertex property values, for sorting vertices in memory. Numbers are compared by value, whatever
+ * their type; strings, booleans and dates in their natural order. Values of other types, or of different types, are
+ * compared by their string form.
+ */
+public final class AtlasPropertyValueComparator implements Comparator<Object> {
+    public static final AtlasPropertyValueComparator INSTANCE = new AtlasPropertyValueComparator();
+
+    private AtlasPropertyValueComparator() {
+    }
+
+    @Override
+    public int compare(Object val1, Object val2) {
+        final int ret;
+
+        if (val1 instanceof Number && val2 instanceof Number) {
+            ret = compareNumbers((Number) val1, (Number) val2);
+        } else if (val1 instanceof String && val2 instanceof String) {
+            ret = ((String) val1).compareTo((String) val2);
+        } else if (val1 instanceof Boolean && val2 instanceof Boolean) {
+            ret = ((Boolean) val1).compareTo((Boolean) val2);
+        } else if (val1 instanceof Date && val2 instanceof Date) {
+            ret = ((Date) val1).compareTo((Date) val2);
+        } else {
+            ret = val1.toString().compareTo(val2.toString());
+        }
+
+        return ret;
+    }
+
+    private static int compareNumbers(Number num1, Number num2) {
+        if (isIntegral(num1) && isIntegral(num2)) {
+            return Long.compare(num1.longValue(), num2.longValue());
+        }
+
+        if (num1 instanceof BigDecimal || num2 instanceof BigDecimal || num1 instanceof BigInteger || num2 instanceof BigInteger) {
+            return new BigDecimal(num1.toString()).compareTo(new BigDecimal(num2.toString()));
+        }
+
+        return Double.compare(num1.doubleValue(), num2.doubleValue());
+    }
+
+    private static boolean isIntegral(Number num) {
+        return num instanceof Long || num instanceof Integer || num instanceof Short || num instanceof Byte;
+    }
+}
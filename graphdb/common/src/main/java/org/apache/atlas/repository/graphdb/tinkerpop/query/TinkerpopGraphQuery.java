@@ -18,9 +18,11 @@
 package org.apache.atlas.repository.graphdb.tinkerpop.query;
 
 import com.google.common.base.Preconditions;
+import org.apache.atlas.SortOrder;
 import org.apache.atlas.repository.graphdb.AtlasEdge;
 import org.apache.atlas.repository.graphdb.AtlasGraph;
 import org.apache.atlas.repository.graphdb.AtlasGraphQuery;
+import org.apache.atlas.repository.graphdb.AtlasPropertyValueComparator;
 import org.apache.atlas.repository.graphdb.AtlasVertex;
 import org.apache.atlas.repository.graphdb.tinkerpop.query.expr.AndCondition;
 import org.apache.atlas.repository.graphdb.tinkerpop.query.expr.HasPredicate;
@@ -29,8 +31,12 @@ import org.apache.atlas.repository.graphdb.tinkerpop.query.expr.OrCondition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -85,7 +91,8 @@ import java.util.Set;
  *               result
  * </pre>
  *
- *
+ * When the query is ordered, each GraphQuery returns vertices in order; results of
+ * multiple GraphQueries are merged and sorted again.
  */
 public abstract class TinkerpopGraphQuery<V, E> implements AtlasGraphQuery<V, E> {
 
@@ -93,6 +100,8 @@ public abstract class TinkerpopGraphQuery<V, E> implements AtlasGraphQuery<V, E>
     protected final AtlasGraph<V, E> graph;
     private final OrCondition queryCondition = new OrCondition();
     private final boolean isChildQuery;
+    private String sortBy;
+    private SortOrder sortOrder;
     protected abstract NativeTinkerpopQueryFactory<V, E> getQueryFactory();
 
     /**
@@ -128,10 +137,14 @@ public abstract class TinkerpopGraphQuery<V, E> implements AtlasGraphQuery<V, E>
             LOG.debug("Executing: " + queryCondition);
         }
 
+        if (isSortedUnion()) {
+            return getSortedVertices(0, Integer.MAX_VALUE);
+        }
+
         // Compute the overall result by combining the results of all the AndConditions (nested within OR) together.
-        Set<AtlasVertex<V, E>> result = new HashSet<>();
+        Set<AtlasVertex<V, E>> result = new LinkedHashSet<>();
         for(AndCondition andExpr : queryCondition.getAndTerms()) {
-            NativeTinkerpopGraphQuery<V, E> andQuery = andExpr.create(getQueryFactory());
+            NativeTinkerpopGraphQuery<V, E> andQuery = createNativeQuery(andExpr);
             for(AtlasVertex<V, E> vertex : andQuery.vertices()) {
                 result.add(vertex);
             }
@@ -209,15 +222,19 @@ public abstract class TinkerpopGraphQuery<V, E> implements AtlasGraphQuery<V, E>
         Preconditions.checkArgument(offset >= 0, "Offset must be non-negative");
         Preconditions.checkArgument(limit >= 0, "Limit must be non-negative");
 
+        if (isSortedUnion()) {
+            return getSortedVertices(offset, limit);
+        }
+
         // Compute the overall result by combining the results of all the AndConditions (nested within OR) together.
-        Set<AtlasVertex<V, E>> result = new HashSet<>();
+        Set<AtlasVertex<V, E>> result = new LinkedHashSet<>();
         long resultIdx = 0;
         for(AndCondition andExpr : queryCondition.getAndTerms()) {
             if (result.size() == limit) {
                 break;
             }
 
-            NativeTinkerpopGraphQuery<V, E> andQuery = andExpr.create(getQueryFactory());
+            NativeTinkerpopGraphQuery<V, E> andQuery = createNativeQuery(andExpr);
             for(AtlasVertex<V, E> vertex : andQuery.vertices(offset + limit)) {
                 if (resultIdx >= offset) {
                     result.add(vertex);
@@ -281,8 +298,78 @@ public abstract class TinkerpopGraphQuery<V, E> implements AtlasGraphQuery<V, E>
         return this;
     }
 
+    @Override
+    public AtlasGraphQuery<V, E> orderBy(String propertyKey, SortOrder sortOrder) {
+        this.sortBy    = propertyKey;
+        this.sortOrder = sortOrder;
+        return this;
+    }
+
     @Override
     public boolean isChildQuery() {
         return isChildQuery;
     }
+
+    private NativeTinkerpopGraphQuery<V, E> createNativeQuery(AndCondition andExpr) {
+        NativeTinkerpopGraphQuery<V, E> ret = andExpr.create(getQueryFactory());
+
+        if (sortBy != null) {
+            ret.orderBy(sortBy, sortOrder);
+        }
+
+        return ret;
+    }
+
+    private boolean isSortedUnion() {
+        return sortBy != null && queryCondition.getAndTerms().size() > 1;
+    }
+
+    // each AndCondition returns its first offset+limit vertices in order - which includes the vertices of the page
+    private Iterable<AtlasVertex<V, E>> getSortedVertices(int offset, int limit) {
+        int                    maxCount = (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+        Set<AtlasVertex<V, E>> vertices = new LinkedHashSet<>();
+
+        for(AndCondition andExpr : queryCondition.getAndTerms()) {
+            NativeTinkerpopGraphQuery<V, E> andQuery = createNativeQuery(andExpr);
+            Iterable<AtlasVertex<V, E>>     result   = maxCount == Integer.MAX_VALUE ? andQuery.vertices() : andQuery.vertices(maxCount);
+
+            for(AtlasVertex<V, E> vertex : result) {
+                vertices.add(vertex);
+            }
+        }
+
+        List<AtlasVertex<V, E>> result = new ArrayList<>(vertices);
+
+        Collections.sort(result, new VertexComparator<V, E>(sortBy, sortOrder));
+
+        if (offset >= result.size()) {
+            return Collections.emptyList();
+        }
+
+        return result.subList(offset, (int) Math.min((long) offset + limit, result.size()));
+    }
+
+    private static class VertexComparator<V, E> implements Comparator<AtlasVertex<V, E>> {
+        private final String  propertyKey;
+        private final boolean isDescending;
+
+        VertexComparator(String propertyKey, SortOrder sortOrder) {
+            this.propertyKey  = propertyKey;
+            this.isDescending = sortOrder == SortOrder.DESCENDING;
+        }
+
+        @Override
+        public int compare(AtlasVertex<V, E> v1, AtlasVertex<V, E> v2) {
+            Object val1 = v1.getProperty(propertyKey, Object.class);
+            Object val2 = v2.getProperty(propertyKey, Object.class);
+
+            if (val1 == null || val2 == null) { // vertices without value at the end, in either order
+                return val1 == null ? (val2 == null ? 0 : 1) : -1;
+            }
+
+            int ret = AtlasPropertyValueComparator.INSTANCE.compare(val1, val2);
+
+            return isDescending ? -ret : ret;
+        }
+    }
 }
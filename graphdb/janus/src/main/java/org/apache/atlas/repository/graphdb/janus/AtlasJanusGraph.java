@@ -22,6 +22,7 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import org.apache.atlas.ApplicationProperties;
+import org.apache.atlas.AtlasConfiguration;
 import org.apache.atlas.AtlasException;
 import org.apache.atlas.type.AtlasType;
 import org.apache.commons.configuration.Configuration;
@@ -31,6 +32,7 @@ import org.janusgraph.core.PropertyKey;
 import org.janusgraph.core.SchemaViolationException;
 import org.janusgraph.core.JanusGraph;
 import org.janusgraph.core.JanusGraphIndexQuery;
+import org.janusgraph.core.JanusGraphVertex;
 import org.janusgraph.core.schema.JanusGraphIndex;
 import org.janusgraph.core.schema.JanusGraphManagement;
 import org.apache.atlas.AtlasErrorCode;
@@ -46,11 +48,7 @@ import org.apache.atlas.repository.graphdb.AtlasVertex;
 import org.apache.atlas.repository.graphdb.GremlinVersion;
 import org.apache.atlas.repository.graphdb.janus.query.AtlasJanusGraphQuery;
 import org.apache.atlas.repository.graphdb.utils.IteratorToIterableAdapter;
-import org.apache.tinkerpop.gremlin.groovy.CompilerCustomizerProvider;
-import org.apache.tinkerpop.gremlin.groovy.DefaultImportCustomizerProvider;
 import org.apache.tinkerpop.gremlin.groovy.jsr223.GremlinGroovyScriptEngine;
-import org.apache.tinkerpop.gremlin.process.traversal.P;
-import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.__;
 import org.apache.tinkerpop.gremlin.process.traversal.step.util.ImmutablePath;
 import org.apache.tinkerpop.gremlin.structure.Edge;
 import org.apache.tinkerpop.gremlin.structure.Element;
@@ -65,6 +63,7 @@ import javax.script.ScriptEngine;
 import javax.script.ScriptException;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -91,9 +90,13 @@ public class AtlasJanusGraph implements AtlasGraph<AtlasJanusVertex, AtlasJanusE
         }
     }
 
-    private final Set<String> multiProperties;
+    private final Set<String>                multiProperties;
+    private final AtlasJanusScriptEnginePool scriptEnginePool;
 
     public AtlasJanusGraph() {
+        scriptEnginePool = new AtlasJanusScriptEnginePool(AtlasConfiguration.GREMLIN_SCRIPT_ENGINE_POOL_SIZE.getInt(),
+                                                          AtlasConfiguration.GREMLIN_COMPILED_SCRIPT_CACHE_SIZE.getInt());
+
         //determine multi-properties once at startup
         JanusGraphManagement mgmt = null;
         try {
@@ -153,6 +156,24 @@ public class AtlasJanusGraph implements AtlasGraph<AtlasJanusVertex, AtlasJanusE
         wrapped.remove();
     }
 
+    @Override
+    public void preloadProperties(Collection<AtlasVertex<AtlasJanusVertex, AtlasJanusEdge>> vertices) {
+        List<JanusGraphVertex> janusVertices = new ArrayList<>(vertices.size());
+
+        for (AtlasVertex<AtlasJanusVertex, AtlasJanusEdge> vertex : vertices) {
+            Vertex wrapped = vertex.getV().getWrappedElement();
+
+            if (wrapped instanceof JanusGraphVertex) {
+                janusVertices.add((JanusGraphVertex) wrapped);
+            }
+        }
+
+        if (!janusVertices.isEmpty()) {
+            // loaded properties are cached in the transaction
+            getGraph().multiQuery(janusVertices).properties();
+        }
+    }
+
     @Override
     public Iterable<AtlasEdge<AtlasJanusVertex, AtlasJanusEdge>> getEdges() {
 
@@ -204,6 +225,7 @@ public class AtlasJanusGraph implements AtlasGraph<AtlasJanusVertex, AtlasJanusE
 
     @Override
     public void shutdown() {
+        scriptEnginePool.close();
         getGraph().close();
     }
 
@@ -310,50 +332,38 @@ public class AtlasJanusGraph implements AtlasGraph<AtlasJanusVertex, AtlasJanusE
 
     @Override
     public GremlinGroovyScriptEngine getGremlinScriptEngine() {
-        Set<String> extraImports = new HashSet<String>();
-        extraImports.add(java.util.function.Function.class.getName());
-
-        Set<String> extraStaticImports = new HashSet<String>();
-        extraStaticImports.add(P.class.getName() + ".*");
-        extraStaticImports.add(__.class.getName() + ".*");
-        CompilerCustomizerProvider provider = new DefaultImportCustomizerProvider(extraImports, extraStaticImports);
-
-        GremlinGroovyScriptEngine scriptEngine = new GremlinGroovyScriptEngine(provider);
-
-        return scriptEngine;
+        return scriptEnginePool.borrowEngine();
     }
 
     @Override
     public void releaseGremlinScriptEngine(ScriptEngine scriptEngine) {
-        if (scriptEngine instanceof GremlinGroovyScriptEngine) {
-            try {
-                ((GremlinGroovyScriptEngine)scriptEngine).close();
-            } catch (Exception e) {
-                // ignore
-            }
-        }
+        scriptEnginePool.returnEngine(scriptEngine);
     }
 
     @Override
     public Object executeGremlinScript(String query, boolean isPath) throws AtlasBaseException {
-        Object result = executeGremlinScript(query);
-        return convertGremlinValue(result);
+        return executeGremlinScript(query, null, isPath);
     }
 
-    private Object executeGremlinScript(String gremlinQuery) throws AtlasBaseException {
+    @Override
+    public Object executeGremlinScript(String query, Map<String, Object> userBindings, boolean isPath) throws AtlasBaseException {
         GremlinGroovyScriptEngine scriptEngine = getGremlinScriptEngine();
 
         try {
             Bindings bindings = scriptEngine.createBindings();
 
+            if (userBindings != null) {
+                bindings.putAll(userBindings);
+            }
+
             bindings.put("graph", getGraph());
             bindings.put("g", getGraph().traversal());
 
-            Object result = scriptEngine.eval(gremlinQuery, bindings);
+            Object result = scriptEnginePool.eval(scriptEngine, query, bindings);
 
-            return result;
+            return convertGremlinValue(result);
         } catch (ScriptException e) {
-            throw new AtlasBaseException(AtlasErrorCode.GREMLIN_SCRIPT_EXECUTION_FAILED, e, gremlinQuery);
+            throw new AtlasBaseException(AtlasErrorCode.GREMLIN_SCRIPT_EXECUTION_FAILED, e, query);
         } finally {
             releaseGremlinScriptEngine(scriptEngine);
         }
@@ -368,10 +378,15 @@ public class AtlasJanusGraph implements AtlasGraph<AtlasJanusVertex, AtlasJanusE
         bindings.putAll(userBindings);
         bindings.put("g", getGraph().traversal());
 
-        Object result = scriptEngine.eval(query, bindings);
+        Object result = scriptEnginePool.eval(scriptEngine, query, bindings);
         return convertGremlinValue(result);
     }
 
+    @Override
+    public Map<String, Number> getGremlinScriptMetrics() {
+        return scriptEnginePool.getMetrics();
+    }
+
     @Override
     public GroovyExpression generatePersisentToLogicalConversionExpression(GroovyExpression expr, AtlasType type) {
         //nothing special needed, value is stored in required type
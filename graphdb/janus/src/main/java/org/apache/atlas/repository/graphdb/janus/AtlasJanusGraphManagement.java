@@ -18,6 +18,8 @@
 package org.apache.atlas.repository.graphdb.janus;
 
 import com.google.common.base.Preconditions;
+import org.apache.atlas.AtlasErrorCode;
+import org.apache.atlas.exception.AtlasBaseException;
 import org.apache.atlas.repository.graphdb.AtlasEdgeDirection;
 import org.apache.tinkerpop.gremlin.structure.Direction;
 import org.janusgraph.core.Cardinality;
@@ -28,6 +30,9 @@ import org.janusgraph.core.schema.PropertyKeyMaker;
 import org.janusgraph.core.schema.JanusGraphIndex;
 import org.janusgraph.core.schema.JanusGraphManagement;
 import org.janusgraph.core.schema.JanusGraphManagement.IndexBuilder;
+import org.janusgraph.core.schema.SchemaAction;
+import org.janusgraph.core.schema.SchemaStatus;
+import org.janusgraph.graphdb.database.management.ManagementSystem;
 import org.janusgraph.graphdb.internal.Token;
 import org.apache.atlas.repository.graphdb.AtlasCardinality;
 import org.apache.atlas.repository.graphdb.AtlasEdgeLabel;
@@ -247,4 +252,64 @@ public class AtlasJanusGraphManagement implements AtlasGraphManagement {
 
         indexBuilder.buildCompositeIndex();
     }
-}
\ No newline at end of file
+
+    @Override
+    public void awaitIndexRegistered(String indexName) throws AtlasBaseException {
+        JanusGraphIndex index = getGraphIndexOrFail(indexName);
+
+        try {
+            if (hasIndexStatus(index, SchemaStatus.INSTALLED)) {
+                LOG.info("Waiting for index {} to be registered", indexName);
+
+                ManagementSystem.awaitGraphIndexStatus(AtlasJanusGraphDatabase.getGraphInstance(), indexName).status(SchemaStatus.REGISTERED).call();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new AtlasBaseException(AtlasErrorCode.INTERNAL_ERROR, e, "wait for registration of index " + indexName + " interrupted");
+        }
+    }
+
+    @Override
+    public void enableIndex(String indexName) throws AtlasBaseException {
+        getGraphIndexOrFail(indexName);
+
+        // the status of the index, as seen by this management, is as of when this management was opened
+        JanusGraphManagement enableManagement = AtlasJanusGraphDatabase.getGraphInstance().openManagement();
+        JanusGraphIndex      index            = enableManagement.getGraphIndex(indexName);
+
+        try {
+            if (hasIndexStatus(index, SchemaStatus.REGISTERED)) {
+                enableManagement.updateIndex(index, SchemaAction.ENABLE_INDEX);
+
+                LOG.info("Enabled index {}", indexName);
+            }
+
+            enableManagement.commit();
+        } catch (Exception e) {
+            enableManagement.rollback();
+
+            throw new AtlasBaseException(AtlasErrorCode.INTERNAL_ERROR, e, "enable of index " + indexName + " failed");
+        }
+    }
+
+    private JanusGraphIndex getGraphIndexOrFail(String indexName) throws AtlasBaseException {
+        JanusGraphIndex ret = management.getGraphIndex(indexName);
+
+        if (ret == null) {
+            throw new AtlasBaseException(AtlasErrorCode.INTERNAL_ERROR, "index " + indexName + " not found");
+        }
+
+        return ret;
+    }
+
+    private static boolean hasIndexStatus(JanusGraphIndex index, SchemaStatus status) {
+        for (PropertyKey key : index.getFieldKeys()) {
+            if (index.getIndexStatus(key) == status) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,220 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.graphdb.janus;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.tinkerpop.gremlin.groovy.CompilerCustomizerProvider;
+import org.apache.tinkerpop.gremlin.groovy.DefaultImportCustomizerProvider;
+import org.apache.tinkerpop.gremlin.groovy.jsr223.GremlinGroovyScriptEngine;
+import org.apache.tinkerpop.gremlin.process.traversal.P;
+import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.__;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.script.Bindings;
+import javax.script.CompiledScript;
+import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pool of Gremlin script engines, each with its own cache of compiled scripts keyed by the query text.
+ *
+ * Creating a GremlinGroovyScriptEngine and compiling a script are both expensive; engines are hence reused across
+ * callers and scripts are compiled once per distinct query and engine. A compiled script is only ever evaluated by
+ * the engine that compiled it, as it shares the engine's class loader and global bindings. Callers are expected to
+ * pass all variable parts of a query as bindings, so that the query text acts as a template and is shared across
+ * executions.
+ *
+ * When all pooled engines are in use, a transient engine is created for the caller and closed on release - this
+ * avoids deadlocks for callers that hold an engine while executing other queries. Scripts evaluated by transient
+ * engines are not cached.
+ */
+public class AtlasJanusScriptEnginePool {
+    private static final Logger LOG = LoggerFactory.getLogger(AtlasJanusScriptEnginePool.class);
+
+    public static final String METRIC_ENGINES_CREATED    = "scriptEnginesCreated";
+    public static final String METRIC_ENGINES_TRANSIENT  = "scriptEnginesTransient";
+    public static final String METRIC_ENGINES_IDLE       = "scriptEnginesIdle";
+    public static final String METRIC_CACHE_HITS         = "scriptCacheHits";
+    public static final String METRIC_CACHE_MISSES       = "scriptCacheMisses";
+    public static final String METRIC_CACHE_SIZE         = "scriptCacheSize";
+    public static final String METRIC_COMPILE_COUNT      = "scriptCompileCount";
+    public static final String METRIC_COMPILE_TIME_MS    = "scriptCompileTimeMs";
+
+    private final int                                                                     poolSize;
+    private final int                                                                     compiledScriptCacheSize;
+    private final BlockingQueue<GremlinGroovyScriptEngine>                                idleEngines;
+    private final ConcurrentMap<GremlinGroovyScriptEngine, Cache<String, CompiledScript>> pooledEngines    = new ConcurrentHashMap<>();
+    private final AtomicLong                                                              enginesCreated   = new AtomicLong();
+    private final AtomicLong                                                              enginesTransient = new AtomicLong();
+    private final AtomicLong                                                              cacheHits        = new AtomicLong();
+    private final AtomicLong                                                              cacheMisses      = new AtomicLong();
+    private final AtomicLong                                                              compileCount     = new AtomicLong();
+    private final AtomicLong                                                              compileTimeNanos = new AtomicLong();
+
+    /**
+     * @param poolSize                maximum number of engines kept for reuse
+     * @param compiledScriptCacheSize maximum number of compiled scripts cached by each pooled engine
+     */
+    public AtlasJanusScriptEnginePool(int poolSize, int compiledScriptCacheSize) {
+        this.poolSize                = Math.max(poolSize, 1);
+        this.compiledScriptCacheSize = Math.max(compiledScriptCacheSize, 0);
+        this.idleEngines             = new ArrayBlockingQueue<>(this.poolSize);
+
+        LOG.info("AtlasJanusScriptEnginePool(poolSize={}, compiledScriptCacheSize={})", this.poolSize, compiledScriptCacheSize);
+    }
+
+    public GremlinGroovyScriptEngine borrowEngine() {
+        GremlinGroovyScriptEngine ret = idleEngines.poll();
+
+        if (ret == null) {
+            ret = createEngine();
+
+            synchronized (pooledEngines) {
+                if (pooledEngines.size() < poolSize) {
+                    pooledEngines.put(ret, CacheBuilder.newBuilder().maximumSize(compiledScriptCacheSize).<String, CompiledScript>build());
+                } else {
+                    enginesTransient.incrementAndGet();
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    public void returnEngine(ScriptEngine scriptEngine) {
+        if (scriptEngine instanceof GremlinGroovyScriptEngine) {
+            GremlinGroovyScriptEngine engine = (GremlinGroovyScriptEngine) scriptEngine;
+
+            if (pooledEngines.containsKey(engine)) {
+                if (!idleEngines.offer(engine)) {
+                    LOG.warn("returnEngine(): engine already returned to the pool; ignoring");
+                }
+            } else {
+                try {
+                    engine.close();
+                } catch (Exception e) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    /**
+     * Evaluates the given query with the given engine, compiling it only the first time the engine sees it. Engines
+     * not owned by the pool evaluate the query directly, as caching their scripts would keep a closed engine reachable.
+     */
+    public Object eval(ScriptEngine scriptEngine, String query, Bindings bindings) throws ScriptException {
+        Cache<String, CompiledScript> compiledScripts = scriptEngine instanceof GremlinGroovyScriptEngine ? pooledEngines.get(scriptEngine) : null;
+
+        if (compiledScripts == null) {
+            return scriptEngine.eval(query, bindings);
+        }
+
+        CompiledScript compiledScript = compiledScripts.getIfPresent(query);
+
+        if (compiledScript != null) {
+            cacheHits.incrementAndGet();
+        } else {
+            cacheMisses.incrementAndGet();
+
+            compiledScript = compile((GremlinGroovyScriptEngine) scriptEngine, query);
+
+            compiledScripts.put(query, compiledScript);
+        }
+
+        return compiledScript.eval(bindings);
+    }
+
+    public Map<String, Number> getMetrics() {
+        Map<String, Number> ret = new LinkedHashMap<>();
+
+        ret.put(METRIC_ENGINES_CREATED, enginesCreated.get());
+        ret.put(METRIC_ENGINES_TRANSIENT, enginesTransient.get());
+        ret.put(METRIC_ENGINES_IDLE, idleEngines.size());
+        ret.put(METRIC_CACHE_HITS, cacheHits.get());
+        ret.put(METRIC_CACHE_MISSES, cacheMisses.get());
+        ret.put(METRIC_CACHE_SIZE, getCacheSize());
+        ret.put(METRIC_COMPILE_COUNT, compileCount.get());
+        ret.put(METRIC_COMPILE_TIME_MS, TimeUnit.NANOSECONDS.toMillis(compileTimeNanos.get()));
+
+        return ret;
+    }
+
+    public void close() {
+        for (Cache<String, CompiledScript> compiledScripts : pooledEngines.values()) {
+            compiledScripts.invalidateAll();
+        }
+
+        for (GremlinGroovyScriptEngine engine = idleEngines.poll(); engine != null; engine = idleEngines.poll()) {
+            try {
+                engine.close();
+            } catch (Exception e) {
+                // ignore
+            }
+        }
+
+        pooledEngines.clear();
+    }
+
+    private long getCacheSize() {
+        long ret = 0;
+
+        for (Cache<String, CompiledScript> compiledScripts : pooledEngines.values()) {
+            ret += compiledScripts.size();
+        }
+
+        return ret;
+    }
+
+    private CompiledScript compile(GremlinGroovyScriptEngine engine, String query) throws ScriptException {
+        long startTime = System.nanoTime();
+
+        try {
+            return engine.compile(query);
+        } finally {
+            compileCount.incrementAndGet();
+            compileTimeNanos.addAndGet(System.nanoTime() - startTime);
+        }
+    }
+
+    private GremlinGroovyScriptEngine createEngine() {
+        Set<String> extraImports = new HashSet<String>();
+        extraImports.add(java.util.function.Function.class.getName());
+
+        Set<String> extraStaticImports = new HashSet<String>();
+        extraStaticImports.add(P.class.getName() + ".*");
+        extraStaticImports.add(__.class.getName() + ".*");
+        CompilerCustomizerProvider provider = new DefaultImportCustomizerProvider(extraImports, extraStaticImports);
+
+        enginesCreated.incrementAndGet();
+
+        return new GremlinGroovyScriptEngine(provider);
+    }
+}
@@ -17,6 +17,8 @@
  */
 package org.apache.atlas.repository.graphdb.janus.query;
 
+import org.apache.atlas.SortOrder;
+import org.apache.tinkerpop.gremlin.process.traversal.Order;
 import org.apache.tinkerpop.gremlin.structure.Edge;
 import org.janusgraph.core.JanusGraphEdge;
 import org.janusgraph.core.JanusGraphQuery;
@@ -126,6 +128,11 @@ public class NativeJanusGraphQuery implements NativeTinkerpopGraphQuery<AtlasJan
         query.has(propertyName, pred, value);
     }
 
+    @Override
+    public void orderBy(String propertyName, SortOrder sortOrder) {
+        query.orderBy(propertyName, sortOrder == SortOrder.DESCENDING ? Order.decr : Order.incr);
+    }
+
     private Text getGremlinPredicate(MatchingOperator op) {
         switch (op) {
             case CONTAINS:
@@ -0,0 +1,103 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.graphdb.janus;
+
+import org.apache.tinkerpop.gremlin.groovy.jsr223.GremlinGroovyScriptEngine;
+import org.testng.annotations.Test;
+
+import javax.script.Bindings;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+
+public class AtlasJanusScriptEnginePoolTest {
+    @Test
+    public void testEngineIsReused() {
+        AtlasJanusScriptEnginePool pool = new AtlasJanusScriptEnginePool(1, 10);
+
+        GremlinGroovyScriptEngine engine1 = pool.borrowEngine();
+        GremlinGroovyScriptEngine engine2 = pool.borrowEngine();
+
+        assertNotSame(engine1, engine2);
+
+        pool.returnEngine(engine1);
+        pool.returnEngine(engine2);
+
+        assertSame(pool.borrowEngine(), engine1);
+
+        Map<String, Number> metrics = pool.getMetrics();
+
+        assertEquals(metrics.get(AtlasJanusScriptEnginePool.METRIC_ENGINES_CREATED).longValue(), 2);
+        assertEquals(metrics.get(AtlasJanusScriptEnginePool.METRIC_ENGINES_TRANSIENT).longValue(), 1);
+
+        pool.close();
+    }
+
+    @Test
+    public void testCompiledScriptIsCached() throws Exception {
+        AtlasJanusScriptEnginePool pool   = new AtlasJanusScriptEnginePool(2, 10);
+        GremlinGroovyScriptEngine  engine = pool.borrowEngine();
+
+        for (int i = 0; i < 5; i++) {
+            Bindings bindings = engine.createBindings();
+
+            bindings.put("x", i);
+
+            assertEquals(pool.eval(engine, "x * 2", bindings), i * 2);
+        }
+
+        pool.returnEngine(engine);
+
+        Map<String, Number> metrics = pool.getMetrics();
+
+        assertEquals(metrics.get(AtlasJanusScriptEnginePool.METRIC_CACHE_MISSES).longValue(), 1);
+        assertEquals(metrics.get(AtlasJanusScriptEnginePool.METRIC_CACHE_HITS).longValue(), 4);
+        assertEquals(metrics.get(AtlasJanusScriptEnginePool.METRIC_COMPILE_COUNT).longValue(), 1);
+
+        pool.close();
+    }
+
+    @Test
+    public void testCompiledScriptIsNotSharedAcrossEngines() throws Exception {
+        AtlasJanusScriptEnginePool pool            = new AtlasJanusScriptEnginePool(2, 10);
+        GremlinGroovyScriptEngine  engine1         = pool.borrowEngine();
+        GremlinGroovyScriptEngine  engine2         = pool.borrowEngine();
+        GremlinGroovyScriptEngine  transientEngine = pool.borrowEngine();
+
+        for (GremlinGroovyScriptEngine engine : new GremlinGroovyScriptEngine[] { engine1, engine2, engine1, transientEngine }) {
+            Bindings bindings = engine.createBindings();
+
+            bindings.put("x", 3);
+
+            assertEquals(pool.eval(engine, "x * 2", bindings), 6);
+        }
+
+        Map<String, Number> metrics = pool.getMetrics();
+
+        assertEquals(metrics.get(AtlasJanusScriptEnginePool.METRIC_COMPILE_COUNT).longValue(), 2, "compiled once by each pooled engine");
+        assertEquals(metrics.get(AtlasJanusScriptEnginePool.METRIC_CACHE_HITS).longValue(), 1);
+        assertEquals(metrics.get(AtlasJanusScriptEnginePool.METRIC_CACHE_SIZE).longValue(), 2);
+
+        pool.returnEngine(engine1);
+        pool.returnEngine(engine2);
+        pool.returnEngine(transientEngine);
+        pool.close();
+    }
+}
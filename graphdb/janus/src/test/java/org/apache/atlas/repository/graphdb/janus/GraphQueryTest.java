@@ -29,6 +29,7 @@ import java.util.Collection;
 import java.util.List;
 
 import org.apache.atlas.AtlasException;
+import org.apache.atlas.SortOrder;
 import org.apache.atlas.repository.graphdb.AtlasGraph;
 import org.apache.atlas.repository.graphdb.AtlasGraphQuery;
 import org.apache.atlas.repository.graphdb.AtlasGraphQuery.ComparisionOperator;
@@ -401,6 +402,40 @@ public class GraphQueryTest extends AbstractGraphDatabaseTest {
 
     }
 
+    @Test
+    public void testOrderByWithOr() throws AtlasException {
+        AtlasJanusGraph graph = getAtlasJanusGraph();
+
+        AtlasVertex<AtlasJanusVertex, AtlasJanusEdge> v1 = createVertex(graph);
+        v1.setProperty("typeName", "SortA");
+        v1.setProperty(WEIGHT_PROPERTY, 3);
+
+        AtlasVertex<AtlasJanusVertex, AtlasJanusEdge> v2 = createVertex(graph);
+        v2.setProperty("typeName", "SortB");
+        v2.setProperty(WEIGHT_PROPERTY, 5);
+
+        AtlasVertex<AtlasJanusVertex, AtlasJanusEdge> v3 = createVertex(graph);
+        v3.setProperty("typeName", "SortA");
+        v3.setProperty(WEIGHT_PROPERTY, 4);
+
+        AtlasVertex<AtlasJanusVertex, AtlasJanusEdge> v4 = createVertex(graph);
+        v4.setProperty("typeName", "SortB");
+        v4.setProperty(WEIGHT_PROPERTY, 1);
+
+        graph.commit();
+
+        AtlasGraphQuery q = getGraphQuery();
+        AtlasGraphQuery inner1 = q.createChildQuery();
+        AtlasGraphQuery inner2 = q.createChildQuery();
+        inner1.has("typeName", "SortA");
+        inner2.has("typeName", "SortB");
+        q.or(toList(inner1, inner2));
+        q.orderBy(WEIGHT_PROPERTY, SortOrder.DESCENDING);
+
+        assertEquals(Arrays.asList(v2, v3, v1, v4), toList(q.vertices()));
+        assertEquals(Arrays.asList(v3, v1), toList(q.vertices(1, 2)));
+    }
+
     private static <T> List<T> toList(Iterable<T> itr) {
         List<T> result = new ArrayList<T>();
         for(T object : itr) {
@@ -25,6 +25,7 @@ import com.thinkaurelius.titan.core.PropertyKey;
 import com.thinkaurelius.titan.core.SchemaViolationException;
 import com.thinkaurelius.titan.core.TitanGraph;
 import com.thinkaurelius.titan.core.TitanIndexQuery;
+import com.thinkaurelius.titan.core.TitanVertex;
 import com.thinkaurelius.titan.core.schema.TitanManagement;
 import com.thinkaurelius.titan.core.util.TitanCleanup;
 import com.tinkerpop.blueprints.Edge;
@@ -201,6 +202,24 @@ public class Titan0Graph implements AtlasGraph<Titan0Vertex, Titan0Edge> {
         return GraphDbObjectFactory.createVertex(this, v);
     }
 
+    @Override
+    public void preloadProperties(Collection<AtlasVertex<Titan0Vertex, Titan0Edge>> vertices) {
+        List<TitanVertex> titanVertices = new ArrayList<>(vertices.size());
+
+        for (AtlasVertex<Titan0Vertex, Titan0Edge> vertex : vertices) {
+            Vertex wrapped = vertex.getV().getWrappedElement();
+
+            if (wrapped instanceof TitanVertex) {
+                titanVertices.add((TitanVertex) wrapped);
+            }
+        }
+
+        if (!titanVertices.isEmpty()) {
+            // loaded properties are cached in the transaction
+            getGraph().multiQuery(titanVertices).properties();
+        }
+    }
+
     @Override
     public Iterable<AtlasVertex<Titan0Vertex, Titan0Edge>> getVertices(String key, Object value) {
 
@@ -275,6 +294,24 @@ public class Titan0Graph implements AtlasGraph<Titan0Vertex, Titan0Edge> {
         return convertGremlinScriptResult(isPath, result);
     }
 
+    @Override
+    public Object executeGremlinScript(String query, Map<String, Object> userBindings, boolean isPath) throws AtlasBaseException {
+        ScriptEngine engine = getGremlinScriptEngine();
+
+        try {
+            return executeGremlinScript(engine, userBindings, query, isPath);
+        } catch (ScriptException e) {
+            throw new AtlasBaseException(AtlasErrorCode.GREMLIN_SCRIPT_EXECUTION_FAILED, e, query);
+        } finally {
+            releaseGremlinScriptEngine(engine);
+        }
+    }
+
+    @Override
+    public Map<String, Number> getGremlinScriptMetrics() {
+        return Collections.emptyMap();
+    }
+
     private Object convertGremlinScriptResult(boolean isPath, Object result) {
         if (isPath) {
             List<Object> path = convertPathQueryResultToList(result);
@@ -339,7 +376,7 @@ public class Titan0Graph implements AtlasGraph<Titan0Vertex, Titan0Edge> {
 
             result = engine.eval(gremlinQuery, bindings);
         } catch (ScriptException e) {
-            throw new AtlasBaseException(AtlasErrorCode.GREMLIN_SCRIPT_EXECUTION_FAILED, gremlinQuery);
+            throw new AtlasBaseException(AtlasErrorCode.GREMLIN_SCRIPT_EXECUTION_FAILED, e, gremlinQuery);
         } finally {
             releaseGremlinScriptEngine(engine);
         }
@@ -21,12 +21,16 @@ import com.thinkaurelius.titan.core.Cardinality;
 import com.thinkaurelius.titan.core.EdgeLabel;
 import com.thinkaurelius.titan.core.PropertyKey;
 import com.thinkaurelius.titan.core.schema.PropertyKeyMaker;
+import com.thinkaurelius.titan.core.schema.SchemaAction;
+import com.thinkaurelius.titan.core.schema.SchemaStatus;
 import com.thinkaurelius.titan.core.schema.TitanGraphIndex;
 import com.thinkaurelius.titan.core.schema.TitanManagement;
 import com.tinkerpop.blueprints.Direction;
 import com.tinkerpop.blueprints.Edge;
 import com.tinkerpop.blueprints.Element;
 import com.tinkerpop.blueprints.Vertex;
+import org.apache.atlas.AtlasErrorCode;
+import org.apache.atlas.exception.AtlasBaseException;
 import org.apache.atlas.repository.graphdb.AtlasCardinality;
 import org.apache.atlas.repository.graphdb.AtlasEdgeDirection;
 import org.apache.atlas.repository.graphdb.AtlasEdgeLabel;
@@ -222,4 +226,44 @@ public class Titan0GraphManagement implements AtlasGraphManagement {
 
         return edgeLabel != null && management.getRelationIndex(edgeLabel, indexName) != null;
     }
+
+    /*
+     * Titan 0.5 can't wait for an index to be registered: values written before the index is registered, if any, are
+     * to be added by running TitanIndexRepair.
+     */
+    @Override
+    public void awaitIndexRegistered(String indexName) throws AtlasBaseException {
+        TitanGraphIndex index = getGraphIndexOrFail(indexName);
+
+        for (PropertyKey key : index.getFieldKeys()) {
+            if (index.getIndexStatus(key) == SchemaStatus.INSTALLED) {
+                LOG.warn("Index {} is not registered yet; values written before it is registered are to be added with TitanIndexRepair", indexName);
+
+                break;
+            }
+        }
+    }
+
+    @Override
+    public void enableIndex(String indexName) throws AtlasBaseException {
+        TitanGraphIndex index = getGraphIndexOrFail(indexName);
+
+        for (PropertyKey key : index.getFieldKeys()) {
+            if (index.getIndexStatus(key) == SchemaStatus.REGISTERED) {
+                management.updateIndex(index, SchemaAction.ENABLE_INDEX);
+
+                break;
+            }
+        }
+    }
+
+    private TitanGraphIndex getGraphIndexOrFail(String indexName) throws AtlasBaseException {
+        TitanGraphIndex ret = management.getGraphIndex(indexName);
+
+        if (ret == null) {
+            throw new AtlasBaseException(AtlasErrorCode.INTERNAL_ERROR, "index " + indexName + " not found");
+        }
+
+        return ret;
+    }
 }
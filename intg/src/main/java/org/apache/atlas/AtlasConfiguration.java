@@ -35,12 +35,68 @@ public enum AtlasConfiguration {
 
     NOTIFICATION_MESSAGE_MAX_LENGTH_BYTES("atlas.notification.message.max.length.bytes", (1000 * 1000)),
     NOTIFICATION_MESSAGE_COMPRESSION_ENABLED("atlas.notification.message.compression.enabled", true),
+    NOTIFICATION_MESSAGE_COMPACT_ENABLED("atlas.notification.message.compact.enabled", false),
+    NOTIFICATION_MESSAGE_COMPACT_COMPRESSION_LEVEL("atlas.notification.message.compact.compression.level", 1),
     NOTIFICATION_SPLIT_MESSAGE_SEGMENTS_WAIT_TIME_SECONDS("atlas.notification.split.message.segments.wait.time.seconds", 15 * 60),
     NOTIFICATION_SPLIT_MESSAGE_BUFFER_PURGE_INTERVAL_SECONDS("atlas.notification.split.message.buffer.purge.interval.seconds", 5 * 60),
 
+    //entity update lock configuration
+    ENTITY_LOCK_TIMEOUT_MS("atlas.entity.lock.timeout.ms", 0),
+
+    //entity change outbox configuration
+    ENTITY_CHANGE_OUTBOX_ENABLED("atlas.entity.change.outbox.enabled", false),
+    ENTITY_CHANGE_OUTBOX_DIR("atlas.entity.change.outbox.dir", ""),
+    ENTITY_CHANGE_OUTBOX_SYNC("atlas.entity.change.outbox.sync", false),
+    ENTITY_CHANGE_OUTBOX_SEGMENT_SIZE_BYTES("atlas.entity.change.outbox.segment.size.bytes", 64 * 1024 * 1024),
+    ENTITY_CHANGE_OUTBOX_BATCH_SIZE("atlas.entity.change.outbox.batch.size", 100),
+    ENTITY_CHANGE_OUTBOX_RETRY_INTERVAL_MS("atlas.entity.change.outbox.retry.interval.ms", 1000),
+    ENTITY_CHANGE_OUTBOX_MAX_RETRY_INTERVAL_MS("atlas.entity.change.outbox.max.retry.interval.ms", 60000),
+    ENTITY_CHANGE_OUTBOX_MAX_RETRIES("atlas.entity.change.outbox.max.retries", 10),
+
+    //metrics configuration
+    METRICS_INCREMENTAL_ENABLED("atlas.metrics.incremental.enabled", false),
+    METRICS_INCREMENTAL_DIR("atlas.metrics.incremental.dir", ""),
+    METRICS_INCREMENTAL_FLUSH_INTERVAL_MS("atlas.metrics.incremental.flush.interval.ms", 60000),
+    METRICS_RECONCILE_BATCH_SIZE("atlas.metrics.reconcile.batch.size", 1000),
+    METRICS_RECONCILE_BATCH_INTERVAL_MS("atlas.metrics.reconcile.batch.interval.ms", 100),
+
     //search configuration
     SEARCH_MAX_LIMIT("atlas.search.maxlimit", 10000),
-    SEARCH_DEFAULT_LIMIT("atlas.search.defaultlimit", 100);
+    SEARCH_DEFAULT_LIMIT("atlas.search.defaultlimit", 100),
+    SEARCH_STREAM_BATCH_SIZE("atlas.search.stream.batch.size", 100),
+    SEARCH_MAX_DURATION_MS("atlas.search.max.duration.ms", 300000),
+    SEARCH_SORT_BATCH_SIZE("atlas.search.sort.batch.size", 1000),
+    SEARCH_SORT_MAX_RESULTS("atlas.search.sort.max.results", 10000),
+    SAVED_SEARCH_MATERIALIZED_MAX_SEARCHES("atlas.search.saved.materialized.max.searches", 1000),
+    SAVED_SEARCH_MATERIALIZED_MAX_RESULTS("atlas.search.saved.materialized.max.results", 1000),
+    SAVED_SEARCH_MATERIALIZED_REFRESH_INTERVAL_MS("atlas.search.saved.materialized.refresh.interval.ms", 3600000),
+    SAVED_SEARCH_MATERIALIZED_MIN_REFRESH_INTERVAL_MS("atlas.search.saved.materialized.min.refresh.interval.ms", 300000),
+    SAVED_SEARCH_MATERIALIZED_REFRESH_PAUSE_MS("atlas.search.saved.materialized.refresh.pause.ms", 1000),
+    SEARCH_MAX_CONCURRENT_PER_USER("atlas.search.max.concurrent.per.user", 5),
+    SEARCH_QUEUE_TIMEOUT_MS("atlas.search.queue.timeout.ms", 30000),
+    FULLTEXT_ASYNC_ENABLED("atlas.search.fulltext.async.enabled", false),
+    FULLTEXT_ASYNC_BATCH_SIZE("atlas.search.fulltext.async.batch.size", 100),
+    FULLTEXT_ASYNC_CACHE_SIZE("atlas.search.fulltext.async.cache.size", 10000),
+    INDEX_BACKFILL_BATCH_SIZE("atlas.search.index.backfill.batch.size", 1000),
+    INDEX_BACKFILL_MAX_VERTICES_PER_SEC("atlas.search.index.backfill.max.vertices.per.sec", 1000),
+
+    //gremlin script execution configuration
+    GREMLIN_SCRIPT_ENGINE_POOL_SIZE("atlas.gremlin.script.engine.pool.size", 16),
+    GREMLIN_COMPILED_SCRIPT_CACHE_SIZE("atlas.gremlin.compiled.script.cache.size", 1000),
+
+    //import configuration
+    IMPORT_BATCH_SIZE("atlas.import.batch.size", 1),
+    IMPORT_ZIP_ENTITY_CACHE_SIZE("atlas.import.zip.entity.cache.size", 1000),
+
+    //export configuration
+    EXPORT_PARALLEL_THREADS("atlas.export.parallel.threads", Runtime.getRuntime().availableProcessors()),
+    EXPORT_PARALLEL_WRITE_QUEUE_SIZE("atlas.export.parallel.write.queue.size", 1000),
+
+    //lineage configuration
+    LINEAGE_NATIVE_TRAVERSAL_ENABLED("atlas.lineage.native.traversal.enabled", true),
+    LINEAGE_MAX_NODE_COUNT("atlas.lineage.max.node.count", 0),
+    LINEAGE_CACHE_SIZE("atlas.lineage.cache.size", 1000),
+    LINEAGE_CACHE_TTL_SECONDS("atlas.lineage.cache.ttl.seconds", 300);
 
     private static final Configuration APPLICATION_PROPERTIES;
 
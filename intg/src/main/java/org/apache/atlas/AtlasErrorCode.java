@@ -127,6 +127,7 @@ public enum AtlasErrorCode {
     CLASSIFICATION_NOT_ASSOCIATED_WITH_ENTITY(400, "ATLAS-400-00-06D", "Classification {0} is not associated with entity"),
     NO_CLASSIFICATIONS_FOUND_FOR_ENTITY(400, "ATLAS-400-00-06E", "No classifications associated with entity: {0}"),
     INVALID_CLASSIFICATION_PARAMS(400, "ATLAS-400-00-06F", "Invalid classification parameters passed for {0} operation for entity: {1}"),
+    INVALID_CONTINUATION_TOKEN(400, "ATLAS-400-00-070", "Invalid continuation token: {0}"),
 
     UNAUTHORIZED_ACCESS(403, "ATLAS-403-00-001", "{0} is not authorized to perform {1}"),
 
@@ -176,7 +177,12 @@ public enum AtlasErrorCode {
     HIVE_HOOK_METASTORE_BRIDGE(500, "ATLAS-500-00-011", "HiveHookMetaStoreBridge: {0}"),
     DATA_ACCESS_SAVE_FAILED(500, "ATLAS-500-00-012", "Save failed: {0}"),
     DATA_ACCESS_LOAD_FAILED(500, "ATLAS-500-00-013", "Load failed: {0}"),
-    ENTITY_NOTIFICATION_FAILED(500, "ATLAS-500-00-014", "Notification failed for operation: {} : {}");
+    ENTITY_NOTIFICATION_FAILED(500, "ATLAS-500-00-014", "Notification failed for operation: {} : {}"),
+
+    // All service unavailable errors go here
+    SEARCH_TIMED_OUT(503, "ATLAS-503-00-001", "Search did not complete within {0} ms"),
+    TOO_MANY_CONCURRENT_SEARCHES(503, "ATLAS-503-00-002", "Too many searches in progress for user {0}. Please try again"),
+    ENTITY_LOCK_TIMED_OUT(503, "ATLAS-503-00-003", "Failed to lock entity {0} within {1} ms; another update of the entity might be in progress. Please try again");
 
     private String errorCode;
     private String errorMessage;
@@ -52,6 +52,10 @@ public class AtlasSearchResult implements Serializable {
     private AttributeSearchResult          attributes;
     private List<AtlasFullTextResult>      fullTextResult;
     private Map<String, AtlasEntityHeader> referredEntities;
+    private String                         continuationToken;
+    private Long                           snapshotTime;
+    private Integer                        snapshotCount;
+    private Boolean                        snapshotTruncated;
 
     public AtlasSearchResult() {}
 
@@ -126,8 +130,38 @@ public class AtlasSearchResult implements Serializable {
         this.referredEntities = referredEntities;
     }
 
+    /**
+     * @return token to fetch the next page of a basic search; null when there are no more results
+     */
+    public String getContinuationToken() { return continuationToken; }
+
+    public void setContinuationToken(String continuationToken) { this.continuationToken = continuationToken; }
+
+    /**
+     * @return time, in ms, at which the results were computed - when served from the snapshot of a materialized saved
+     *         search; null otherwise
+     */
+    public Long getSnapshotTime() { return snapshotTime; }
+
+    public void setSnapshotTime(Long snapshotTime) { this.snapshotTime = snapshotTime; }
+
+    /**
+     * @return number of entities in the snapshot of a materialized saved search; null when not served from a snapshot
+     */
+    public Integer getSnapshotCount() { return snapshotCount; }
+
+    public void setSnapshotCount(Integer snapshotCount) { this.snapshotCount = snapshotCount; }
+
+    /**
+     * @return true if the snapshot of a materialized saved search holds only the first results of the search, hence
+     *         snapshotCount is a lower bound; null when not served from a snapshot
+     */
+    public Boolean getSnapshotTruncated() { return snapshotTruncated; }
+
+    public void setSnapshotTruncated(Boolean snapshotTruncated) { this.snapshotTruncated = snapshotTruncated; }
+
     @Override
-    public int hashCode() { return Objects.hash(queryType, searchParameters, queryText, type, classification, entities, attributes, fullTextResult, referredEntities); }
+    public int hashCode() { return Objects.hash(queryType, searchParameters, queryText, type, classification, entities, attributes, fullTextResult, referredEntities, continuationToken, snapshotTime, snapshotCount, snapshotTruncated); }
 
     @Override
     public boolean equals(Object o) {
@@ -142,7 +176,11 @@ public class AtlasSearchResult implements Serializable {
                Objects.equals(entities, that.entities) &&
                Objects.equals(attributes, that.attributes) &&
                Objects.equals(fullTextResult, that.fullTextResult) &&
-               Objects.equals(referredEntities, that.referredEntities);
+               Objects.equals(referredEntities, that.referredEntities) &&
+               Objects.equals(continuationToken, that.continuationToken) &&
+               Objects.equals(snapshotTime, that.snapshotTime) &&
+               Objects.equals(snapshotCount, that.snapshotCount) &&
+               Objects.equals(snapshotTruncated, that.snapshotTruncated);
     }
 
     public void addEntity(AtlasEntityHeader newEntity) {
@@ -184,6 +222,10 @@ public class AtlasSearchResult implements Serializable {
                 ", attributes=" + attributes +
                 ", fullTextResult=" + fullTextResult +
                 ", referredEntities=" + referredEntities +
+                ", continuationToken=" + continuationToken +
+                ", snapshotTime=" + snapshotTime +
+                ", snapshotCount=" + snapshotCount +
+                ", snapshotTruncated=" + snapshotTruncated +
                 '}';
     }
 
@@ -23,6 +23,7 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonValue;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.apache.atlas.SortOrder;
 
 import java.io.Serializable;
 import java.util.HashMap;
@@ -49,6 +50,10 @@ public class SearchParameters implements Serializable {
     private boolean includeSubClassifications       = true;
     private int     limit;
     private int     offset;
+    private String  continuationToken;
+
+    private String    sortBy;
+    private SortOrder sortOrder;
 
     private FilterCriteria entityFilters;
     private FilterCriteria tagFilters;
@@ -189,6 +194,51 @@ public class SearchParameters implements Serializable {
         this.offset = offset;
     }
 
+    /**
+     * @return Token, from the result of the previous page, to resume the search from
+     */
+    public String getContinuationToken() {
+        return continuationToken;
+    }
+
+    /**
+     * Resume the search after the results of the previous page; offset is ignored when a token is given
+     * @param continuationToken continuationToken of the previous search result
+     */
+    public void setContinuationToken(String continuationToken) {
+        this.continuationToken = continuationToken;
+    }
+
+    /**
+     * @return Attribute to sort the results on
+     */
+    public String getSortBy() {
+        return sortBy;
+    }
+
+    /**
+     * Sort the results on this attribute of the entities; entities without a value for the attribute are at the end
+     * @param sortBy name of the attribute
+     */
+    public void setSortBy(String sortBy) {
+        this.sortBy = sortBy;
+    }
+
+    /**
+     * @return Order to sort the results in; ascending if not specified
+     */
+    public SortOrder getSortOrder() {
+        return sortOrder;
+    }
+
+    /**
+     * Sort the results in this order
+     * @param sortOrder ascending or descending
+     */
+    public void setSortOrder(SortOrder sortOrder) {
+        this.sortOrder = sortOrder;
+    }
+
     /**
      * Entity attribute filters for the type (if type name is specified)
      * @return
@@ -246,6 +296,9 @@ public class SearchParameters implements Serializable {
                 includeClassificationAttributes == that.includeClassificationAttributes &&
                 limit == that.limit &&
                 offset == that.offset &&
+                Objects.equals(continuationToken, that.continuationToken) &&
+                Objects.equals(sortBy, that.sortBy) &&
+                sortOrder == that.sortOrder &&
                 Objects.equals(query, that.query) &&
                 Objects.equals(typeName, that.typeName) &&
                 Objects.equals(classification, that.classification) &&
@@ -257,7 +310,7 @@ public class SearchParameters implements Serializable {
     @Override
     public int hashCode() {
         return Objects.hash(query, typeName, classification, excludeDeletedEntities, includeClassificationAttributes, 
-                            limit, offset, entityFilters, tagFilters, attributes);
+                            limit, offset, continuationToken, sortBy, sortOrder, entityFilters, tagFilters, attributes);
     }
 
     public StringBuilder toString(StringBuilder sb) {
@@ -273,6 +326,9 @@ public class SearchParameters implements Serializable {
         sb.append(", includeClassificationAttributes=").append(includeClassificationAttributes);
         sb.append(", limit=").append(limit);
         sb.append(", offset=").append(offset);
+        sb.append(", continuationToken='").append(continuationToken).append('\'');
+        sb.append(", sortBy='").append(sortBy).append('\'');
+        sb.append(", sortOrder=").append(sortOrder);
         sb.append(", entityFilters=").append(entityFilters);
         sb.append(", tagFilters=").append(tagFilters);
         sb.append(", attributes=").append(attributes);
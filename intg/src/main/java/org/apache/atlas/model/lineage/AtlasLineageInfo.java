@@ -46,6 +46,7 @@ public class AtlasLineageInfo implements Serializable {
     private int                            lineageDepth;
     private Map<String, AtlasEntityHeader> guidEntityMap;
     private Set<LineageRelation>           relations;
+    private boolean                        truncated;
 
     public AtlasLineageInfo() {}
 
@@ -109,12 +110,24 @@ public class AtlasLineageInfo implements Serializable {
         this.lineageDepth = lineageDepth;
     }
 
+    /**
+     * @return true if the lineage was not fully retrieved, as the number of entities reached the configured maximum
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    public void setTruncated(boolean truncated) {
+        this.truncated = truncated;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         AtlasLineageInfo that = (AtlasLineageInfo) o;
         return lineageDepth == that.lineageDepth &&
+                truncated == that.truncated &&
                 Objects.equals(baseEntityGuid, that.baseEntityGuid) &&
                 lineageDirection == that.lineageDirection &&
                 Objects.equals(guidEntityMap, that.guidEntityMap) &&
@@ -123,7 +136,7 @@ public class AtlasLineageInfo implements Serializable {
 
     @Override
     public int hashCode() {
-        return Objects.hash(baseEntityGuid, lineageDirection, lineageDepth, guidEntityMap, relations);
+        return Objects.hash(baseEntityGuid, lineageDirection, lineageDepth, guidEntityMap, relations, truncated);
     }
 
     @Override
@@ -134,6 +147,7 @@ public class AtlasLineageInfo implements Serializable {
                 ", relations=" + relations +
                 ", lineageDirection=" + lineageDirection +
                 ", lineageDepth=" + lineageDepth +
+                ", truncated=" + truncated +
                 '}';
     }
 
@@ -20,10 +20,14 @@ package org.apache.atlas.model.notification;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 
 import org.apache.atlas.AtlasConfiguration;
+import org.apache.atlas.type.AtlasType;
 import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.binary.Base64InputStream;
+import org.apache.commons.codec.binary.Base64OutputStream;
 import org.apache.commons.codec.binary.StringUtils;
 import org.apache.commons.compress.utils.IOUtils;
 import org.slf4j.Logger;
@@ -35,8 +39,13 @@ import javax.xml.bind.annotation.XmlRootElement;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
 
 import static com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility.NONE;
 import static com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility.PUBLIC_ONLY;
@@ -52,12 +61,21 @@ public class AtlasNotificationBaseMessage {
 
     public static final int     MESSAGE_MAX_LENGTH_BYTES    = AtlasConfiguration.NOTIFICATION_MESSAGE_MAX_LENGTH_BYTES.getInt() - 512; // 512 bytes for envelop;
     public static final boolean MESSAGE_COMPRESSION_ENABLED = AtlasConfiguration.NOTIFICATION_MESSAGE_COMPRESSION_ENABLED.getBoolean();
+    public static final boolean MESSAGE_COMPACT_ENABLED     = AtlasConfiguration.NOTIFICATION_MESSAGE_COMPACT_ENABLED.getBoolean();
+    public static final int     MESSAGE_COMPACT_LEVEL       = getValidCompressionLevel(AtlasConfiguration.NOTIFICATION_MESSAGE_COMPACT_COMPRESSION_LEVEL.getInt());
 
     public enum CompressionKind { NONE, GZIP };
 
+    /**
+     * JSON:    message is the JSON of AtlasNotificationMessage; large messages are compressed (gzip) and/or split
+     * COMPACT: message is the deflated JSON of AtlasNotificationMessage, base64 encoded; large messages are split
+     */
+    public enum MessageFormat { JSON, COMPACT };
+
     private MessageVersion  version            = null;
     private String          msgId              = null;
     private CompressionKind msgCompressionKind = CompressionKind.NONE;
+    private MessageFormat   msgFormat          = null; // null for JSON, to keep JSON messages readable by older consumers
     private int             msgSplitIdx        = 1;
     private int             msgSplitCount      = 1;
 
@@ -107,6 +125,14 @@ public class AtlasNotificationBaseMessage {
         this.msgCompressionKind = msgCompressionKind;
     }
 
+    public MessageFormat getMsgFormat() {
+        return msgFormat;
+    }
+
+    public void setMsgFormat(MessageFormat msgFormat) {
+        this.msgFormat = msgFormat;
+    }
+
     public int getMsgSplitIdx() {
         return msgSplitIdx;
     }
@@ -160,6 +186,63 @@ public class AtlasNotificationBaseMessage {
         return gzipUncompress(decodeBase64(bytes));
     }
 
+    /**
+     * Serialize the given object into the compact format: the JSON is written directly to the compressor, and the
+     * compressed bytes directly to the base64 encoder - without intermediate copies of the message.
+     *
+     * @return base64 encoded bytes
+     */
+    public static byte[] compactEncode(Object obj) {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        Deflater              deflater              = new Deflater(MESSAGE_COMPACT_LEVEL);
+
+        try (OutputStream out = new DeflaterOutputStream(new Base64OutputStream(byteArrayOutputStream, true, 0, null), deflater)) {
+            AtlasType.toV1Json(obj, out);
+        } catch (IOException e) {
+            LOG.error("compactEncode(): error encoding message", e);
+
+            throw new RuntimeException(e);
+        } finally {
+            deflater.end();
+        }
+
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    /**
+     * Deserialize the given message in compact format.
+     *
+     * @throws RuntimeException if the message is not valid
+     */
+    public static <T> T compactDecode(byte[] encodedBytes, TypeReference<T> type) {
+        try (InputStream in = new InflaterInputStream(new Base64InputStream(new ByteArrayInputStream(encodedBytes)))) {
+            return AtlasType.fromV1Json(in, type);
+        } catch (IOException e) {
+            LOG.error("compactDecode(): error decoding {} bytes", encodedBytes.length, e);
+
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @return the given compression level, within the levels supported by Deflater: 0 to 9, or -1 for its default
+     */
+    public static int getValidCompressionLevel(int level) {
+        int ret = level;
+
+        if (level > Deflater.BEST_COMPRESSION) {
+            ret = Deflater.BEST_COMPRESSION;
+        } else if (level < Deflater.NO_COMPRESSION) {
+            ret = Deflater.DEFAULT_COMPRESSION;
+        }
+
+        if (ret != level) {
+            LOG.warn("invalid compression level {}; using {}", level, ret);
+        }
+
+        return ret;
+    }
+
     public static String gzipCompress(String str) {
         byte[] bytes           = getBytesUtf8(str);
         byte[] compressedBytes = gzipCompress(bytes);
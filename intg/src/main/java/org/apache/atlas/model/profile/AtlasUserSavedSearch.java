@@ -50,6 +50,7 @@ public class AtlasUserSavedSearch extends AtlasBaseModelObject implements Serial
     private SavedSearchType  searchType;
     private SearchParameters searchParameters;
     private String uiParameters;
+    private boolean          materialized;
 
 
     public AtlasUserSavedSearch() {
@@ -117,6 +118,17 @@ public class AtlasUserSavedSearch extends AtlasBaseModelObject implements Serial
         this.uiParameters = uiParameters;
     }
 
+    /**
+     * @return true if the results of this search are kept in a snapshot, refreshed in the background, and served from it
+     */
+    public boolean getMaterialized() {
+        return materialized;
+    }
+
+    public void setMaterialized(boolean materialized) {
+        this.materialized = materialized;
+    }
+
     @Override
     public StringBuilder toString(StringBuilder sb) {
         sb.append(", ownerName=").append(ownerName);
@@ -130,6 +142,7 @@ public class AtlasUserSavedSearch extends AtlasBaseModelObject implements Serial
         }
 
         sb.append(", uiParameters=").append(uiParameters);
+        sb.append(", materialized=").append(materialized);
 
         return sb;
     }
@@ -27,6 +27,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Objects;
 
@@ -150,4 +152,12 @@ public abstract class AtlasType {
     public static <T> T fromV1Json(String jsonStr, TypeReference<T> type) {
         return AtlasJson.fromV1Json(jsonStr, type);
     }
+
+    public static void toV1Json(Object obj, OutputStream outputStream) throws IOException {
+        AtlasJson.toV1Json(obj, outputStream);
+    }
+
+    public static <T> T fromV1Json(InputStream inputStream, TypeReference<T> type) throws IOException {
+        return AtlasJson.fromV1Json(inputStream, type);
+    }
 }
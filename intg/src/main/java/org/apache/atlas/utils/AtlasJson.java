@@ -47,6 +47,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.text.DateFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
@@ -183,6 +184,24 @@ public class AtlasJson {
         return fromJson(jsonStr, type);
     }
 
+    public static void toV1Json(Object obj, OutputStream outputStream) throws IOException {
+        mapper.writeValue(outputStream, obj);
+    }
+
+    public static <T> T fromV1Json(InputStream inputStream, TypeReference<T> type) throws IOException {
+        T ret = null;
+
+        if (inputStream != null) {
+            ret = mapper.readValue(inputStream, type);
+
+            if (ret instanceof Struct) {
+                ((Struct) ret).normalize();
+            }
+        }
+
+        return ret;
+    }
+
     public static String toV1SearchJson(Object obj) {
         String ret;
         try {
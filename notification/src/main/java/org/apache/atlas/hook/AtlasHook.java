@@ -36,6 +36,10 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
 
 
 /**
@@ -52,7 +56,17 @@ public abstract class AtlasHook {
     private static boolean logFailedMessages;
     private static FailedMessagesLogger failedMessagesLogger;
     private static int notificationRetryInterval;
+    private static boolean asynchronousSend;
     public static final String ATLAS_NOTIFICATION_RETRY_INTERVAL = "atlas.notification.hook.retry.interval";
+    public static final String ATLAS_NOTIFICATION_ASYNCHRONOUS   = "atlas.notification.hook.asynchronous";
+
+    // per-hook buffer configuration, prefixed with the configuration prefix of the hook, like atlas.hook.hive.
+    public static final String HOOK_BUFFER_ENABLED                  = "buffer.enabled";
+    public static final String HOOK_BUFFER_MAX_MESSAGES             = "buffer.max.messages";
+    public static final String HOOK_BUFFER_MAX_ENTITIES_PER_MESSAGE = "buffer.max.entities.per.message";
+    public static final String HOOK_BUFFER_FLUSH_INTERVAL_MS        = "buffer.flush.interval.ms";
+
+    private static final Map<String, HookNotificationBuffer> notificationBuffers = new ConcurrentHashMap<>();
 
     public static final String ATLAS_NOTIFICATION_FAILED_MESSAGES_FILENAME_KEY =
             "atlas.notification.failed.messages.filename";
@@ -82,6 +96,7 @@ public abstract class AtlasHook {
         }
 
         notificationRetryInterval = atlasProperties.getInt(ATLAS_NOTIFICATION_RETRY_INTERVAL, 1000);
+        asynchronousSend = atlasProperties.getBoolean(ATLAS_NOTIFICATION_ASYNCHRONOUS, false);
         notificationInterface = NotificationProvider.get();
 
         String currentUser = "";
@@ -94,11 +109,32 @@ public abstract class AtlasHook {
 
         notificationInterface.setCurrentUser(currentUser);
 
+        Runtime.getRuntime().addShutdownHook(new Thread("atlas-hook-buffer-shutdown") {
+            @Override
+            public void run() {
+                for (HookNotificationBuffer buffer : notificationBuffers.values()) {
+                    try {
+                        buffer.close();
+                    } catch (Throwable t) {
+                        LOG.warn("Failed to flush buffered hook notifications", t);
+                    }
+                }
+            }
+        });
+
         LOG.info("Created Atlas Hook");
     }
 
     protected abstract String getNumberOfRetriesPropertyKey();
 
+    /**
+     * @return prefix of the configuration properties of the hook, like atlas.hook.hive.; null if the hook has none,
+     * in which case notifications of the hook are not buffered
+     */
+    protected String getConfigPrefix() {
+        return null;
+    }
+
     protected void notifyEntities(String user, List<Referenceable> entities) {
         List<HookNotification> hookNotifications = new ArrayList<>();
         hookNotifications.add(new EntityCreateRequest(user, entities));
@@ -115,7 +151,81 @@ public abstract class AtlasHook {
      * @param maxRetries maximum number of retries while sending message to messaging system
      */
     public static void notifyEntities(List<HookNotification> messages, int maxRetries) {
-        notifyEntitiesInternal(messages, maxRetries, notificationInterface, logFailedMessages, failedMessagesLogger);
+        if (asynchronousSend) {
+            notifyEntitiesAsync(messages, notificationInterface, logFailedMessages, failedMessagesLogger);
+        } else {
+            notifyEntitiesInternal(messages, maxRetries, notificationInterface, logFailedMessages, failedMessagesLogger);
+        }
+    }
+
+    /**
+     * Notify atlas of the entities through the notification buffer of the hook, if buffering is enabled for the hook
+     * i.e. if property &lt;configPrefix&gt;buffer.enabled is true. Otherwise, messages are sent immediately.
+     *
+     * @param configPrefix prefix of the configuration properties of the hook
+     * @param messages     hook notification messages
+     * @param maxRetries   maximum number of retries while sending message to messaging system
+     */
+    public static void notifyEntities(String configPrefix, List<HookNotification> messages, int maxRetries) {
+        HookNotificationBuffer buffer = getNotificationBuffer(configPrefix, maxRetries);
+
+        if (buffer != null) {
+            buffer.add(messages);
+        } else {
+            notifyEntities(messages, maxRetries);
+        }
+    }
+
+    /**
+     * @return notification buffer of the hook with the given configuration prefix; null if the hook doesn't buffer
+     * notifications, or hasn't sent any yet
+     */
+    public static HookNotificationBuffer getNotificationBuffer(String configPrefix) {
+        return configPrefix != null ? notificationBuffers.get(configPrefix) : null;
+    }
+
+    private static HookNotificationBuffer getNotificationBuffer(String configPrefix, final int maxRetries) {
+        if (configPrefix == null || !atlasProperties.getBoolean(configPrefix + HOOK_BUFFER_ENABLED, false)) {
+            return null;
+        }
+
+        return notificationBuffers.computeIfAbsent(configPrefix, prefix ->
+                new HookNotificationBuffer(prefix,
+                                           atlasProperties.getInt(prefix + HOOK_BUFFER_MAX_MESSAGES, 100),
+                                           atlasProperties.getInt(prefix + HOOK_BUFFER_MAX_ENTITIES_PER_MESSAGE, 500),
+                                           atlasProperties.getLong(prefix + HOOK_BUFFER_FLUSH_INTERVAL_MS, 1000),
+                                           messages -> notifyEntities(messages, maxRetries)));
+    }
+
+    /**
+     * Sends the messages without waiting for them to be sent. Retries are left to the messaging system; messages
+     * that could not be sent are written to the failed messages log.
+     */
+    @VisibleForTesting
+    static void notifyEntitiesAsync(final List<HookNotification> messages, NotificationInterface notificationInterface,
+                                    final boolean shouldLogFailedMessages, final FailedMessagesLogger logger) {
+        if (messages == null || messages.isEmpty()) {
+            return;
+        }
+
+        notificationInterface.sendAsync(NotificationInterface.NotificationType.HOOK, messages).whenComplete(new BiConsumer<Void, Throwable>() {
+            @Override
+            public void accept(Void result, Throwable t) {
+                if (t == null) {
+                    return;
+                }
+
+                Throwable cause = (t instanceof CompletionException && t.getCause() != null) ? t.getCause() : t;
+
+                if (shouldLogFailedMessages && cause instanceof NotificationException) {
+                    for (String msg : ((NotificationException) cause).getFailedMessages()) {
+                        logger.log(msg);
+                    }
+                }
+
+                LOG.error("Failed to notify atlas for entity {}", messages, cause);
+            }
+        });
     }
 
     @VisibleForTesting
@@ -168,7 +278,7 @@ public abstract class AtlasHook {
      */
     protected void notifyEntities(List<HookNotification> messages) {
         final int maxRetries = atlasProperties.getInt(getNumberOfRetriesPropertyKey(), 3);
-        notifyEntities(messages, maxRetries);
+        notifyEntities(getConfigPrefix(), messages, maxRetries);
     }
 
     /**
@@ -0,0 +1,517 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.hook;
+
+import org.apache.atlas.AtlasClient;
+import org.apache.atlas.model.instance.AtlasEntity;
+import org.apache.atlas.model.instance.AtlasEntity.AtlasEntitiesWithExtInfo;
+import org.apache.atlas.model.instance.AtlasObjectId;
+import org.apache.atlas.model.notification.HookNotification;
+import org.apache.atlas.model.notification.HookNotification.EntityCreateRequestV2;
+import org.apache.atlas.model.notification.HookNotification.EntityDeleteRequestV2;
+import org.apache.atlas.model.notification.HookNotification.EntityPartialUpdateRequestV2;
+import org.apache.atlas.model.notification.HookNotification.EntityUpdateRequestV2;
+import org.apache.atlas.model.notification.HookNotification.HookNotificationType;
+import org.apache.atlas.notification.HookEntitiesMerger;
+import org.apache.atlas.v1.model.instance.Referenceable;
+import org.apache.atlas.v1.model.notification.HookNotificationV1.EntityCreateRequest;
+import org.apache.atlas.v1.model.notification.HookNotificationV1.EntityDeleteRequest;
+import org.apache.atlas.v1.model.notification.HookNotificationV1.EntityPartialUpdateRequest;
+import org.apache.atlas.v1.model.notification.HookNotificationV1.EntityUpdateRequest;
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.collections.MapUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Buffers the notifications of a hook, to send them in fewer, smaller messages.
+ *
+ * A create/update message that has the same entities as a buffered message is merged into that message in place, so
+ * that repeated updates of an entity are sent once; attributes of the later message are laid over those of the earlier,
+ * as when the messages are processed one at a time. A message is not replaced once a later message for any of its
+ * entities - like a partial update or a delete - is buffered, as that message would then be sent with a later state of
+ * the entity. On flush, consecutive create/update messages (v2) of a user are merged into one message. Other messages - partial
+ * updates, deletes - are sent as is, in the order received. Messages that fail to be sent are buffered again, ahead
+ * of the messages received since.
+ *
+ * The buffer is flushed when it reaches the configured number of messages, at the configured interval and when
+ * close() is called - from a JVM shutdown hook.
+ */
+public class HookNotificationBuffer {
+    private static final Logger LOG = LoggerFactory.getLogger(HookNotificationBuffer.class);
+
+    private final String                           name;
+    private final int                              maxMessages;
+    private final int                              maxEntitiesPerMessage;
+    private final Consumer<List<HookNotification>> sender;
+    private final ScheduledExecutorService         flushTimer;
+    private final Object                           flushLock          = new Object();
+    private final List<HookNotification>           pendingMessages    = new ArrayList<>();
+    private final Map<Object, Integer>             replaceableIndexes = new HashMap<>(); // message-key => index in pendingMessages
+    private final Map<String, Integer>             lastEntityIndexes  = new HashMap<>(); // entity-key => index of the last message for the entity
+    private final AtomicLong                       bufferedCount      = new AtomicLong();
+    private final AtomicLong                       coalescedCount     = new AtomicLong();
+    private final AtomicLong                       flushedCount       = new AtomicLong();
+
+    public HookNotificationBuffer(String name, int maxMessages, int maxEntitiesPerMessage, long flushIntervalMs, Consumer<List<HookNotification>> sender) {
+        this.name                  = name;
+        this.maxMessages           = Math.max(maxMessages, 1);
+        this.maxEntitiesPerMessage = Math.max(maxEntitiesPerMessage, 1);
+        this.sender                = sender;
+
+        if (flushIntervalMs > 0) {
+            flushTimer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread ret = new Thread(r, "atlas-hook-buffer-" + HookNotificationBuffer.this.name);
+
+                    ret.setDaemon(true);
+
+                    return ret;
+                }
+            });
+
+            flushTimer.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        flush();
+                    } catch (Throwable t) {
+                        LOG.warn("{}: failed to flush hook notifications", HookNotificationBuffer.this.name, t);
+                    }
+                }
+            }, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        } else {
+            flushTimer = null;
+        }
+
+        LOG.info("HookNotificationBuffer(name={}, maxMessages={}, maxEntitiesPerMessage={}, flushIntervalMs={})", name, maxMessages, maxEntitiesPerMessage, flushIntervalMs);
+    }
+
+    public void add(List<HookNotification> messages) {
+        if (CollectionUtils.isEmpty(messages)) {
+            return;
+        }
+
+        boolean isFull;
+
+        synchronized (pendingMessages) {
+            for (HookNotification message : messages) {
+                Object           key        = getMessageKey(message);
+                List<String>     entityKeys = getEntityKeys(message);
+                Integer          index      = key != null ? replaceableIndexes.get(key) : null;
+                HookNotification merged     = index != null && isReplaceable(index, entityKeys) ? mergeMessage(pendingMessages.get(index), message) : null;
+
+                if (merged != null) {
+                    pendingMessages.set(index, merged);
+
+                    for (String entityKey : entityKeys) {
+                        lastEntityIndexes.put(entityKey, index);
+                    }
+
+                    coalescedCount.incrementAndGet();
+                } else {
+                    appendMessage(message, key, entityKeys);
+                }
+            }
+
+            bufferedCount.addAndGet(messages.size());
+
+            isFull = pendingMessages.size() >= maxMessages;
+        }
+
+        if (isFull) {
+            flush();
+        }
+    }
+
+    public void flush() {
+        synchronized (flushLock) { // to send messages in order, when flushed from multiple threads
+            List<HookNotification> messages;
+
+            synchronized (pendingMessages) {
+                if (pendingMessages.isEmpty()) {
+                    return;
+                }
+
+                messages = new ArrayList<>(pendingMessages);
+
+                clearPendingMessages();
+            }
+
+            List<HookNotification> toSend = mergeMessages(messages);
+
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("{}: flushing {} buffered messages as {} messages", name, messages.size(), toSend.size());
+            }
+
+            try {
+                sender.accept(toSend);
+            } catch (RuntimeException excp) {
+                synchronized (pendingMessages) {
+                    List<HookNotification> received = new ArrayList<>(pendingMessages);
+
+                    clearPendingMessages();
+
+                    for (HookNotification message : messages) {
+                        appendMessage(message, getMessageKey(message), getEntityKeys(message));
+                    }
+
+                    for (HookNotification message : received) {
+                        appendMessage(message, getMessageKey(message), getEntityKeys(message));
+                    }
+                }
+
+                throw excp;
+            }
+
+            coalescedCount.addAndGet(messages.size() - toSend.size());
+            flushedCount.addAndGet(toSend.size());
+        }
+    }
+
+    public void close() {
+        if (flushTimer != null) {
+            flushTimer.shutdownNow();
+        }
+
+        flush();
+
+        LOG.info("{}: hook notifications buffered={}, coalesced={}, flushed={}", name, getBufferedCount(), getCoalescedCount(), getFlushedCount());
+    }
+
+    /**
+     * @return number of messages added to the buffer
+     */
+    public long getBufferedCount() {
+        return bufferedCount.get();
+    }
+
+    /**
+     * @return number of messages that were replaced by, or merged into, another message
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    /**
+     * @return number of messages sent
+     */
+    public long getFlushedCount() {
+        return flushedCount.get();
+    }
+
+    public int getPendingCount() {
+        synchronized (pendingMessages) {
+            return pendingMessages.size();
+        }
+    }
+
+    // a message can be replaced in place, at the given index, if no later message is buffered for the entities of the replacement
+    private boolean isReplaceable(int index, List<String> entityKeys) {
+        if (entityKeys == null) {
+            return false;
+        }
+
+        for (String entityKey : entityKeys) {
+            Integer lastIndex = lastEntityIndexes.get(entityKey);
+
+            if (lastIndex != null && lastIndex > index) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void appendMessage(HookNotification message, Object key, List<String> entityKeys) {
+        int index = pendingMessages.size();
+
+        pendingMessages.add(message);
+
+        if (entityKeys == null) { // entities of the message are not known: none of the earlier messages can be replaced
+            replaceableIndexes.clear();
+        } else {
+            for (String entityKey : entityKeys) {
+                lastEntityIndexes.put(entityKey, index);
+            }
+
+            if (key != null) {
+                replaceableIndexes.put(key, index);
+            }
+        }
+    }
+
+    private void clearPendingMessages() {
+        pendingMessages.clear();
+        replaceableIndexes.clear();
+        lastEntityIndexes.clear();
+    }
+
+    // merges consecutive create/update (v2) messages of a user, up to maxEntitiesPerMessage entities per message
+    private List<HookNotification> mergeMessages(List<HookNotification> messages) {
+        List<HookNotification> ret         = new ArrayList<>(messages.size());
+        List<HookNotification> toMerge     = new ArrayList<>();
+        int                    entityCount = 0;
+
+        for (HookNotification message : messages) {
+            AtlasEntitiesWithExtInfo entities = getEntitiesV2(message);
+
+            if (entities == null) {
+                addMerged(toMerge, ret);
+
+                ret.add(message);
+
+                entityCount = 0;
+
+                continue;
+            }
+
+            int msgEntityCount = getEntityCount(entities);
+
+            if (!toMerge.isEmpty() && (entityCount + msgEntityCount > maxEntitiesPerMessage || !toMerge.get(0).getUser().equals(message.getUser()))) {
+                addMerged(toMerge, ret);
+
+                entityCount = 0;
+            }
+
+            toMerge.add(message);
+
+            entityCount += msgEntityCount;
+        }
+
+        addMerged(toMerge, ret);
+
+        return ret;
+    }
+
+    private void addMerged(List<HookNotification> toMerge, List<HookNotification> messages) {
+        if (toMerge.size() == 1) {
+            messages.add(toMerge.get(0));
+        } else if (toMerge.size() > 1) {
+            HookEntitiesMerger merger   = new HookEntitiesMerger();
+            boolean            isCreate = true;
+
+            for (HookNotification message : toMerge) {
+                merger.add(getEntitiesV2(message));
+
+                isCreate = isCreate && message.getType() == HookNotificationType.ENTITY_CREATE_V2;
+            }
+
+            String user = toMerge.get(0).getUser();
+
+            messages.add(isCreate ? new EntityCreateRequestV2(user, merger.getMergedEntities()) : new EntityUpdateRequestV2(user, merger.getMergedEntities()));
+        }
+
+        toMerge.clear();
+    }
+
+    /**
+     * Merges a message into a buffered message with the same key, i.e. with the same entities in the same order.
+     *
+     * @return null if the messages can't be merged
+     */
+    private static HookNotification mergeMessage(HookNotification buffered, HookNotification message) {
+        HookNotification ret = null;
+
+        if (buffered instanceof EntityCreateRequest && message instanceof EntityCreateRequest) { // includes EntityUpdateRequest
+            List<Referenceable> bufferedEntities = ((EntityCreateRequest) buffered).getEntities();
+            List<Referenceable> entities         = ((EntityCreateRequest) message).getEntities();
+
+            if (bufferedEntities != null && entities != null && bufferedEntities.size() == entities.size()) {
+                List<Referenceable> mergedEntities = new ArrayList<>(entities.size());
+
+                for (int i = 0; i < entities.size(); i++) {
+                    mergedEntities.add(mergeEntity(bufferedEntities.get(i), entities.get(i)));
+                }
+
+                ret = message instanceof EntityUpdateRequest ? new EntityUpdateRequest(message.getUser(), mergedEntities)
+                                                             : new EntityCreateRequest(message.getUser(), mergedEntities);
+            }
+        } else {
+            AtlasEntitiesWithExtInfo bufferedEntities = getEntitiesV2(buffered);
+            AtlasEntitiesWithExtInfo entities         = getEntitiesV2(message);
+
+            if (bufferedEntities != null && entities != null) {
+                HookEntitiesMerger merger = new HookEntitiesMerger();
+
+                merger.add(bufferedEntities);
+                merger.add(entities);
+
+                ret = message instanceof EntityCreateRequestV2 ? new EntityCreateRequestV2(message.getUser(), merger.getMergedEntities())
+                                                               : new EntityUpdateRequestV2(message.getUser(), merger.getMergedEntities());
+            }
+        }
+
+        return ret;
+    }
+
+    // returns a new entity, with the values of the given entity laid over those of the buffered entity
+    private static Referenceable mergeEntity(Referenceable buffered, Referenceable entity) {
+        Referenceable       ret    = new Referenceable(entity);
+        Map<String, Object> values = new HashMap<>();
+
+        if (buffered.getValuesMap() != null) {
+            values.putAll(buffered.getValuesMap());
+        }
+
+        if (entity.getValuesMap() != null) {
+            values.putAll(entity.getValuesMap());
+        }
+
+        ret.setValues(values);
+
+        if (CollectionUtils.isEmpty(entity.getTraitNames()) && CollectionUtils.isNotEmpty(buffered.getTraitNames())) {
+            ret.setTraitNames(new ArrayList<>(buffered.getTraitNames()));
+            ret.setTraits(buffered.getTraits() != null ? new HashMap<>(buffered.getTraits()) : null);
+        }
+
+        return ret;
+    }
+
+    private static AtlasEntitiesWithExtInfo getEntitiesV2(HookNotification message) {
+        AtlasEntitiesWithExtInfo ret = null;
+
+        if (message instanceof EntityCreateRequestV2) {
+            ret = ((EntityCreateRequestV2) message).getEntities();
+        } else if (message instanceof EntityUpdateRequestV2) {
+            ret = ((EntityUpdateRequestV2) message).getEntities();
+        }
+
+        return (ret != null && ret.getEntities() != null) ? ret : null;
+    }
+
+    private static int getEntityCount(AtlasEntitiesWithExtInfo entities) {
+        return entities.getEntities().size() + (entities.getReferredEntities() != null ? entities.getReferredEntities().size() : 0);
+    }
+
+    /**
+     * Messages that carry the full state of the same entities, from the same user, have the same key; the latest of
+     * such messages supersedes the earlier ones.
+     *
+     * @return null for messages that must not be replaced
+     */
+    private static Object getMessageKey(HookNotification message) {
+        List<String> entityKeys = new ArrayList<>();
+
+        if (message instanceof EntityCreateRequest || message instanceof EntityUpdateRequest) {
+            List<Referenceable> entities = message instanceof EntityCreateRequest ? ((EntityCreateRequest) message).getEntities()
+                                                                                  : ((EntityUpdateRequest) message).getEntities();
+
+            if (entities != null) {
+                for (Referenceable entity : entities) {
+                    entityKeys.add(toEntityKey(entity.getTypeName(), entity.get(AtlasClient.REFERENCEABLE_ATTRIBUTE_NAME)));
+                }
+            }
+        } else {
+            AtlasEntitiesWithExtInfo entities = getEntitiesV2(message);
+
+            if (entities != null) {
+                for (AtlasEntity entity : entities.getEntities()) {
+                    entityKeys.add(toEntityKey(entity.getTypeName(), entity.getAttribute(AtlasClient.REFERENCEABLE_ATTRIBUTE_NAME)));
+                }
+            }
+        }
+
+        if (entityKeys.isEmpty() || entityKeys.contains(null)) {
+            return null;
+        }
+
+        return message.getUser() + "|" + String.join("|", entityKeys);
+    }
+
+    /**
+     * Entities of a message - including referred entities - are identified by their qualifiedName; the type is left
+     * out, as a partial update or a delete can refer to an entity by a super-type.
+     *
+     * @return null if any entity of the message can't be identified
+     */
+    private static List<String> getEntityKeys(HookNotification message) {
+        List<String> ret = new ArrayList<>();
+
+        if (message instanceof EntityCreateRequest) { // includes EntityUpdateRequest
+            List<Referenceable> entities = ((EntityCreateRequest) message).getEntities();
+
+            if (entities != null) {
+                for (Referenceable entity : entities) {
+                    ret.add(asString(entity.get(AtlasClient.REFERENCEABLE_ATTRIBUTE_NAME)));
+                }
+            }
+        } else if (message instanceof EntityPartialUpdateRequest) {
+            EntityPartialUpdateRequest request = (EntityPartialUpdateRequest) message;
+
+            ret.add(AtlasClient.REFERENCEABLE_ATTRIBUTE_NAME.equals(request.getAttribute()) ? request.getAttributeValue() : null);
+        } else if (message instanceof EntityDeleteRequest) {
+            EntityDeleteRequest request = (EntityDeleteRequest) message;
+
+            ret.add(AtlasClient.REFERENCEABLE_ATTRIBUTE_NAME.equals(request.getAttribute()) ? request.getAttributeValue() : null);
+        } else if (message instanceof EntityPartialUpdateRequestV2) {
+            ret.add(getQualifiedName(((EntityPartialUpdateRequestV2) message).getEntityId()));
+        } else if (message instanceof EntityDeleteRequestV2) {
+            List<AtlasObjectId> objectIds = ((EntityDeleteRequestV2) message).getEntities();
+
+            if (objectIds != null) {
+                for (AtlasObjectId objectId : objectIds) {
+                    ret.add(getQualifiedName(objectId));
+                }
+            }
+        } else {
+            AtlasEntitiesWithExtInfo entities = getEntitiesV2(message);
+
+            if (entities != null) {
+                addQualifiedNames(entities.getEntities(), ret);
+
+                if (MapUtils.isNotEmpty(entities.getReferredEntities())) {
+                    addQualifiedNames(entities.getReferredEntities().values(), ret);
+                }
+            }
+        }
+
+        return (ret.isEmpty() || ret.contains(null)) ? null : ret;
+    }
+
+    private static void addQualifiedNames(Collection<AtlasEntity> entities, List<String> qualifiedNames) {
+        for (AtlasEntity entity : entities) {
+            qualifiedNames.add(asString(entity.getAttribute(AtlasClient.REFERENCEABLE_ATTRIBUTE_NAME)));
+        }
+    }
+
+    private static String getQualifiedName(AtlasObjectId objectId) {
+        return (objectId != null && objectId.getUniqueAttributes() != null) ? asString(objectId.getUniqueAttributes().get(AtlasClient.REFERENCEABLE_ATTRIBUTE_NAME)) : null;
+    }
+
+    private static String asString(Object value) {
+        return value != null ? value.toString() : null;
+    }
+
+    private static String toEntityKey(String typeName, Object qualifiedName) {
+        return qualifiedName != null ? typeName + ":" + qualifiedName : null;
+    }
+}
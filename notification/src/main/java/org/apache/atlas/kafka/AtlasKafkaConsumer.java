@@ -25,13 +25,16 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetCommitCallback;
 
 /**
  * Kafka specific notification consumer.
@@ -100,6 +103,30 @@ public class AtlasKafkaConsumer<T> extends AbstractNotificationConsumer<T> {
         }
     }
 
+    @Override
+    public void commitAsync(Map<TopicPartition, Long> offsets) {
+        if (!autoCommitEnabled && !offsets.isEmpty()) {
+            Map<TopicPartition, OffsetAndMetadata> kafkaOffsets = new HashMap<>();
+
+            for (Map.Entry<TopicPartition, Long> entry : offsets.entrySet()) {
+                kafkaOffsets.put(entry.getKey(), new OffsetAndMetadata(entry.getValue()));
+            }
+
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("committing offsets asynchronously ==>> {}", kafkaOffsets);
+            }
+
+            kafkaConsumer.commitAsync(kafkaOffsets, new OffsetCommitCallback() {
+                @Override
+                public void onComplete(Map<TopicPartition, OffsetAndMetadata> offsets, Exception exception) {
+                    if (exception != null) {
+                        LOG.warn("failed to commit offsets {}", offsets, exception);
+                    }
+                }
+            });
+        }
+    }
+
     @Override
     public void close() {
         if (kafkaConsumer != null) {
@@ -28,6 +28,7 @@ import org.apache.commons.configuration.Configuration;
 import org.apache.commons.configuration.ConfigurationConverter;
 import org.apache.commons.lang.StringUtils;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.Callback;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
@@ -41,7 +42,10 @@ import org.springframework.stereotype.Component;
 
 import javax.inject.Inject;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Kafka specific access point to the Atlas notification framework.
@@ -54,8 +58,11 @@ public class KafkaNotification extends AbstractNotification implements Service {
     public    static final String PROPERTY_PREFIX            = "atlas.kafka";
     public    static final String ATLAS_HOOK_TOPIC           = "ATLAS_HOOK";
     public    static final String ATLAS_ENTITIES_TOPIC       = "ATLAS_ENTITIES";
+    public    static final String MAX_IN_FLIGHT_MESSAGES     = "atlas.notification.send.max.in.flight";
     protected static final String CONSUMER_GROUP_ID_PROPERTY = "group.id";
 
+    private static final int DEFAULT_MAX_IN_FLIGHT_MESSAGES = 1000;
+
     private static final Map<NotificationType, String> TOPIC_MAP = new HashMap<NotificationType, String>() {
         {
             put(NotificationType.HOOK, ATLAS_HOOK_TOPIC);
@@ -65,6 +72,7 @@ public class KafkaNotification extends AbstractNotification implements Service {
 
     private final Properties    properties;
     private final Long          pollTimeOutMs;
+    private final Semaphore     inFlightPermits;
     private       KafkaConsumer consumer;
     private       KafkaProducer producer;
 
@@ -101,6 +109,8 @@ public class KafkaNotification extends AbstractNotification implements Service {
         properties.put("enable.auto.commit", kafkaConf.getBoolean("enable.auto.commit", oldApiCommitEnableFlag));
         properties.put("session.timeout.ms", kafkaConf.getString("session.timeout.ms", "30000"));
 
+        inFlightPermits = new Semaphore(Math.max(applicationProperties.getInt(MAX_IN_FLIGHT_MESSAGES, DEFAULT_MAX_IN_FLIGHT_MESSAGES), 1));
+
         LOG.info("<== KafkaNotification()");
     }
 
@@ -110,8 +120,9 @@ public class KafkaNotification extends AbstractNotification implements Service {
 
         LOG.info("==> KafkaNotification()");
 
-        this.properties    = properties;
-        this.pollTimeOutMs = 1000L;
+        this.properties      = properties;
+        this.pollTimeOutMs   = 1000L;
+        this.inFlightPermits = new Semaphore(DEFAULT_MAX_IN_FLIGHT_MESSAGES);
 
         LOG.info("<== KafkaNotification()");
     }
@@ -175,20 +186,40 @@ public class KafkaNotification extends AbstractNotification implements Service {
     // ----- AbstractNotification --------------------------------------------
     @Override
     public void sendInternal(NotificationType type, List<String> messages) throws NotificationException {
+        sendInternal(type, messages, null);
+    }
+
+    @Override
+    protected void sendInternal(NotificationType type, List<String> messages, List<String> keys) throws NotificationException {
         if (producer == null) {
             createProducer();
         }
 
-        sendInternalToProducer(producer, type, messages);
+        sendInternalToProducer(producer, type, messages, keys);
+    }
+
+    @Override
+    protected CompletableFuture<Void> sendInternalAsync(NotificationType type, List<String> messages, List<String> keys) {
+        if (producer == null) {
+            createProducer();
+        }
+
+        return sendInternalToProducerAsync(producer, type, messages, keys);
     }
 
     @VisibleForTesting
     void sendInternalToProducer(Producer p, NotificationType type, List<String> messages) throws NotificationException {
+        sendInternalToProducer(p, type, messages, null);
+    }
+
+    @VisibleForTesting
+    void sendInternalToProducer(Producer p, NotificationType type, List<String> messages, List<String> keys) throws NotificationException {
         String               topic           = TOPIC_MAP.get(type);
         List<MessageContext> messageContexts = new ArrayList<>();
 
-        for (String message : messages) {
-            ProducerRecord record = new ProducerRecord(topic, message);
+        for (int i = 0; i < messages.size(); i++) {
+            String         message = messages.get(i);
+            ProducerRecord record  = new ProducerRecord(topic, getKey(keys, i), message);
 
             if (LOG.isDebugEnabled()) {
                 LOG.debug("Sending message for topic {}: {}", topic, message);
@@ -222,6 +253,57 @@ public class KafkaNotification extends AbstractNotification implements Service {
     }
 
 
+    /**
+     * Sends the messages without waiting for them to be acknowledged. The number of messages in flight is bounded:
+     * once the limit is reached, this call blocks until earlier messages are acknowledged.
+     */
+    @VisibleForTesting
+    CompletableFuture<Void> sendInternalToProducerAsync(Producer p, NotificationType type, List<String> messages, List<String> keys) {
+        String           topic   = TOPIC_MAP.get(type);
+        AsyncSendContext context = new AsyncSendContext(messages.size());
+
+        for (int i = 0; i < messages.size(); i++) {
+            final String message = messages.get(i);
+
+            try {
+                inFlightPermits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+
+                context.onComplete(message, e);
+
+                continue;
+            }
+
+            try {
+                ProducerRecord record = new ProducerRecord(topic, getKey(keys, i), message);
+
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Sending message asynchronously for topic {}: {}", topic, message);
+                }
+
+                p.send(record, new Callback() {
+                    @Override
+                    public void onCompletion(RecordMetadata metadata, Exception exception) {
+                        inFlightPermits.release();
+
+                        if (exception == null && LOG.isDebugEnabled()) {
+                            LOG.debug("Sent message for topic - {}, partition - {}, offset - {}", metadata.topic(), metadata.partition(), metadata.offset());
+                        }
+
+                        context.onComplete(message, exception);
+                    }
+                });
+            } catch (Exception e) { // send() fails without calling the callback, e.g. when metadata is not available
+                inFlightPermits.release();
+
+                context.onComplete(message, e);
+            }
+        }
+
+        return context.getFuture();
+    }
+
     public KafkaConsumer getKafkaConsumer(Properties consumerProperties, NotificationType type, boolean autoCommitEnabled) {
         if(this.consumer == null) {
             try {
@@ -268,6 +350,49 @@ public class KafkaNotification extends AbstractNotification implements Service {
         LOG.info("<== KafkaNotification.createProducer()");
     }
 
+    private static String getKey(List<String> keys, int index) {
+        return keys != null && index < keys.size() ? keys.get(index) : null;
+    }
+
+    private static class AsyncSendContext {
+        private final CompletableFuture<Void> future         = new CompletableFuture<>();
+        private final List<String>            failedMessages = new ArrayList<>();
+        private final AtomicInteger           pendingCount;
+        private       Exception               lastFailureException;
+
+        AsyncSendContext(int messageCount) {
+            this.pendingCount = new AtomicInteger(messageCount);
+
+            if (messageCount == 0) {
+                future.complete(null);
+            }
+        }
+
+        CompletableFuture<Void> getFuture() {
+            return future;
+        }
+
+        void onComplete(String message, Exception exception) {
+            if (exception != null) {
+                synchronized (this) {
+                    lastFailureException = exception;
+
+                    failedMessages.add(message);
+                }
+            }
+
+            if (pendingCount.decrementAndGet() == 0) {
+                synchronized (this) {
+                    if (lastFailureException != null) {
+                        future.completeExceptionally(new NotificationException(lastFailureException, failedMessages));
+                    } else {
+                        future.complete(null);
+                    }
+                }
+            }
+        }
+    }
+
     private class MessageContext {
         private final Future<RecordMetadata> future;
         private final String                 message;
@@ -18,13 +18,30 @@
 package org.apache.atlas.notification;
 
 import com.google.common.annotations.VisibleForTesting;
+import org.apache.atlas.AtlasClient;
 import org.apache.atlas.AtlasException;
+import org.apache.atlas.model.instance.AtlasEntity;
+import org.apache.atlas.model.instance.AtlasEntity.AtlasEntitiesWithExtInfo;
+import org.apache.atlas.model.instance.AtlasObjectId;
 import org.apache.atlas.model.notification.AtlasNotificationBaseMessage;
 import org.apache.atlas.model.notification.AtlasNotificationMessage;
 import org.apache.atlas.model.notification.AtlasNotificationStringMessage;
 import org.apache.atlas.model.notification.AtlasNotificationBaseMessage.CompressionKind;
+import org.apache.atlas.model.notification.AtlasNotificationBaseMessage.MessageFormat;
+import org.apache.atlas.model.notification.HookNotification;
+import org.apache.atlas.model.notification.HookNotification.EntityCreateRequestV2;
+import org.apache.atlas.model.notification.HookNotification.EntityDeleteRequestV2;
+import org.apache.atlas.model.notification.HookNotification.EntityPartialUpdateRequestV2;
+import org.apache.atlas.model.notification.HookNotification.EntityUpdateRequestV2;
 import org.apache.atlas.type.AtlasType;
 import org.apache.atlas.model.notification.MessageVersion;
+import org.apache.atlas.v1.model.instance.Referenceable;
+import org.apache.atlas.v1.model.notification.EntityNotificationV1;
+import org.apache.atlas.v1.model.notification.EntityNotificationV2;
+import org.apache.atlas.v1.model.notification.HookNotificationV1.EntityCreateRequest;
+import org.apache.atlas.v1.model.notification.HookNotificationV1.EntityDeleteRequest;
+import org.apache.atlas.v1.model.notification.HookNotificationV1.EntityPartialUpdateRequest;
+import org.apache.atlas.v1.model.notification.HookNotificationV1.EntityUpdateRequest;
 import org.apache.commons.configuration.Configuration;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
@@ -36,8 +53,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.apache.atlas.model.notification.AtlasNotificationBaseMessage.MESSAGE_COMPACT_ENABLED;
 import static org.apache.atlas.model.notification.AtlasNotificationBaseMessage.MESSAGE_COMPRESSION_ENABLED;
 import static org.apache.atlas.model.notification.AtlasNotificationBaseMessage.MESSAGE_MAX_LENGTH_BYTES;
 
@@ -55,6 +74,12 @@ public abstract class AbstractNotification implements NotificationInterface {
      */
     public static final MessageVersion CURRENT_MESSAGE_VERSION = new MessageVersion("1.0.0");
 
+    /**
+     * The version of messages in compact format. Consumers that don't support this version reject such messages,
+     * hence compact format should be enabled in producers only after all consumers are upgraded.
+     */
+    public static final MessageVersion COMPACT_MESSAGE_VERSION = MessageVersion.VERSION_1_1;
+
     public static final int MAX_BYTES_PER_CHAR = 4;  // each char can encode upto 4 bytes in UTF-8
 
     /**
@@ -81,12 +106,21 @@ public abstract class AbstractNotification implements NotificationInterface {
     @Override
     public <T> void send(NotificationType type, List<T> messages) throws NotificationException {
         List<String> strMessages = new ArrayList<>(messages.size());
+        List<String> msgKeys     = new ArrayList<>(messages.size());
 
-        for (int index = 0; index < messages.size(); index++) {
-            createNotificationMessages(messages.get(index), strMessages);
-        }
+        createNotificationMessages(messages, strMessages, msgKeys);
 
-        sendInternal(type, strMessages);
+        sendInternal(type, strMessages, msgKeys);
+    }
+
+    @Override
+    public <T> CompletableFuture<Void> sendAsync(NotificationType type, List<T> messages) {
+        List<String> strMessages = new ArrayList<>(messages.size());
+        List<String> msgKeys     = new ArrayList<>(messages.size());
+
+        createNotificationMessages(messages, strMessages, msgKeys);
+
+        return sendInternalAsync(type, strMessages, msgKeys);
     }
 
     @Override
@@ -110,6 +144,38 @@ public abstract class AbstractNotification implements NotificationInterface {
      */
     protected abstract void sendInternal(NotificationType type, List<String> messages) throws NotificationException;
 
+    /**
+     * Send the given messages, with the given keys. Implementations that support keyed messages should keep
+     * messages with the same key in order; by default, keys are ignored.
+     *
+     * @param type      the message type
+     * @param messages  the messages to send
+     * @param keys      key of each message; a key can be null
+     *
+     * @throws NotificationException if an error occurs while sending
+     */
+    protected void sendInternal(NotificationType type, List<String> messages, List<String> keys) throws NotificationException {
+        sendInternal(type, messages);
+    }
+
+    /**
+     * Send the given messages, with the given keys, without waiting for them to be sent. By default, messages
+     * are sent synchronously and the returned future is already complete.
+     */
+    protected CompletableFuture<Void> sendInternalAsync(NotificationType type, List<String> messages, List<String> keys) {
+        CompletableFuture<Void> ret = new CompletableFuture<>();
+
+        try {
+            sendInternal(type, messages, keys);
+
+            ret.complete(null);
+        } catch (NotificationException e) {
+            ret.completeExceptionally(e);
+        }
+
+        return ret;
+    }
+
 
     // ----- utility methods -------------------------------------------------
 
@@ -119,6 +185,102 @@ public abstract class AbstractNotification implements NotificationInterface {
         return AtlasType.toV1Json(notificationMsg);
     }
 
+    /**
+     * Key of the given message, used to keep messages for an entity in order: hook notifications are keyed by
+     * the qualifiedName (or guid) of the entity they affect, entity notifications by the guid of the entity.
+     * Messages with multiple entities are keyed by the first entity.
+     *
+     * @return null if the message doesn't refer to an entity
+     */
+    public static String getMessageKey(Object message) {
+        String ret = null;
+
+        if (message instanceof HookNotification) {
+            ret = getHookMessageKey((HookNotification) message);
+        } else if (message instanceof EntityNotificationV1) {
+            Referenceable entity = ((EntityNotificationV1) message).getEntity();
+
+            ret = (entity != null && entity.getId() != null) ? entity.getId()._getId() : null;
+        } else if (message instanceof EntityNotificationV2) {
+            AtlasEntity entity = ((EntityNotificationV2) message).getEntity();
+
+            ret = entity != null ? entity.getGuid() : null;
+        }
+
+        return ret;
+    }
+
+    private static String getHookMessageKey(HookNotification message) {
+        String ret = null;
+
+        if (message.getType() == null) {
+            return ret;
+        }
+
+        switch (message.getType()) {
+            case ENTITY_CREATE:
+            case ENTITY_FULL_UPDATE: {
+                List<Referenceable> entities = message instanceof EntityCreateRequest ? ((EntityCreateRequest) message).getEntities()
+                                                                                      : ((EntityUpdateRequest) message).getEntities();
+
+                if (entities != null && !entities.isEmpty()) {
+                    ret = toMessageKey(entities.get(0).get(AtlasClient.REFERENCEABLE_ATTRIBUTE_NAME), null);
+                }
+            }
+            break;
+
+            case ENTITY_PARTIAL_UPDATE:
+                ret = ((EntityPartialUpdateRequest) message).getAttributeValue();
+            break;
+
+            case ENTITY_DELETE:
+                ret = ((EntityDeleteRequest) message).getAttributeValue();
+            break;
+
+            case ENTITY_CREATE_V2:
+            case ENTITY_FULL_UPDATE_V2: {
+                AtlasEntitiesWithExtInfo entities = message instanceof EntityCreateRequestV2 ? ((EntityCreateRequestV2) message).getEntities()
+                                                                                             : ((EntityUpdateRequestV2) message).getEntities();
+
+                if (entities != null && entities.getEntities() != null && !entities.getEntities().isEmpty()) {
+                    AtlasEntity entity = entities.getEntities().get(0);
+
+                    ret = toMessageKey(entity.getAttribute(AtlasClient.REFERENCEABLE_ATTRIBUTE_NAME), entity.getGuid());
+                }
+            }
+            break;
+
+            case ENTITY_PARTIAL_UPDATE_V2:
+                ret = toMessageKey(((EntityPartialUpdateRequestV2) message).getEntityId());
+            break;
+
+            case ENTITY_DELETE_V2: {
+                List<AtlasObjectId> entities = ((EntityDeleteRequestV2) message).getEntities();
+
+                if (entities != null && !entities.isEmpty()) {
+                    ret = toMessageKey(entities.get(0));
+                }
+            }
+            break;
+        }
+
+        return ret;
+    }
+
+    private static String toMessageKey(AtlasObjectId objectId) {
+        if (objectId == null) {
+            return null;
+        }
+
+        Object qualifiedName = objectId.getUniqueAttributes() != null ? objectId.getUniqueAttributes().get(AtlasClient.REFERENCEABLE_ATTRIBUTE_NAME) : null;
+
+        return toMessageKey(qualifiedName, objectId.getGuid());
+    }
+
+    private static String toMessageKey(Object qualifiedName, String guid) {
+        return qualifiedName != null ? qualifiedName.toString() : guid;
+    }
+
     private static String getHostAddress() {
         if (StringUtils.isEmpty(localHostAddress)) {
             try {
@@ -145,8 +307,19 @@ public abstract class AbstractNotification implements NotificationInterface {
      * @return the message as a JSON string
      */
     public static void createNotificationMessages(Object message, List<String> msgJsonList) {
+        createNotificationMessages(message, msgJsonList, MESSAGE_COMPACT_ENABLED ? MessageFormat.COMPACT : MessageFormat.JSON);
+    }
+
+    public static void createNotificationMessages(Object message, List<String> msgJsonList, MessageFormat msgFormat) {
         AtlasNotificationMessage<?> notificationMsg = new AtlasNotificationMessage<>(CURRENT_MESSAGE_VERSION, message, getHostAddress(), getCurrentUser());
-        String                      msgJson         = AtlasType.toV1Json(notificationMsg);
+
+        if (msgFormat == MessageFormat.COMPACT) {
+            createCompactNotificationMessages(notificationMsg, msgJsonList);
+
+            return;
+        }
+
+        String msgJson = AtlasType.toV1Json(notificationMsg);
 
         boolean msgLengthExceedsLimit = (msgJson.length() * MAX_BYTES_PER_CHAR) > MESSAGE_MAX_LENGTH_BYTES;
 
@@ -182,35 +355,78 @@ public abstract class AbstractNotification implements NotificationInterface {
                 if (msgLengthExceedsLimit) {
                     // compressed messages are already base64-encoded
                     byte[] encodedBytes = MESSAGE_COMPRESSION_ENABLED ? msgBytes : AtlasNotificationBaseMessage.encodeBase64(msgBytes);
-                    int    splitCount   = encodedBytes.length / MESSAGE_MAX_LENGTH_BYTES;
 
-                    if ((encodedBytes.length % MESSAGE_MAX_LENGTH_BYTES) != 0) {
-                        splitCount++;
-                    }
+                    createSplitMessages(encodedBytes, msgId, compressionKind, null, msgJsonList);
+                }
+            }
+        }
 
-                    for (int i = 0, offset = 0; i < splitCount; i++) {
-                        int length = MESSAGE_MAX_LENGTH_BYTES;
+        if (!msgLengthExceedsLimit) {
+            msgJsonList.add(msgJson);
+        }
+    }
 
-                        if ((offset + length) > encodedBytes.length) {
-                            length = encodedBytes.length - offset;
-                        }
+    /*
+     * Compact format: the message is written to deflated, base64 encoded bytes in one pass - see
+     * AtlasNotificationBaseMessage.compactEncode(). The envelope carries COMPACT_MESSAGE_VERSION, so that a consumer
+     * that doesn't support this format rejects the message with a version mismatch error.
+     */
+    private static void createCompactNotificationMessages(AtlasNotificationMessage<?> notificationMsg, List<String> msgJsonList) {
+        byte[] encodedBytes = AtlasNotificationBaseMessage.compactEncode(notificationMsg);
 
-                        AtlasNotificationStringMessage splitMsg = new AtlasNotificationStringMessage(encodedBytes, offset, length, msgId, compressionKind, i, splitCount);
+        if (encodedBytes.length <= MESSAGE_MAX_LENGTH_BYTES) {
+            AtlasNotificationStringMessage compactMsg = new AtlasNotificationStringMessage(encodedBytes, null, CompressionKind.NONE);
 
-                        String splitMsgJson = AtlasType.toV1Json(splitMsg);
+            compactMsg.setVersion(COMPACT_MESSAGE_VERSION);
+            compactMsg.setMsgFormat(MessageFormat.COMPACT);
 
-                        msgJsonList.add(splitMsgJson);
+            msgJsonList.add(AtlasType.toV1Json(compactMsg));
+        } else {
+            createSplitMessages(encodedBytes, getNextMessageId(), CompressionKind.NONE, MessageFormat.COMPACT, msgJsonList);
+        }
+    }
 
-                        offset += length;
-                    }
+    private static void createSplitMessages(byte[] encodedBytes, String msgId, CompressionKind compressionKind, MessageFormat msgFormat, List<String> msgJsonList) {
+        int splitCount = encodedBytes.length / MESSAGE_MAX_LENGTH_BYTES;
 
-                    LOG.info("Split large message: msgID={}, splitCount={}, length={} bytes", msgId, splitCount, encodedBytes.length);
-                }
+        if ((encodedBytes.length % MESSAGE_MAX_LENGTH_BYTES) != 0) {
+            splitCount++;
+        }
+
+        for (int i = 0, offset = 0; i < splitCount; i++) {
+            int length = MESSAGE_MAX_LENGTH_BYTES;
+
+            if ((offset + length) > encodedBytes.length) {
+                length = encodedBytes.length - offset;
             }
+
+            AtlasNotificationStringMessage splitMsg = new AtlasNotificationStringMessage(encodedBytes, offset, length, msgId, compressionKind, i, splitCount);
+
+            if (msgFormat == MessageFormat.COMPACT) {
+                splitMsg.setVersion(COMPACT_MESSAGE_VERSION);
+                splitMsg.setMsgFormat(msgFormat);
+            }
+
+            String splitMsgJson = AtlasType.toV1Json(splitMsg);
+
+            msgJsonList.add(splitMsgJson);
+
+            offset += length;
         }
 
-        if (!msgLengthExceedsLimit) {
-            msgJsonList.add(msgJson);
+        LOG.info("Split large message: msgID={}, splitCount={}, length={} bytes", msgId, splitCount, encodedBytes.length);
+    }
+
+    private static <T> void createNotificationMessages(List<T> messages, List<String> msgJsonList, List<String> msgKeys) {
+        for (T message : messages) {
+            String msgKey = getMessageKey(message);
+
+            createNotificationMessages(message, msgJsonList);
+
+            // parts of a split message get the same key, so that they are kept together and in order
+            while (msgKeys.size() < msgJsonList.size()) {
+                msgKeys.add(msgKey);
+            }
         }
     }
 
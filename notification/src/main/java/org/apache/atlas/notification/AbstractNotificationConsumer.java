@@ -19,6 +19,8 @@ package org.apache.atlas.notification;
 
 import org.apache.kafka.common.TopicPartition;
 
+import java.util.Map;
+
 
 /**
  * Abstract notification consumer.
@@ -31,4 +33,11 @@ public abstract class AbstractNotificationConsumer<T> implements NotificationCon
     }
 
     public abstract void commit(TopicPartition partition, long offset);
+
+    @Override
+    public void commitAsync(Map<TopicPartition, Long> offsets) {
+        for (Map.Entry<TopicPartition, Long> entry : offsets.entrySet()) {
+            commit(entry.getKey(), entry.getValue());
+        }
+    }
 }
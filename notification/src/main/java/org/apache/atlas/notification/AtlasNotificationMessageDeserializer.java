@@ -22,6 +22,7 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.google.common.annotations.VisibleForTesting;
 import org.apache.atlas.model.notification.AtlasNotificationBaseMessage;
 import org.apache.atlas.model.notification.AtlasNotificationBaseMessage.CompressionKind;
+import org.apache.atlas.model.notification.AtlasNotificationBaseMessage.MessageFormat;
 import org.apache.atlas.model.notification.AtlasNotificationMessage;
 import org.apache.atlas.model.notification.AtlasNotificationStringMessage;
 import org.apache.atlas.type.AtlasType;
@@ -113,7 +114,8 @@ public abstract class AtlasNotificationMessageDeserializer<T> implements Message
         if (msg == null || msg.getVersion() == null) { // older style messages not wrapped with AtlasNotificationMessage
             ret = AtlasType.fromV1Json(messageJson, messageType);
         } else  {
-            String msgJson = messageJson;
+            String msgJson        = messageJson;
+            byte[] compactPayload = null; // set for messages in compact format
 
             if (msg.getMsgSplitCount() > 1) { // multi-part message
                 AtlasNotificationStringMessage splitMsg = AtlasType.fromV1Json(msgJson, AtlasNotificationStringMessage.class);
@@ -177,7 +179,12 @@ public abstract class AtlasNotificationMessageDeserializer<T> implements Message
                             if (isValidMessage) {
                                 msgJson = sb.toString();
 
-                                if (CompressionKind.GZIP.equals(splitMsg.getMsgCompressionKind())) {
+                                if (MessageFormat.COMPACT.equals(splitMsg.getMsgFormat())) {
+                                    compactPayload = AtlasNotificationBaseMessage.getBytesUtf8(msgJson);
+                                    msgJson        = messageJson;
+
+                                    LOG.info("Received msgID={}: splitCount={}, compact={} bytes", msgId, splitCount, compactPayload.length);
+                                } else if (CompressionKind.GZIP.equals(splitMsg.getMsgCompressionKind())) {
                                     byte[] encodedBytes = AtlasNotificationBaseMessage.getBytesUtf8(msgJson);
                                     byte[] bytes        = AtlasNotificationBaseMessage.decodeBase64AndGzipUncompress(encodedBytes);
 
@@ -193,7 +200,7 @@ public abstract class AtlasNotificationMessageDeserializer<T> implements Message
                                     LOG.info("Received msgID={}: splitCount={}, length={} bytes", msgId, splitCount, bytes.length);
                                 }
 
-                                msg = AtlasType.fromV1Json(msgJson, AtlasNotificationBaseMessage.class);
+                                msg = compactPayload != null ? splitMsg : AtlasType.fromV1Json(msgJson, AtlasNotificationBaseMessage.class);
                             } else {
                                 msg = null;
                             }
@@ -205,7 +212,13 @@ public abstract class AtlasNotificationMessageDeserializer<T> implements Message
             }
 
             if (msg != null) {
-                if (CompressionKind.GZIP.equals(msg.getMsgCompressionKind())) {
+                if (compactPayload == null && MessageFormat.COMPACT.equals(msg.getMsgFormat())) {
+                    AtlasNotificationStringMessage compactMsg = AtlasType.fromV1Json(msgJson, AtlasNotificationStringMessage.class);
+
+                    checkVersion(compactMsg, msgJson);
+
+                    compactPayload = AtlasNotificationBaseMessage.getBytesUtf8(compactMsg.getMessage());
+                } else if (CompressionKind.GZIP.equals(msg.getMsgCompressionKind())) {
                     AtlasNotificationStringMessage compressedMsg = AtlasType.fromV1Json(msgJson, AtlasNotificationStringMessage.class);
 
                     byte[] encodedBytes = AtlasNotificationBaseMessage.getBytesUtf8(compressedMsg.getMessage());
@@ -216,11 +229,18 @@ public abstract class AtlasNotificationMessageDeserializer<T> implements Message
                     LOG.info("Received msgID={}: compressed={} bytes, uncompressed={} bytes", compressedMsg.getMsgId(), encodedBytes.length, bytes.length);
                 }
 
-                AtlasNotificationMessage<T> atlasNotificationMessage = AtlasType.fromV1Json(msgJson, notificationMessageType);
+                AtlasNotificationMessage<T> atlasNotificationMessage = compactPayload != null ? AtlasNotificationBaseMessage.compactDecode(compactPayload, notificationMessageType)
+                                                                                              : AtlasType.fromV1Json(msgJson, notificationMessageType);
 
-                checkVersion(atlasNotificationMessage, msgJson);
+                if (atlasNotificationMessage != null) {
+                    checkVersion(atlasNotificationMessage, msgJson);
 
-                ret = atlasNotificationMessage.getMessage();
+                    ret = atlasNotificationMessage.getMessage();
+                } else {
+                    LOG.error("failed to deserialize notification message: {}", msgJson);
+
+                    ret = null;
+                }
             } else {
                 ret = null;
             }
@@ -286,7 +306,9 @@ public abstract class AtlasNotificationMessageDeserializer<T> implements Message
      * @throws IncompatibleVersionException  if the message version is incompatable with the expected version
      */
     protected void checkVersion(AtlasNotificationBaseMessage notificationMessage, String messageJson) {
-        int comp = notificationMessage.compareVersion(expectedVersion);
+        // envelope of a compact message carries the version of compact format
+        MessageVersion expectedVersion = MessageFormat.COMPACT.equals(notificationMessage.getMsgFormat()) ? AbstractNotification.COMPACT_MESSAGE_VERSION : this.expectedVersion;
+        int            comp            = notificationMessage.compareVersion(expectedVersion);
 
         // message has newer version
         if (comp > 0) {
@@ -0,0 +1,258 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.notification;
+
+import org.apache.atlas.AtlasClient;
+import org.apache.atlas.model.instance.AtlasEntity;
+import org.apache.atlas.model.instance.AtlasEntity.AtlasEntitiesWithExtInfo;
+import org.apache.atlas.model.instance.AtlasObjectId;
+import org.apache.commons.collections.MapUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Merges the entities of multiple hook messages into one AtlasEntitiesWithExtInfo - used by hooks to send fewer
+ * messages, and by the hook consumer to create/update entities of multiple messages in a single transaction.
+ *
+ * An entity present in more than one message - identified by type name and qualifiedName - is included once. Its
+ * attributes are laid over each other in the order of the messages, whether the entity is a top-level or a referred
+ * entity in a message - the same as processing the messages one at a time, as an update only sets the attributes it
+ * has. As messages refer to entities by guids assigned by the hook, references to the guid of a merged entity are
+ * updated to the guid of the last message's copy of the entity.
+ */
+public class HookEntitiesMerger {
+    private final Map<String, AtlasEntity> entities         = new LinkedHashMap<>(); // entity-key => entity
+    private final Map<String, AtlasEntity> referredEntities = new LinkedHashMap<>(); // entity-key => entity
+    private final Map<String, String>      guidAliases      = new HashMap<>();       // guid of merged entity => guid of the merged result
+    private       int                      unkeyedEntityCount;
+
+    public void add(AtlasEntitiesWithExtInfo entitiesWithExtInfo) {
+        if (entitiesWithExtInfo.getEntities() != null) {
+            for (AtlasEntity entity : entitiesWithExtInfo.getEntities()) {
+                String      key      = getEntityKey(entity);
+                AtlasEntity existing = entities.remove(key);
+
+                if (existing == null) { // an entity that was only referred to so far is now included as a top-level entity
+                    existing = referredEntities.remove(key);
+                }
+
+                entities.put(key, merge(existing, entity));
+            }
+        }
+
+        if (MapUtils.isNotEmpty(entitiesWithExtInfo.getReferredEntities())) {
+            for (AtlasEntity entity : entitiesWithExtInfo.getReferredEntities().values()) {
+                String key = getEntityKey(entity);
+
+                if (entities.containsKey(key)) { // already included as a top-level entity
+                    entities.put(key, merge(entities.get(key), entity));
+                } else {
+                    referredEntities.put(key, merge(referredEntities.get(key), entity));
+                }
+            }
+        }
+    }
+
+    public int getEntityCount() {
+        return entities.size() + referredEntities.size();
+    }
+
+    /**
+     * @return merged entities; entities of the added messages are not modified, so that the messages can still be
+     * processed individually
+     */
+    public AtlasEntitiesWithExtInfo getMergedEntities() {
+        AtlasEntitiesWithExtInfo ret = new AtlasEntitiesWithExtInfo();
+
+        for (AtlasEntity entity : entities.values()) {
+            ret.addEntity(updateReferences(entity));
+        }
+
+        for (AtlasEntity entity : referredEntities.values()) {
+            ret.addReferredEntity(updateReferences(entity));
+        }
+
+        return ret;
+    }
+
+    private String getEntityKey(AtlasEntity entity) {
+        Object qualifiedName = entity.getAttribute(AtlasClient.REFERENCEABLE_ATTRIBUTE_NAME);
+
+        if (qualifiedName != null) {
+            return entity.getTypeName() + ":" + qualifiedName;
+        } else if (entity.getGuid() != null) {
+            return entity.getGuid();
+        } else { // entity can't be identified; don't merge with other entities
+            return "#" + (unkeyedEntityCount++);
+        }
+    }
+
+    // returns a new entity, with the attributes of the given entity laid over those of the existing entity
+    private AtlasEntity merge(AtlasEntity existing, AtlasEntity entity) {
+        if (existing == null) {
+            return entity;
+        }
+
+        AtlasEntity ret = new AtlasEntity(entity.getTypeName(), mergeAttributes(existing.getAttributes(), entity.getAttributes()));
+
+        ret.setGuid(entity.getGuid() != null ? entity.getGuid() : existing.getGuid());
+        ret.setStatus(entity.getStatus() != null ? entity.getStatus() : existing.getStatus());
+        ret.setCreatedBy(entity.getCreatedBy());
+        ret.setUpdatedBy(entity.getUpdatedBy());
+        ret.setCreateTime(entity.getCreateTime());
+        ret.setUpdateTime(entity.getUpdateTime());
+        ret.setVersion(entity.getVersion());
+        ret.setClassifications(entity.getClassifications() != null ? entity.getClassifications() : existing.getClassifications());
+        ret.setRelationshipAttributes(mergeAttributes(existing.getRelationshipAttributes(), entity.getRelationshipAttributes()));
+
+        addGuidAlias(existing.getGuid(), ret.getGuid());
+        addGuidAlias(entity.getGuid(), ret.getGuid());
+
+        return ret;
+    }
+
+    private static Map<String, Object> mergeAttributes(Map<String, Object> existing, Map<String, Object> attributes) {
+        if (MapUtils.isEmpty(existing)) {
+            return attributes;
+        } else if (MapUtils.isEmpty(attributes)) {
+            return existing;
+        }
+
+        Map<String, Object> ret = new LinkedHashMap<>(existing);
+
+        ret.putAll(attributes);
+
+        return ret;
+    }
+
+    private void addGuidAlias(String mergedGuid, String resultGuid) {
+        if (mergedGuid == null || mergedGuid.equals(resultGuid)) {
+            return;
+        }
+
+        guidAliases.put(mergedGuid, resultGuid);
+
+        // earlier aliases to the merged entity now point to the result
+        for (Map.Entry<String, String> entry : guidAliases.entrySet()) {
+            if (mergedGuid.equals(entry.getValue())) {
+                entry.setValue(resultGuid);
+            }
+        }
+    }
+
+    private AtlasEntity updateReferences(AtlasEntity entity) {
+        if (guidAliases.isEmpty()) {
+            return entity;
+        }
+
+        Map<String, Object> attributes             = (Map<String, Object>) updateReferences(entity.getAttributes());
+        Map<String, Object> relationshipAttributes = (Map<String, Object>) updateReferences(entity.getRelationshipAttributes());
+
+        if (attributes == entity.getAttributes() && relationshipAttributes == entity.getRelationshipAttributes()) {
+            return entity;
+        }
+
+        AtlasEntity ret = new AtlasEntity(entity.getTypeName(), attributes);
+
+        ret.setGuid(entity.getGuid());
+        ret.setStatus(entity.getStatus());
+        ret.setCreatedBy(entity.getCreatedBy());
+        ret.setUpdatedBy(entity.getUpdatedBy());
+        ret.setCreateTime(entity.getCreateTime());
+        ret.setUpdateTime(entity.getUpdateTime());
+        ret.setVersion(entity.getVersion());
+        ret.setClassifications(entity.getClassifications());
+        ret.setRelationshipAttributes(relationshipAttributes);
+
+        return ret;
+    }
+
+    // returns the given value if it has no reference to update; otherwise a copy with updated references
+    private Object updateReferences(Object value) {
+        Object ret = value;
+
+        if (value instanceof AtlasObjectId) {
+            AtlasObjectId objectId = (AtlasObjectId) value;
+            String        alias    = guidAliases.get(objectId.getGuid());
+
+            if (alias != null) {
+                AtlasObjectId updated = new AtlasObjectId(objectId);
+
+                updated.setGuid(alias);
+
+                ret = updated;
+            }
+        } else if (value instanceof Map) {
+            Map<Object, Object> map = (Map<Object, Object>) value;
+
+            // object-id in map form, as deserialized from a notification
+            if (map.get(AtlasObjectId.KEY_GUID) instanceof String && map.containsKey(AtlasObjectId.KEY_TYPENAME)) {
+                String alias = guidAliases.get(map.get(AtlasObjectId.KEY_GUID));
+
+                if (alias != null) {
+                    Map<Object, Object> updated = new LinkedHashMap<>(map);
+
+                    updated.put(AtlasObjectId.KEY_GUID, alias);
+
+                    ret = updated;
+                }
+            } else {
+                Map<Object, Object> updated = null;
+
+                for (Map.Entry<Object, Object> entry : map.entrySet()) {
+                    Object entryValue = updateReferences(entry.getValue());
+
+                    if (entryValue != entry.getValue()) {
+                        if (updated == null) {
+                            updated = new LinkedHashMap<>(map);
+                        }
+
+                        updated.put(entry.getKey(), entryValue);
+                    }
+                }
+
+                if (updated != null) {
+                    ret = updated;
+                }
+            }
+        } else if (value instanceof Collection) {
+            Collection   collection = (Collection) value;
+            List<Object> updated    = new ArrayList<>(collection.size());
+            boolean      isUpdated  = false;
+
+            for (Object element : collection) {
+                Object updatedElement = updateReferences(element);
+
+                isUpdated = isUpdated || updatedElement != element;
+
+                updated.add(updatedElement);
+            }
+
+            if (isUpdated) {
+                ret = updated;
+            }
+        }
+
+        return ret;
+    }
+}
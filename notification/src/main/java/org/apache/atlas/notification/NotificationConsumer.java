@@ -18,6 +18,7 @@
 package org.apache.atlas.notification;
 
 import java.util.List;
+import java.util.Map;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.atlas.kafka.AtlasKafkaMessage;
 
@@ -37,6 +38,14 @@ public interface NotificationConsumer<T> {
      */
     void commit(TopicPartition partition, long offset);
 
+    /**
+     * Commit the offsets of messages that have been successfully processed, without waiting for the commit to
+     * complete. A failed commit is logged; the offsets will be covered by a later commit.
+     *
+     * @param offsets offset of the next message to be read, for each partition
+     */
+    void commitAsync(Map<TopicPartition, Long> offsets);
+
     void close();
 
     void wakeup();
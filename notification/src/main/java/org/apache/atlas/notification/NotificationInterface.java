@@ -21,6 +21,7 @@ import org.apache.atlas.notification.entity.EntityMessageDeserializer;
 import org.apache.atlas.notification.hook.HookMessageDeserializer;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Interface to the Atlas notification framework.
@@ -98,6 +99,18 @@ public interface NotificationInterface {
      */
     <T> void send(NotificationType type, List<T> messages) throws NotificationException;
 
+    /**
+     * Send the given messages, without waiting for the messaging system to acknowledge them.
+     *
+     * @param type      the message type
+     * @param messages  the list of messages to send
+     * @param <T>       the message type
+     *
+     * @return future that completes once all messages are sent; if any message could not be sent, the future
+     *         completes exceptionally with a NotificationException listing the failed messages
+     */
+    <T> CompletableFuture<Void> sendAsync(NotificationType type, List<T> messages);
+
     /**
      * Shutdown any notification producers and consumers associated with this interface instance.
      */
@@ -30,11 +30,13 @@ import org.testng.annotations.Test;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
 
 
 public class AtlasHookTest {
@@ -131,4 +133,24 @@ public class AtlasHookTest {
 
         verifyZeroInteractions(failedMessagesLogger);
     }
+
+    @Test
+    public void testFailedMessagesAreLoggedOnAsynchronousSend() {
+        List<HookNotification> hookNotifications =
+                new ArrayList<HookNotification>() {{
+                    add(new EntityCreateRequest("user"));
+                }
+            };
+        CompletableFuture<Void> sendResult = new CompletableFuture<>();
+
+        when(notificationInterface.sendAsync(NotificationInterface.NotificationType.HOOK, hookNotifications)).thenReturn(sendResult);
+        AtlasHook.notifyEntitiesAsync(hookNotifications, notificationInterface, true, failedMessagesLogger);
+
+        // nothing is logged until the send completes
+        verifyZeroInteractions(failedMessagesLogger);
+
+        sendResult.completeExceptionally(new NotificationException(new Exception(), Arrays.asList("test message")));
+
+        verify(failedMessagesLogger, times(1)).log("test message");
+    }
 }
@@ -0,0 +1,241 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.hook;
+
+import org.apache.atlas.model.instance.AtlasEntity;
+import org.apache.atlas.model.instance.AtlasEntity.AtlasEntitiesWithExtInfo;
+import org.apache.atlas.model.instance.AtlasObjectId;
+import org.apache.atlas.model.notification.HookNotification;
+import org.apache.atlas.model.notification.HookNotification.EntityCreateRequestV2;
+import org.apache.atlas.model.notification.HookNotification.EntityDeleteRequestV2;
+import org.apache.atlas.model.notification.HookNotification.EntityUpdateRequestV2;
+import org.apache.atlas.v1.model.instance.Referenceable;
+import org.apache.atlas.v1.model.notification.HookNotificationV1.EntityPartialUpdateRequest;
+import org.apache.atlas.v1.model.notification.HookNotificationV1.EntityUpdateRequest;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class HookNotificationBufferTest {
+    private final List<List<HookNotification>>     sent   = new ArrayList<>();
+    private final Consumer<List<HookNotification>> sender = new Consumer<List<HookNotification>>() {
+        @Override
+        public void accept(List<HookNotification> messages) {
+            sent.add(messages);
+        }
+    };
+
+    @Test
+    public void testRepeatedUpdatesAreCoalesced() {
+        HookNotificationBuffer buffer = new HookNotificationBuffer("test", 100, 100, 0, sender);
+
+        sent.clear();
+
+        buffer.add(Collections.<HookNotification>singletonList(new EntityUpdateRequest("user", createTable("db1.t1@cl1", "v1"))));
+        buffer.add(Collections.<HookNotification>singletonList(new EntityUpdateRequest("user", createTable("db1.t2@cl1", "v1"))));
+        buffer.add(Collections.<HookNotification>singletonList(new EntityUpdateRequest("user", createTable("db1.t1@cl1", "v2"))));
+        buffer.add(Collections.<HookNotification>singletonList(new EntityUpdateRequest("user", createTable("db1.t1@cl1", "v3"))));
+
+        assertTrue(sent.isEmpty());
+
+        buffer.flush();
+
+        assertEquals(sent.size(), 1);
+
+        List<HookNotification> messages = sent.get(0);
+
+        // replaced in place
+        assertEquals(messages.size(), 2);
+        assertEquals(((EntityUpdateRequest) messages.get(0)).getEntities().get(0).get("description"), "v3");
+        assertEquals(((EntityUpdateRequest) messages.get(1)).getEntities().get(0).get("qualifiedName"), "db1.t2@cl1");
+
+        assertEquals(buffer.getBufferedCount(), 4);
+        assertEquals(buffer.getCoalescedCount(), 2);
+        assertEquals(buffer.getFlushedCount(), 2);
+        assertEquals(buffer.getPendingCount(), 0);
+    }
+
+    @Test
+    public void testCoalescedUpdatesKeepEarlierAttributes() {
+        HookNotificationBuffer buffer = new HookNotificationBuffer("test", 100, 100, 0, sender);
+        Referenceable          table1 = createTable("db1.t1@cl1", "v1");
+        AtlasEntity            table2 = createTableV2("db1.t2@cl1").getEntities().get(0);
+        AtlasEntity            table3 = createTableV2("db1.t2@cl1").getEntities().get(0);
+
+        sent.clear();
+
+        table1.set("owner", "user1");
+        table2.setAttribute("owner", "user1");
+        table3.setAttribute("description", "v2");
+
+        buffer.add(Arrays.<HookNotification>asList(new EntityUpdateRequest("user", table1),
+                                                   new EntityUpdateRequestV2("user", new AtlasEntitiesWithExtInfo(table2)),
+                                                   new EntityUpdateRequest("user", createTable("db1.t1@cl1", "v2")),
+                                                   new EntityUpdateRequestV2("user", new AtlasEntitiesWithExtInfo(table3))));
+
+        buffer.flush();
+
+        List<HookNotification> messages = sent.get(0);
+        Referenceable          mergedV1 = ((EntityUpdateRequest) messages.get(0)).getEntities().get(0);
+        AtlasEntity            mergedV2 = ((EntityUpdateRequestV2) messages.get(1)).getEntities().getEntities().get(0);
+
+        assertEquals(messages.size(), 2);
+        assertEquals(mergedV1.get("description"), "v2");
+        assertEquals(mergedV1.get("owner"), "user1");
+        assertEquals(mergedV2.getAttribute("description"), "v2");
+        assertEquals(mergedV2.getAttribute("owner"), "user1");
+        assertEquals(buffer.getCoalescedCount(), 2);
+    }
+
+    @Test
+    public void testMessagesAreMerged() {
+        HookNotificationBuffer buffer = new HookNotificationBuffer("test", 100, 100, 0, sender);
+
+        sent.clear();
+
+        buffer.add(Arrays.<HookNotification>asList(new EntityCreateRequestV2("user", createTableV2("db1.t1@cl1")),
+                                                   new EntityCreateRequestV2("user", createTableV2("db1.t2@cl1")),
+                                                   new EntityDeleteRequestV2("user", Collections.singletonList(new AtlasObjectId("hive_table", "qualifiedName", "db1.t3@cl1"))),
+                                                   new EntityCreateRequestV2("user", createTableV2("db1.t4@cl1"))));
+
+        buffer.flush();
+
+        List<HookNotification> messages = sent.get(0);
+
+        assertEquals(messages.size(), 3);
+        assertEquals(((EntityCreateRequestV2) messages.get(0)).getEntities().getEntities().size(), 2);
+        assertTrue(messages.get(1) instanceof EntityDeleteRequestV2);
+        assertEquals(((EntityCreateRequestV2) messages.get(2)).getEntities().getEntities().size(), 1);
+        assertEquals(buffer.getCoalescedCount(), 1);
+    }
+
+    @Test
+    public void testUpdatesAreNotCoalescedAcrossMessagesForSameEntity() {
+        HookNotificationBuffer buffer = new HookNotificationBuffer("test", 100, 100, 0, sender);
+
+        sent.clear();
+
+        buffer.add(Arrays.<HookNotification>asList(new EntityUpdateRequest("user", createTable("db1.t1@cl1", "v1")),
+                                                   new EntityPartialUpdateRequest("user", "hive_table", "qualifiedName", "db1.t1@cl1", createTable("db1.t1@cl1", "v2")),
+                                                   new EntityUpdateRequest("user", createTable("db1.t1@cl1", "v3")),
+                                                   new EntityUpdateRequest("user", createTable("db1.t2@cl1", "v1")),
+                                                   new EntityDeleteRequestV2("user", Collections.singletonList(new AtlasObjectId("DataSet", "qualifiedName", "db1.t2@cl1"))),
+                                                   new EntityUpdateRequest("user", createTable("db1.t2@cl1", "v2"))));
+
+        buffer.flush();
+
+        List<HookNotification> messages = sent.get(0);
+
+        assertEquals(messages.size(), 6, "each update follows a partial update or delete of the entity");
+        assertEquals(((EntityUpdateRequest) messages.get(2)).getEntities().get(0).get("description"), "v3");
+        assertEquals(((EntityUpdateRequest) messages.get(5)).getEntities().get(0).get("description"), "v2");
+        assertEquals(buffer.getCoalescedCount(), 0);
+
+        // an update for an entity that was not sent in between is still coalesced, in place
+        buffer.add(Arrays.<HookNotification>asList(new EntityUpdateRequest("user", createTable("db1.t1@cl1", "v1")),
+                                                   new EntityDeleteRequestV2("user", Collections.singletonList(new AtlasObjectId("hive_table", "qualifiedName", "db1.t2@cl1"))),
+                                                   new EntityUpdateRequest("user", createTable("db1.t1@cl1", "v2"))));
+
+        buffer.flush();
+
+        messages = sent.get(1);
+
+        assertEquals(messages.size(), 2);
+        assertEquals(((EntityUpdateRequest) messages.get(0)).getEntities().get(0).get("description"), "v2");
+        assertTrue(messages.get(1) instanceof EntityDeleteRequestV2);
+    }
+
+    @Test
+    public void testFailedMessagesAreBufferedAgain() {
+        final List<List<HookNotification>> attempts = new ArrayList<>();
+        HookNotificationBuffer             buffer   = new HookNotificationBuffer("test", 100, 100, 0, new Consumer<List<HookNotification>>() {
+            @Override
+            public void accept(List<HookNotification> messages) {
+                attempts.add(messages);
+
+                if (attempts.size() == 1) {
+                    throw new RuntimeException("send failed");
+                }
+            }
+        });
+
+        buffer.add(Collections.<HookNotification>singletonList(new EntityUpdateRequest("user", createTable("db1.t1@cl1", "v1"))));
+
+        try {
+            buffer.flush();
+
+            fail("expected the send failure to be thrown");
+        } catch (RuntimeException excp) {
+            assertEquals(excp.getMessage(), "send failed");
+        }
+
+        assertEquals(buffer.getPendingCount(), 1);
+        assertEquals(buffer.getFlushedCount(), 0);
+
+        buffer.add(Collections.<HookNotification>singletonList(new EntityUpdateRequest("user", createTable("db1.t2@cl1", "v1"))));
+        buffer.flush();
+
+        List<HookNotification> messages = attempts.get(1);
+
+        assertEquals(messages.size(), 2);
+        assertEquals(((EntityUpdateRequest) messages.get(0)).getEntities().get(0).get("qualifiedName"), "db1.t1@cl1");
+        assertEquals(buffer.getPendingCount(), 0);
+        assertEquals(buffer.getFlushedCount(), 2);
+    }
+
+    @Test
+    public void testFlushWhenFull() {
+        HookNotificationBuffer buffer = new HookNotificationBuffer("test", 2, 100, 0, sender);
+
+        sent.clear();
+
+        buffer.add(Collections.<HookNotification>singletonList(new EntityUpdateRequest("user", createTable("db1.t1@cl1", "v1"))));
+
+        assertTrue(sent.isEmpty());
+
+        buffer.add(Collections.<HookNotification>singletonList(new EntityUpdateRequest("user", createTable("db1.t2@cl1", "v1"))));
+
+        assertEquals(sent.size(), 1);
+        assertEquals(sent.get(0).size(), 2);
+    }
+
+    private Referenceable createTable(String qualifiedName, String description) {
+        Referenceable ret = new Referenceable("hive_table");
+
+        ret.set("qualifiedName", qualifiedName);
+        ret.set("description", description);
+
+        return ret;
+    }
+
+    private AtlasEntitiesWithExtInfo createTableV2(String qualifiedName) {
+        AtlasEntity ret = new AtlasEntity("hive_table");
+
+        ret.setAttribute("qualifiedName", qualifiedName);
+
+        return new AtlasEntitiesWithExtInfo(ret);
+    }
+}
@@ -20,10 +20,13 @@ package org.apache.atlas.kafka;
 import org.apache.atlas.notification.NotificationConsumer;
 import org.apache.atlas.notification.NotificationException;
 import org.apache.atlas.notification.NotificationInterface;
+import org.apache.kafka.clients.producer.Callback;
 import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.clients.producer.RecordMetadata;
 import org.apache.kafka.common.TopicPartition;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.testng.annotations.Test;
 import java.util.Arrays;
 import java.util.ArrayList;
@@ -31,13 +34,17 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
@@ -144,6 +151,44 @@ public class KafkaNotificationMockTest {
         }
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldSendKeyedMessagesAsynchronously() throws InterruptedException {
+        Properties        configProperties  = mock(Properties.class);
+        KafkaNotification kafkaNotification = new KafkaNotification(configProperties);
+        Producer          producer          = mock(Producer.class);
+        String            topicName         = kafkaNotification.getTopicName(NotificationInterface.NotificationType.HOOK);
+        final List<Callback> callbacks      = new ArrayList<>();
+
+        doAnswer(new Answer() {
+            @Override
+            public Object answer(InvocationOnMock invocation) {
+                callbacks.add((Callback) invocation.getArguments()[1]);
+
+                return null;
+            }
+        }).when(producer).send(any(ProducerRecord.class), any(Callback.class));
+
+        CompletableFuture<Void> result = kafkaNotification.sendInternalToProducerAsync(producer, NotificationInterface.NotificationType.HOOK,
+                                                                                       Arrays.asList("message1", "message2"), Arrays.asList("key1", "key2"));
+
+        verify(producer).send(new ProducerRecord(topicName, "key1", "message1"), callbacks.get(0));
+        verify(producer).send(new ProducerRecord(topicName, "key2", "message2"), callbacks.get(1));
+        assertFalse(result.isDone());
+
+        callbacks.get(0).onCompletion(new RecordMetadata(new TopicPartition(topicName, 0), 0, 0, 0, Long.valueOf(0), 0, 0), null);
+        callbacks.get(1).onCompletion(null, new RuntimeException("Simulating exception"));
+
+        try {
+            result.get();
+            fail("Should have failed with NotificationException");
+        } catch (ExecutionException e) {
+            NotificationException cause = (NotificationException) e.getCause();
+
+            assertEquals(cause.getFailedMessages(), Arrays.asList("message2"));
+        }
+    }
+
     class TestKafkaNotification extends KafkaNotification {
 
         private final AtlasKafkaConsumer consumer1;
@@ -18,10 +18,14 @@
 
 package org.apache.atlas.notification;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.apache.atlas.model.notification.AtlasNotificationBaseMessage;
 import org.apache.atlas.model.notification.AtlasNotificationMessage;
 import org.apache.atlas.model.notification.MessageVersion;
 import org.testng.annotations.Test;
 
+import java.util.zip.Deflater;
+
 import static org.testng.Assert.*;
 
 /**
@@ -56,4 +60,27 @@ public class AtlasNotificationMessageTest {
         assertTrue(atlasNotificationMessage.compareVersion(version2) < 0);
         assertTrue(atlasNotificationMessage.compareVersion(version3) > 0);
     }
+
+    @Test
+    public void testCompactEncodeDecode() throws Exception {
+        AtlasNotificationMessage<String> message = new AtlasNotificationMessage<>(new MessageVersion("1.0.0"), "a");
+        byte[]                           encoded = AtlasNotificationBaseMessage.compactEncode(message);
+
+        AtlasNotificationMessage<String> decoded = AtlasNotificationBaseMessage.compactDecode(encoded, new TypeReference<AtlasNotificationMessage<String>>() {});
+
+        assertEquals(decoded.getMessage(), "a");
+    }
+
+    @Test(expectedExceptions = RuntimeException.class)
+    public void testCompactDecodeOfInvalidMessage() throws Exception {
+        AtlasNotificationBaseMessage.compactDecode(AtlasNotificationBaseMessage.getBytesUtf8("bm90LWRlZmxhdGVk"), new TypeReference<AtlasNotificationMessage<String>>() {});
+    }
+
+    @Test
+    public void testCompressionLevelIsClamped() {
+        assertEquals(AtlasNotificationBaseMessage.getValidCompressionLevel(1), 1);
+        assertEquals(AtlasNotificationBaseMessage.getValidCompressionLevel(Deflater.BEST_COMPRESSION + 1), Deflater.BEST_COMPRESSION);
+        assertEquals(AtlasNotificationBaseMessage.getValidCompressionLevel(Deflater.DEFAULT_COMPRESSION), Deflater.DEFAULT_COMPRESSION);
+        assertEquals(AtlasNotificationBaseMessage.getValidCompressionLevel(-5), Deflater.DEFAULT_COMPRESSION);
+    }
 }
@@ -0,0 +1,137 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.notification;
+
+import org.apache.atlas.model.instance.AtlasEntity;
+import org.apache.atlas.model.instance.AtlasEntity.AtlasEntitiesWithExtInfo;
+import org.apache.atlas.model.instance.AtlasObjectId;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+public class HookEntitiesMergerTest {
+    @Test
+    public void testLastEntityWins() {
+        HookEntitiesMerger merger = new HookEntitiesMerger();
+
+        merger.add(new AtlasEntitiesWithExtInfo(createEntity("-1", "hive_table", "db1.t1@cl1", "v1")));
+        merger.add(new AtlasEntitiesWithExtInfo(createEntity("-2", "hive_table", "db1.t2@cl1", "v1")));
+        merger.add(new AtlasEntitiesWithExtInfo(createEntity("-3", "hive_table", "db1.t1@cl1", "v2")));
+
+        AtlasEntitiesWithExtInfo merged = merger.getMergedEntities();
+
+        assertEquals(merged.getEntities().size(), 2);
+        assertEquals(merged.getEntities().get(0).getGuid(), "-2");
+        assertEquals(merged.getEntities().get(1).getGuid(), "-3");
+        assertEquals(merged.getEntities().get(1).getAttribute("description"), "v2");
+    }
+
+    @Test
+    public void testReferencesToReplacedEntityAreUpdated() {
+        HookEntitiesMerger       merger   = new HookEntitiesMerger();
+        AtlasEntity              db1      = createEntity("-1", "hive_db", "db1@cl1", "v1");
+        AtlasEntity              table1   = createEntity("-2", "hive_table", "db1.t1@cl1", "v1");
+        AtlasEntitiesWithExtInfo message1 = new AtlasEntitiesWithExtInfo(table1);
+
+        table1.setAttribute("db", new AtlasObjectId("-1", "hive_db"));
+        message1.addReferredEntity(db1);
+
+        merger.add(message1);
+        merger.add(new AtlasEntitiesWithExtInfo(createEntity("-3", "hive_db", "db1@cl1", "v2")));
+
+        AtlasEntitiesWithExtInfo merged = merger.getMergedEntities();
+        AtlasEntity              table  = merged.getEntities().get(0);
+
+        assertEquals(merged.getEntities().size(), 2);
+        assertNull(merged.getReferredEntities());
+        assertEquals(((AtlasObjectId) table.getAttribute("db")).getGuid(), "-3");
+
+        // entities of the message are not modified
+        assertEquals(((AtlasObjectId) table1.getAttribute("db")).getGuid(), "-1");
+    }
+
+    @Test
+    public void testReferredEntityAlreadyIncluded() {
+        HookEntitiesMerger       merger   = new HookEntitiesMerger();
+        AtlasEntity              table1   = createEntity("-2", "hive_table", "db1.t1@cl1", "v1");
+        AtlasEntitiesWithExtInfo message2 = new AtlasEntitiesWithExtInfo(table1);
+
+        table1.setAttribute("db", new AtlasObjectId("-3", "hive_db"));
+        message2.addReferredEntity(createEntity("-3", "hive_db", "db1@cl1", "v1"));
+
+        merger.add(new AtlasEntitiesWithExtInfo(createEntity("-1", "hive_db", "db1@cl1", "v2")));
+        merger.add(message2);
+
+        AtlasEntitiesWithExtInfo merged = merger.getMergedEntities();
+
+        assertEquals(merged.getEntities().size(), 2);
+        assertNull(merged.getReferredEntities());
+        assertEquals(merged.getEntities().get(0).getAttribute("description"), "v1", "referred copy of the later message is laid over the entity");
+        assertEquals(((AtlasObjectId) merged.getEntities().get(1).getAttribute("db")).getGuid(), "-3");
+        assertNotNull(merged.getEntity("-3"));
+    }
+
+    @Test
+    public void testAttributesAreMergedInMessageOrder() {
+        HookEntitiesMerger       merger   = new HookEntitiesMerger();
+        AtlasEntity              db1      = createEntity("-1", "hive_db", "db1@cl1", "v1");
+        AtlasEntity              db2      = createEntity("-2", "hive_db", "db1@cl1", "v2");
+        AtlasEntity              table1   = createEntity("-3", "hive_table", "db1.t1@cl1", "v1");
+        AtlasEntitiesWithExtInfo message2 = new AtlasEntitiesWithExtInfo(table1);
+        AtlasEntity              db3      = new AtlasEntity("hive_db");
+
+        db1.setAttribute("owner", "user1");
+        db2.setAttribute("location", "/db1");
+        db3.setGuid("-4");
+        db3.setAttribute("qualifiedName", "db1@cl1");
+        db3.setAttribute("clusterName", "cl1");
+        table1.setAttribute("db", new AtlasObjectId("-2", "hive_db"));
+        message2.addReferredEntity(db2);
+
+        merger.add(new AtlasEntitiesWithExtInfo(db1));
+        merger.add(message2);
+        merger.add(new AtlasEntitiesWithExtInfo(db3));
+
+        AtlasEntitiesWithExtInfo merged = merger.getMergedEntities();
+        AtlasEntity              db     = merged.getEntity("-4");
+
+        assertEquals(merged.getEntities().size(), 2);
+        assertNotNull(db);
+        assertEquals(db.getAttribute("owner"), "user1");
+        assertEquals(db.getAttribute("description"), "v2");
+        assertEquals(db.getAttribute("location"), "/db1");
+        assertEquals(db.getAttribute("clusterName"), "cl1");
+        assertEquals(((AtlasObjectId) merged.getEntity("-3").getAttribute("db")).getGuid(), "-4");
+
+        // entities of the messages are not modified
+        assertNull(db1.getAttribute("location"));
+        assertNull(db3.getAttribute("owner"));
+    }
+
+    private AtlasEntity createEntity(String guid, String typeName, String qualifiedName, String description) {
+        AtlasEntity ret = new AtlasEntity(typeName);
+
+        ret.setGuid(guid);
+        ret.setAttribute("qualifiedName", qualifiedName);
+        ret.setAttribute("description", description);
+
+        return ret;
+    }
+}
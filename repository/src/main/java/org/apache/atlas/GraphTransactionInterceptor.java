@@ -21,6 +21,7 @@ import com.google.common.annotations.VisibleForTesting;
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
 import org.apache.atlas.exception.AtlasBaseException;
+import org.apache.atlas.repository.graph.TransactionVertexCache;
 import org.apache.atlas.repository.graphdb.AtlasGraph;
 import org.apache.atlas.exception.NotFoundException;
 import org.slf4j.Logger;
@@ -29,11 +30,18 @@ import org.springframework.stereotype.Component;
 
 import javax.inject.Inject;
 import javax.ws.rs.core.Response;
+import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 
 @Component
@@ -55,6 +63,8 @@ public class GraphTransactionInterceptor implements MethodInterceptor {
     public Object invoke(MethodInvocation invocation) throws Throwable {
         boolean isSuccess = false;
 
+        TransactionVertexCache.begin();
+
         try {
             try {
                 Object response = invocation.proceed();
@@ -76,6 +86,8 @@ public class GraphTransactionInterceptor implements MethodInterceptor {
                 throw t;
             }
         } finally {
+            TransactionVertexCache.end();
+
             List<PostTransactionHook> trxHooks = postTransactionHooks.get();
 
             if (trxHooks != null) {
@@ -94,14 +106,29 @@ public class GraphTransactionInterceptor implements MethodInterceptor {
         }
     }
 
-    public static void lockObjectAndReleasePostCommit(final String guid) {
+    public static void lockObjectAndReleasePostCommit(final String guid) throws AtlasBaseException {
         OBJECT_UPDATE_SYNCHRONIZER.lockObject(guid);
     }
 
-    public static void lockObjectAndReleasePostCommit(final List<String> guids) {
+    public static void lockObjectAndReleasePostCommit(final List<String> guids) throws AtlasBaseException {
         OBJECT_UPDATE_SYNCHRONIZER.lockObject(guids);
     }
 
+    /**
+     * Releases the objects locked by the current thread - for threads that commit outside of the interceptor.
+     */
+    public static void releaseLockedObjects() {
+        OBJECT_UPDATE_SYNCHRONIZER.releaseLockedObjects();
+    }
+
+    public static Map<String, Number> getObjectLockMetrics() {
+        return OBJECT_UPDATE_SYNCHRONIZER.getMetrics();
+    }
+
+    public static Map<String, Number> getHotObjectLocks(int maxCount) {
+        return OBJECT_UPDATE_SYNCHRONIZER.getHotObjects(maxCount);
+    }
+
     boolean logException(Throwable t) {
         if (t instanceof AtlasBaseException) {
             Response.Status httpCode = ((AtlasBaseException) t).getAtlasErrorCode().getHttpCode();
@@ -129,7 +156,7 @@ public class GraphTransactionInterceptor implements MethodInterceptor {
     }
 
     private static class RefCountedReentrantLock extends ReentrantLock {
-        private int refCount;
+        private int refCount; // updated only within guidLockMap.compute() for the guid
 
         public RefCountedReentrantLock() {
             this.refCount = 0;
@@ -147,8 +174,32 @@ public class GraphTransactionInterceptor implements MethodInterceptor {
     }
 
 
+    /**
+     * Per-guid locks, held until the end of the graph transaction.
+     *
+     * Locks are kept in a ConcurrentHashMap and reference counted, in compute() of the map, by the threads holding or
+     * waiting for the lock - so threads locking different guids don't contend with each other. A lock is removed from
+     * the map when no thread holds or waits for it. Guids in a list are locked in sorted order; as a transaction can
+     * lock guids more than once, waits can be bounded by atlas.entity.lock.timeout.ms to break any deadlock - by
+     * default, waits are not bounded.
+     */
     public static class ObjectUpdateSynchronizer {
-        private final Map<String, RefCountedReentrantLock> guidLockMap = new ConcurrentHashMap<>();
+        public static final String METRIC_LOCKED_OBJECTS  = "lockedObjects";
+        public static final String METRIC_WAITING_THREADS = "waitingThreads";
+        public static final String METRIC_ACQUIRED        = "lockAcquired";
+        public static final String METRIC_CONTENDED       = "lockContended";
+        public static final String METRIC_WAIT_TIME_MS    = "lockWaitTimeMs";
+        public static final String METRIC_MAX_WAIT_MS     = "lockMaxWaitMs";
+        public static final String METRIC_TIMEOUTS        = "lockTimeouts";
+
+        private final Map<String, RefCountedReentrantLock> guidLockMap    = new ConcurrentHashMap<>();
+        private final long                                 lockTimeoutMs;
+        private final AtomicInteger                        waitingThreads = new AtomicInteger();
+        private final AtomicLong                           acquiredCount  = new AtomicLong();
+        private final AtomicLong                           contendedCount = new AtomicLong();
+        private final AtomicLong                           waitTimeNanos  = new AtomicLong();
+        private final AtomicLong                           maxWaitNanos   = new AtomicLong();
+        private final AtomicLong                           timeoutCount   = new AtomicLong();
         private final ThreadLocal<List<String>>  lockedGuids = new ThreadLocal<List<String>>() {
             @Override
             protected List<String> initialValue() {
@@ -156,24 +207,68 @@ public class GraphTransactionInterceptor implements MethodInterceptor {
             }
         };
 
-        public void lockObject(final List<String> guids) {
+        public ObjectUpdateSynchronizer() {
+            this(AtlasConfiguration.ENTITY_LOCK_TIMEOUT_MS.getLong());
+        }
+
+        public ObjectUpdateSynchronizer(long lockTimeoutMs) {
+            this.lockTimeoutMs = lockTimeoutMs;
+        }
+
+        public void lockObject(final List<String> guids) throws AtlasBaseException {
             if (LOG.isDebugEnabled()) {
                 LOG.debug("==> lockObject(): guids: {}", guids);
             }
 
-            Collections.sort(guids);
-            for (String g : guids) {
+            for (String g : new TreeSet<>(guids)) {
                 lockObject(g);
             }
         }
 
-        private void lockObject(final String guid) {
+        private void lockObject(final String guid) throws AtlasBaseException {
             if (LOG.isDebugEnabled()) {
                 LOG.debug("==> lockObject(): guid: {}, guidLockMap.size: {}", guid, guidLockMap.size());
             }
 
             ReentrantLock lock = getOrCreateObjectLock(guid);
-            lock.lock();
+
+            if (!lock.tryLock()) {
+                contendedCount.incrementAndGet();
+                waitingThreads.incrementAndGet();
+
+                long    startTime = System.nanoTime();
+                boolean isLocked  = false;
+
+                try {
+                    if (lockTimeoutMs > 0) {
+                        isLocked = lock.tryLock(lockTimeoutMs, TimeUnit.MILLISECONDS);
+                    } else {
+                        lock.lockInterruptibly();
+
+                        isLocked = true;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    waitingThreads.decrementAndGet();
+
+                    recordWaitTime(System.nanoTime() - startTime);
+
+                    if (!isLocked) {
+                        timeoutCount.incrementAndGet();
+
+                        releaseObjectRef(guid);
+                    }
+                }
+
+                if (!isLocked) {
+                    LOG.warn("lockObject(): failed to lock guid {} within {} ms", guid, lockTimeoutMs);
+
+                    throw new AtlasBaseException(AtlasErrorCode.ENTITY_LOCK_TIMED_OUT, guid, String.valueOf(lockTimeoutMs));
+                }
+            }
+
+            acquiredCount.incrementAndGet();
 
             lockedGuids.get().add(guid);
 
@@ -198,35 +293,83 @@ public class GraphTransactionInterceptor implements MethodInterceptor {
             }
         }
 
-        private RefCountedReentrantLock getOrCreateObjectLock(String guid) {
-            synchronized (guidLockMap) {
-                RefCountedReentrantLock ret = guidLockMap.get(guid);
-                if (ret == null) {
-                    ret = new RefCountedReentrantLock();
-                    guidLockMap.put(guid, ret);
+        public Map<String, Number> getMetrics() {
+            Map<String, Number> ret = new LinkedHashMap<>();
+
+            ret.put(METRIC_LOCKED_OBJECTS, guidLockMap.size());
+            ret.put(METRIC_WAITING_THREADS, waitingThreads.get());
+            ret.put(METRIC_ACQUIRED, acquiredCount.get());
+            ret.put(METRIC_CONTENDED, contendedCount.get());
+            ret.put(METRIC_WAIT_TIME_MS, TimeUnit.NANOSECONDS.toMillis(waitTimeNanos.get()));
+            ret.put(METRIC_MAX_WAIT_MS, TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()));
+            ret.put(METRIC_TIMEOUTS, timeoutCount.get());
+
+            return ret;
+        }
+
+        /**
+         * Guids with the most threads waiting to lock them, up to maxCount; guid => number of waiting threads.
+         */
+        public Map<String, Number> getHotObjects(int maxCount) {
+            List<Map.Entry<String, Integer>> waits = new ArrayList<>();
+
+            for (Map.Entry<String, RefCountedReentrantLock> entry : guidLockMap.entrySet()) {
+                int queueLength = entry.getValue().getQueueLength();
+
+                if (queueLength > 0) {
+                    waits.add(new AbstractMap.SimpleEntry<>(entry.getKey(), queueLength));
                 }
+            }
+
+            Collections.sort(waits, new Comparator<Map.Entry<String, Integer>>() {
+                @Override
+                public int compare(Map.Entry<String, Integer> e1, Map.Entry<String, Integer> e2) {
+                    return Integer.compare(e2.getValue(), e1.getValue());
+                }
+            });
+
+            Map<String, Number> ret = new LinkedHashMap<>();
+
+            for (Map.Entry<String, Integer> wait : waits.subList(0, Math.min(maxCount, waits.size()))) {
+                ret.put(wait.getKey(), wait.getValue());
+            }
+
+            return ret;
+        }
+
+        private RefCountedReentrantLock getOrCreateObjectLock(String guid) {
+            return guidLockMap.compute(guid, (key, lock) -> {
+                RefCountedReentrantLock ret = lock != null ? lock : new RefCountedReentrantLock();
 
                 ret.increment();
+
                 return ret;
+            });
+        }
+
+        private void releaseObjectLock(String guid) {
+            RefCountedReentrantLock lock = guidLockMap.get(guid);
+
+            if (lock != null && lock.isHeldByCurrentThread()) {
+                releaseObjectRef(guid);
+
+                lock.unlock();
+            } else {
+                LOG.warn("releaseLockedObjects: {} Attempting to release a lock not held by current thread.", guid);
             }
         }
 
-        private RefCountedReentrantLock releaseObjectLock(String guid) {
-            synchronized (guidLockMap) {
-                RefCountedReentrantLock lock = guidLockMap.get(guid);
-                if (lock != null && lock.isHeldByCurrentThread()) {
-                    int refCount = lock.decrement();
+        private void releaseObjectRef(String guid) {
+            guidLockMap.computeIfPresent(guid, (key, lock) -> lock.decrement() == 0 ? null : lock);
+        }
 
-                    if (refCount == 0) {
-                        guidLockMap.remove(guid);
-                    }
+        private void recordWaitTime(long nanos) {
+            waitTimeNanos.addAndGet(nanos);
 
-                    lock.unlock();
-                } else {
-                    LOG.warn("releaseLockedObjects: {} Attempting to release a lock not held by current thread.", guid);
+            for (long maxWait = maxWaitNanos.get(); nanos > maxWait; maxWait = maxWaitNanos.get()) {
+                if (maxWaitNanos.compareAndSet(maxWait, nanos)) {
+                    break;
                 }
-
-                return lock;
             }
         }
     }
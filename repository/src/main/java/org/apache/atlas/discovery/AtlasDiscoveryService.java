@@ -79,6 +79,27 @@ public interface AtlasDiscoveryService {
      */
     AtlasSearchResult searchWithParameters(SearchParameters searchParameters) throws AtlasBaseException;
 
+    /**
+     * Search for entities matching the search criteria, and pass them to the consumer in batches as they are found.
+     * Unlike searchWithParameters(), results are not limited to a page; searchParameters.limit, if positive, caps the
+     * total number of entities returned, after skipping searchParameters.offset entities. Each batch is given the
+     * search deadline, rather than the whole search. Referred entities are not included.
+     * @param searchParameters Search criteria
+     * @param consumer Receives the matching entities
+     * @return Number of entities passed to the consumer
+     * @throws AtlasBaseException
+     */
+    long searchWithParameters(SearchParameters searchParameters, SearchResultConsumer consumer) throws AtlasBaseException;
+
+    /**
+     * Validates the search criteria for searchWithParameters(searchParameters, consumer) - to be called before the
+     * results start to stream, as errors can't be reported after that. Results can be streamed sorted only by an
+     * attribute the index can sort on.
+     * @param searchParameters Search criteria
+     * @throws AtlasBaseException if the search criteria are invalid
+     */
+    void validateStreamSearchParameters(SearchParameters searchParameters) throws AtlasBaseException;
+
     /**
      *
      * @param guid unique ID of the entity.
@@ -0,0 +1,235 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.discovery;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import org.apache.atlas.AtlasConfiguration;
+import org.apache.atlas.model.lineage.AtlasLineageInfo;
+import org.apache.atlas.model.lineage.AtlasLineageInfo.LineageDirection;
+import org.apache.commons.collections.CollectionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of lineage results, keyed by (guid, direction, depth).
+ *
+ * Each cached result is indexed by the guids of all entities in it, including the processes. Entity mutations
+ * invalidate only the results that contain one of the mutated entities or, for processes, one of their inputs or
+ * outputs - see AtlasEntityChangeNotifier.
+ *
+ * A result computed concurrently with an invalidation is not cached, as it might have been read before the
+ * mutation was committed.
+ */
+@Component
+public class AtlasLineageCache {
+    private static final Logger LOG = LoggerFactory.getLogger(AtlasLineageCache.class);
+
+    public static final String METRIC_CACHE_HITS          = "lineageCacheHits";
+    public static final String METRIC_CACHE_MISSES        = "lineageCacheMisses";
+    public static final String METRIC_CACHE_HIT_RATIO     = "lineageCacheHitRatio";
+    public static final String METRIC_CACHE_SIZE          = "lineageCacheSize";
+    public static final String METRIC_CACHE_EVICTIONS     = "lineageCacheEvictions";
+    public static final String METRIC_CACHE_INVALIDATIONS = "lineageCacheInvalidations";
+
+    private final boolean                                  isEnabled;
+    private final Cache<LineageCacheKey, AtlasLineageInfo> cache;
+    private final Map<String, Set<LineageCacheKey>>        keysByGuid    = new ConcurrentHashMap<>();
+    private final AtomicLong                               generation    = new AtomicLong();
+    private final AtomicLong                               invalidations = new AtomicLong();
+
+    public AtlasLineageCache() {
+        this(AtlasConfiguration.LINEAGE_CACHE_SIZE.getInt(), AtlasConfiguration.LINEAGE_CACHE_TTL_SECONDS.getLong());
+    }
+
+    @VisibleForTesting
+    AtlasLineageCache(int maxSize, long ttlSeconds) {
+        this.isEnabled = maxSize > 0;
+        this.cache     = CacheBuilder.newBuilder()
+                                     .maximumSize(Math.max(maxSize, 0))
+                                     .expireAfterWrite(Math.max(ttlSeconds, 1), TimeUnit.SECONDS)
+                                     .recordStats()
+                                     .removalListener(new RemovalListener<LineageCacheKey, AtlasLineageInfo>() {
+                                         @Override
+                                         public void onRemoval(RemovalNotification<LineageCacheKey, AtlasLineageInfo> notification) {
+                                             // on replace, the index already has the keys of the new value
+                                             if (notification.getCause() != RemovalCause.REPLACED) {
+                                                 removeFromIndex(notification.getKey(), notification.getValue());
+                                             }
+                                         }
+                                     })
+                                     .build();
+
+        LOG.info("AtlasLineageCache(maxSize={}, ttlSeconds={})", maxSize, ttlSeconds);
+    }
+
+    public boolean isEnabled() {
+        return isEnabled;
+    }
+
+    /**
+     * @return true if no lineage is cached - hence no entry can be invalidated
+     */
+    public boolean isEmpty() {
+        return !isEnabled || cache.size() == 0;
+    }
+
+    public AtlasLineageInfo get(String guid, LineageDirection direction, int depth) {
+        return isEnabled ? cache.getIfPresent(new LineageCacheKey(guid, direction, depth)) : null;
+    }
+
+    /**
+     * @return value to be passed to put(), to detect invalidations while a lineage result is being computed
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    public void put(String guid, LineageDirection direction, int depth, AtlasLineageInfo lineageInfo, long computedAtGeneration) {
+        if (!isEnabled || lineageInfo == null) {
+            return;
+        }
+
+        LineageCacheKey key = new LineageCacheKey(guid, direction, depth);
+
+        for (String entityGuid : getGuids(lineageInfo)) {
+            keysByGuid.computeIfAbsent(entityGuid, k -> Collections.newSetFromMap(new ConcurrentHashMap<LineageCacheKey, Boolean>())).add(key);
+        }
+
+        cache.put(key, lineageInfo);
+
+        // an invalidation might have missed the entry that was just added
+        if (generation.get() != computedAtGeneration) {
+            cache.invalidate(key);
+        }
+    }
+
+    /**
+     * Removes cached lineage results that include any of the given entities.
+     */
+    public void invalidate(Collection<String> guids) {
+        if (!isEnabled || CollectionUtils.isEmpty(guids)) {
+            return;
+        }
+
+        generation.incrementAndGet();
+
+        for (String guid : guids) {
+            Set<LineageCacheKey> keys = keysByGuid.remove(guid);
+
+            if (keys != null) {
+                for (LineageCacheKey key : keys) {
+                    if (cache.asMap().remove(key) != null) {
+                        invalidations.incrementAndGet();
+                    }
+                }
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+
+        invalidations.addAndGet(cache.size());
+
+        cache.invalidateAll();
+        keysByGuid.clear();
+    }
+
+    public Map<String, Number> getMetrics() {
+        Map<String, Number> ret = new LinkedHashMap<>();
+
+        ret.put(METRIC_CACHE_HITS, cache.stats().hitCount());
+        ret.put(METRIC_CACHE_MISSES, cache.stats().missCount());
+        ret.put(METRIC_CACHE_HIT_RATIO, cache.stats().hitRate());
+        ret.put(METRIC_CACHE_SIZE, cache.size());
+        ret.put(METRIC_CACHE_EVICTIONS, cache.stats().evictionCount());
+        ret.put(METRIC_CACHE_INVALIDATIONS, invalidations.get());
+
+        return ret;
+    }
+
+    private void removeFromIndex(LineageCacheKey key, AtlasLineageInfo lineageInfo) {
+        if (key == null || lineageInfo == null) {
+            return;
+        }
+
+        for (String entityGuid : getGuids(lineageInfo)) {
+            Set<LineageCacheKey> keys = keysByGuid.get(entityGuid);
+
+            if (keys != null) {
+                keys.remove(key);
+            }
+        }
+    }
+
+    private static Set<String> getGuids(AtlasLineageInfo lineageInfo) {
+        Set<String> ret = new HashSet<>();
+
+        ret.add(lineageInfo.getBaseEntityGuid());
+
+        if (lineageInfo.getGuidEntityMap() != null) {
+            ret.addAll(lineageInfo.getGuidEntityMap().keySet());
+        }
+
+        return ret;
+    }
+
+    private static class LineageCacheKey {
+        private final String           guid;
+        private final LineageDirection direction;
+        private final int              depth;
+
+        LineageCacheKey(String guid, LineageDirection direction, int depth) {
+            this.guid      = guid;
+            this.direction = direction;
+            this.depth     = depth;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            LineageCacheKey that = (LineageCacheKey) o;
+
+            return depth == that.depth && Objects.equals(guid, that.guid) && direction == that.direction;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(guid, direction, depth);
+        }
+    }
+}
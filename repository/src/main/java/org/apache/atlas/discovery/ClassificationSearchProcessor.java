@@ -38,8 +38,6 @@ import org.apache.commons.collections.PredicateUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.script.ScriptEngine;
-import javax.script.ScriptException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -61,6 +59,7 @@ public class ClassificationSearchProcessor extends SearchProcessor {
     private final AtlasGraphQuery tagGraphQueryWithAttributes;
     private final AtlasGraphQuery entityGraphQueryTraitNames;
     private       Predicate       entityPredicateTraitNames;
+    private final Predicate       classificationPredicate; // classification vertices matching the search
 
     private final String              gremlinTagFilterQuery;
     private final Map<String, Object> gremlinQueryBindings;
@@ -87,8 +86,18 @@ public class ClassificationSearchProcessor extends SearchProcessor {
 
         processSearchAttributes(classificationType, filterCriteria, indexAttributes, graphAttributes, allAttributes);
 
-        // for classification search, if any attribute can't be handled by index query - switch to all filter by Graph query
-        boolean useIndexSearch = classificationType != SearchContext.MATCH_ALL_CLASSIFICATION &&
+        Predicate classificationTypePredicate = SearchPredicateUtil.getINPredicateGenerator()
+                                                                   .generatePredicate(Constants.TYPE_NAME_PROPERTY_KEY, typeAndSubTypes, String.class);
+        Predicate classificationAttrPredicate = constructInMemoryPredicate(classificationType, filterCriteria, allAttributes);
+
+        classificationPredicate = classificationAttrPredicate != null ? PredicateUtils.andPredicate(classificationTypePredicate, classificationAttrPredicate) : classificationTypePredicate;
+
+        // for classification search, if any attribute can't be handled by index query - switch to all filter by Graph query.
+        // When the results are to be sorted by the index, entity vertices are queried with a sorted graph query
+        final String sortByIndexKey = context.getSortByIndexKey();
+
+        boolean useIndexSearch = sortByIndexKey == null &&
+                                 classificationType != SearchContext.MATCH_ALL_CLASSIFICATION &&
                                  typeAndSubTypesQryStr.length() <= MAX_QUERY_STR_LENGTH_TAGS &&
                                  CollectionUtils.isEmpty(graphAttributes) &&
                                  canApplyIndexFilter(classificationType, filterCriteria, false);
@@ -178,6 +187,10 @@ public class ClassificationSearchProcessor extends SearchProcessor {
                 entityPredicateTraitNames = PredicateUtils.andPredicate(entityPredicateTraitNames, activePredicate);
             }
 
+            if (sortByIndexKey != null) {
+                entityGraphQueryTraitNames.orderBy(sortByIndexKey, context.getSortOrder());
+            }
+
             gremlinTagFilterQuery = null;
             gremlinQueryBindings  = null;
         }
@@ -198,23 +211,36 @@ public class ClassificationSearchProcessor extends SearchProcessor {
         }
 
         try {
-            final int     startIdx   = context.getSearchParameters().getOffset();
-            final int     limit      = context.getSearchParameters().getLimit();
-            final boolean activeOnly = context.getSearchParameters().getExcludeDeletedEntities();
-
-            // query to start at 0, even though startIdx can be higher - because few results in earlier retrieval could
-            // have been dropped: like non-active-entities or duplicate-entities (same entity pointed to by multiple
-            // classifications in the result)
-            //
-            // first 'startIdx' number of entries will be ignored
-            int qryOffset = 0;
-            int resultIdx = qryOffset;
+            final SearchContinuationToken continuationToken = context.getContinuationToken();
+            final int                     limit             = context.getSearchParameters().getLimit();
+            final boolean                 activeOnly        = context.getSearchParameters().getExcludeDeletedEntities();
+            final int                     startIdx;
+            int                           qryOffset;
+
+            if (continuationToken != null) {
+                // resume from the batch where the previous page ended; entries of the batch already returned are ignored
+                startIdx  = continuationToken.getSkipCount();
+                qryOffset = continuationToken.getQueryOffset();
+            } else {
+                startIdx  = context.getSearchParameters().getOffset();
+
+                // query to start at 0, even though startIdx can be higher - because few results in earlier retrieval could
+                // have been dropped: like non-active-entities or duplicate-entities (same entity pointed to by multiple
+                // classifications in the result)
+                //
+                // first 'startIdx' number of entries will be ignored
+                qryOffset = 0;
+            }
+
+            int resultIdx = 0;
 
             final Set<String>       processedGuids         = new HashSet<>();
             final List<AtlasVertex> entityVertices         = new ArrayList<>();
             final List<AtlasVertex> classificationVertices = new ArrayList<>();
 
             for (; ret.size() < limit; qryOffset += limit) {
+                final int batchStartIdx = resultIdx;
+
                 entityVertices.clear();
                 classificationVertices.clear();
 
@@ -274,7 +300,7 @@ public class ClassificationSearchProcessor extends SearchProcessor {
 
                             String guid = AtlasGraphUtilsV1.getIdFromVertex(entityVertex);
 
-                            if (processedGuids.contains(guid)) {
+                            if (processedGuids.contains(guid) || !isFirstMatchingClassification(entityVertex, classificationVertex)) {
                                 continue;
                             }
 
@@ -288,6 +314,8 @@ public class ClassificationSearchProcessor extends SearchProcessor {
                 super.filter(entityVertices);
 
                 resultIdx = collectResultVertices(ret, startIdx, limit, resultIdx, entityVertices);
+
+                updateContinuationToken(ret, limit, qryOffset, limit, batchStartIdx, resultIdx, entityVertices);
             }
         } finally {
             AtlasPerfTracer.log(perf);
@@ -300,6 +328,24 @@ public class ClassificationSearchProcessor extends SearchProcessor {
         return ret;
     }
 
+    // an entity pointed to by multiple matching classifications is collected only with the one having the lowest vertex
+    // id, so that it is returned once even when the classifications are in different pages - across which earlier
+    // entities are not known, when resuming with a continuation token
+    private boolean isFirstMatchingClassification(AtlasVertex entityVertex, AtlasVertex classificationVertex) {
+        String              classificationId = classificationVertex.getIdForDisplay();
+        Iterable<AtlasEdge> edges            = entityVertex.getEdges(AtlasEdgeDirection.OUT, Constants.CLASSIFICATION_LABEL);
+
+        for (AtlasEdge edge : edges) {
+            AtlasVertex otherVertex = edge.getInVertex();
+
+            if (otherVertex.getIdForDisplay().compareTo(classificationId) < 0 && classificationPredicate.evaluate(otherVertex)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     @Override
     public void filter(List<AtlasVertex> entityVertices) {
         if (LOG.isDebugEnabled()) {
@@ -317,14 +363,13 @@ public class ClassificationSearchProcessor extends SearchProcessor {
                 gremlinQueryBindings.put("guids", guids);
 
                 try {
-                    AtlasGraph        graph               = context.getGraph();
-                    ScriptEngine      gremlinScriptEngine = graph.getGremlinScriptEngine();
-                    List<AtlasVertex> atlasVertices       = (List<AtlasVertex>) graph.executeGremlinScript(gremlinScriptEngine, gremlinQueryBindings, gremlinTagFilterQuery, false);
+                    AtlasGraph        graph         = context.getGraph();
+                    List<AtlasVertex> atlasVertices = (List<AtlasVertex>) graph.executeGremlinScript(gremlinTagFilterQuery, gremlinQueryBindings, false);
 
                     if (CollectionUtils.isNotEmpty(atlasVertices)) {
                         entityVertices.addAll(atlasVertices);
                     }
-                } catch (AtlasBaseException | ScriptException e) {
+                } catch (AtlasBaseException e) {
                     LOG.warn(e.getMessage(), e);
                 }
             }
@@ -19,6 +19,7 @@ package org.apache.atlas.discovery;
 
 import com.google.common.annotations.VisibleForTesting;
 import org.apache.atlas.ApplicationProperties;
+import org.apache.atlas.AtlasConfiguration;
 import org.apache.atlas.AtlasErrorCode;
 import org.apache.atlas.AtlasException;
 import org.apache.atlas.SortOrder;
@@ -32,12 +33,14 @@ import org.apache.atlas.model.discovery.SearchParameters;
 import org.apache.atlas.model.instance.AtlasEntityHeader;
 import org.apache.atlas.model.instance.AtlasObjectId;
 import org.apache.atlas.model.profile.AtlasUserSavedSearch;
-import org.apache.atlas.query.AtlasDSL;
+import org.apache.atlas.query.DSLQueryCache;
 import org.apache.atlas.query.GremlinQuery;
 import org.apache.atlas.query.QueryParams;
 import org.apache.atlas.repository.Constants;
 import org.apache.atlas.repository.graph.GraphBackedSearchIndexer;
 import org.apache.atlas.repository.graph.GraphHelper;
+import org.apache.atlas.repository.graphdb.AtlasEdge;
+import org.apache.atlas.repository.graphdb.AtlasEdgeDirection;
 import org.apache.atlas.repository.graphdb.AtlasGraph;
 import org.apache.atlas.repository.graphdb.AtlasIndexQuery;
 import org.apache.atlas.repository.graphdb.AtlasIndexQuery.Result;
@@ -64,16 +67,15 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import javax.inject.Inject;
-import javax.script.Bindings;
 import javax.script.ScriptEngine;
 import javax.script.ScriptException;
+import java.io.IOException;
 import java.util.*;
 
 import static org.apache.atlas.AtlasErrorCode.CLASSIFICATION_NOT_FOUND;
 import static org.apache.atlas.AtlasErrorCode.DISCOVERY_QUERY_FAILED;
 import static org.apache.atlas.AtlasErrorCode.UNKNOWN_TYPENAME;
 import static org.apache.atlas.SortOrder.ASCENDING;
-import static org.apache.atlas.SortOrder.DESCENDING;
 import static org.apache.atlas.model.TypeCategory.ARRAY;
 import static org.apache.atlas.model.TypeCategory.MAP;
 import static org.apache.atlas.model.TypeCategory.OBJECT_ID_TYPE;
@@ -98,11 +100,12 @@ public class EntityDiscoveryService implements AtlasDiscoveryService {
     private final int                             maxTagsLengthInIdxQuery;
     private final String                          indexSearchPrefix;
     private final UserProfileService              userProfileService;
+    private final DSLQueryCache                   dslQueryCache;
 
     @Inject
     EntityDiscoveryService(AtlasTypeRegistry typeRegistry,
                            AtlasGraph graph, GraphBackedSearchIndexer indexer, SearchTracker searchTracker,
-                           UserProfileService userProfileService) throws AtlasException {
+                           UserProfileService userProfileService, DSLQueryCache dslQueryCache) throws AtlasException {
         this.graph                    = graph;
         this.entityRetriever          = new EntityGraphRetriever(typeRegistry);
         this.indexer                  = indexer;
@@ -114,20 +117,59 @@ public class EntityDiscoveryService implements AtlasDiscoveryService {
         this.maxTagsLengthInIdxQuery  = ApplicationProperties.get().getInt(Constants.INDEX_SEARCH_TAGS_MAX_QUERY_STR_LENGTH, 512);
         this.indexSearchPrefix        = AtlasGraphUtilsV1.getIndexSearchPrefix();
         this.userProfileService       = userProfileService;
+        this.dslQueryCache            = dslQueryCache;
     }
 
     @Override
     @GraphTransaction
     public AtlasSearchResult searchUsingDslQuery(String dslQuery, int limit, int offset) throws AtlasBaseException {
+        String searchID = searchTracker.add(dslQuery); // counts toward the concurrent searches of the user
+
+        try {
+            return executeDslQuery(dslQuery, limit, offset);
+        } finally {
+            searchTracker.remove(searchID);
+        }
+    }
+
+    @Override
+    @GraphTransaction
+    public AtlasSearchResult searchUsingFullTextQuery(String fullTextQuery, boolean excludeDeletedEntities, int limit, int offset)
+                                                      throws AtlasBaseException {
+        String searchID = searchTracker.add(fullTextQuery); // counts toward the concurrent searches of the user
+
+        try {
+            return executeFullTextQuery(fullTextQuery, excludeDeletedEntities, limit, offset);
+        } finally {
+            searchTracker.remove(searchID);
+        }
+    }
+
+    @Override
+    @GraphTransaction
+    public AtlasSearchResult searchUsingBasicQuery(String query, String typeName, String classification, String attrName,
+                                                   String attrValuePrefix, boolean excludeDeletedEntities, int limit,
+                                                   int offset) throws AtlasBaseException {
+        String searchID = searchTracker.add(String.format("query=%s, typeName=%s, classification=%s, attrName=%s, attrValuePrefix=%s",
+                                                          query, typeName, classification, attrName, attrValuePrefix));
+
+        try {
+            return executeBasicQuery(query, typeName, classification, attrName, attrValuePrefix, excludeDeletedEntities, limit, offset);
+        } finally {
+            searchTracker.remove(searchID);
+        }
+    }
+
+    private AtlasSearchResult executeDslQuery(String dslQuery, int limit, int offset) throws AtlasBaseException {
         AtlasSearchResult ret          = new AtlasSearchResult(dslQuery, AtlasQueryType.DSL);
         GremlinQuery      gremlinQuery = toGremlinQuery(dslQuery, limit, offset);
         String            queryStr     = gremlinQuery.queryStr();
 
         if (LOG.isDebugEnabled()) {
-            LOG.debug("Executing DSL: query={}, gremlinQuery={}", dslQuery, queryStr);
+            LOG.debug("Executing DSL: query={}, gremlinQuery={}, bindings={}", dslQuery, queryStr, gremlinQuery.getBindings());
         }
 
-        Object result = graph.executeGremlinScript(queryStr, false);
+        Object result = graph.executeGremlinScript(queryStr, gremlinQuery.getBindings(), false);
 
         if (result instanceof List && CollectionUtils.isNotEmpty((List)result)) {
             List   queryResult  = (List) result;
@@ -170,10 +212,8 @@ public class EntityDiscoveryService implements AtlasDiscoveryService {
         return ret;
     }
 
-    @Override
-    @GraphTransaction
-    public AtlasSearchResult searchUsingFullTextQuery(String fullTextQuery, boolean excludeDeletedEntities, int limit, int offset)
-                                                      throws AtlasBaseException {
+    private AtlasSearchResult executeFullTextQuery(String fullTextQuery, boolean excludeDeletedEntities, int limit, int offset)
+                                                   throws AtlasBaseException {
         AtlasSearchResult ret      = new AtlasSearchResult(fullTextQuery, AtlasQueryType.FULL_TEXT);
         QueryParams       params   = QueryParams.getNormalizedParams(limit, offset);
         AtlasIndexQuery   idxQuery = toAtlasIndexQuery(fullTextQuery);
@@ -186,11 +226,9 @@ public class EntityDiscoveryService implements AtlasDiscoveryService {
         return ret;
     }
 
-    @Override
-    @GraphTransaction
-    public AtlasSearchResult searchUsingBasicQuery(String query, String typeName, String classification, String attrName,
-                                                   String attrValuePrefix, boolean excludeDeletedEntities, int limit,
-                                                   int offset) throws AtlasBaseException {
+    private AtlasSearchResult executeBasicQuery(String query, String typeName, String classification, String attrName,
+                                                String attrValuePrefix, boolean excludeDeletedEntities, int limit,
+                                                int offset) throws AtlasBaseException {
 
         AtlasSearchResult ret = new AtlasSearchResult(AtlasQueryType.BASIC);
 
@@ -423,21 +461,17 @@ public class EntityDiscoveryService implements AtlasDiscoveryService {
         String        searchID = searchTracker.add(context); // For future cancellations
 
         try {
-            List<AtlasVertex> resultList = context.getSearchProcessor().execute();
+            // the index sorts the results when it can; otherwise all results are read to sort them here
+            List<AtlasVertex> resultList = context.needInMemorySort() ? searchWithInMemorySort(context) : context.getSearchProcessor().execute();
 
-            // By default any attribute that shows up in the search parameter should be sent back in the response
-            // If additional values are requested then the entityAttributes will be a superset of the all search attributes
-            // and the explicitly requested attribute(s)
-            Set<String> resultAttributes = new HashSet<>();
-            Set<String> entityAttributes = new HashSet<>();
+            checkSearchTimeout(context);
 
-            if (CollectionUtils.isNotEmpty(searchParameters.getAttributes())) {
-                resultAttributes.addAll(searchParameters.getAttributes());
+            if (context.getNextContinuationToken() != null) {
+                ret.setContinuationToken(context.getNextContinuationToken().encode());
             }
 
-            if (CollectionUtils.isNotEmpty(context.getEntityAttributes())) {
-                resultAttributes.addAll(context.getEntityAttributes());
-            }
+            Set<String> resultAttributes = getResultAttributes(searchParameters, context);
+            Set<String> entityAttributes = new HashSet<>();
 
             AtlasEntityType entityType = context.getEntityType();
             if (entityType != null) {
@@ -458,50 +492,256 @@ public class EntityDiscoveryService implements AtlasDiscoveryService {
                 }
             }
 
-            for (AtlasVertex atlasVertex : resultList) {
-                AtlasEntityHeader entity = entityRetriever.toAtlasEntityHeader(atlasVertex, resultAttributes);
+            List<AtlasEntityHeader>        entities      = entityRetriever.toAtlasEntityHeaders(resultList, resultAttributes);
+            Map<String, AtlasEntityHeader> entityByGuid  = new LinkedHashMap<>();
+            Set<String>                    referredGuids = new LinkedHashSet<>();
+
+            for (int i = 0; i < entities.size(); i++) {
+                AtlasEntityHeader entity = entities.get(i);
 
-                if(searchParameters.getIncludeClassificationAttributes()) {
-                    entity.setClassifications(entityRetriever.getAllClassifications(atlasVertex));
+                if (searchParameters.getIncludeClassificationAttributes()) {
+                    entity.setClassifications(entityRetriever.getAllClassifications(resultList.get(i)));
                 }
 
-                ret.addEntity(entity);
+                // same as AtlasSearchResult.addEntity(): a later entry with the same guid replaces the earlier one
+                entityByGuid.remove(entity.getGuid());
+                entityByGuid.put(entity.getGuid(), entity);
 
-                // populate ret.referredEntities
                 for (String entityAttribute : entityAttributes) {
                     Object attrValue = entity.getAttribute(entityAttribute);
 
                     if (attrValue instanceof AtlasObjectId) {
-                        AtlasObjectId objId = (AtlasObjectId) attrValue;
-
-                        if (ret.getReferredEntities() == null) {
-                            ret.setReferredEntities(new HashMap<String, AtlasEntityHeader>());
+                        referredGuids.add(((AtlasObjectId) attrValue).getGuid());
+                    } else if (attrValue instanceof Collection) {
+                        for (Object obj : (Collection) attrValue) {
+                            if (obj instanceof AtlasObjectId) {
+                                referredGuids.add(((AtlasObjectId) obj).getGuid());
+                            }
                         }
+                    }
+                }
+            }
 
-                        if (!ret.getReferredEntities().containsKey(objId.getGuid())) {
-                            ret.getReferredEntities().put(objId.getGuid(), entityRetriever.toAtlasEntityHeader(objId.getGuid()));
-                        }
-                    } else if (attrValue instanceof Collection) {
-                        Collection objIds = (Collection) attrValue;
+            if (!entityByGuid.isEmpty()) {
+                ret.setEntities(new ArrayList<>(entityByGuid.values()));
+            }
 
-                        for (Object obj : objIds) {
-                            if (obj instanceof AtlasObjectId) {
-                                AtlasObjectId objId = (AtlasObjectId) obj;
+            // populate ret.referredEntities, with a single lookup for all referred entities in the page
+            if (!referredGuids.isEmpty()) {
+                ret.setReferredEntities(entityRetriever.toAtlasEntityHeaders(referredGuids));
+            }
+        } finally {
+            searchTracker.remove(searchID);
+        }
 
-                                if (ret.getReferredEntities() == null) {
-                                    ret.setReferredEntities(new HashMap<String, AtlasEntityHeader>());
-                                }
+        return ret;
+    }
 
-                                if (!ret.getReferredEntities().containsKey(objId.getGuid())) {
-                                    ret.getReferredEntities().put(objId.getGuid(), entityRetriever.toAtlasEntityHeader(objId.getGuid()));
-                                }
-                            }
+    @Override
+    public long searchWithParameters(SearchParameters searchParameters, SearchResultConsumer consumer) throws AtlasBaseException {
+        final int              batchSize   = Math.max(AtlasConfiguration.SEARCH_STREAM_BATCH_SIZE.getInt(), 1);
+        final long             maxResults  = searchParameters.getLimit() > 0 ? searchParameters.getLimit() : Long.MAX_VALUE;
+        final SearchParameters batchParams = AtlasType.fromJson(AtlasType.toJson(searchParameters), SearchParameters.class); // updated for each batch
+        final long             maxBatchMs  = AtlasConfiguration.SEARCH_MAX_DURATION_MS.getLong();
+        long                   toSkip      = Math.max(searchParameters.getOffset(), 0);
+        long                   ret         = 0;
+
+        String                 searchID    = null; // the search is registered once, with the permit of the whole stream
+
+        // offset is applied by skipping results of the first batches, as the continuation token replaces the offset
+        batchParams.setOffset(0);
+        batchParams.setContinuationToken(null);
+
+        try {
+            // each batch resumes the search where the previous batch ended, using the continuation token
+            while (ret < maxResults) {
+                batchParams.setLimit((int) (toSkip > 0 ? batchSize : Math.min(batchSize, maxResults - ret)));
+
+                SearchContext           context   = new SearchContext(batchParams, typeRegistry, graph, indexer.getVertexIndexKeys());
+                SearchContinuationToken nextToken = null;
+
+                validateStreamSearchContext(context);
+
+                if (searchID == null) {
+                    searchID = searchTracker.add(context); // For cancellations
+                } else {
+                    searchTracker.setContext(searchID, context);
+                }
+
+                // each batch gets the search deadline: failing a stream midway, after the response has started, would
+                // leave the client with results it can't tell apart from complete results
+                context.setDeadline(maxBatchMs > 0 ? System.currentTimeMillis() + maxBatchMs : 0);
+
+                try {
+                    List<AtlasVertex> resultList = context.getSearchProcessor().execute();
+
+                    checkSearchTimeout(context);
+
+                    if (context.terminateSearch()) {
+                        LOG.warn("streaming search terminated after {} entities: {}", ret, batchParams);
+
+                        break;
+                    }
+
+                    if (toSkip > 0) {
+                        int skipCount = (int) Math.min(toSkip, resultList.size());
+
+                        resultList = resultList.subList(skipCount, resultList.size());
+                        toSkip    -= skipCount;
+                    }
+
+                    if (resultList.size() > maxResults - ret) {
+                        resultList = resultList.subList(0, (int) (maxResults - ret));
+                    }
+
+                    Set<String>             resultAttributes = getResultAttributes(batchParams, context);
+                    List<AtlasEntityHeader> entities         = entityRetriever.toAtlasEntityHeaders(resultList, resultAttributes);
+
+                    if (batchParams.getIncludeClassificationAttributes()) {
+                        for (int i = 0; i < entities.size(); i++) {
+                            entities.get(i).setClassifications(entityRetriever.getAllClassifications(resultList.get(i)));
                         }
                     }
+
+                    if (!entities.isEmpty()) {
+                        consumer.consume(entities);
+                    }
+
+                    ret      += entities.size();
+                    nextToken = context.getNextContinuationToken();
+                } catch (IOException e) {
+                    LOG.info("streaming search stopped by consumer after {} entities: {}", ret, e.getMessage());
+
+                    searchTracker.terminate(searchID);
+
+                    break;
+                } finally {
+                    // release the vertices read for this batch
+                    graph.rollback();
                 }
+
+                if (nextToken == null) { // no more results
+                    break;
+                }
+
+                batchParams.setContinuationToken(nextToken.encode());
             }
         } finally {
-            searchTracker.remove(searchID);
+            if (searchID != null) {
+                searchTracker.remove(searchID);
+            }
+        }
+
+        return ret;
+    }
+
+    @Override
+    public void validateStreamSearchParameters(SearchParameters searchParameters) throws AtlasBaseException {
+        SearchParameters params = AtlasType.fromJson(AtlasType.toJson(searchParameters), SearchParameters.class);
+
+        params.setOffset(0);
+        params.setContinuationToken(null);
+
+        validateStreamSearchContext(new SearchContext(params, typeRegistry, graph, indexer.getVertexIndexKeys()));
+    }
+
+    // batches of a stream are read with continuation tokens; results that need in-memory sort would be streamed unsorted
+    private static void validateStreamSearchContext(SearchContext context) throws AtlasBaseException {
+        if (context.needInMemorySort()) {
+            throw new AtlasBaseException(AtlasErrorCode.INVALID_PARAMETERS, "sortBy " + context.getSearchParameters().getSortBy() + " is not supported for streamed results, as the index can't sort on it");
+        }
+    }
+
+    /**
+     * Reads all results of the search in batches, without sorting, and keeps the first offset+limit in the order of
+     * the sortBy attribute. Used when the index can't sort on the attribute; no continuation token is returned, as the
+     * position in the sorted results can't be resumed from without reading all results again. Batches are chained
+     * with continuation tokens, which every search processor - including full-text - sets while results remain.
+     */
+    private List<AtlasVertex> searchWithInMemorySort(SearchContext context) throws AtlasBaseException {
+        SearchParameters searchParameters = context.getSearchParameters();
+        int              maxResults       = AtlasConfiguration.SEARCH_SORT_MAX_RESULTS.getInt();
+        long             resultCount      = (long) searchParameters.getOffset() + searchParameters.getLimit();
+
+        if (resultCount > maxResults) {
+            throw new AtlasBaseException(AtlasErrorCode.INVALID_PARAMETERS, "offset + limit exceeds " + maxResults + " for results sorted by " + searchParameters.getSortBy());
+        }
+
+        TopKVertexCollector collector       = new TopKVertexCollector(typeRegistry, searchParameters.getSortBy(), context.getSortOrder(), (int) resultCount);
+        SearchParameters    batchParameters = getUnsortedBatchParameters(searchParameters);
+
+        // each batch resumes the search where the previous batch ended, using the continuation token
+        while (!context.terminateSearch()) {
+            SearchContext batchContext = new SearchContext(batchParameters, typeRegistry, graph, context.getIndexedKeys());
+
+            batchContext.setDeadline(context.getDeadline());
+
+            collector.addAll(batchContext.getSearchProcessor().execute());
+
+            context.addScannedCount(batchContext.getScannedCount());
+            context.addFilteredCount(batchContext.getFilteredCount());
+
+            if (batchContext.getNextContinuationToken() == null) { // no more results
+                break;
+            }
+
+            batchParameters.setContinuationToken(batchContext.getNextContinuationToken().encode());
+        }
+
+        List<AtlasVertex> sortedVertices = collector.getSortedVertices();
+        List<AtlasVertex> ret            = searchParameters.getOffset() < sortedVertices.size() ? sortedVertices.subList(searchParameters.getOffset(), sortedVertices.size()) : Collections.<AtlasVertex>emptyList();
+
+        context.addReturnedCount(ret.size());
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("searchWithInMemorySort(): sorted {} entities, returning {}: {}", collector.getAddedCount(), ret.size(), searchParameters);
+        }
+
+        return ret;
+    }
+
+    private static SearchParameters getUnsortedBatchParameters(SearchParameters searchParameters) {
+        SearchParameters ret = new SearchParameters();
+
+        ret.setQuery(searchParameters.getQuery());
+        ret.setTypeName(searchParameters.getTypeName());
+        ret.setClassification(searchParameters.getClassification());
+        ret.setExcludeDeletedEntities(searchParameters.getExcludeDeletedEntities());
+        ret.setIncludeSubTypes(searchParameters.getIncludeSubTypes());
+        ret.setIncludeSubClassifications(searchParameters.getIncludeSubClassifications());
+        ret.setEntityFilters(searchParameters.getEntityFilters());
+        ret.setTagFilters(searchParameters.getTagFilters());
+        ret.setOffset(0);
+        ret.setLimit(Math.max(AtlasConfiguration.SEARCH_SORT_BATCH_SIZE.getInt(), 1));
+
+        return ret;
+    }
+
+    private void checkSearchTimeout(SearchContext context) throws AtlasBaseException {
+        if (context.isTimedOut()) {
+            LOG.warn("search timed out: scanned={}, filtered={}, returned={}: {}", context.getScannedCount(),
+                     context.getFilteredCount(), context.getReturnedCount(), context.getSearchParameters());
+
+            throw new AtlasBaseException(AtlasErrorCode.SEARCH_TIMED_OUT, String.valueOf(AtlasConfiguration.SEARCH_MAX_DURATION_MS.getLong()));
+        }
+    }
+
+    private Set<String> getResultAttributes(SearchParameters searchParameters, SearchContext context) {
+        // By default any attribute that shows up in the search parameter should be sent back in the response
+        // If additional values are requested then the entityAttributes will be a superset of the all search attributes
+        // and the explicitly requested attribute(s)
+        Set<String> ret = new HashSet<>();
+
+        if (CollectionUtils.isNotEmpty(searchParameters.getAttributes())) {
+            ret.addAll(searchParameters.getAttributes());
+        }
+
+        if (CollectionUtils.isNotEmpty(context.getEntityAttributes())) {
+            ret.addAll(context.getEntityAttributes());
+        }
+
+        if (context.hasSortBy()) {
+            ret.add(searchParameters.getSortBy());
         }
 
         return ret;
@@ -511,6 +751,17 @@ public class EntityDiscoveryService implements AtlasDiscoveryService {
     @GraphTransaction
     public AtlasSearchResult searchRelatedEntities(String guid, String relation, String sortByAttributeName, SortOrder sortOrder,
                                                    boolean excludeDeletedEntities, int limit, int offset) throws AtlasBaseException {
+        String searchID = searchTracker.add("guid=" + guid + ", relation=" + relation); // counts toward the concurrent searches of the user
+
+        try {
+            return getRelatedEntities(guid, relation, sortByAttributeName, sortOrder, excludeDeletedEntities, limit, offset);
+        } finally {
+            searchTracker.remove(searchID);
+        }
+    }
+
+    private AtlasSearchResult getRelatedEntities(String guid, String relation, String sortByAttributeName, SortOrder sortOrder,
+                                                 boolean excludeDeletedEntities, int limit, int offset) throws AtlasBaseException {
         AtlasSearchResult ret = new AtlasSearchResult(AtlasQueryType.RELATIONSHIP);
 
         if (StringUtils.isEmpty(guid) || StringUtils.isEmpty(relation)) {
@@ -539,79 +790,36 @@ public class EntityDiscoveryService implements AtlasDiscoveryService {
             sortByAttributeName = DEFAULT_SORT_ATTRIBUTE_NAME;
         }
 
-        AtlasAttribute sortByAttribute = entityType.getAttribute(sortByAttributeName);
-
-        if (sortByAttribute == null) {
-            sortByAttributeName = null;
-            sortOrder           = null;
-        } else {
-            sortByAttributeName = sortByAttribute.getQualifiedName();
-
-            if (sortOrder == null) {
-                sortOrder = ASCENDING;
-            }
+        if (sortOrder == null) {
+            sortOrder = ASCENDING;
         }
 
-        QueryParams  params               = QueryParams.getNormalizedParams(limit, offset);
-        ScriptEngine scriptEngine         = graph.getGremlinScriptEngine();
-        Bindings     bindings             = scriptEngine.createBindings();
-        Set<String>  states               = getEntityStates();
-        String       relatedEntitiesQuery = gremlinQueryProvider.getQuery(RELATIONSHIP_SEARCH);
+        // the related entities are read from the edges of the entity, keeping only offset+limit of them at a time; the
+        // sort attribute is looked up in the type of each related entity, as they can be of different types
+        QueryParams         params    = QueryParams.getNormalizedParams(limit, offset);
+        int                 maxCount  = (int) Math.min((long) params.offset() + params.limit(), Integer.MAX_VALUE);
+        TopKVertexCollector collector = new TopKVertexCollector(typeRegistry, sortByAttributeName, sortOrder, maxCount);
+        Object              vertexId  = entityVertex.getId();
 
-        if (excludeDeletedEntities) {
-            states.remove(DELETED.toString());
-        }
+        for (AtlasEdge edge : (Iterable<AtlasEdge>) entityVertex.getEdges(AtlasEdgeDirection.BOTH, relation)) {
+            AtlasVertex relatedVertex = vertexId.equals(edge.getOutVertex().getId()) ? edge.getInVertex() : edge.getOutVertex();
 
-        if (sortOrder == ASCENDING) {
-            relatedEntitiesQuery += gremlinQueryProvider.getQuery(RELATIONSHIP_SEARCH_ASCENDING_SORT);
-            bindings.put("sortAttributeName", sortByAttributeName);
+            if (excludeDeletedEntities && DELETED.toString().equals(relatedVertex.getProperty(Constants.STATE_PROPERTY_KEY, String.class))) {
+                continue;
+            }
 
-        } else if (sortOrder == DESCENDING) {
-            relatedEntitiesQuery += gremlinQueryProvider.getQuery(RELATIONSHIP_SEARCH_DESCENDING_SORT);
-            bindings.put("sortAttributeName", sortByAttributeName);
+            collector.add(relatedVertex);
         }
 
-        relatedEntitiesQuery += gremlinQueryProvider.getQuery(TO_RANGE_LIST);
-
-        bindings.put("g", graph);
-        bindings.put("guid", guid);
-        bindings.put("relation", relation);
-        bindings.put("states", Collections.unmodifiableSet(states));
-        bindings.put("startIdx", params.offset());
-        bindings.put("endIdx", params.offset() + params.limit());
-
-        try {
-            Object result = graph.executeGremlinScript(scriptEngine, bindings, relatedEntitiesQuery, false);
-
-            if (result instanceof List && CollectionUtils.isNotEmpty((List) result)) {
-                List<?> queryResult  = (List) result;
-                Object  firstElement = queryResult.get(0);
-
-                if (firstElement instanceof AtlasVertex) {
-                    List<AtlasVertex>       vertices   = (List<AtlasVertex>) queryResult;
-                    List<AtlasEntityHeader> resultList = new ArrayList<>(vertices.size());
-
-                    for (AtlasVertex vertex : vertices) {
-                        resultList.add(entityRetriever.toAtlasEntityHeader(vertex));
-                    }
-
-                    ret.setEntities(resultList);
-                }
-            }
+        List<AtlasVertex>       vertices   = collector.getSortedVertices();
+        List<AtlasEntityHeader> resultList = new ArrayList<>();
 
-            if (ret.getEntities() == null) {
-                ret.setEntities(new ArrayList<>());
-            }
-        } catch (ScriptException e) {
-            if (LOG.isDebugEnabled()) {
-                LOG.debug("Gremlin script execution failed for relationship search query: {}", relatedEntitiesQuery, e);
-            }
-
-            throw new AtlasBaseException(AtlasErrorCode.INTERNAL_ERROR, "Relationship search query failed");
-        } finally {
-            graph.releaseGremlinScriptEngine(scriptEngine);
+        for (int i = params.offset(); i < vertices.size(); i++) {
+            resultList.add(entityRetriever.toAtlasEntityHeader(vertices.get(i)));
         }
 
+        ret.setEntities(resultList);
+
         return ret;
     }
 
@@ -674,7 +882,7 @@ public class EntityDiscoveryService implements AtlasDiscoveryService {
 
     private GremlinQuery toGremlinQuery(String query, int limit, int offset) throws AtlasBaseException {
         QueryParams                 params       = QueryParams.getNormalizedParams(limit, offset);
-        GremlinQuery                gremlinQuery = new AtlasDSL.Translator(query, typeRegistry, params.offset(), params.limit()).translate();
+        GremlinQuery                gremlinQuery = dslQueryCache.getGremlinQuery(query, params.offset(), params.limit());
 
         if (LOG.isDebugEnabled()) {
             LOG.debug("Translated Gremlin Query: {}", gremlinQuery.queryStr());
@@ -796,10 +1004,6 @@ public class EntityDiscoveryService implements AtlasDiscoveryService {
         return ret;
     }
 
-    private Set<String> getEntityStates() {
-        return new HashSet<>(Arrays.asList(ACTIVE.toString(), DELETED.toString()));
-    }
-
 
     @Override
     public AtlasUserSavedSearch addSavedSearch(String currentUser, AtlasUserSavedSearch savedSearch) throws AtlasBaseException {
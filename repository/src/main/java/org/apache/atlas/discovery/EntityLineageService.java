@@ -19,7 +19,9 @@
 package org.apache.atlas.discovery;
 
 
+import com.google.common.annotations.VisibleForTesting;
 import org.apache.atlas.AtlasClient;
+import org.apache.atlas.AtlasConfiguration;
 import org.apache.atlas.AtlasErrorCode;
 import org.apache.atlas.annotation.GraphTransaction;
 import org.apache.atlas.authorize.AtlasAuthorizationUtils;
@@ -35,6 +37,7 @@ import org.apache.atlas.model.lineage.AtlasLineageInfo.LineageDirection;
 import org.apache.atlas.model.lineage.AtlasLineageInfo.LineageRelation;
 import org.apache.atlas.repository.Constants;
 import org.apache.atlas.repository.graphdb.AtlasEdge;
+import org.apache.atlas.repository.graphdb.AtlasEdgeDirection;
 import org.apache.atlas.repository.graphdb.AtlasGraph;
 import org.apache.atlas.repository.graphdb.AtlasVertex;
 import org.apache.atlas.repository.store.graph.v1.AtlasGraphUtilsV1;
@@ -44,6 +47,7 @@ import org.apache.atlas.type.AtlasTypeRegistry;
 import org.apache.atlas.type.AtlasTypeUtil;
 import org.apache.atlas.util.AtlasGremlinQueryProvider;
 import org.apache.atlas.util.AtlasGremlinQueryProvider.AtlasGremlinQuery;
+import org.apache.atlas.utils.AtlasPerfTracer;
 import org.apache.atlas.v1.model.lineage.SchemaResponse.SchemaDetails;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.MapUtils;
@@ -53,7 +57,9 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import javax.inject.Inject;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -63,7 +69,8 @@ import java.util.stream.Collectors;
 
 @Service
 public class EntityLineageService implements AtlasLineageService {
-    private static final Logger LOG = LoggerFactory.getLogger(EntityLineageService.class);
+    private static final Logger LOG      = LoggerFactory.getLogger(EntityLineageService.class);
+    private static final Logger PERF_LOG = AtlasPerfTracer.getPerfLogger("EntityLineageService");
 
     private static final String PROCESS_INPUTS_EDGE  = "__Process.inputs";
     private static final String PROCESS_OUTPUTS_EDGE = "__Process.outputs";
@@ -73,13 +80,24 @@ public class EntityLineageService implements AtlasLineageService {
     private final AtlasGremlinQueryProvider gremlinQueryProvider;
     private final EntityGraphRetriever      entityRetriever;
     private final AtlasTypeRegistry         atlasTypeRegistry;
+    private final AtlasLineageCache         lineageCache;
+    private final boolean                   nativeTraversalEnabled;
+    private final int                       maxNodeCount;
 
     @Inject
-    EntityLineageService(AtlasTypeRegistry typeRegistry, AtlasGraph atlasGraph) {
+    EntityLineageService(AtlasTypeRegistry typeRegistry, AtlasGraph atlasGraph, AtlasLineageCache lineageCache) {
+        this(typeRegistry, atlasGraph, lineageCache, AtlasConfiguration.LINEAGE_NATIVE_TRAVERSAL_ENABLED.getBoolean(), AtlasConfiguration.LINEAGE_MAX_NODE_COUNT.getInt());
+    }
+
+    @VisibleForTesting
+    EntityLineageService(AtlasTypeRegistry typeRegistry, AtlasGraph atlasGraph, AtlasLineageCache lineageCache, boolean nativeTraversalEnabled, int maxNodeCount) {
         this.graph = atlasGraph;
         this.gremlinQueryProvider = AtlasGremlinQueryProvider.INSTANCE;
         this.entityRetriever = new EntityGraphRetriever(typeRegistry);
         this.atlasTypeRegistry = typeRegistry;
+        this.lineageCache = lineageCache;
+        this.nativeTraversalEnabled = nativeTraversalEnabled;
+        this.maxNodeCount = maxNodeCount;
     }
 
     @Override
@@ -97,20 +115,32 @@ public class EntityLineageService implements AtlasLineageService {
             throw new AtlasBaseException(AtlasErrorCode.INSTANCE_GUID_NOT_DATASET, guid);
         }
 
-        if (direction != null) {
-            if (direction.equals(LineageDirection.INPUT)) {
-                lineageInfo = getLineageInfo(guid, LineageDirection.INPUT, depth);
-            } else if (direction.equals(LineageDirection.OUTPUT)) {
-                lineageInfo = getLineageInfo(guid, LineageDirection.OUTPUT, depth);
-            } else if (direction.equals(LineageDirection.BOTH)) {
-                lineageInfo = getBothLineageInfo(guid, depth);
-            } else {
-                throw new AtlasBaseException(AtlasErrorCode.INSTANCE_LINEAGE_INVALID_PARAMS, "direction", direction.toString());
-            }
-        } else {
+        if (direction == null) {
             throw new AtlasBaseException(AtlasErrorCode.INSTANCE_LINEAGE_INVALID_PARAMS, "direction", null);
         }
 
+        lineageInfo = lineageCache.get(guid, direction, depth);
+
+        if (lineageInfo != null) {
+            return lineageInfo;
+        }
+
+        long cacheGeneration = lineageCache.getGeneration();
+
+        if (nativeTraversalEnabled) {
+            lineageInfo = traverseLineage(guid, direction, depth);
+        } else if (direction.equals(LineageDirection.INPUT)) {
+            lineageInfo = getLineageInfo(guid, LineageDirection.INPUT, depth);
+        } else if (direction.equals(LineageDirection.OUTPUT)) {
+            lineageInfo = getLineageInfo(guid, LineageDirection.OUTPUT, depth);
+        } else if (direction.equals(LineageDirection.BOTH)) {
+            lineageInfo = getBothLineageInfo(guid, depth);
+        } else {
+            throw new AtlasBaseException(AtlasErrorCode.INSTANCE_LINEAGE_INVALID_PARAMS, "direction", direction.toString());
+        }
+
+        lineageCache.put(guid, direction, depth, lineageInfo, cacheGeneration);
+
         return lineageInfo;
     }
 
@@ -182,12 +212,121 @@ public class EntityLineageService implements AtlasLineageService {
         return columnIds.contains(e.getValue().getGuid());
     }
 
+    /**
+     * Computes lineage by walking __Process.inputs/__Process.outputs edges through the graph API, breadth-first.
+     * For BOTH direction, input and output lineage are computed in the same walk, sharing the entity headers.
+     *
+     * Each step goes from a dataset to the processes it is an input (or output) of, and then to the datasets these
+     * processes produce (or consume); depth is the number of such steps. A dataset or process is expanded only once
+     * per direction, hence cycles in lineage are handled. The walk stops expanding once the number of entities
+     * reaches atlas.lineage.max.node.count, when set to a positive value; the result is then marked as truncated.
+     */
+    private AtlasLineageInfo traverseLineage(String guid, LineageDirection direction, int depth) throws AtlasBaseException {
+        AtlasPerfTracer perf = null;
+
+        if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityLineageService.traverseLineage(" + guid + ", " + direction + ", " + depth + ")");
+        }
+
+        Map<String, AtlasEntityHeader> entities    = new HashMap<>();
+        Set<LineageRelation>           relations   = new HashSet<>();
+        boolean                        isTruncated = false;
+
+        try {
+            AtlasVertex startVertex = AtlasGraphUtilsV1.findByGuid(guid);
+
+            if (startVertex == null) {
+                throw new AtlasBaseException(AtlasErrorCode.INSTANCE_GUID_NOT_FOUND, guid);
+            }
+
+            Deque<LineageStep> queue   = new ArrayDeque<>();
+            Set<Object>        visited = new HashSet<>();
+
+            if (direction == LineageDirection.INPUT || direction == LineageDirection.BOTH) {
+                queue.add(new LineageStep(startVertex, LineageDirection.INPUT, 0));
+            }
+
+            if (direction == LineageDirection.OUTPUT || direction == LineageDirection.BOTH) {
+                queue.add(new LineageStep(startVertex, LineageDirection.OUTPUT, 0));
+            }
+
+            while (!queue.isEmpty()) {
+                LineageStep step = queue.poll();
+
+                if ((depth >= 1 && step.depth >= depth) || visited.contains(step.getVisitedKey(step.vertex))) {
+                    continue;
+                }
+
+                String incomingEdgeLabel = step.direction == LineageDirection.INPUT ? PROCESS_OUTPUTS_EDGE : PROCESS_INPUTS_EDGE;
+                String outgoingEdgeLabel = step.direction == LineageDirection.INPUT ? PROCESS_INPUTS_EDGE : PROCESS_OUTPUTS_EDGE;
+
+                if (isMaxNodeCountReached(entities)) {
+                    // truncated only if the dataset has lineage that is left out
+                    if (step.vertex.getEdges(AtlasEdgeDirection.IN, incomingEdgeLabel).iterator().hasNext()) {
+                        isTruncated = true;
+                    }
+
+                    continue;
+                }
+
+                visited.add(step.getVisitedKey(step.vertex));
+
+                for (AtlasEdge incomingEdge : (Iterable<AtlasEdge>) step.vertex.getEdges(AtlasEdgeDirection.IN, incomingEdgeLabel)) {
+                    AtlasVertex processVertex = incomingEdge.getOutVertex();
+
+                    processEdge(incomingEdge, entities, relations);
+
+                    if (!visited.add(step.getVisitedKey(processVertex))) {
+                        continue;
+                    }
+
+                    for (AtlasEdge outgoingEdge : (Iterable<AtlasEdge>) processVertex.getEdges(AtlasEdgeDirection.OUT, outgoingEdgeLabel)) {
+                        processEdge(outgoingEdge, entities, relations);
+
+                        queue.add(new LineageStep(outgoingEdge.getInVertex(), step.direction, step.depth + 1));
+                    }
+                }
+            }
+
+            if (isTruncated) {
+                LOG.warn("lineage of {} truncated at {} entities (atlas.lineage.max.node.count)", guid, entities.size());
+            }
+        } finally {
+            AtlasPerfTracer.log(perf);
+        }
+
+        AtlasLineageInfo ret = new AtlasLineageInfo(guid, entities, relations, direction, depth);
+
+        ret.setTruncated(isTruncated);
+
+        return ret;
+    }
+
+    private boolean isMaxNodeCountReached(Map<String, AtlasEntityHeader> entities) {
+        return maxNodeCount > 0 && entities.size() >= maxNodeCount;
+    }
+
     private AtlasLineageInfo getLineageInfo(String guid, LineageDirection direction, int depth) throws AtlasBaseException {
+        AtlasPerfTracer perf = null;
+
+        if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
+            perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "EntityLineageService.getLineageInfo(" + guid + ", " + direction + ", " + depth + ")");
+        }
+
+        try {
+            return getLineageInfoUsingGremlin(guid, direction, depth);
+        } finally {
+            AtlasPerfTracer.log(perf);
+        }
+    }
+
+    private AtlasLineageInfo getLineageInfoUsingGremlin(String guid, LineageDirection direction, int depth) throws AtlasBaseException {
         Map<String, AtlasEntityHeader> entities     = new HashMap<>();
         Set<LineageRelation>           relations    = new HashSet<>();
-        String                         lineageQuery = getLineageQuery(guid, direction, depth);
+        Map<String, Object>            bindings     = getLineageQueryBindings(guid, direction, depth);
+        String                         lineageQuery = getLineageQuery(depth);
 
-        List edgeMapList = (List) graph.executeGremlinScript(lineageQuery, false);
+        List edgeMapList = (List) graph.executeGremlinScript(lineageQuery, bindings, false);
 
         if (CollectionUtils.isNotEmpty(edgeMapList)) {
             for (Object edgeMap : edgeMapList) {
@@ -254,28 +393,43 @@ public class EntityLineageService implements AtlasLineageService {
         return ret;
     }
 
-    private String getLineageQuery(String entityGuid, LineageDirection direction, int depth) {
-        String lineageQuery = null;
+    private Map<String, Object> getLineageQueryBindings(String entityGuid, LineageDirection direction, int depth) {
+        Map<String, Object> ret = new HashMap<>();
 
-        if (direction.equals(LineageDirection.INPUT)) {
-            lineageQuery = generateLineageQuery(entityGuid, depth, PROCESS_OUTPUTS_EDGE, PROCESS_INPUTS_EDGE);
+        ret.put("guid", entityGuid);
 
+        if (direction.equals(LineageDirection.INPUT)) {
+            ret.put("incomingEdgeLabel", PROCESS_OUTPUTS_EDGE);
+            ret.put("outgoingEdgeLabel", PROCESS_INPUTS_EDGE);
         } else if (direction.equals(LineageDirection.OUTPUT)) {
-            lineageQuery = generateLineageQuery(entityGuid, depth, PROCESS_INPUTS_EDGE, PROCESS_OUTPUTS_EDGE);
+            ret.put("incomingEdgeLabel", PROCESS_INPUTS_EDGE);
+            ret.put("outgoingEdgeLabel", PROCESS_OUTPUTS_EDGE);
         }
 
-        return lineageQuery;
+        if (depth >= 1) {
+            ret.put("depth", depth);
+        }
+
+        return ret;
     }
 
-    private String generateLineageQuery(String entityGuid, int depth, String incomingFrom, String outgoingTo) {
-        String lineageQuery;
-        if (depth < 1) {
-            String query = gremlinQueryProvider.getQuery(AtlasGremlinQuery.FULL_LINEAGE);
-            lineageQuery = String.format(query, entityGuid, incomingFrom, outgoingTo);
-        } else {
-            String query = gremlinQueryProvider.getQuery(AtlasGremlinQuery.PARTIAL_LINEAGE);
-            lineageQuery = String.format(query, entityGuid, incomingFrom, outgoingTo, depth);
+    private String getLineageQuery(int depth) {
+        return gremlinQueryProvider.getQuery(depth < 1 ? AtlasGremlinQuery.FULL_LINEAGE : AtlasGremlinQuery.PARTIAL_LINEAGE);
+    }
+
+    private static class LineageStep {
+        final AtlasVertex      vertex;
+        final LineageDirection direction;
+        final int              depth;
+
+        LineageStep(AtlasVertex vertex, LineageDirection direction, int depth) {
+            this.vertex    = vertex;
+            this.direction = direction;
+            this.depth     = depth;
+        }
+
+        String getVisitedKey(AtlasVertex vertex) {
+            return direction.name() + ":" + vertex.getId();
         }
-        return lineageQuery;
     }
-}
\ No newline at end of file
+}
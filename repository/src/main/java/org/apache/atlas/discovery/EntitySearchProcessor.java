@@ -103,8 +103,11 @@ public class EntitySearchProcessor extends SearchProcessor {
 
         processSearchAttributes(entityType, filterCriteria, indexAttributes, graphAttributes, allAttributes);
 
-        final boolean typeSearchByIndex = !filterClassification && typeAndSubTypesQryStr.length() <= MAX_QUERY_STR_LENGTH_TYPES;
-        final boolean attrSearchByIndex = !filterClassification && CollectionUtils.isNotEmpty(indexAttributes) && canApplyIndexFilter(entityType, filterCriteria, false);
+        // index queries can't be sorted; when the results are to be sorted by the index, a graph query is used - which
+        // runs against the index, along with the sort, when the index covers the query
+        final String  sortByIndexKey    = context.getSortByIndexKey();
+        final boolean typeSearchByIndex = sortByIndexKey == null && !filterClassification && typeAndSubTypesQryStr.length() <= MAX_QUERY_STR_LENGTH_TYPES;
+        final boolean attrSearchByIndex = sortByIndexKey == null && !filterClassification && CollectionUtils.isNotEmpty(indexAttributes) && canApplyIndexFilter(entityType, filterCriteria, false);
 
         StringBuilder indexQuery = new StringBuilder();
 
@@ -174,6 +177,10 @@ public class EntitySearchProcessor extends SearchProcessor {
 
             graphQuery = toGraphFilterQuery(entityType, filterCriteria, graphAttributes, query);
 
+            if (sortByIndexKey != null) {
+                graphQuery.orderBy(sortByIndexKey, context.getSortOrder());
+            }
+
             // Prepare in-memory predicate for attribute filtering
             Predicate attributePredicate = constructInMemoryPredicate(entityType, filterCriteria, graphAttributes);
 
@@ -234,18 +241,31 @@ public class EntitySearchProcessor extends SearchProcessor {
         }
 
         try {
-            final int startIdx = context.getSearchParameters().getOffset();
-            final int limit    = context.getSearchParameters().getLimit();
+            final SearchContinuationToken continuationToken = context.getContinuationToken();
+            final int                     limit             = context.getSearchParameters().getLimit();
+            final int                     startIdx;
+            int                           qryOffset;
+
+            if (continuationToken != null) {
+                // resume from the batch where the previous page ended; entries of the batch already returned are ignored
+                startIdx  = continuationToken.getSkipCount();
+                qryOffset = continuationToken.getQueryOffset();
+            } else {
+                startIdx  = context.getSearchParameters().getOffset();
 
-            // when subsequent filtering stages are involved, query should start at 0 even though startIdx can be higher
-            //
-            // first 'startIdx' number of entries will be ignored
-            int qryOffset = (nextProcessor != null || (graphQuery != null && indexQuery != null)) ? 0 : startIdx;
-            int resultIdx = qryOffset;
+                // when subsequent filtering stages are involved, query should start at 0 even though startIdx can be higher
+                //
+                // first 'startIdx' number of entries will be ignored
+                qryOffset = (nextProcessor != null || (graphQuery != null && indexQuery != null)) ? 0 : startIdx;
+            }
+
+            int resultIdx = continuationToken != null ? 0 : qryOffset;
 
             final List<AtlasVertex> entityVertices = new ArrayList<>();
 
             for (; ret.size() < limit; qryOffset += limit) {
+                final int batchStartIdx = resultIdx;
+
                 entityVertices.clear();
 
                 if (context.terminateSearch()) {
@@ -282,6 +302,8 @@ public class EntitySearchProcessor extends SearchProcessor {
                 super.filter(entityVertices);
 
                 resultIdx = collectResultVertices(ret, startIdx, limit, resultIdx, entityVertices);
+
+                updateContinuationToken(ret, limit, qryOffset, limit, batchStartIdx, resultIdx, entityVertices);
             }
         } finally {
             AtlasPerfTracer.log(perf);
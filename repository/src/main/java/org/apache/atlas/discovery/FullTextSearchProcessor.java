@@ -92,20 +92,33 @@ public class FullTextSearchProcessor extends SearchProcessor {
         }
 
         try {
-            final int     startIdx   = context.getSearchParameters().getOffset();
-            final int     limit      = context.getSearchParameters().getLimit();
-            final boolean activeOnly = context.getSearchParameters().getExcludeDeletedEntities();
+            final SearchContinuationToken continuationToken = context.getContinuationToken();
+            final int                     limit             = context.getSearchParameters().getLimit();
+            final boolean                 activeOnly        = context.getSearchParameters().getExcludeDeletedEntities();
+            final int                     startIdx;
+            int                           qryOffset;
+
+            if (continuationToken != null) {
+                // resume from the batch where the previous page ended; entries of the batch already returned are ignored
+                startIdx  = continuationToken.getSkipCount();
+                qryOffset = continuationToken.getQueryOffset();
+            } else {
+                startIdx  = context.getSearchParameters().getOffset();
+
+                // query to start at 0, even though startIdx can be higher - because few results in earlier retrieval could
+                // have been dropped: like vertices of non-entity or non-active-entity
+                //
+                // first 'startIdx' number of entries will be ignored
+                qryOffset = 0;
+            }
 
-            // query to start at 0, even though startIdx can be higher - because few results in earlier retrieval could
-            // have been dropped: like vertices of non-entity or non-active-entity
-            //
-            // first 'startIdx' number of entries will be ignored
-            int qryOffset = 0;
-            int resultIdx = qryOffset;
+            int resultIdx = 0;
 
             final List<AtlasVertex> entityVertices = new ArrayList<>();
 
             for (; ret.size() < limit; qryOffset += limit) {
+                final int batchStartIdx = resultIdx;
+
                 entityVertices.clear();
 
                 if (context.terminateSearch()) {
@@ -123,6 +136,8 @@ public class FullTextSearchProcessor extends SearchProcessor {
                 while (idxQueryResult.hasNext()) {
                     AtlasVertex vertex = idxQueryResult.next().getVertex();
 
+                    context.addScannedCount(1);
+
                     // skip non-entity vertices
                     if (!AtlasGraphUtilsV1.isEntityVertex(vertex)) {
                         if (LOG.isDebugEnabled()) {
@@ -142,6 +157,8 @@ public class FullTextSearchProcessor extends SearchProcessor {
                 super.filter(entityVertices);
 
                 resultIdx = collectResultVertices(ret, startIdx, limit, resultIdx, entityVertices);
+
+                updateContinuationToken(ret, limit, qryOffset, limit, batchStartIdx, resultIdx, entityVertices);
             }
         } finally {
             AtlasPerfTracer.log(perf);
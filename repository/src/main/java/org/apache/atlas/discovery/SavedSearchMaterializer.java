@@ -0,0 +1,371 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.discovery;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.apache.atlas.ApplicationProperties;
+import org.apache.atlas.AtlasConfiguration;
+import org.apache.atlas.AtlasException;
+import org.apache.atlas.RequestContextV1;
+import org.apache.atlas.annotation.GraphTransaction;
+import org.apache.atlas.discovery.SavedSearchSnapshots.MaterializedSearch;
+import org.apache.atlas.discovery.SavedSearchSnapshots.Snapshot;
+import org.apache.atlas.exception.AtlasBaseException;
+import org.apache.atlas.ha.HAConfiguration;
+import org.apache.atlas.listener.ActiveStateChangeHandler;
+import org.apache.atlas.model.discovery.AtlasSearchResult;
+import org.apache.atlas.model.discovery.SearchParameters;
+import org.apache.atlas.model.instance.AtlasEntityHeader;
+import org.apache.atlas.model.profile.AtlasUserSavedSearch;
+import org.apache.atlas.query.QueryParams;
+import org.apache.atlas.repository.Constants;
+import org.apache.atlas.repository.graph.GraphHelper;
+import org.apache.atlas.repository.graphdb.AtlasGraph;
+import org.apache.atlas.repository.graphdb.AtlasVertex;
+import org.apache.atlas.repository.store.graph.v1.AtlasGraphUtilsV1;
+import org.apache.atlas.repository.store.graph.v1.EntityGraphRetriever;
+import org.apache.atlas.repository.userprofile.UserProfileService;
+import org.apache.atlas.type.AtlasType;
+import org.apache.atlas.type.AtlasTypeRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.apache.atlas.model.instance.AtlasEntity.Status.ACTIVE;
+import static org.apache.atlas.model.instance.AtlasEntity.Status.DELETED;
+
+/**
+ * Serves the results of materialized saved searches from snapshots, and refreshes the snapshots in a background thread.
+ *
+ * The refresh thread runs one search at a time, with a pause after each, so that the load on the graph doesn't depend
+ * on the number of materialized searches or on how many users open them; opening a saved search reads only the entities
+ * in the requested page. Snapshots are refreshed periodically, and after changes that can affect the results - see
+ * SavedSearchSnapshots. A search opened before its first snapshot is available runs as a regular search, as does a page
+ * beyond the first maxResults results, which are all that a snapshot holds.
+ *
+ * Materialized searches are read from the graph when the server becomes active, and registered as they are saved.
+ */
+@Component
+public class SavedSearchMaterializer implements ActiveStateChangeHandler {
+    private static final Logger LOG = LoggerFactory.getLogger(SavedSearchMaterializer.class);
+
+    private static final String SAVED_SEARCH_TYPE_NAME = "__AtlasUserSavedSearch";
+    private static final long   IDLE_WAIT_MS           = 10000;
+
+    private final AtlasDiscoveryService discoveryService;
+    private final UserProfileService    userProfileService;
+    private final SavedSearchSnapshots  snapshots;
+    private final AtlasGraph            graph;
+    private final EntityGraphRetriever  entityRetriever;
+    private final int                   maxResults;
+    private final long                  refreshIntervalMs;
+    private final long                  minRefreshIntervalMs;
+    private final long                  refreshPauseMs;
+    private volatile Thread             worker   = null;
+    private volatile boolean            isLoaded = false;
+
+    @Inject
+    public SavedSearchMaterializer(AtlasDiscoveryService discoveryService, UserProfileService userProfileService,
+                                   SavedSearchSnapshots snapshots, AtlasGraph graph, AtlasTypeRegistry typeRegistry) throws AtlasException {
+        this(discoveryService, userProfileService, snapshots, graph, typeRegistry,
+             AtlasConfiguration.SAVED_SEARCH_MATERIALIZED_MAX_RESULTS.getInt(),
+             AtlasConfiguration.SAVED_SEARCH_MATERIALIZED_REFRESH_INTERVAL_MS.getLong(),
+             AtlasConfiguration.SAVED_SEARCH_MATERIALIZED_MIN_REFRESH_INTERVAL_MS.getLong(),
+             AtlasConfiguration.SAVED_SEARCH_MATERIALIZED_REFRESH_PAUSE_MS.getLong());
+
+        if (!HAConfiguration.isHAEnabled(ApplicationProperties.get())) {
+            start();
+        }
+    }
+
+    @VisibleForTesting
+    SavedSearchMaterializer(AtlasDiscoveryService discoveryService, UserProfileService userProfileService,
+                            SavedSearchSnapshots snapshots, AtlasGraph graph, AtlasTypeRegistry typeRegistry,
+                            int maxResults, long refreshIntervalMs, long minRefreshIntervalMs, long refreshPauseMs) {
+        this.discoveryService     = discoveryService;
+        this.userProfileService   = userProfileService;
+        this.snapshots            = snapshots;
+        this.graph                = graph;
+        this.entityRetriever      = new EntityGraphRetriever(typeRegistry);
+        this.maxResults           = Math.max(Math.min(maxResults, getMaxResultsLimit()), 1);
+        this.refreshIntervalMs    = Math.max(refreshIntervalMs, 0);
+        this.minRefreshIntervalMs = Math.max(minRefreshIntervalMs, 0);
+        this.refreshPauseMs       = Math.max(refreshPauseMs, 0);
+
+        if (this.maxResults < maxResults) {
+            LOG.warn("SavedSearchMaterializer: maxResults {} is not below the search limit; using {}", maxResults, this.maxResults);
+        }
+
+        LOG.info("SavedSearchMaterializer(maxResults={}, refreshIntervalMs={}, minRefreshIntervalMs={}, refreshPauseMs={})",
+                 this.maxResults, refreshIntervalMs, minRefreshIntervalMs, refreshPauseMs);
+    }
+
+    @Override
+    public void instanceIsActive() {
+        LOG.info("Reacting to active state: starting refresh of materialized saved searches");
+
+        start();
+    }
+
+    @Override
+    public void instanceIsPassive() {
+        LOG.info("Reacting to passive state: stopping refresh of materialized saved searches");
+
+        stop();
+    }
+
+    @Override
+    public int getHandlerOrder() {
+        return HandlerOrder.SAVED_SEARCH_MATERIALIZER.getOrder();
+    }
+
+    /**
+     * To be called after a saved search is added or updated.
+     */
+    public void onSavedSearchSaved(AtlasUserSavedSearch savedSearch) {
+        if (savedSearch == null) {
+            return;
+        }
+
+        if (savedSearch.getMaterialized() && snapshots.register(savedSearch)) {
+            wakeUp();
+        } else {
+            snapshots.unregister(savedSearch.getGuid());
+        }
+    }
+
+    /**
+     * To be called after a saved search is deleted.
+     */
+    public void onSavedSearchDeleted(String guid) {
+        snapshots.unregister(guid);
+    }
+
+    /**
+     * Returns a page of the results of the saved search from its snapshot. Entities deleted since the snapshot was
+     * taken are left out of the page, as are entities that are now soft-deleted when the search excludes them.
+     *
+     * @param limit  number of entities in the page; the limit of the saved search if 0 or less
+     * @param offset offset of the page in the snapshot
+     * @return results of the saved search; null if the search is not materialized, its snapshot is not available yet,
+     *         or the page extends beyond the results held in a truncated snapshot
+     */
+    @GraphTransaction
+    public AtlasSearchResult getResults(AtlasUserSavedSearch savedSearch, int limit, int offset) throws AtlasBaseException {
+        if (savedSearch == null || !savedSearch.getMaterialized()) {
+            return null;
+        }
+
+        boolean isNew = !snapshots.isRegistered(savedSearch.getGuid()); // materialized searches might not be loaded yet
+
+        if (!snapshots.register(savedSearch)) {
+            return null;
+        }
+
+        if (isNew) {
+            wakeUp();
+
+            return null;
+        }
+
+        Snapshot snapshot = snapshots.getSnapshot(savedSearch.getGuid());
+
+        if (snapshot == null) {
+            return null;
+        }
+
+        SearchParameters  searchParameters = savedSearch.getSearchParameters();
+        QueryParams       params           = QueryParams.getNormalizedParams(limit > 0 ? limit : searchParameters.getLimit(), offset);
+        List<AtlasVertex> vertices         = new ArrayList<>();
+
+        if (snapshot.isTruncated() && (long) params.offset() + params.limit() > snapshot.size()) {
+            return null;
+        }
+
+        for (String guid : snapshot.getGuids(params.offset(), params.limit())) {
+            AtlasVertex vertex = AtlasGraphUtilsV1.findByGuid(guid);
+
+            if (vertex == null || (searchParameters.getExcludeDeletedEntities() && AtlasGraphUtilsV1.getState(vertex) == DELETED)) {
+                continue;
+            }
+
+            vertices.add(vertex);
+        }
+
+        AtlasSearchResult       ret      = new AtlasSearchResult(searchParameters);
+        List<AtlasEntityHeader> entities = entityRetriever.toAtlasEntityHeaders(vertices, snapshot.getAttributes());
+
+        if (searchParameters.getIncludeClassificationAttributes()) {
+            for (int i = 0; i < entities.size(); i++) {
+                entities.get(i).setClassifications(entityRetriever.getAllClassifications(vertices.get(i)));
+            }
+        }
+
+        ret.setEntities(entities);
+        ret.setSnapshotTime(snapshot.getTime());
+        ret.setSnapshotCount(snapshot.size());
+        ret.setSnapshotTruncated(snapshot.isTruncated());
+
+        return ret;
+    }
+
+    // a refresh searches for one result more than maxResults, to find whether the snapshot is truncated; a search with a
+    // limit above the search limit returns the default number of results instead
+    private static int getMaxResultsLimit() {
+        return AtlasConfiguration.SEARCH_MAX_LIMIT.getInt() - 1;
+    }
+
+    @VisibleForTesting
+    void refresh(MaterializedSearch search) {
+        long             startTime   = System.currentTimeMillis();
+        long             changeCount = search.getChangeCount();
+        SearchParameters params      = AtlasType.fromJson(AtlasType.toJson(search.getSearchParameters()), SearchParameters.class); // search updates the parameters
+
+        search.setLastAttemptTime(startTime);
+
+        params.setOffset(0);
+        params.setLimit(maxResults + 1); // to find whether there are more than maxResults
+        params.setContinuationToken(null);
+
+        try {
+            AtlasSearchResult result     = discoveryService.searchWithParameters(params);
+            List<String>      guids      = new ArrayList<>();
+            Set<String>       attributes = new HashSet<>();
+
+            if (result.getEntities() != null) {
+                for (AtlasEntityHeader entity : result.getEntities()) {
+                    guids.add(entity.getGuid());
+
+                    if (entity.getAttributes() != null) {
+                        attributes.addAll(entity.getAttributes().keySet());
+                    }
+                }
+            }
+
+            boolean isTruncated = guids.size() > maxResults;
+
+            if (isTruncated) {
+                guids = guids.subList(0, maxResults);
+            }
+
+            snapshots.setSnapshot(search, new Snapshot(startTime, guids, attributes, isTruncated), changeCount);
+
+            LOG.info("refreshed materialized saved search {}: {} entities{} in {} ms", search.getGuid(), guids.size(), isTruncated ? " (truncated)" : "", System.currentTimeMillis() - startTime);
+        } catch (AtlasBaseException | RuntimeException excp) {
+            LOG.warn("failed to refresh materialized saved search {}; will be retried in {} ms", search.getGuid(), minRefreshIntervalMs, excp);
+        } finally {
+            RequestContextV1.clear();
+        }
+    }
+
+    private synchronized void start() {
+        if (worker != null) {
+            return;
+        }
+
+        isLoaded = false; // saved searches could have changed while another server was active
+
+        worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                refreshSearches();
+            }
+        }, "atlas-saved-search-materializer");
+
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private synchronized void stop() {
+        if (worker != null) {
+            worker.interrupt();
+
+            worker = null;
+        }
+    }
+
+    private synchronized void wakeUp() {
+        notifyAll();
+    }
+
+    private void refreshSearches() {
+        Thread thisThread = Thread.currentThread();
+
+        while (worker == thisThread) {
+            try {
+                synchronized (this) {
+                    wait(IDLE_WAIT_MS); // gives time for types to be loaded at startup; woken up when a search is registered
+                }
+
+                if (!isLoaded) {
+                    loadMaterializedSearches();
+                }
+
+                for (MaterializedSearch search = snapshots.getSearchToRefresh(System.currentTimeMillis(), refreshIntervalMs, minRefreshIntervalMs);
+                     search != null && worker == thisThread;
+                     search = snapshots.getSearchToRefresh(System.currentTimeMillis(), refreshIntervalMs, minRefreshIntervalMs)) {
+                    refresh(search);
+
+                    Thread.sleep(refreshPauseMs);
+                }
+            } catch (InterruptedException excp) {
+                break;
+            } catch (Exception excp) {
+                LOG.error("refresh of materialized saved searches failed; will be retried", excp);
+            }
+        }
+
+        LOG.info("refresh of materialized saved searches stopped");
+    }
+
+    private void loadMaterializedSearches() throws AtlasBaseException {
+        List<String> guids = new ArrayList<>();
+
+        try {
+            Iterable<AtlasVertex> vertices = graph.query().has(Constants.ENTITY_TYPE_PROPERTY_KEY, SAVED_SEARCH_TYPE_NAME)
+                                                          .has(Constants.STATE_PROPERTY_KEY, ACTIVE.name())
+                                                          .vertices();
+
+            for (AtlasVertex vertex : vertices) {
+                guids.add(GraphHelper.getGuid(vertex));
+            }
+        } finally {
+            graph.rollback(); // read-only
+        }
+
+        int count = 0;
+
+        for (String guid : guids) {
+            AtlasUserSavedSearch savedSearch = userProfileService.getSavedSearch(guid);
+
+            if (savedSearch != null && savedSearch.getMaterialized() && snapshots.register(savedSearch)) {
+                count++;
+            }
+        }
+
+        isLoaded = true;
+
+        LOG.info("loaded {} materialized saved searches, of {} saved searches", count, guids.size());
+    }
+}
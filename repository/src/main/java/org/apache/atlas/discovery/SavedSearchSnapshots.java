@@ -0,0 +1,344 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.discovery;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.apache.atlas.AtlasConfiguration;
+import org.apache.atlas.model.discovery.SearchParameters;
+import org.apache.atlas.model.profile.AtlasUserSavedSearch;
+import org.apache.atlas.type.AtlasClassificationType;
+import org.apache.atlas.type.AtlasEntityType;
+import org.apache.atlas.type.AtlasTypeRegistry;
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snapshots of the results of materialized saved searches, keyed by the guid of the saved search.
+ *
+ * A snapshot holds only the guids of the entities in the result, in the order of the result, packed as two longs per
+ * guid; entity headers are read from the graph for the requested page only. A snapshot is marked stale when an entity
+ * of a type the search is on, or a classification the search is on, changes - see AtlasEntityChangeNotifier. Stale
+ * snapshots continue to be served until SavedSearchMaterializer refreshes them.
+ *
+ * This class has no dependency on the search or entity store, so that the entity change notifier can depend on it.
+ */
+@Component
+public class SavedSearchSnapshots {
+    private static final Logger LOG = LoggerFactory.getLogger(SavedSearchSnapshots.class);
+
+    private final AtlasTypeRegistry               typeRegistry;
+    private final int                             maxSearches;
+    private final Map<String, MaterializedSearch> searches = new ConcurrentHashMap<>();
+
+    @Inject
+    public SavedSearchSnapshots(AtlasTypeRegistry typeRegistry) {
+        this(typeRegistry, AtlasConfiguration.SAVED_SEARCH_MATERIALIZED_MAX_SEARCHES.getInt());
+    }
+
+    @VisibleForTesting
+    SavedSearchSnapshots(AtlasTypeRegistry typeRegistry, int maxSearches) {
+        this.typeRegistry = typeRegistry;
+        this.maxSearches  = Math.max(maxSearches, 0);
+    }
+
+    /**
+     * Adds the saved search, or updates its parameters; the snapshot is discarded if the parameters changed.
+     *
+     * @return false if the search can't be materialized - it is not a basic search, or there are too many materialized searches
+     */
+    public boolean register(AtlasUserSavedSearch savedSearch) {
+        String guid = savedSearch.getGuid();
+
+        if (StringUtils.isEmpty(guid) || savedSearch.getSearchType() != AtlasUserSavedSearch.SavedSearchType.BASIC || savedSearch.getSearchParameters() == null) {
+            return false;
+        }
+
+        synchronized (searches) {
+            MaterializedSearch existing = searches.get(guid);
+
+            if (existing != null && Objects.equals(existing.searchParameters, savedSearch.getSearchParameters())) {
+                return true;
+            }
+
+            if (existing == null && searches.size() >= maxSearches) {
+                LOG.warn("{} searches are materialized already; saved search {} ({}) will not be materialized", searches.size(), savedSearch.getName(), guid);
+
+                return false;
+            }
+
+            searches.put(guid, new MaterializedSearch(guid, savedSearch.getOwnerName(), savedSearch.getSearchParameters()));
+        }
+
+        return true;
+    }
+
+    public void unregister(String guid) {
+        if (guid != null) {
+            searches.remove(guid);
+        }
+    }
+
+    public boolean isRegistered(String guid) {
+        return guid != null && searches.containsKey(guid);
+    }
+
+    public Snapshot getSnapshot(String guid) {
+        MaterializedSearch search = guid != null ? searches.get(guid) : null;
+
+        return search != null ? search.snapshot : null;
+    }
+
+    /**
+     * @return the search due for a refresh that was attempted earliest: searches without a snapshot, stale ones whose
+     *         refresh was last attempted at least minRefreshIntervalMs ago, and others whose refresh was last attempted
+     *         at least refreshIntervalMs ago; null if no search is due
+     */
+    public MaterializedSearch getSearchToRefresh(long now, long refreshIntervalMs, long minRefreshIntervalMs) {
+        MaterializedSearch ret = null;
+
+        for (MaterializedSearch search : searches.values()) {
+            long    sinceAttempt = now - search.lastAttemptTime;
+            boolean isDue        = search.lastAttemptTime == 0 ||
+                                   ((search.snapshot == null || search.isStale()) && sinceAttempt >= minRefreshIntervalMs) ||
+                                   (refreshIntervalMs > 0 && sinceAttempt >= refreshIntervalMs);
+
+            if (isDue && (ret == null || search.lastAttemptTime < ret.lastAttemptTime)) {
+                ret = search;
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * Sets the snapshot of the search, computed from the state of the graph at the given change count; the snapshot
+     * remains stale if there were changes since then. Ignored if the search was removed or its parameters changed.
+     */
+    public void setSnapshot(MaterializedSearch search, Snapshot snapshot, long computedAtChangeCount) {
+        synchronized (searches) {
+            if (searches.get(search.guid) != search) {
+                return;
+            }
+
+            search.snapshot         = snapshot;
+            search.refreshedChanges = computedAtChangeCount;
+        }
+    }
+
+    /**
+     * Marks stale the snapshots of searches that could include entities of the given types. To be called after the
+     * changes are committed.
+     */
+    public void onEntitiesChanged(Collection<String> entityTypeNames) {
+        if (CollectionUtils.isEmpty(entityTypeNames)) {
+            return;
+        }
+
+        for (MaterializedSearch search : searches.values()) {
+            if (search.isAffectedByEntityTypes(entityTypeNames)) {
+                search.changeCount.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Marks stale the snapshots of searches on the given classifications. To be called after the changes are committed.
+     */
+    public void onClassificationsChanged(Collection<String> classificationNames) {
+        if (CollectionUtils.isEmpty(classificationNames)) {
+            return;
+        }
+
+        for (MaterializedSearch search : searches.values()) {
+            if (search.isAffectedByClassifications(classificationNames)) {
+                search.changeCount.incrementAndGet();
+            }
+        }
+    }
+
+    public int getSearchCount() { return searches.size(); }
+
+    public class MaterializedSearch {
+        private final String           guid;
+        private final String           ownerName;
+        private final SearchParameters searchParameters;
+        private final Set<String>      entityTypeNames;     // null: entities of any type
+        private final Set<String>      classificationNames; // null: any classification; empty: not affected by classifications
+        private final AtomicLong       changeCount      = new AtomicLong();
+        private volatile long          refreshedChanges = -1;
+        private volatile long          lastAttemptTime  = 0;
+        private volatile Snapshot      snapshot         = null;
+
+        MaterializedSearch(String guid, String ownerName, SearchParameters searchParameters) {
+            this.guid                = guid;
+            this.ownerName           = ownerName;
+            this.searchParameters    = searchParameters;
+            this.entityTypeNames     = getEntityTypeNames(searchParameters);
+            this.classificationNames = getClassificationNames(searchParameters);
+        }
+
+        public String getGuid() { return guid; }
+
+        public String getOwnerName() { return ownerName; }
+
+        public SearchParameters getSearchParameters() { return searchParameters; }
+
+        public long getChangeCount() { return changeCount.get(); }
+
+        public boolean isStale() { return changeCount.get() != refreshedChanges; }
+
+        public long getLastAttemptTime() { return lastAttemptTime; }
+
+        public void setLastAttemptTime(long lastAttemptTime) { this.lastAttemptTime = lastAttemptTime; }
+
+        private boolean isAffectedByEntityTypes(Collection<String> typeNames) {
+            return entityTypeNames == null || CollectionUtils.containsAny(entityTypeNames, typeNames);
+        }
+
+        private boolean isAffectedByClassifications(Collection<String> names) {
+            return classificationNames == null || CollectionUtils.containsAny(classificationNames, names);
+        }
+
+        private Set<String> getEntityTypeNames(SearchParameters searchParameters) {
+            AtlasEntityType entityType = typeRegistry.getEntityTypeByName(searchParameters.getTypeName());
+
+            if (entityType == null) {
+                return null;
+            }
+
+            return searchParameters.getIncludeSubTypes() ? entityType.getTypeAndAllSubTypes() : Collections.singleton(entityType.getTypeName());
+        }
+
+        // fulltext query also matches on classification names; attribute filters don't apply without a classification
+        private Set<String> getClassificationNames(SearchParameters searchParameters) {
+            if (StringUtils.isEmpty(searchParameters.getClassification())) {
+                return StringUtils.isNotEmpty(searchParameters.getQuery()) ? null : Collections.<String>emptySet();
+            }
+
+            AtlasClassificationType classificationType = typeRegistry.getClassificationTypeByName(searchParameters.getClassification());
+
+            if (classificationType == null || StringUtils.isNotEmpty(searchParameters.getQuery())) { // wildcard classification, or fulltext
+                return null;
+            }
+
+            return searchParameters.getIncludeSubClassifications() ? classificationType.getTypeAndAllSubTypes() : Collections.singleton(classificationType.getTypeName());
+        }
+    }
+
+    /**
+     * Guids of the entities in the result of a search, at a point in time. Guids in UUID format take 16 bytes each;
+     * others are kept as strings.
+     */
+    public static class Snapshot {
+        private final long        time;
+        private final int         size;
+        private final long[]      uuids;      // most and least significant bits of each guid
+        private final String[]    otherGuids; // guids not in UUID format; null if there are none
+        private final Set<String> attributes;
+        private final boolean     isTruncated;
+
+        /**
+         * @param isTruncated true if the search has more results than the guids given, which are the first of them
+         */
+        public Snapshot(long time, List<String> guids, Set<String> attributes, boolean isTruncated) {
+            String[] otherGuids = null;
+
+            this.time        = time;
+            this.size        = guids.size();
+            this.uuids       = new long[size * 2];
+            this.attributes  = attributes != null ? Collections.unmodifiableSet(new HashSet<>(attributes)) : Collections.<String>emptySet();
+            this.isTruncated = isTruncated;
+
+            for (int i = 0; i < size; i++) {
+                String guid = guids.get(i);
+                UUID   uuid = toUUID(guid);
+
+                if (uuid != null) {
+                    uuids[i * 2]     = uuid.getMostSignificantBits();
+                    uuids[i * 2 + 1] = uuid.getLeastSignificantBits();
+                } else {
+                    if (otherGuids == null) {
+                        otherGuids = new String[size];
+                    }
+
+                    otherGuids[i] = guid;
+                }
+            }
+
+            this.otherGuids = otherGuids;
+        }
+
+        public long getTime() { return time; }
+
+        public int size() { return size; }
+
+        /**
+         * @return true if the snapshot holds only the first results of the search; size() is then a lower bound
+         */
+        public boolean isTruncated() { return isTruncated; }
+
+        /**
+         * @return attributes included in the entity headers of the search result
+         */
+        public Set<String> getAttributes() { return attributes; }
+
+        public List<String> getGuids(int offset, int limit) {
+            int          end = (int) Math.min((long) offset + limit, size);
+            List<String> ret = new ArrayList<>(Math.max(end - offset, 0));
+
+            for (int i = Math.max(offset, 0); i < end; i++) {
+                String guid = otherGuids != null ? otherGuids[i] : null;
+
+                ret.add(guid != null ? guid : new UUID(uuids[i * 2], uuids[i * 2 + 1]).toString());
+            }
+
+            return ret;
+        }
+
+        // UUID.fromString() accepts forms that don't convert back to the same string; such guids are kept as strings
+        private static UUID toUUID(String guid) {
+            if (guid == null || guid.length() != 36) {
+                return null;
+            }
+
+            try {
+                UUID ret = UUID.fromString(guid);
+
+                return ret.toString().equals(guid) ? ret : null;
+            } catch (IllegalArgumentException excp) {
+                return null;
+            }
+        }
+    }
+}
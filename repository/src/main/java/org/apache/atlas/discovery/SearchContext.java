@@ -19,20 +19,25 @@ package org.apache.atlas.discovery;
 
 
 import org.apache.atlas.AtlasErrorCode;
+import org.apache.atlas.SortOrder;
 import org.apache.atlas.exception.AtlasBaseException;
 import org.apache.atlas.model.discovery.SearchParameters;
 import org.apache.atlas.model.discovery.SearchParameters.FilterCriteria;
+import org.apache.atlas.model.typedef.AtlasBaseTypeDef;
 import org.apache.atlas.model.typedef.AtlasClassificationDef;
 import org.apache.atlas.repository.graphdb.AtlasGraph;
 import org.apache.atlas.type.AtlasClassificationType;
 import org.apache.atlas.type.AtlasEntityType;
 import org.apache.atlas.type.AtlasStructType;
+import org.apache.atlas.type.AtlasStructType.AtlasAttribute;
 import org.apache.atlas.type.AtlasTypeRegistry;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 /*
  * Search context captures elements required for performing a basic search
@@ -47,11 +52,29 @@ public class SearchContext {
     private final Set<String>             entityAttributes;
     private final AtlasEntityType         entityType;
     private final AtlasClassificationType classificationType;
+    private final SearchContinuationToken continuationToken;
+    private       SearchContinuationToken nextContinuationToken;
     private       SearchProcessor         searchProcessor;
-    private       boolean                 terminateSearch = false;
+    private volatile boolean              terminateSearch = false;
+    private volatile long                 deadline        = 0; // time, in ms, after which the search is terminated; 0 for no deadline
+    private final AtomicLong              scannedCount    = new AtomicLong();
+    private final AtomicLong              filteredCount   = new AtomicLong();
+    private final AtomicLong              returnedCount   = new AtomicLong();
+
+    private final AtlasAttribute          sortByAttribute;
+    private final boolean                 sortByIndex;
 
     public final static AtlasClassificationType MATCH_ALL_CLASSIFICATION = new AtlasClassificationType(new AtlasClassificationDef("*"));
 
+    // types whose values the index backend can sort on; string attributes are tokenized in the index, hence are sorted in memory
+    private static final Set<String> INDEX_SORTABLE_TYPES = new HashSet<>(Arrays.asList(AtlasBaseTypeDef.ATLAS_TYPE_BYTE,
+                                                                                         AtlasBaseTypeDef.ATLAS_TYPE_SHORT,
+                                                                                         AtlasBaseTypeDef.ATLAS_TYPE_INT,
+                                                                                         AtlasBaseTypeDef.ATLAS_TYPE_LONG,
+                                                                                         AtlasBaseTypeDef.ATLAS_TYPE_FLOAT,
+                                                                                         AtlasBaseTypeDef.ATLAS_TYPE_DOUBLE,
+                                                                                         AtlasBaseTypeDef.ATLAS_TYPE_DATE));
+
     public SearchContext(SearchParameters searchParameters, AtlasTypeRegistry typeRegistry, AtlasGraph graph, Set<String> indexedKeys) throws AtlasBaseException {
         String classificationName = searchParameters.getClassification();
 
@@ -79,6 +102,13 @@ public class SearchContext {
         // Invalid attributes will raise an exception with 400 error code
         validateAttributes(classificationType, searchParameters.getTagFilters());
 
+        // Invalid or mismatched continuation token will raise an exception with 400 error code
+        this.continuationToken = SearchContinuationToken.fromSearchParameters(searchParameters);
+
+        // Invalid sort attribute will raise an exception with 400 error code
+        this.sortByAttribute = getSortByAttribute(searchParameters.getSortBy());
+        this.sortByIndex     = canSortByIndex();
+
         if (needFullTextProcessor()) {
             addProcessor(new FullTextSearchProcessor(this));
         }
@@ -108,10 +138,50 @@ public class SearchContext {
 
     public SearchProcessor getSearchProcessor() { return searchProcessor; }
 
-    public boolean terminateSearch() { return terminateSearch; }
+    public SearchContinuationToken getContinuationToken() { return continuationToken; }
+
+    public SearchContinuationToken getNextContinuationToken() { return nextContinuationToken; }
+
+    public void setNextContinuationToken(SearchContinuationToken nextContinuationToken) { this.nextContinuationToken = nextContinuationToken; }
+
+    public boolean terminateSearch() { return terminateSearch || isTimedOut(); }
 
     public void terminateSearch(boolean terminateSearch) { this.terminateSearch = terminateSearch; }
 
+    public long getDeadline() { return deadline; }
+
+    public void setDeadline(long deadline) { this.deadline = deadline; }
+
+    public boolean isTimedOut() { return deadline > 0 && System.currentTimeMillis() > deadline; }
+
+    // number of vertices read from index and graph queries
+    public long getScannedCount() { return scannedCount.get(); }
+
+    public void addScannedCount(long count) { scannedCount.addAndGet(count); }
+
+    // number of vertices that matched all the filters, including the ones skipped for offset
+    public long getFilteredCount() { return filteredCount.get(); }
+
+    public void addFilteredCount(long count) { filteredCount.addAndGet(count); }
+
+    public long getReturnedCount() { return returnedCount.get(); }
+
+    public void addReturnedCount(long count) { returnedCount.addAndGet(count); }
+
+    public boolean hasSortBy() { return StringUtils.isNotEmpty(searchParameters.getSortBy()); }
+
+    public SortOrder getSortOrder() {
+        return searchParameters.getSortOrder() != null ? searchParameters.getSortOrder() : SortOrder.ASCENDING;
+    }
+
+    /**
+     * @return vertex property to sort the results of the query on, when the index backend can sort the results;
+     *         null if the results are not to be sorted, or are to be sorted in memory
+     */
+    public String getSortByIndexKey() { return sortByIndex ? sortByAttribute.getVertexPropertyName() : null; }
+
+    public boolean needInMemorySort() { return hasSortBy() && !sortByIndex; }
+
     public StringBuilder toString(StringBuilder sb) {
         if (sb == null) {
             sb = new StringBuilder();
@@ -161,6 +231,49 @@ public class SearchContext {
         }
     }
 
+    // when typeName is not given, the attribute is resolved if all entity types that have it share the definition - like Asset.name
+    private AtlasAttribute getSortByAttribute(String sortBy) throws AtlasBaseException {
+        AtlasAttribute ret = null;
+
+        if (StringUtils.isNotEmpty(sortBy)) {
+            if (entityType != null) {
+                ret = entityType.getAttribute(sortBy);
+
+                if (ret == null) {
+                    throw new AtlasBaseException(AtlasErrorCode.UNKNOWN_ATTRIBUTE, sortBy, entityType.getTypeName());
+                }
+            } else {
+                for (AtlasEntityType type : typeRegistry.getAllEntityTypes()) {
+                    AtlasAttribute attribute = type.getAttribute(sortBy);
+
+                    if (attribute == null) {
+                        continue;
+                    }
+
+                    if (ret == null) {
+                        ret = attribute;
+                    } else if (!StringUtils.equals(ret.getVertexPropertyName(), attribute.getVertexPropertyName())) {
+                        ret = null;
+
+                        break;
+                    }
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    // the first processor queries the entity vertices with a graph query, when results are to be sorted by the index
+    private boolean canSortByIndex() {
+        if (sortByAttribute == null || needFullTextProcessor() || (needClassificationProcessor() && hasAttributeFilter(searchParameters.getTagFilters()))) {
+            return false;
+        }
+
+        return INDEX_SORTABLE_TYPES.contains(sortByAttribute.getTypeName()) && indexedKeys != null &&
+               indexedKeys.contains(sortByAttribute.getVertexPropertyName());
+    }
+
     private boolean hasAttributeFilter(FilterCriteria filterCriteria) {
         return filterCriteria != null &&
                (CollectionUtils.isNotEmpty(filterCriteria.getCriterion()) || StringUtils.isNotEmpty(filterCriteria.getAttributeName()));
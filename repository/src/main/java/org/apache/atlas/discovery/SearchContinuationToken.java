@@ -0,0 +1,117 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.discovery;
+
+import org.apache.atlas.AtlasErrorCode;
+import org.apache.atlas.exception.AtlasBaseException;
+import org.apache.atlas.model.discovery.SearchParameters;
+import org.apache.commons.lang3.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in the results of a basic search, to resume the search for the next page without re-reading earlier pages.
+ *
+ * The position is recorded as the offset of the query batch (index or graph query) that returned the last entity of
+ * the page, and the number of entities from that batch, after filtering, that were already returned. The token also
+ * carries a hash of the search criteria, so that a token can't be used with a different search.
+ *
+ * Token format, before base64 encoding: version:criteriaHash:queryOffset:skipCount
+ */
+public class SearchContinuationToken {
+    private static final String VERSION   = "1";
+    private static final String SEPARATOR = ":";
+
+    private final int criteriaHash;
+    private final int queryOffset;
+    private final int skipCount;
+
+    public SearchContinuationToken(SearchParameters searchParameters, int queryOffset, int skipCount) {
+        this(getCriteriaHash(searchParameters), queryOffset, skipCount);
+    }
+
+    private SearchContinuationToken(int criteriaHash, int queryOffset, int skipCount) {
+        this.criteriaHash = criteriaHash;
+        this.queryOffset  = queryOffset;
+        this.skipCount    = skipCount;
+    }
+
+    public int getQueryOffset() { return queryOffset; }
+
+    public int getSkipCount() { return skipCount; }
+
+    public String encode() {
+        String value = VERSION + SEPARATOR + criteriaHash + SEPARATOR + queryOffset + SEPARATOR + skipCount;
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return token given in the search parameters; null if the parameters don't have a token
+     * @throws AtlasBaseException if the token is malformed, or was created for a different search
+     */
+    public static SearchContinuationToken fromSearchParameters(SearchParameters searchParameters) throws AtlasBaseException {
+        String token = searchParameters.getContinuationToken();
+
+        if (StringUtils.isEmpty(token)) {
+            return null;
+        }
+
+        final SearchContinuationToken ret;
+
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(SEPARATOR);
+
+            if (parts.length != 4 || !VERSION.equals(parts[0])) {
+                throw new AtlasBaseException(AtlasErrorCode.INVALID_CONTINUATION_TOKEN, token);
+            }
+
+            ret = new SearchContinuationToken(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), Integer.parseInt(parts[3]));
+        } catch (IllegalArgumentException e) { // includes NumberFormatException
+            throw new AtlasBaseException(AtlasErrorCode.INVALID_CONTINUATION_TOKEN, e, token);
+        }
+
+        if (ret.criteriaHash != getCriteriaHash(searchParameters) || ret.queryOffset < 0 || ret.skipCount < 0) {
+            throw new AtlasBaseException(AtlasErrorCode.INVALID_CONTINUATION_TOKEN, token);
+        }
+
+        return ret;
+    }
+
+    // string based hash, as it needs to be the same across restarts and servers - unlike hashCode() of enums
+    private static int getCriteriaHash(SearchParameters searchParameters) {
+        StringBuilder sb = new StringBuilder();
+
+        sb.append(searchParameters.getQuery()).append(SEPARATOR)
+          .append(searchParameters.getTypeName()).append(SEPARATOR)
+          .append(searchParameters.getClassification()).append(SEPARATOR)
+          .append(searchParameters.getExcludeDeletedEntities()).append(SEPARATOR)
+          .append(searchParameters.getIncludeSubTypes()).append(SEPARATOR)
+          .append(searchParameters.getIncludeSubClassifications()).append(SEPARATOR)
+          .append(searchParameters.getEntityFilters()).append(SEPARATOR)
+          .append(searchParameters.getTagFilters());
+
+        if (StringUtils.isNotEmpty(searchParameters.getSortBy())) { // only when set, so that tokens of unsorted searches stay valid
+            sb.append(SEPARATOR).append(searchParameters.getSortBy())
+              .append(SEPARATOR).append(searchParameters.getSortOrder());
+        }
+
+        return sb.toString().hashCode();
+    }
+}
@@ -142,6 +142,8 @@ public abstract class SearchProcessor {
     public abstract List<AtlasVertex> execute();
 
     protected int collectResultVertices(final List<AtlasVertex> ret, final int startIdx, final int limit, int resultIdx, final List<AtlasVertex> entityVertices) {
+        final int retSize = ret.size();
+
         for (AtlasVertex entityVertex : entityVertices) {
             resultIdx++;
 
@@ -156,9 +158,37 @@ public abstract class SearchProcessor {
             }
         }
 
+        context.addFilteredCount(entityVertices.size());
+        context.addReturnedCount(ret.size() - retSize);
+
         return resultIdx;
     }
 
+    /**
+     * Records the position to resume the search from for the next page, once the page is complete. When all the
+     * entities in the batch have been returned, the next page starts with the next batch.
+     *
+     * @param qryOffset      offset of the query batch being processed
+     * @param batchSize      number of entries requested from the query for the batch
+     * @param batchStartIdx  resultIdx before the entities of the batch were collected
+     * @param resultIdx      resultIdx after the entities of the batch were collected
+     * @param entityVertices entities in the batch, after filtering
+     */
+    protected void updateContinuationToken(final List<AtlasVertex> ret, final int limit, final int qryOffset, final int batchSize,
+                                           final int batchStartIdx, final int resultIdx, final List<AtlasVertex> entityVertices) {
+        if (ret.size() < limit) {
+            return;
+        }
+
+        int consumedCount = resultIdx - batchStartIdx;
+
+        if (consumedCount >= entityVertices.size()) {
+            context.setNextContinuationToken(new SearchContinuationToken(context.getSearchParameters(), qryOffset + batchSize, 0));
+        } else {
+            context.setNextContinuationToken(new SearchContinuationToken(context.getSearchParameters(), qryOffset, consumedCount));
+        }
+    }
+
     public void filter(List<AtlasVertex> entityVertices) {
         if (nextProcessor != null && CollectionUtils.isNotEmpty(entityVertices)) {
             nextProcessor.filter(entityVertices);
@@ -761,6 +791,8 @@ public abstract class SearchProcessor {
                 AtlasVertex vertex = idxQueryResult.next().getVertex();
 
                 vertices.add(vertex);
+
+                context.addScannedCount(1);
             }
         }
 
@@ -773,6 +805,8 @@ public abstract class SearchProcessor {
                 AtlasVertex vertex = iterator.next();
 
                 vertices.add(vertex);
+
+                context.addScannedCount(1);
             }
         }
 
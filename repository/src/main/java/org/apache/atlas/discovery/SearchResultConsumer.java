@@ -0,0 +1,37 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.discovery;
+
+import org.apache.atlas.model.instance.AtlasEntityHeader;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Receives the results of a streaming search, a batch at a time.
+ */
+public interface SearchResultConsumer {
+    /**
+     * Called for each batch of matching entities. The search doesn't read further results until this returns, hence
+     * a slow consumer slows down the search rather than accumulating results in memory.
+     *
+     * @param entities entities in the batch
+     * @throws IOException to stop the search, for example when the client has disconnected
+     */
+    void consume(List<AtlasEntityHeader> entities) throws IOException;
+}
@@ -0,0 +1,167 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.discovery;
+
+import org.apache.atlas.SortOrder;
+import org.apache.atlas.repository.graph.GraphHelper;
+import org.apache.atlas.repository.graphdb.AtlasPropertyValueComparator;
+import org.apache.atlas.repository.graphdb.AtlasVertex;
+import org.apache.atlas.type.AtlasEntityType;
+import org.apache.atlas.type.AtlasStructType.AtlasAttribute;
+import org.apache.atlas.type.AtlasTypeRegistry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Collects the first k entity vertices in the order of an attribute, from vertices added in any order - for results
+ * that the index backend can't sort. At most k vertices are held at a time, in a heap with the last vertex in the
+ * sort order at its head; hence memory used doesn't depend on the number of vertices added.
+ *
+ * The attribute is looked up in the type of each vertex, as vertices can be of different entity types. Vertices
+ * without a value for the attribute are at the end, in the order they were added. A vertex added more than once - as
+ * batches of a search can return an entity again - is collected once. Only vertices in the heap need to be checked
+ * for this: a vertex that didn't make it to the heap, or was evicted from it, can't make it when added again.
+ */
+public class TopKVertexCollector {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final AtlasTypeRegistry    typeRegistry;
+    private final String               attributeName;
+    private final int                  k;
+    private final Comparator<Entry>    comparator;
+    private final PriorityQueue<Entry> heap;
+    private final Map<String, String>  propertyNames = new HashMap<>(); // entity-type name => vertex property of the attribute
+    private final Set<Object>          collectedIds  = new HashSet<>(); // ids of vertices in the heap
+    private long                       addedCount    = 0;
+
+    public TopKVertexCollector(AtlasTypeRegistry typeRegistry, String attributeName, SortOrder sortOrder, int k) {
+        this.typeRegistry  = typeRegistry;
+        this.attributeName = attributeName;
+        this.k             = Math.max(k, 0);
+        this.comparator    = new EntryComparator(sortOrder == SortOrder.DESCENDING);
+        this.heap          = new PriorityQueue<>(Math.max(Math.min(this.k, INITIAL_CAPACITY), 1), Collections.reverseOrder(comparator));
+    }
+
+    public void add(AtlasVertex vertex) {
+        if (k == 0) {
+            return;
+        }
+
+        if (collectedIds.contains(vertex.getId())) {
+            return;
+        }
+
+        Entry entry = new Entry(vertex, getValue(vertex), addedCount++);
+
+        if (heap.size() < k) {
+            heap.add(entry);
+            collectedIds.add(vertex.getId());
+        } else if (comparator.compare(entry, heap.peek()) < 0) {
+            collectedIds.remove(heap.poll().vertex.getId());
+
+            heap.add(entry);
+            collectedIds.add(vertex.getId());
+        }
+    }
+
+    public void addAll(Iterable<AtlasVertex> vertices) {
+        for (AtlasVertex vertex : vertices) {
+            add(vertex);
+        }
+    }
+
+    public long getAddedCount() { return addedCount; }
+
+    /**
+     * @return the first k vertices added, in the sort order
+     */
+    public List<AtlasVertex> getSortedVertices() {
+        List<Entry> entries = new ArrayList<>(heap);
+
+        Collections.sort(entries, comparator);
+
+        List<AtlasVertex> ret = new ArrayList<>(entries.size());
+
+        for (Entry entry : entries) {
+            ret.add(entry.vertex);
+        }
+
+        return ret;
+    }
+
+    private Object getValue(AtlasVertex vertex) {
+        String typeName     = GraphHelper.getTypeName(vertex);
+        String propertyName = propertyNames.get(typeName);
+
+        if (propertyName == null && !propertyNames.containsKey(typeName)) {
+            AtlasEntityType entityType = typeRegistry.getEntityTypeByName(typeName);
+            AtlasAttribute  attribute  = entityType != null ? entityType.getAttribute(attributeName) : null;
+
+            propertyName = attribute != null ? attribute.getVertexPropertyName() : null;
+
+            propertyNames.put(typeName, propertyName);
+        }
+
+        return propertyName != null ? vertex.getProperty(propertyName, Object.class) : null;
+    }
+
+    private static class Entry {
+        private final AtlasVertex vertex;
+        private final Object      value;
+        private final long        seq;
+
+        Entry(AtlasVertex vertex, Object value, long seq) {
+            this.vertex = vertex;
+            this.value  = value;
+            this.seq    = seq;
+        }
+    }
+
+    private static class EntryComparator implements Comparator<Entry> {
+        private final boolean isDescending;
+
+        EntryComparator(boolean isDescending) {
+            this.isDescending = isDescending;
+        }
+
+        @Override
+        public int compare(Entry e1, Entry e2) {
+            int ret;
+
+            if (e1.value == null || e2.value == null) { // entries without value at the end, in either order
+                ret = e1.value == null ? (e2.value == null ? 0 : 1) : -1;
+            } else {
+                ret = AtlasPropertyValueComparator.INSTANCE.compare(e1.value, e2.value);
+
+                if (isDescending) {
+                    ret = -ret;
+                }
+            }
+
+            return ret != 0 ? ret : Long.compare(e1.seq, e2.seq);
+        }
+    }
+}
@@ -0,0 +1,440 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.query;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.Token;
+import org.apache.atlas.exception.AtlasBaseException;
+import org.apache.atlas.listener.ActiveStateChangeHandler;
+import org.apache.atlas.listener.ChangedTypeDefs;
+import org.apache.atlas.listener.TypeDefChangeListener;
+import org.apache.atlas.query.antlr4.AtlasDSLLexer;
+import org.apache.atlas.type.AtlasTypeRegistry;
+import org.apache.atlas.util.AtlasRepositoryConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of Gremlin queries translated from DSL queries, keyed by (DSL query, offset, limit).
+ *
+ * String literals compared with an attribute - like "x" in 'hive_table where name = "x"' - are lifted out of the DSL
+ * query before it is translated, and are passed to the Gremlin script as bindings. Queries that differ only in such
+ * literals share one cache entry and, as the Gremlin script text is the same, one compiled script. Queries in which a
+ * literal can't be lifted - for example when it is compared with a date or a numeric attribute, which is converted
+ * during translation - are cached with the literals in place.
+ *
+ * The cache is cleared on changes to types, as translation depends on the type definitions. A translation computed
+ * concurrently with a type change is not cached. The cache is also cleared when this server becomes active - after the
+ * types are reloaded - as types changed through another server, while this one was passive, are not notified.
+ */
+@Singleton
+@Component
+public class DSLQueryCache implements TypeDefChangeListener, ActiveStateChangeHandler {
+    private static final Logger LOG = LoggerFactory.getLogger(DSLQueryCache.class);
+
+    public static final String METRIC_CACHE_HITS          = "dslCacheHits";
+    public static final String METRIC_CACHE_MISSES        = "dslCacheMisses";
+    public static final String METRIC_CACHE_SIZE          = "dslCacheSize";
+    public static final String METRIC_CACHE_EVICTIONS     = "dslCacheEvictions";
+    public static final String METRIC_CACHE_INVALIDATIONS = "dslCacheInvalidations";
+
+    private static final String PARAM_PREFIX = "dslParam";
+
+    private final AtlasTypeRegistry              typeRegistry;
+    private final boolean                        isEnabled;
+    private final int                            evictionWarningThrottle;
+    private final Cache<QueryPlanKey, QueryPlan> plans;
+    private final AtomicLong                     generation    = new AtomicLong();
+    private final AtomicLong                     hits          = new AtomicLong();
+    private final AtomicLong                     misses        = new AtomicLong();
+    private final AtomicLong                     evictions     = new AtomicLong();
+    private final AtomicLong                     invalidations = new AtomicLong();
+
+    @Inject
+    public DSLQueryCache(AtlasTypeRegistry typeRegistry) {
+        this(typeRegistry, AtlasRepositoryConfiguration.getCompiledQueryCacheCapacity(),
+             AtlasRepositoryConfiguration.getCompiledQueryCacheEvictionWarningThrottle());
+    }
+
+    @VisibleForTesting
+    DSLQueryCache(AtlasTypeRegistry typeRegistry, int capacity, int evictionWarningThrottle) {
+        this.typeRegistry            = typeRegistry;
+        this.isEnabled               = capacity > 0;
+        this.evictionWarningThrottle = evictionWarningThrottle;
+        this.plans                   = CacheBuilder.newBuilder()
+                                                   .maximumSize(Math.max(capacity, 0))
+                                                   .removalListener(new RemovalListener<QueryPlanKey, QueryPlan>() {
+                                                       @Override
+                                                       public void onRemoval(RemovalNotification<QueryPlanKey, QueryPlan> notification) {
+                                                           if (notification.getCause() == RemovalCause.SIZE) {
+                                                               onEviction();
+                                                           }
+                                                       }
+                                                   })
+                                                   .build();
+
+        LOG.info("DSLQueryCache(capacity={}, evictionWarningThrottle={})", capacity, evictionWarningThrottle);
+    }
+
+    public GremlinQuery getGremlinQuery(String dslQuery, int offset, int limit) throws AtlasBaseException {
+        if (!isEnabled) {
+            return translate(dslQuery, offset, limit);
+        }
+
+        QueryTemplate template = QueryTemplate.create(dslQuery);
+        QueryPlanKey  key      = new QueryPlanKey(template.getQuery(), offset, limit);
+        QueryPlan     plan     = plans.getIfPresent(key);
+
+        if (plan == QueryPlan.NOT_PARAMETERIZABLE) {
+            template = QueryTemplate.withoutParams(dslQuery);
+            key      = new QueryPlanKey(dslQuery, offset, limit);
+            plan     = plans.getIfPresent(key);
+        }
+
+        if (plan != null) {
+            hits.incrementAndGet();
+
+            return plan.bind(template);
+        }
+
+        misses.incrementAndGet();
+
+        long computedAtGeneration = generation.get();
+
+        if (template.hasParams()) {
+            plan = createPlan(template, offset, limit);
+
+            if (plan == null) { // literals can't be lifted; cache the query with literals in place
+                putPlan(key, QueryPlan.NOT_PARAMETERIZABLE, computedAtGeneration);
+
+                template = QueryTemplate.withoutParams(dslQuery);
+                key      = new QueryPlanKey(dslQuery, offset, limit);
+            }
+        }
+
+        if (plan == null) {
+            plan = new QueryPlan(translate(dslQuery, offset, limit), template);
+        }
+
+        putPlan(key, plan, computedAtGeneration);
+
+        return plan.bind(template);
+    }
+
+    @Override
+    public void onChange(ChangedTypeDefs changedTypeDefs) {
+        invalidate();
+    }
+
+    @Override
+    public void instanceIsActive() {
+        LOG.info("Reacting to active state: clearing DSL query cache");
+
+        invalidate();
+    }
+
+    @Override
+    public void instanceIsPassive() {
+        LOG.info("Reacting to passive state: No action for now.");
+    }
+
+    @Override
+    public int getHandlerOrder() {
+        return HandlerOrder.DSL_QUERY_CACHE.getOrder();
+    }
+
+    public Map<String, Number> getMetrics() {
+        Map<String, Number> ret = new HashMap<>();
+
+        ret.put(METRIC_CACHE_HITS, hits.get());
+        ret.put(METRIC_CACHE_MISSES, misses.get());
+        ret.put(METRIC_CACHE_SIZE, plans.size());
+        ret.put(METRIC_CACHE_EVICTIONS, evictions.get());
+        ret.put(METRIC_CACHE_INVALIDATIONS, invalidations.get());
+
+        return ret;
+    }
+
+    private QueryPlan createPlan(QueryTemplate template, int offset, int limit) {
+        try {
+            QueryPlan ret = QueryPlan.create(translate(template.getQuery(), offset, limit), template);
+
+            if (ret == null && LOG.isDebugEnabled()) {
+                LOG.debug("DSLQueryCache: literals in query {} can't be lifted", template.getQuery());
+            }
+
+            return ret;
+        } catch (AtlasBaseException excp) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("DSLQueryCache: translation of query {} failed; literals will not be lifted", template.getQuery(), excp);
+            }
+
+            return null;
+        }
+    }
+
+    private void invalidate() {
+        generation.incrementAndGet();
+        invalidations.incrementAndGet();
+
+        plans.invalidateAll();
+    }
+
+    private void putPlan(QueryPlanKey key, QueryPlan plan, long computedAtGeneration) {
+        if (computedAtGeneration == generation.get()) {
+            plans.put(key, plan);
+        }
+    }
+
+    private GremlinQuery translate(String dslQuery, int offset, int limit) throws AtlasBaseException {
+        return new AtlasDSL.Translator(dslQuery, typeRegistry, offset, limit).translate();
+    }
+
+    private void onEviction() {
+        long count = evictions.incrementAndGet();
+
+        if (evictionWarningThrottle > 0 && count % evictionWarningThrottle == 0) {
+            LOG.warn("DSLQueryCache: {} queries evicted so far; consider increasing {}", count, AtlasRepositoryConfiguration.COMPILED_QUERY_CACHE_CAPACITY);
+        }
+    }
+
+    private static String getPlaceholder(int idx) {
+        return "__" + PARAM_PREFIX + idx + "__";
+    }
+
+    private static String getParamName(int idx) {
+        return PARAM_PREFIX + idx;
+    }
+
+    /**
+     * DSL query with string literals compared with attributes replaced by placeholders.
+     */
+    @VisibleForTesting
+    static class QueryTemplate {
+        private final String        query;
+        private final List<String>  values;
+        private final List<Boolean> isLike;
+
+        private QueryTemplate(String query, List<String> values, List<Boolean> isLike) {
+            this.query  = query;
+            this.values = values;
+            this.isLike = isLike;
+        }
+
+        static QueryTemplate withoutParams(String dslQuery) {
+            return new QueryTemplate(dslQuery, Collections.<String>emptyList(), Collections.<Boolean>emptyList());
+        }
+
+        static QueryTemplate create(String dslQuery) {
+            AtlasDSL.Validator validator = new AtlasDSL.Validator();
+            AtlasDSLLexer      lexer     = new AtlasDSLLexer(CharStreams.fromString(dslQuery));
+
+            lexer.removeErrorListeners();
+            lexer.addErrorListener(validator);
+
+            List<? extends Token> tokens = lexer.getAllTokens();
+
+            if (!validator.isValid()) { // let the translation report the error
+                return withoutParams(dslQuery);
+            }
+
+            StringBuilder query    = new StringBuilder(dslQuery.length());
+            List<String>  values   = new ArrayList<>();
+            List<Boolean> isLike   = new ArrayList<>();
+            int           prevType = Token.INVALID_TYPE;
+
+            for (Token token : tokens) {
+                String text = token.getText();
+
+                if (token.getChannel() != Token.DEFAULT_CHANNEL) {
+                    query.append(text);
+
+                    continue;
+                }
+
+                if (isComparisonOperator(prevType) && isStringLiteral(token)) {
+                    query.append('\'').append(getPlaceholder(values.size())).append('\'');
+
+                    values.add(text.substring(1, text.length() - 1));
+                    isLike.add(prevType == AtlasDSLLexer.K_LIKE);
+                } else {
+                    query.append(text);
+                }
+
+                prevType = token.getType();
+            }
+
+            return values.isEmpty() ? withoutParams(dslQuery) : new QueryTemplate(query.toString(), values, isLike);
+        }
+
+        String getQuery() {
+            return query;
+        }
+
+        boolean hasParams() {
+            return !values.isEmpty();
+        }
+
+        int getParamCount() {
+            return values.size();
+        }
+
+        Map<String, Object> getBindings() {
+            Map<String, Object> ret = new HashMap<>();
+
+            for (int i = 0; i < values.size(); i++) {
+                String value = values.get(i);
+
+                ret.put(getParamName(i), isLike.get(i) ? IdentifierHelper.getFixedRegEx(value) : value);
+            }
+
+            return ret;
+        }
+
+        private static boolean isComparisonOperator(int tokenType) {
+            switch (tokenType) {
+                case AtlasDSLLexer.K_LT:
+                case AtlasDSLLexer.K_LTE:
+                case AtlasDSLLexer.K_EQ:
+                case AtlasDSLLexer.K_NEQ:
+                case AtlasDSLLexer.K_GT:
+                case AtlasDSLLexer.K_GTE:
+                case AtlasDSLLexer.K_LIKE:
+                    return true;
+            }
+
+            return false;
+        }
+
+        private static boolean isStringLiteral(Token token) {
+            String text = token.getText();
+
+            if (token.getType() != AtlasDSLLexer.ID || text.length() < 2) {
+                return false;
+            }
+
+            char first = text.charAt(0);
+
+            return (first == '"' || first == '\'') && text.charAt(text.length() - 1) == first;
+        }
+    }
+
+    /**
+     * Translated Gremlin query, in which lifted literals are referenced by binding variables.
+     */
+    @VisibleForTesting
+    static class QueryPlan {
+        static final QueryPlan NOT_PARAMETERIZABLE = new QueryPlan(null, false, 0);
+
+        private final String  gremlinQuery;
+        private final boolean hasSelect;
+        private final int     paramCount;
+
+        QueryPlan(GremlinQuery gremlinQuery, QueryTemplate template) {
+            this(gremlinQuery.queryStr(), gremlinQuery.hasSelectList(), template.getParamCount());
+        }
+
+        private QueryPlan(String gremlinQuery, boolean hasSelect, int paramCount) {
+            this.gremlinQuery = gremlinQuery;
+            this.hasSelect    = hasSelect;
+            this.paramCount   = paramCount;
+        }
+
+        /**
+         * Replaces each quoted placeholder in the translated query with its binding variable. Returns null if any
+         * placeholder was not carried to the translated query exactly once, as a quoted string - i.e. if the literal
+         * would have been converted during translation.
+         */
+        static QueryPlan create(GremlinQuery gremlinQuery, QueryTemplate template) {
+            String query = gremlinQuery.queryStr();
+
+            for (int i = 0; i < template.getParamCount(); i++) {
+                String placeholder = getPlaceholder(i);
+                int    startIdx    = query.indexOf(placeholder);
+                int    endIdx      = startIdx + placeholder.length();
+
+                if (startIdx < 1 || endIdx >= query.length() || query.indexOf(placeholder, endIdx) != -1) {
+                    return null;
+                }
+
+                char quote = query.charAt(startIdx - 1);
+
+                if ((quote != '\'' && quote != '"') || query.charAt(endIdx) != quote) {
+                    return null;
+                }
+
+                query = query.substring(0, startIdx - 1) + getParamName(i) + query.substring(endIdx + 1);
+            }
+
+            return new QueryPlan(query, gremlinQuery.hasSelectList(), template.getParamCount());
+        }
+
+        GremlinQuery bind(QueryTemplate template) {
+            return paramCount == 0 ? new GremlinQuery(gremlinQuery, hasSelect) : new GremlinQuery(gremlinQuery, hasSelect, template.getBindings());
+        }
+    }
+
+    private static class QueryPlanKey {
+        private final String query;
+        private final int    offset;
+        private final int    limit;
+
+        QueryPlanKey(String query, int offset, int limit) {
+            this.query  = query;
+            this.offset = offset;
+            this.limit  = limit;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            QueryPlanKey that = (QueryPlanKey) o;
+
+            return offset == that.offset && limit == that.limit && Objects.equals(query, that.query);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(query, offset, limit);
+        }
+    }
+}
@@ -17,14 +17,23 @@
  */
 package org.apache.atlas.query;
 
+import java.util.Collections;
+import java.util.Map;
+
 public class GremlinQuery {
 
     private final String queryStr;
     private final boolean hasSelect;
+    private final Map<String, Object> bindings;
 
     public GremlinQuery(String text, boolean hasSelect) {
+        this(text, hasSelect, Collections.<String, Object>emptyMap());
+    }
+
+    public GremlinQuery(String text, boolean hasSelect, Map<String, Object> bindings) {
         this.queryStr = text;
         this.hasSelect = hasSelect;
+        this.bindings = bindings;
     }
 
 
@@ -35,4 +44,11 @@ public class GremlinQuery {
     public String queryStr() {
         return queryStr;
     }
+
+    /**
+     * Values of the variables referenced in queryStr(), for literals lifted out of the query - see DSLQueryCache.
+     */
+    public Map<String, Object> getBindings() {
+        return bindings;
+    }
 }
@@ -24,6 +24,7 @@ import org.apache.atlas.exception.AtlasBaseException;
 import org.apache.atlas.listener.EntityChangeListenerV2;
 import org.apache.atlas.model.instance.AtlasClassification;
 import org.apache.atlas.model.instance.AtlasEntity;
+import org.apache.atlas.repository.outbox.EntityChangeOutbox;
 import org.apache.atlas.type.AtlasEntityType;
 import org.apache.atlas.type.AtlasStructType.AtlasAttribute;
 import org.apache.atlas.type.AtlasType;
@@ -55,13 +56,37 @@ import static org.apache.atlas.model.audit.EntityAuditEventV2.EntityAuditAction.
 public class EntityAuditListenerV2 implements EntityChangeListenerV2 {
     private static final Logger LOG = LoggerFactory.getLogger(EntityAuditListenerV2.class);
 
+    public static final String OUTBOX_SINK_NAME = "entity-audit";
+
     private final EntityAuditRepository auditRepository;
     private final AtlasTypeRegistry     typeRegistry;
+    private final EntityChangeOutbox    outbox;
 
     @Inject
-    public EntityAuditListenerV2(EntityAuditRepository auditRepository, AtlasTypeRegistry typeRegistry) {
+    public EntityAuditListenerV2(EntityAuditRepository auditRepository, AtlasTypeRegistry typeRegistry, EntityChangeOutbox outbox) {
         this.auditRepository = auditRepository;
         this.typeRegistry    = typeRegistry;
+        this.outbox          = outbox;
+
+        if (outbox != null && outbox.isEnabled()) {
+            outbox.registerSink(new EntityChangeOutbox.Sink() {
+                @Override
+                public String getName() {
+                    return OUTBOX_SINK_NAME;
+                }
+
+                @Override
+                public void dispatch(List<String> payloads) throws AtlasBaseException {
+                    List<EntityAuditEventV2> events = new ArrayList<>(payloads.size());
+
+                    for (String payload : payloads) {
+                        events.add(AtlasType.fromJson(payload, EntityAuditEventV2.class));
+                    }
+
+                    auditRepository.putEventsV2(events);
+                }
+            });
+        }
     }
 
     @Override
@@ -74,7 +99,7 @@ public class EntityAuditListenerV2 implements EntityChangeListenerV2 {
             events.add(event);
         }
 
-        auditRepository.putEventsV2(events);
+        putEvents(events);
     }
 
     @Override
@@ -87,7 +112,7 @@ public class EntityAuditListenerV2 implements EntityChangeListenerV2 {
             events.add(event);
         }
 
-        auditRepository.putEventsV2(events);
+        putEvents(events);
     }
 
     @Override
@@ -100,7 +125,7 @@ public class EntityAuditListenerV2 implements EntityChangeListenerV2 {
             events.add(event);
         }
 
-        auditRepository.putEventsV2(events);
+        putEvents(events);
     }
 
     @Override
@@ -112,7 +137,7 @@ public class EntityAuditListenerV2 implements EntityChangeListenerV2 {
                 events.add(createEvent(entity, CLASSIFICATION_ADD, "Added classification: " + AtlasType.toJson(classification)));
             }
 
-            auditRepository.putEventsV2(events);
+            putEvents(events);
         }
     }
 
@@ -125,7 +150,7 @@ public class EntityAuditListenerV2 implements EntityChangeListenerV2 {
                 events.add(createEvent(entity, CLASSIFICATION_UPDATE, "Updated classification: " + AtlasType.toJson(classification)));
             }
 
-            auditRepository.putEventsV2(events);
+            putEvents(events);
         }
     }
 
@@ -138,6 +163,21 @@ public class EntityAuditListenerV2 implements EntityChangeListenerV2 {
                 events.add(createEvent(entity, CLASSIFICATION_DELETE, "Deleted classification: " + classificationName));
             }
 
+            putEvents(events);
+        }
+    }
+
+    // with outbox enabled, events are written to the audit repository after the graph transaction commits
+    private void putEvents(List<EntityAuditEventV2> events) throws AtlasBaseException {
+        if (outbox != null && outbox.isEnabled()) {
+            List<String> payloads = new ArrayList<>(events.size());
+
+            for (EntityAuditEventV2 event : events) {
+                payloads.add(AtlasType.toJson(event));
+            }
+
+            outbox.add(OUTBOX_SINK_NAME, payloads);
+        } else {
             auditRepository.putEventsV2(events);
         }
     }
@@ -0,0 +1,366 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.graph;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.atlas.AtlasConfiguration;
+import org.apache.atlas.GraphTransactionInterceptor;
+import org.apache.atlas.RequestContextV1;
+import org.apache.atlas.exception.AtlasBaseException;
+import org.apache.atlas.repository.Constants;
+import org.apache.atlas.repository.graph.FullTextMapperV2.AttributeIndexText;
+import org.apache.atlas.repository.graphdb.AtlasGraph;
+import org.apache.atlas.repository.graphdb.AtlasVertex;
+import org.apache.atlas.repository.outbox.EntityChangeOutbox;
+import org.apache.atlas.repository.store.graph.v1.AtlasGraphUtilsV1;
+import org.apache.commons.collections.CollectionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Updates the full-text index property of entities in the background, instead of in the transaction that updates
+ * the entities.
+ *
+ * Entities are queued after the transaction commits; an entity updated again before it is indexed is indexed once.
+ * Queued entities are indexed in batches, each batch in its own graph transaction; a batch that fails is put back at
+ * the head of the queue, with the time its entities were first queued. The text of each attribute is cached, so that
+ * only the text of attributes whose value changed is recomputed - see
+ * FullTextMapperV2.getIndexTextForEntity(guid, attributeTexts).
+ *
+ * With the entity change outbox enabled, entities are queued in the outbox instead: the outbox journal keeps them
+ * across restarts, and its dispatcher indexes them. Otherwise the queue is only in memory: close() indexes the queued
+ * entities, for up to CLOSE_TIMEOUT_MS, and logs the guids of entities left unindexed.
+ */
+@Singleton
+@Component
+public class AsyncFullTextIndexer {
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncFullTextIndexer.class);
+
+    public static final String METRIC_BACKLOG   = "fullTextBacklog";
+    public static final String METRIC_LAG_MS    = "fullTextLagMs";
+    public static final String METRIC_INDEXED   = "fullTextIndexed";
+    public static final String METRIC_COALESCED = "fullTextCoalesced";
+    public static final String OUTBOX_SINK_NAME = "fulltext-index";
+
+    private static final long RETRY_INTERVAL_MS = 1000;
+    private static final long CLOSE_TIMEOUT_MS  = TimeUnit.SECONDS.toMillis(10);
+
+    private final AtlasGraph                                      graph;
+    private final FullTextMapperV2                                fullTextMapper;
+    private final EntityChangeOutbox                              outbox;
+    private final boolean                                         isEnabled;
+    private final int                                             batchSize;
+    private final Cache<String, Map<String, AttributeIndexText>> attributeTextCache;
+    private final Map<String, Long>                               pendingGuids   = new LinkedHashMap<>(); // guid => time queued
+    private final AtomicLong                                      indexedCount   = new AtomicLong();
+    private final AtomicLong                                      coalescedCount = new AtomicLong();
+    private final Thread                                          worker;
+    private volatile boolean                                      isStopped      = false;
+
+    @Inject
+    public AsyncFullTextIndexer(AtlasGraph graph, FullTextMapperV2 fullTextMapper, EntityChangeOutbox outbox) {
+        this(graph, fullTextMapper, outbox, AtlasConfiguration.FULLTEXT_ASYNC_ENABLED.getBoolean(),
+             AtlasConfiguration.FULLTEXT_ASYNC_BATCH_SIZE.getInt(), AtlasConfiguration.FULLTEXT_ASYNC_CACHE_SIZE.getInt(), true);
+    }
+
+    @VisibleForTesting
+    AsyncFullTextIndexer(AtlasGraph graph, FullTextMapperV2 fullTextMapper, EntityChangeOutbox outbox, boolean isEnabled, int batchSize, int cacheSize, boolean startWorker) {
+        this.graph              = graph;
+        this.fullTextMapper     = fullTextMapper;
+        this.outbox             = outbox != null && outbox.isEnabled() ? outbox : null;
+        this.isEnabled          = isEnabled;
+        this.batchSize          = Math.max(batchSize, 1);
+        this.attributeTextCache = CacheBuilder.newBuilder().maximumSize(Math.max(cacheSize, 0)).build();
+
+        if (isEnabled && this.outbox != null) {
+            this.outbox.registerSink(new EntityChangeOutbox.Sink() {
+                @Override
+                public String getName() {
+                    return OUTBOX_SINK_NAME;
+                }
+
+                @Override
+                public void dispatch(List<String> payloads) {
+                    Set<String> guids = new LinkedHashSet<>(payloads);
+
+                    coalescedCount.addAndGet(payloads.size() - guids.size());
+
+                    index(new ArrayList<>(guids));
+                }
+            });
+        }
+
+        if (isEnabled && this.outbox == null && startWorker) {
+            worker = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    indexPendingEntities();
+                }
+            }, "atlas-fulltext-indexer");
+
+            worker.setDaemon(true);
+            worker.start();
+        } else {
+            worker = null;
+        }
+
+        LOG.info("AsyncFullTextIndexer(isEnabled={}, useOutbox={}, batchSize={}, cacheSize={})", isEnabled, this.outbox != null, batchSize, cacheSize);
+    }
+
+    public boolean isEnabled() {
+        return isEnabled;
+    }
+
+    /**
+     * Queues the given entities for indexing, once the current graph transaction commits.
+     */
+    public void indexAfterCommit(Collection<String> guids) {
+        if (CollectionUtils.isEmpty(guids)) {
+            return;
+        }
+
+        final Set<String> toIndex = new LinkedHashSet<>(guids);
+
+        if (outbox != null) {
+            outbox.add(OUTBOX_SINK_NAME, new ArrayList<>(toIndex));
+
+            return;
+        }
+
+        new GraphTransactionInterceptor.PostTransactionHook() {
+            @Override
+            public void onComplete(boolean isSuccess) {
+                if (isSuccess) {
+                    enqueue(toIndex);
+                }
+            }
+        };
+    }
+
+    public int getBacklogSize() {
+        synchronized (pendingGuids) {
+            return pendingGuids.size();
+        }
+    }
+
+    public Map<String, Number> getMetrics() {
+        Map<String, Number> ret = new LinkedHashMap<>();
+        long                lagMs;
+        int                 backlog;
+
+        synchronized (pendingGuids) {
+            Iterator<Long> iter = pendingGuids.values().iterator();
+
+            backlog = pendingGuids.size();
+            lagMs   = iter.hasNext() ? Math.max(System.currentTimeMillis() - iter.next(), 0) : 0;
+        }
+
+        ret.put(METRIC_BACKLOG, backlog);
+        ret.put(METRIC_LAG_MS, lagMs);
+        ret.put(METRIC_INDEXED, indexedCount.get());
+        ret.put(METRIC_COALESCED, coalescedCount.get());
+
+        return ret;
+    }
+
+    /**
+     * Indexes the queued entities, for up to CLOSE_TIMEOUT_MS; guids of entities left unindexed are logged.
+     */
+    @PreDestroy
+    public void close() {
+        synchronized (pendingGuids) {
+            isStopped = true;
+
+            pendingGuids.notifyAll();
+        }
+
+        if (worker != null) {
+            try {
+                worker.join(CLOSE_TIMEOUT_MS);
+
+                if (worker.isAlive()) {
+                    worker.interrupt();
+                    worker.join(CLOSE_TIMEOUT_MS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        synchronized (pendingGuids) {
+            if (!pendingGuids.isEmpty()) {
+                LOG.warn("full-text index of {} entities was not updated on shutdown: {}", pendingGuids.size(), pendingGuids.keySet());
+            }
+        }
+    }
+
+    @VisibleForTesting
+    void enqueue(Collection<String> guids) {
+        enqueue(guids, System.currentTimeMillis());
+    }
+
+    @VisibleForTesting
+    void enqueue(Collection<String> guids, long time) {
+        synchronized (pendingGuids) {
+            for (String guid : guids) {
+                if (pendingGuids.containsKey(guid)) {
+                    coalescedCount.incrementAndGet();
+                } else {
+                    pendingGuids.put(guid, time);
+                }
+            }
+
+            pendingGuids.notifyAll();
+        }
+    }
+
+    // puts a batch that failed back at the head of the queue, with the time its entities were first queued
+    @VisibleForTesting
+    void requeue(Map<String, Long> batch) {
+        synchronized (pendingGuids) {
+            Map<String, Long> queued = new LinkedHashMap<>(pendingGuids);
+
+            pendingGuids.clear();
+            pendingGuids.putAll(batch);
+
+            for (Map.Entry<String, Long> entry : queued.entrySet()) {
+                if (pendingGuids.containsKey(entry.getKey())) {
+                    coalescedCount.incrementAndGet();
+                } else {
+                    pendingGuids.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+    }
+
+    // guid => time queued, of up to batchSize entities at the head of the queue
+    @VisibleForTesting
+    Map<String, Long> nextBatch() {
+        Map<String, Long> ret = new LinkedHashMap<>();
+
+        synchronized (pendingGuids) {
+            for (Iterator<Map.Entry<String, Long>> iter = pendingGuids.entrySet().iterator(); iter.hasNext() && ret.size() < batchSize; ) {
+                Map.Entry<String, Long> entry = iter.next();
+
+                ret.put(entry.getKey(), entry.getValue());
+
+                iter.remove();
+            }
+        }
+
+        return ret;
+    }
+
+    // on close, indexes the entities still queued; a batch that fails on close is left in the queue
+    private void indexPendingEntities() {
+        while (true) {
+            try {
+                synchronized (pendingGuids) {
+                    while (pendingGuids.isEmpty() && !isStopped) {
+                        pendingGuids.wait();
+                    }
+
+                    if (pendingGuids.isEmpty()) {
+                        break;
+                    }
+                }
+
+                Map<String, Long> batch = nextBatch();
+
+                try {
+                    index(new ArrayList<>(batch.keySet()));
+                } catch (Throwable t) {
+                    requeue(batch);
+
+                    if (isStopped) {
+                        LOG.error("full-text indexing of {} entities failed on close", batch.size(), t);
+
+                        break;
+                    }
+
+                    LOG.error("full-text indexing of {} entities failed. Will retry", batch.size(), t);
+
+                    Thread.sleep(RETRY_INTERVAL_MS);
+                }
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+    }
+
+    @VisibleForTesting
+    void index(List<String> guids) {
+        boolean isCommitted = false;
+
+        try {
+            for (String guid : guids) {
+                AtlasVertex vertex = AtlasGraphUtilsV1.findByGuid(guid);
+
+                if (vertex == null || GraphHelper.isInternalType(vertex)) { // entity could have been deleted since
+                    continue;
+                }
+
+                Map<String, AttributeIndexText> attributeTexts = attributeTextCache.getIfPresent(guid);
+
+                if (attributeTexts == null) {
+                    attributeTexts = new HashMap<>();
+                }
+
+                try {
+                    String fullText = fullTextMapper.getIndexTextForEntity(guid, attributeTexts);
+
+                    GraphHelper.setProperty(vertex, Constants.ENTITY_TEXT_PROPERTY_KEY, fullText);
+
+                    attributeTextCache.put(guid, attributeTexts);
+                } catch (AtlasBaseException e) {
+                    LOG.error("FullText mapping failed for Vertex[ guid = {} ]", guid, e);
+                }
+            }
+
+            graph.commit();
+
+            isCommitted = true;
+
+            indexedCount.addAndGet(guids.size());
+        } finally {
+            if (!isCommitted) {
+                graph.rollback();
+            }
+
+            RequestContextV1.clear();
+        }
+    }
+}
@@ -41,6 +41,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 
@@ -118,6 +119,86 @@ public class FullTextMapperV2 {
         return ret;
     }
 
+    /**
+     * Index text for the entity with the given guid, computed incrementally: the text of an attribute whose value is
+     * the same as in attributeTexts is reused. attributeTexts is updated with the text of each attribute, for use in
+     * the next call for this entity.
+     *
+     * Unlike getIndexTextForEntity(guid), referred entities are loaded only when followReferences is enabled - and
+     * the text of attributes that refer to entities is then always recomputed, as the referred entities could have
+     * changed.
+     */
+    public String getIndexTextForEntity(String guid, Map<String, AttributeIndexText> attributeTexts) throws AtlasBaseException {
+        AtlasEntity entity = entityGraphRetriever.toAtlasEntity(guid);
+
+        if (entity == null) {
+            return null;
+        }
+
+        AtlasEntityExtInfo              entityExtInfo     = followReferences ? new ReferredEntityLoader() : new AtlasEntityExtInfo();
+        Set<String>                     excludeAttributes = getExcludeAttributesForIndexText(entity.getTypeName());
+        Map<String, AttributeIndexText> newTexts          = new HashMap<>();
+        StringBuilder                   sb                = new StringBuilder();
+        int                             reusedCount       = 0;
+
+        sb.append(entity.getTypeName()).append(FULL_TEXT_DELIMITER);
+
+        if (MapUtils.isNotEmpty(entity.getAttributes())) {
+            for (Map.Entry<String, Object> attributeEntry : entity.getAttributes().entrySet()) {
+                String attribKey = attributeEntry.getKey();
+                Object attrValue = attributeEntry.getValue();
+
+                if (attrValue == null || isExcludedAttribute(excludeAttributes, attribKey)) {
+                    continue;
+                }
+
+                AttributeIndexText attrText = attributeTexts.get(attribKey);
+
+                if (attrText != null && Objects.equals(attrText.getValue(), attrValue) && !(followReferences && hasObjectId(attrValue))) {
+                    reusedCount++;
+                } else {
+                    StringBuilder attrSb         = new StringBuilder();
+                    Set<String>   processedGuids = new HashSet<>();
+
+                    processedGuids.add(guid);
+
+                    attrSb.append(attribKey).append(FULL_TEXT_DELIMITER);
+
+                    mapAttribute(attrValue, entityExtInfo, attrSb, processedGuids);
+
+                    attrText = new AttributeIndexText(attrValue, attrSb.toString());
+                }
+
+                sb.append(attrText.getText());
+
+                newTexts.put(attribKey, attrText);
+            }
+        }
+
+        if (CollectionUtils.isNotEmpty(entity.getClassifications())) {
+            Set<String> processedGuids = new HashSet<>();
+
+            processedGuids.add(guid);
+
+            for (AtlasClassification classification : entity.getClassifications()) {
+                sb.append(classification.getTypeName()).append(FULL_TEXT_DELIMITER);
+
+                Set<String> excludeClassificationAttributes = getExcludeAttributesForIndexText(classification.getTypeName());
+
+                mapAttributes(classification.getAttributes(), entityExtInfo, sb, processedGuids, excludeClassificationAttributes);
+            }
+        }
+
+        attributeTexts.clear();
+        attributeTexts.putAll(newTexts);
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("FullTextMapperV2.map({}): reused text of {} of {} attributes", guid, reusedCount, newTexts.size());
+        }
+
+        return sb.toString();
+    }
+
     private void map(AtlasEntity entity, AtlasEntityExtInfo entityExtInfo, StringBuilder sb, Set<String> processedGuids) throws AtlasBaseException {
         if (entity == null || processedGuids.contains(entity.getGuid())) {
             return;
@@ -220,6 +301,34 @@ public class FullTextMapperV2 {
         return entityWithExtInfo;
     }
 
+    private boolean hasObjectId(Object value) {
+        boolean ret = false;
+
+        if (value instanceof AtlasObjectId) {
+            ret = true;
+        } else if (value instanceof List) {
+            for (Object listElement : (List) value) {
+                if (hasObjectId(listElement)) {
+                    ret = true;
+
+                    break;
+                }
+            }
+        } else if (value instanceof Map) {
+            for (Object mapValue : ((Map) value).values()) {
+                if (hasObjectId(mapValue)) {
+                    ret = true;
+
+                    break;
+                }
+            }
+        } else if (value instanceof AtlasStruct && MapUtils.isNotEmpty(((AtlasStruct) value).getAttributes())) {
+            ret = hasObjectId(((AtlasStruct) value).getAttributes());
+        }
+
+        return ret;
+    }
+
     private boolean isExcludedAttribute(Set<String> excludeAttributes, String attributeName) {
         return CollectionUtils.isNotEmpty(excludeAttributes) && excludeAttributes.contains(attributeName);
     }
@@ -243,4 +352,47 @@ public class FullTextMapperV2 {
 
         return ret;
     }
-}
\ No newline at end of file
+
+    /**
+     * Value of an attribute, and the index text computed from it.
+     */
+    public static class AttributeIndexText {
+        private final Object value;
+        private final String text;
+
+        public AttributeIndexText(Object value, String text) {
+            this.value = value;
+            this.text  = text;
+        }
+
+        public Object getValue() {
+            return value;
+        }
+
+        public String getText() {
+            return text;
+        }
+    }
+
+    // loads referred entities on first access, instead of loading all of them upfront
+    private class ReferredEntityLoader extends AtlasEntityExtInfo {
+        @Override
+        public AtlasEntity getEntity(String guid) {
+            AtlasEntity ret = getReferredEntity(guid);
+
+            if (ret == null && guid != null) {
+                try {
+                    ret = entityGraphRetriever.toAtlasEntity(guid);
+
+                    if (ret != null) {
+                        addReferredEntity(guid, ret);
+                    }
+                } catch (AtlasBaseException e) {
+                    LOG.warn("FullTextMapperV2: failed to load referred entity {}", guid, e);
+                }
+            }
+
+            return ret;
+        }
+    }
+}
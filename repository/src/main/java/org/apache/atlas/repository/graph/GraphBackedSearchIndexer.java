@@ -21,6 +21,7 @@ package org.apache.atlas.repository.graph;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import org.apache.atlas.ApplicationProperties;
+import org.apache.atlas.AtlasConfiguration;
 import org.apache.atlas.AtlasErrorCode;
 import org.apache.atlas.AtlasException;
 import org.apache.atlas.discovery.SearchIndexer;
@@ -61,9 +62,12 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import static org.apache.atlas.model.typedef.AtlasBaseTypeDef.*;
@@ -118,6 +122,11 @@ public class GraphBackedSearchIndexer implements SearchIndexer, ActiveStateChang
     private boolean     recomputeIndexedKeys = true;
     private Set<String> vertexIndexKeys      = new HashSet<>();
 
+    private final SearchIndexBackfill indexBackfill;
+
+    // index-name => property-key, of indexes created for existing property keys while processing typedef changes or initializing
+    private Map<String, String> indexesToReindex = null;
+
     @Inject
     public GraphBackedSearchIndexer(AtlasTypeRegistry typeRegistry) throws AtlasException {
         this(new AtlasGraphProvider(), ApplicationProperties.get(), typeRegistry);
@@ -128,8 +137,12 @@ public class GraphBackedSearchIndexer implements SearchIndexer, ActiveStateChang
             throws IndexException, RepositoryException {
         this.provider = provider;
         this.typeRegistry = typeRegistry;
+        this.indexBackfill = new SearchIndexBackfill(provider, typeRegistry, this, AtlasConfiguration.INDEX_BACKFILL_BATCH_SIZE.getInt(),
+                                                     AtlasConfiguration.INDEX_BACKFILL_MAX_VERTICES_PER_SEC.getInt());
         if (!HAConfiguration.isHAEnabled(configuration)) {
             initialize(provider.get());
+
+            indexBackfill.activate();
         }
     }
 
@@ -146,11 +159,15 @@ public class GraphBackedSearchIndexer implements SearchIndexer, ActiveStateChang
         } catch (RepositoryException | IndexException e) {
             throw new AtlasException("Error in reacting to active on initialization", e);
         }
+
+        indexBackfill.activate();
     }
 
     @Override
     public void instanceIsPassive() {
-        LOG.info("Reacting to passive state: No action right now.");
+        LOG.info("Reacting to passive state: stopping index backfill");
+
+        indexBackfill.deactivate();
     }
 
     @Override
@@ -167,6 +184,8 @@ public class GraphBackedSearchIndexer implements SearchIndexer, ActiveStateChang
         try {
             management = provider.get().getManagementSystem();
 
+            indexesToReindex = new HashMap<>();
+
             // Update index for newly created types
             if (CollectionUtils.isNotEmpty(changedTypeDefs.getCreateTypeDefs())) {
                 for (AtlasBaseTypeDef typeDef : changedTypeDefs.getCreateTypeDefs()) {
@@ -190,13 +209,52 @@ public class GraphBackedSearchIndexer implements SearchIndexer, ActiveStateChang
 
             //Commit indexes
             commit(management);
+
+            startReindex();
         } catch (RepositoryException | IndexException e) {
             LOG.error("Failed to update indexes for changed typedefs", e);
             attemptRollback(changedTypeDefs, management);
+        } finally {
+            indexesToReindex = null;
         }
 
     }
 
+    /**
+     * Starts adding the existing vertices of the given types, and their sub-types, to the search index in the
+     * background; the types are added to the backfill in progress, if any.
+     */
+    public Map<String, Object> startIndexBackfill(Collection<String> typeNames) throws AtlasBaseException {
+        Map<String, Set<String>> typeProperties = new HashMap<>();
+
+        for (String typeName : typeNames) {
+            typeProperties.put(typeName, null); // indexed attributes of the type
+        }
+
+        return indexBackfill.start(typeProperties);
+    }
+
+    public Map<String, Object> getIndexBackfillProgress() {
+        return indexBackfill.getProgress();
+    }
+
+    public boolean cancelIndexBackfill() throws AtlasBaseException {
+        return indexBackfill.cancel();
+    }
+
+    // indexes created for existing property keys are reindexed in the background, as vertices already have values for the keys
+    private void startReindex() {
+        if (!indexesToReindex.isEmpty()) {
+            LOG.info("Starting reindex of {}", indexesToReindex);
+
+            try {
+                indexBackfill.startReindex(indexesToReindex);
+            } catch (AtlasBaseException excp) {
+                LOG.error("Failed to start reindex of {}", indexesToReindex, excp);
+            }
+        }
+    }
+
     public Set<String> getVertexIndexKeys() {
         if (recomputeIndexedKeys) {
             AtlasGraphManagement management = null;
@@ -253,6 +311,8 @@ public class GraphBackedSearchIndexer implements SearchIndexer, ActiveStateChang
         try {
             LOG.info("Creating indexes for graph.");
 
+            indexesToReindex = new HashMap<>();
+
             if (management.getGraphIndex(VERTEX_INDEX) == null) {
                 management.createVertexMixedIndex(VERTEX_INDEX, BACKING_INDEX, Collections.emptyList());
 
@@ -299,9 +359,13 @@ public class GraphBackedSearchIndexer implements SearchIndexer, ActiveStateChang
             commit(management);
 
             LOG.info("Index creation for global keys complete.");
+
+            startReindex();
         } catch (Throwable t) {
             rollback(management);
             throw new RepositoryException(t);
+        } finally {
+            indexesToReindex = null;
         }
     }
 
@@ -454,7 +518,9 @@ public class GraphBackedSearchIndexer implements SearchIndexer, ActiveStateChang
     private AtlasPropertyKey createVertexIndex(AtlasGraphManagement management, String propertyName, Class propertyClass,
                                                boolean isUnique, AtlasCardinality cardinality, boolean createCompositeIndex,
                                                boolean createCompositeIndexWithTypeAndSuperTypes) {
-        AtlasPropertyKey propertyKey = management.getPropertyKey(propertyName);
+        AtlasPropertyKey propertyKey   = management.getPropertyKey(propertyName);
+        boolean          isExistingKey = propertyKey != null;
+        List<String>     indexNames    = new ArrayList<>();
 
         if (propertyKey == null) {
             propertyKey = management.makePropertyKey(propertyName, propertyClass, cardinality);
@@ -472,19 +538,32 @@ public class GraphBackedSearchIndexer implements SearchIndexer, ActiveStateChang
 
         if (propertyKey != null) {
             if (createCompositeIndex) {
-                createVertexCompositeIndex(management, propertyClass, propertyKey, isUnique);
+                addIfNotNull(indexNames, createVertexCompositeIndex(management, propertyClass, propertyKey, isUnique));
 
             } else if (createCompositeIndexWithTypeAndSuperTypes) {
-                createVertexCompositeIndexWithTypeName(management, propertyClass, propertyKey);
-                createVertexCompositeIndexWithSuperTypeName(management, propertyClass, propertyKey);
+                addIfNotNull(indexNames, createVertexCompositeIndexWithTypeName(management, propertyClass, propertyKey));
+                addIfNotNull(indexNames, createVertexCompositeIndexWithSuperTypeName(management, propertyClass, propertyKey));
             }
         } else {
             LOG.warn("Index not created for {}: propertyKey is null", propertyName);
         }
 
+        // vertices can have values for an existing key, which are not in the new indexes
+        if (isExistingKey && indexesToReindex != null) {
+            for (String indexName : indexNames) {
+                indexesToReindex.put(indexName, propertyName);
+            }
+        }
+
         return propertyKey;
     }
 
+    private static void addIfNotNull(List<String> list, String value) {
+        if (value != null) {
+            list.add(value);
+        }
+    }
+
     private void createVertexCentricIndex(AtlasGraphManagement management, String edgeLabel, AtlasEdgeDirection edgeDirection,
                                           String propertyName, Class propertyClass, AtlasCardinality cardinality) {
         AtlasPropertyKey propertyKey = management.getPropertyKey(propertyName);
@@ -586,8 +665,9 @@ public class GraphBackedSearchIndexer implements SearchIndexer, ActiveStateChang
         return propertyKey;
     }
     
-    private void createVertexCompositeIndex(AtlasGraphManagement management, Class propertyClass, AtlasPropertyKey propertyKey,
-                                            boolean enforceUniqueness) {
+    // returns the name of the index created, null if the index exists
+    private String createVertexCompositeIndex(AtlasGraphManagement management, Class propertyClass, AtlasPropertyKey propertyKey,
+                                              boolean enforceUniqueness) {
         String propertyName = propertyKey.getName();
 
         if (LOG.isDebugEnabled()) {
@@ -600,7 +680,11 @@ public class GraphBackedSearchIndexer implements SearchIndexer, ActiveStateChang
             management.createVertexCompositeIndex(propertyName, enforceUniqueness, Collections.singletonList(propertyKey));
 
             LOG.info("Created composite index for property {} of type {}; isUnique={} ", propertyName, propertyClass.getName(), enforceUniqueness);
+
+            return propertyName;
         }
+
+        return null;
     }
 
     private void createEdgeCompositeIndex(AtlasGraphManagement management, Class propertyClass, AtlasPropertyKey propertyKey) {
@@ -619,16 +703,16 @@ public class GraphBackedSearchIndexer implements SearchIndexer, ActiveStateChang
         }
     }
 
-    private void createVertexCompositeIndexWithTypeName(AtlasGraphManagement management, Class propertyClass, AtlasPropertyKey propertyKey) {
-        createVertexCompositeIndexWithSystemProperty(management, propertyClass, propertyKey, ENTITY_TYPE_PROPERTY_KEY, SINGLE);
+    private String createVertexCompositeIndexWithTypeName(AtlasGraphManagement management, Class propertyClass, AtlasPropertyKey propertyKey) {
+        return createVertexCompositeIndexWithSystemProperty(management, propertyClass, propertyKey, ENTITY_TYPE_PROPERTY_KEY, SINGLE);
     }
 
-    private void createVertexCompositeIndexWithSuperTypeName(AtlasGraphManagement management, Class propertyClass, AtlasPropertyKey propertyKey) {
-        createVertexCompositeIndexWithSystemProperty(management, propertyClass, propertyKey, SUPER_TYPES_PROPERTY_KEY, SET);
+    private String createVertexCompositeIndexWithSuperTypeName(AtlasGraphManagement management, Class propertyClass, AtlasPropertyKey propertyKey) {
+        return createVertexCompositeIndexWithSystemProperty(management, propertyClass, propertyKey, SUPER_TYPES_PROPERTY_KEY, SET);
     }
 
-    private void createVertexCompositeIndexWithSystemProperty(AtlasGraphManagement management, Class propertyClass, AtlasPropertyKey propertyKey,
-                                                              final String systemPropertyKey, AtlasCardinality cardinality) {
+    private String createVertexCompositeIndexWithSystemProperty(AtlasGraphManagement management, Class propertyClass, AtlasPropertyKey propertyKey,
+                                                                final String systemPropertyKey, AtlasCardinality cardinality) {
         if (LOG.isDebugEnabled()) {
             LOG.debug("Creating composite index for property {} of type {} and {}", propertyKey.getName(), propertyClass.getName(),  systemPropertyKey);
         }
@@ -648,7 +732,11 @@ public class GraphBackedSearchIndexer implements SearchIndexer, ActiveStateChang
             management.createVertexCompositeIndex(indexName, false, keys);
 
             LOG.info("Created composite index for property {} of type {} and {}", propertyKey.getName(), propertyClass.getName(), systemPropertyKey);
+
+            return indexName;
         }
+
+        return null;
     }
 
     private boolean isIndexApplicable(Class propertyClass, AtlasCardinality cardinality) {
@@ -57,9 +57,6 @@ import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.script.Bindings;
-import javax.script.ScriptEngine;
-import javax.script.ScriptException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -602,6 +599,8 @@ public final class GraphHelper {
                 }
             }
         }
+
+        TransactionVertexCache.onPropertyUpdate(element);
     }
 
     /**
@@ -674,6 +673,8 @@ public final class GraphHelper {
         }
 
         vertex.addProperty(actualPropertyName, value);
+
+        TransactionVertexCache.onPropertyUpdate(vertex);
     }
 
     /**
@@ -691,6 +692,8 @@ public final class GraphHelper {
         }
 
         vertex.addListProperty(actualPropertyName, value);
+
+        TransactionVertexCache.onPropertyUpdate(vertex);
     }
 
     /**
@@ -728,6 +731,12 @@ public final class GraphHelper {
             LOG.debug("Removing {}", vertexString);
         }
 
+        TransactionVertexCache cache = TransactionVertexCache.get();
+
+        if (cache != null) {
+            cache.removeVertex(vertex);
+        }
+
         graph.removeVertex(vertex);
 
         if (LOG.isDebugEnabled()) {
@@ -804,55 +813,43 @@ public final class GraphHelper {
     }
 
     public List<AtlasVertex> getImpactedVertices(String guid) throws AtlasBaseException {
-        ScriptEngine      scriptEngine = graph.getGremlinScriptEngine();
-        Bindings          bindings     = scriptEngine.createBindings();
-        String            query        = queryProvider.getQuery(TAG_PROPAGATION_IMPACTED_INSTANCES);
-        List<AtlasVertex> ret          = new ArrayList<>();
+        Map<String, Object> bindings = new HashMap<>();
+        String              query    = queryProvider.getQuery(TAG_PROPAGATION_IMPACTED_INSTANCES);
+        List<AtlasVertex>   ret      = new ArrayList<>();
 
-        bindings.put("g", graph);
         bindings.put("guid", guid);
 
-        try {
-            Object resultObj = graph.executeGremlinScript(scriptEngine, bindings, query, false);
+        Object resultObj = graph.executeGremlinScript(query, bindings, false);
 
-            if (resultObj instanceof List && CollectionUtils.isNotEmpty((List) resultObj)) {
-                List<?> results = (List) resultObj;
-                Object firstElement = results.get(0);
+        if (resultObj instanceof List && CollectionUtils.isNotEmpty((List) resultObj)) {
+            List<?> results = (List) resultObj;
+            Object firstElement = results.get(0);
 
-                if (firstElement instanceof AtlasVertex) {
-                    ret = (List<AtlasVertex>) results;
-                }
+            if (firstElement instanceof AtlasVertex) {
+                ret = (List<AtlasVertex>) results;
             }
-        } catch (ScriptException e) {
-            throw new AtlasBaseException(AtlasErrorCode.GREMLIN_SCRIPT_EXECUTION_FAILED, e);
         }
 
         return ret;
     }
 
     public List<AtlasVertex> getImpactedVerticesWithReferences(String guid, String relationshipGuid) throws AtlasBaseException {
-        ScriptEngine      scriptEngine = graph.getGremlinScriptEngine();
-        Bindings          bindings     = scriptEngine.createBindings();
-        String            query        = queryProvider.getQuery(TAG_PROPAGATION_IMPACTED_INSTANCES_FOR_REMOVAL);
-        List<AtlasVertex> ret          = new ArrayList<>();
+        Map<String, Object> bindings = new HashMap<>();
+        String              query    = queryProvider.getQuery(TAG_PROPAGATION_IMPACTED_INSTANCES_FOR_REMOVAL);
+        List<AtlasVertex>   ret      = new ArrayList<>();
 
-        bindings.put("g", graph);
         bindings.put("guid", guid);
         bindings.put("relationshipGuid", relationshipGuid);
 
-        try {
-            Object resultObj = graph.executeGremlinScript(scriptEngine, bindings, query, false);
+        Object resultObj = graph.executeGremlinScript(query, bindings, false);
 
-            if (resultObj instanceof List && CollectionUtils.isNotEmpty((List) resultObj)) {
-                List<?> results = (List) resultObj;
-                Object firstElement = results.get(0);
+        if (resultObj instanceof List && CollectionUtils.isNotEmpty((List) resultObj)) {
+            List<?> results = (List) resultObj;
+            Object firstElement = results.get(0);
 
-                if (firstElement instanceof AtlasVertex) {
-                    ret = (List<AtlasVertex>) results;
-                }
+            if (firstElement instanceof AtlasVertex) {
+                ret = (List<AtlasVertex>) results;
             }
-        } catch (ScriptException e) {
-            throw new AtlasBaseException(AtlasErrorCode.GREMLIN_SCRIPT_EXECUTION_FAILED, e);
         }
 
         return ret;
@@ -869,6 +866,16 @@ public final class GraphHelper {
         return getVerticesForPropertyValues(Constants.GUID_PROPERTY_KEY, guids);
     }
 
+    /**
+     * Loads the properties of the given vertices with a single graph query, instead of one query per vertex
+     * on first property read.
+     */
+    public void preloadProperties(Collection<AtlasVertex> vertices) {
+        if (CollectionUtils.isNotEmpty(vertices)) {
+            graph.preloadProperties(vertices);
+        }
+    }
+
     public static void updateModificationMetadata(AtlasVertex vertex) {
         AtlasGraphUtilsV1.setProperty(vertex, Constants.MODIFICATION_TIMESTAMP_PROPERTY_KEY, RequestContextV1.get().getRequestTime());
         AtlasGraphUtilsV1.setProperty(vertex, Constants.MODIFIED_BY_KEY, RequestContextV1.get().getUser());
@@ -1502,6 +1509,7 @@ public final class GraphHelper {
         String actualPropertyName = GraphHelper.encodePropertyKey(propertyName);
         instanceVertex.setPropertyFromElementsIds(actualPropertyName, elements);
 
+        TransactionVertexCache.onPropertyUpdate(instanceVertex);
     }
 
     public static void setPropertyFromElementId(AtlasVertex<?, ?> instanceVertex, String propertyName,
@@ -1509,11 +1517,14 @@ public final class GraphHelper {
         String actualPropertyName = GraphHelper.encodePropertyKey(propertyName);
         instanceVertex.setPropertyFromElementId(actualPropertyName, value);
 
+        TransactionVertexCache.onPropertyUpdate(instanceVertex);
     }
 
     public static void setListProperty(AtlasVertex instanceVertex, String propertyName, ArrayList<String> value) throws AtlasException {
         String actualPropertyName = GraphHelper.encodePropertyKey(propertyName);
         instanceVertex.setListProperty(actualPropertyName, value);
+
+        TransactionVertexCache.onPropertyUpdate(instanceVertex);
     }
 
     public static List<String> getListProperty(AtlasVertex instanceVertex, String propertyName) {
@@ -0,0 +1,908 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.graph;
+
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.atlas.AtlasErrorCode;
+import org.apache.atlas.GraphTransactionInterceptor;
+import org.apache.atlas.SortOrder;
+import org.apache.atlas.exception.AtlasBaseException;
+import org.apache.atlas.repository.Constants;
+import org.apache.atlas.repository.RepositoryException;
+import org.apache.atlas.repository.graphdb.AtlasCardinality;
+import org.apache.atlas.repository.graphdb.AtlasGraph;
+import org.apache.atlas.repository.graphdb.AtlasGraphManagement;
+import org.apache.atlas.repository.graphdb.AtlasGraphQuery;
+import org.apache.atlas.repository.graphdb.AtlasGraphQuery.ComparisionOperator;
+import org.apache.atlas.repository.graphdb.AtlasPropertyKey;
+import org.apache.atlas.repository.graphdb.AtlasVertex;
+import org.apache.atlas.type.AtlasClassificationType;
+import org.apache.atlas.type.AtlasEntityType;
+import org.apache.atlas.type.AtlasStructType;
+import org.apache.atlas.type.AtlasStructType.AtlasAttribute;
+import org.apache.atlas.type.AtlasType;
+import org.apache.atlas.type.AtlasTypeRegistry;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adds existing vertices to the search index in the background.
+ *
+ * The indexed properties of the vertices of given types are rewritten, which updates the index backend when the
+ * transaction commits - for example, to repair the index after failed index backend updates. An index created for a
+ * property key that vertices already have values for is populated the same way: once the index is registered with all
+ * instances, from when vertices written update the index, the property is rewritten on the vertices of the types that
+ * have it; the index is then enabled.
+ *
+ * The vertices of a type are read with a single query, in a transaction of the worker thread that stays open till all
+ * vertices are read; batches of vertices are rewritten, and committed, in the transaction of a writer thread. Each
+ * batch is written while holding the locks of its entities, so that concurrent entity updates are not overwritten with
+ * values read before the update. The job - its tasks and the guid of the last vertex backfilled - is stored in a
+ * vertex, updated in the same transaction as the batch. Vertices of entity types are read in the order of their guid,
+ * hence a job interrupted by a restart, or by the server becoming passive, resumes after the last batch on the active
+ * server; vertices of classification and struct types don't have a guid, and are backfilled from the start on resume.
+ * The number of vertices backfilled per second can be limited, to limit the load on the graph and the index backend.
+ */
+class SearchIndexBackfill {
+    private static final Logger LOG = LoggerFactory.getLogger(SearchIndexBackfill.class);
+
+    static final String JOB_VERTEX_TYPE  = "indexBackfill";
+    static final String JOB_PROPERTY_KEY = Constants.INTERNAL_PROPERTY_KEY_PREFIX + "indexBackfill.job";
+
+    public enum Status { RUNNING, COMPLETED, FAILED, CANCELLED }
+
+    public enum IndexAction { AWAIT_REGISTERED, ENABLE }
+
+    private static final long WORKER_STOP_WAIT_MS = TimeUnit.SECONDS.toMillis(10);
+
+    private final IAtlasGraphProvider           provider;
+    private final AtlasTypeRegistry             typeRegistry;
+    private final GraphBackedSearchIndexer      indexer;
+    private final int                           batchSize;
+    private final RateLimiter                   rateLimiter;
+    private final Map<String, AtlasCardinality> propertyCardinalities = new ConcurrentHashMap<>();
+    private final Object                        jobVertexLock         = new Object(); // orders the writes of the job vertex; acquired before this
+    private BackfillJob                         job                   = null;
+    private Thread                              worker                = null;
+    private volatile boolean                    isActive              = false;
+
+    SearchIndexBackfill(IAtlasGraphProvider provider, AtlasTypeRegistry typeRegistry, GraphBackedSearchIndexer indexer,
+                        int batchSize, double maxVerticesPerSecond) {
+        this.provider     = provider;
+        this.typeRegistry = typeRegistry;
+        this.indexer      = indexer;
+        this.batchSize    = Math.max(batchSize, 1);
+        this.rateLimiter  = maxVerticesPerSecond > 0 ? RateLimiter.create(maxVerticesPerSecond) : null;
+    }
+
+    /**
+     * Called when this server becomes active: resumes the job in progress, if any.
+     */
+    synchronized void activate() {
+        isActive = true;
+
+        try {
+            job = loadJob();
+
+            if (job != null && job.getStatus() == Status.RUNNING) {
+                LOG.info("resuming index backfill: {}", job);
+
+                startWorker();
+            }
+        } catch (Exception excp) {
+            LOG.error("failed to load index backfill job", excp);
+        }
+    }
+
+    /**
+     * Called when this server becomes passive: interrupts the job, and waits a bounded time for it to stop; a batch
+     * written after this is not recorded in the job, which continues on the server that becomes active.
+     */
+    void deactivate() {
+        Thread worker;
+
+        synchronized (this) {
+            isActive = false;
+            worker   = this.worker;
+        }
+
+        if (worker != null) {
+            worker.interrupt();
+
+            try {
+                worker.join(WORKER_STOP_WAIT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            if (worker.isAlive()) {
+                LOG.warn("index backfill did not stop in {} ms; it stops once the graph call in progress returns", WORKER_STOP_WAIT_MS);
+            }
+        }
+    }
+
+    /**
+     * Adds the vertices of the given types, and their sub-types, to the job in progress; starts a job if none is in
+     * progress. A failed job is resumed.
+     *
+     * @param typeProperties type-name => properties to backfill; null properties backfill the indexed attributes of the type
+     */
+    Map<String, Object> start(Map<String, ? extends Collection<String>> typeProperties) throws AtlasBaseException {
+        List<BackfillTask> tasks = new ArrayList<>();
+
+        for (Map.Entry<String, ? extends Collection<String>> entry : typeProperties.entrySet()) {
+            for (String typeName : getTypeAndSubTypes(entry.getKey())) {
+                tasks.add(BackfillTask.forType(typeName, entry.getValue()));
+            }
+        }
+
+        return addTasks(tasks);
+    }
+
+    /**
+     * Adds the reindex of the given indexes - created for property keys that vertices already have values for - to the
+     * job in progress; starts a job if none is in progress. Once the indexes are registered, the properties are
+     * rewritten on the vertices of the types that have them, after which the indexes are enabled.
+     *
+     * @param indexProperties index-name => the property key indexed
+     */
+    Map<String, Object> startReindex(Map<String, String> indexProperties) throws AtlasBaseException {
+        List<BackfillTask>       tasks          = new ArrayList<>();
+        Map<String, Set<String>> typeProperties = new LinkedHashMap<>();
+
+        for (Map.Entry<String, String> entry : indexProperties.entrySet()) {
+            tasks.add(BackfillTask.forIndex(entry.getKey(), IndexAction.AWAIT_REGISTERED));
+
+            for (String typeName : getTypesWithProperty(entry.getValue())) {
+                Set<String> properties = typeProperties.get(typeName);
+
+                if (properties == null) {
+                    properties = new LinkedHashSet<>();
+
+                    typeProperties.put(typeName, properties);
+                }
+
+                properties.add(entry.getValue());
+            }
+        }
+
+        for (Map.Entry<String, Set<String>> entry : typeProperties.entrySet()) {
+            tasks.add(BackfillTask.forType(entry.getKey(), entry.getValue()));
+        }
+
+        for (String indexName : indexProperties.keySet()) {
+            tasks.add(BackfillTask.forIndex(indexName, IndexAction.ENABLE));
+        }
+
+        return addTasks(tasks);
+    }
+
+    /**
+     * Cancels the job in progress; the worker stops after the batch in progress, which does not update the job.
+     *
+     * @return false if no job is in progress
+     */
+    boolean cancel() throws AtlasBaseException {
+        synchronized (jobVertexLock) {
+            String json;
+
+            synchronized (this) {
+                if (job == null || job.getStatus() != Status.RUNNING) {
+                    return false;
+                }
+
+                job.setStatus(Status.CANCELLED);
+
+                json = toJson(job);
+            }
+
+            try {
+                saveJob(json);
+            } catch (RepositoryException excp) {
+                throw new AtlasBaseException(AtlasErrorCode.INTERNAL_ERROR, excp, "failed to save index backfill job");
+            }
+        }
+
+        return true;
+    }
+
+    synchronized Map<String, Object> getProgress() {
+        Map<String, Object> ret = new LinkedHashMap<>();
+
+        if (job != null) {
+            List<BackfillTask> tasks       = job.getTasks();
+            int                taskIndex   = job.getTaskIndex();
+            BackfillTask       currentTask = taskIndex < tasks.size() ? tasks.get(taskIndex) : null;
+
+            ret.put("status", job.getStatus());
+            ret.put("taskCount", tasks.size());
+            ret.put("completedTaskCount", taskIndex);
+            ret.put("currentType", currentTask != null ? currentTask.getTypeName() : null);
+            ret.put("currentIndex", currentTask != null ? currentTask.getIndexName() : null);
+            ret.put("backfilledVertexCount", job.getBackfilledCount());
+            ret.put("startTime", job.getStartTime());
+            ret.put("updateTime", job.getUpdateTime());
+            ret.put("error", job.getError());
+        }
+
+        return ret;
+    }
+
+    private Map<String, Object> addTasks(List<BackfillTask> tasks) throws AtlasBaseException {
+        synchronized (jobVertexLock) {
+            String json;
+
+            synchronized (this) {
+                if (job == null || job.getStatus() == Status.COMPLETED || job.getStatus() == Status.CANCELLED) {
+                    job = new BackfillJob();
+                }
+
+                job.addTasks(tasks);
+                job.setStatus(Status.RUNNING);
+                job.setError(null);
+
+                json = toJson(job);
+            }
+
+            try {
+                saveJob(json);
+            } catch (RepositoryException excp) {
+                throw new AtlasBaseException(AtlasErrorCode.INTERNAL_ERROR, excp, "failed to save index backfill job");
+            }
+
+            synchronized (this) {
+                if (isActive) {
+                    startWorker();
+                }
+
+                return getProgress();
+            }
+        }
+    }
+
+    private void startWorker() {
+        if (worker != null) {
+            return;
+        }
+
+        worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                backfill();
+            }
+        }, "atlas-search-index-backfill");
+
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void backfill() {
+        ExecutorService writer = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("atlas-search-index-backfill-writer").setDaemon(true).build());
+
+        try {
+            while (true) {
+                BackfillJob  job;
+                BackfillTask task;
+
+                // the worker is cleared along with the decision to stop, so that a job started meanwhile starts a new worker
+                synchronized (jobVertexLock) {
+                    synchronized (this) {
+                        job = this.job;
+
+                        if (!isActive || job == null || job.getStatus() != Status.RUNNING) {
+                            worker = null;
+
+                            break;
+                        }
+
+                        if (job.getTaskIndex() >= job.getTasks().size()) {
+                            job.setStatus(Status.COMPLETED);
+
+                            worker = null;
+
+                            saveJob(toJson(job));
+
+                            LOG.info("index backfill completed: {}", job);
+
+                            break;
+                        }
+
+                        task = job.getTasks().get(job.getTaskIndex());
+                    }
+                }
+
+                if (task.getIndexName() != null) {
+                    updateIndex(job, task);
+                } else {
+                    backfillType(job, task, writer);
+                }
+            }
+        } catch (Exception excp) {
+            boolean isStopped = excp instanceof InterruptedException || Thread.interrupted() || !isActive;
+
+            if (isStopped) {
+                LOG.info("index backfill stopped: {}", job);
+            } else {
+                LOG.error("index backfill failed", excp);
+            }
+
+            synchronized (jobVertexLock) {
+                String json = null;
+
+                synchronized (this) {
+                    if (worker == Thread.currentThread()) {
+                        worker = null;
+                    }
+
+                    if (isStopped) { // by deactivate(): the job is left running, to continue on the active server
+                        if (isActive) { // activated again meanwhile
+                            startWorker();
+                        }
+                    } else if (job != null && job.getStatus() == Status.RUNNING) {
+                        job.setStatus(Status.FAILED);
+                        job.setError(excp.getMessage());
+
+                        json = toJson(job);
+                    }
+                }
+
+                if (json != null) {
+                    try {
+                        saveJob(json);
+                    } catch (RepositoryException e) {
+                        LOG.error("failed to save index backfill job", e);
+                    }
+                }
+            }
+        } finally {
+            writer.shutdown();
+        }
+    }
+
+    private void updateIndex(BackfillJob job, BackfillTask task) throws AtlasBaseException, RepositoryException {
+        AtlasGraphManagement management  = provider.get().getManagementSystem();
+        boolean              isCommitted = false;
+
+        try {
+            if (task.getIndexAction() == IndexAction.ENABLE) {
+                management.enableIndex(task.getIndexName());
+            } else {
+                management.awaitIndexRegistered(task.getIndexName());
+            }
+
+            management.commit();
+
+            isCommitted = true;
+        } finally {
+            if (!isCommitted) {
+                management.rollback();
+            }
+        }
+
+        synchronized (jobVertexLock) {
+            String json;
+
+            synchronized (this) {
+                if (!isCurrentTask(job, task)) {
+                    return;
+                }
+
+                job.setTaskIndex(job.getTaskIndex() + 1);
+
+                json = toJson(job);
+            }
+
+            saveJob(json);
+        }
+    }
+
+    // reads the vertices of the type with one query, in the transaction of this thread; batches are written by the writer
+    private void backfillType(BackfillJob job, BackfillTask task, ExecutorService writer) throws Exception {
+        AtlasGraph  graph      = provider.get();
+        Set<String> properties = getPropertiesToBackfill(graph, task);
+
+        try {
+            Iterator<AtlasVertex> vertices = getVertices(graph, task);
+
+            while (true) {
+                List<BatchVertex> batch = new ArrayList<>(batchSize);
+
+                while (batch.size() < batchSize && vertices.hasNext()) {
+                    AtlasVertex vertex = vertices.next();
+
+                    batch.add(new BatchVertex(vertex.getIdForDisplay(), GraphHelper.getGuid(vertex)));
+                }
+
+                boolean isLastBatch = !vertices.hasNext();
+                boolean isRecorded;
+
+                try {
+                    isRecorded = writer.submit(new BatchWriter(job, task, batch, properties, isLastBatch)).get();
+                } catch (ExecutionException excp) {
+                    throw excp.getCause() instanceof Exception ? (Exception) excp.getCause() : excp;
+                }
+
+                if (!isRecorded || isLastBatch) {
+                    break;
+                }
+
+                if (rateLimiter != null) {
+                    rateLimiter.acquire(batch.size());
+                }
+            }
+        } finally {
+            graph.rollback(); // ends the read transaction
+        }
+    }
+
+    // vertices of an entity type are read in the order of their guid, after the last one backfilled; vertices of other
+    // types don't have a guid, and are read from the start
+    private Iterator<AtlasVertex> getVertices(AtlasGraph graph, BackfillTask task) {
+        AtlasGraphQuery query = graph.query().has(Constants.ENTITY_TYPE_PROPERTY_KEY, task.getTypeName());
+
+        if (typeRegistry.getEntityTypeByName(task.getTypeName()) != null) {
+            if (task.getLastGuid() != null) {
+                query = query.has(Constants.GUID_PROPERTY_KEY, ComparisionOperator.GREATER_THAN, task.getLastGuid());
+            }
+
+            query = query.orderBy(Constants.GUID_PROPERTY_KEY, SortOrder.ASCENDING);
+        }
+
+        return query.vertices().iterator();
+    }
+
+    // rewrites the given properties of a batch of vertices, and records the batch in the job, in one transaction
+    private boolean backfillBatch(BackfillJob job, BackfillTask task, List<BatchVertex> batch, Set<String> properties,
+                                  boolean isLastBatch) throws AtlasBaseException, RepositoryException {
+        AtlasGraph   graph       = provider.get();
+        List<String> guids       = new ArrayList<>(batch.size());
+        boolean      isCommitted = false;
+
+        for (BatchVertex batchVertex : batch) {
+            if (batchVertex.guid != null) { // vertices of structs don't have a guid; they are written along with their entity
+                guids.add(batchVertex.guid);
+            }
+        }
+
+        try {
+            // the vertices are read after the locks are acquired, so that updates committed before are not overwritten
+            GraphTransactionInterceptor.lockObjectAndReleasePostCommit(guids);
+
+            for (BatchVertex batchVertex : batch) {
+                AtlasVertex vertex = graph.getVertex(batchVertex.vertexId);
+
+                if (vertex == null) { // deleted since read
+                    continue;
+                }
+
+                for (String property : properties) {
+                    rewriteProperty(vertex, property, propertyCardinalities.get(property));
+                }
+            }
+
+            synchronized (jobVertexLock) {
+                String json;
+
+                synchronized (this) {
+                    if (!isCurrentTask(job, task)) {
+                        return false;
+                    }
+
+                    if (isLastBatch) {
+                        job.setTaskIndex(job.getTaskIndex() + 1);
+                    } else {
+                        task.setLastGuid(batch.get(batch.size() - 1).guid);
+                    }
+
+                    job.setBackfilledCount(job.getBackfilledCount() + batch.size());
+
+                    json = toJson(job);
+                }
+
+                updateJobVertex(graph, json);
+
+                graph.commit();
+
+                isCommitted = true;
+            }
+        } finally {
+            if (!isCommitted) {
+                graph.rollback();
+            }
+
+            GraphTransactionInterceptor.releaseLockedObjects();
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("index backfill: {} vertices of type {} backfilled", batch.size(), task.getTypeName());
+        }
+
+        return true;
+    }
+
+    private synchronized boolean isCurrentTask(BackfillJob job, BackfillTask task) {
+        return isActive && this.job == job && job.getStatus() == Status.RUNNING &&
+               job.getTaskIndex() < job.getTasks().size() && job.getTasks().get(job.getTaskIndex()) == task;
+    }
+
+    private void rewriteProperty(AtlasVertex vertex, String property, AtlasCardinality cardinality) {
+        if (cardinality.isMany()) {
+            Collection<Object> values = vertex.getPropertyValues(property, Object.class);
+
+            if (values != null && !values.isEmpty()) {
+                List<Object> copy = new ArrayList<>(values);
+
+                vertex.removeProperty(property);
+
+                for (Object value : copy) {
+                    if (cardinality == AtlasCardinality.LIST) {
+                        vertex.addListProperty(property, value);
+                    } else {
+                        vertex.addProperty(property, value);
+                    }
+                }
+            }
+        } else {
+            Object value = vertex.getProperty(property, Object.class);
+
+            if (value != null) {
+                vertex.removeProperty(property);
+                vertex.setProperty(property, value);
+            }
+        }
+    }
+
+    // properties without a key in the graph are skipped, as no vertex can have a value for them
+    private Set<String> getPropertiesToBackfill(AtlasGraph graph, BackfillTask task) throws AtlasBaseException {
+        Set<String> ret = new LinkedHashSet<>();
+
+        if (task.getPropertyNames() != null) {
+            ret.addAll(task.getPropertyNames());
+        } else {
+            ret.addAll(getIndexedAttributeProperties(task.getTypeName()));
+        }
+
+        AtlasGraphManagement management = null;
+
+        for (Iterator<String> iter = ret.iterator(); iter.hasNext(); ) {
+            String property = iter.next();
+
+            if (!propertyCardinalities.containsKey(property)) {
+                if (management == null) {
+                    management = graph.getManagementSystem();
+                }
+
+                AtlasPropertyKey propertyKey = management.getPropertyKey(property);
+
+                if (propertyKey != null) {
+                    propertyCardinalities.put(property, propertyKey.getCardinality());
+                }
+            }
+
+            if (!propertyCardinalities.containsKey(property)) {
+                iter.remove();
+            }
+        }
+
+        if (management != null) {
+            management.rollback();
+        }
+
+        return ret;
+    }
+
+    // indexed attributes of the type; unique attributes and system properties, like guid, are not rewritten
+    private Set<String> getIndexedAttributeProperties(String typeName) throws AtlasBaseException {
+        AtlasType   type = typeRegistry.getType(typeName);
+        Set<String> ret  = new LinkedHashSet<>();
+
+        if (type instanceof AtlasStructType) {
+            Set<String> vertexIndexKeys = indexer.getVertexIndexKeys();
+
+            for (AtlasAttribute attribute : ((AtlasStructType) type).getAllAttributes().values()) {
+                if (!attribute.getAttributeDef().getIsUnique() && vertexIndexKeys.contains(attribute.getVertexPropertyName())) {
+                    ret.add(attribute.getVertexPropertyName());
+                }
+            }
+        }
+
+        return ret;
+    }
+
+    // types with an attribute stored in the property - sub-types inherit the attribute; all types, for a system property
+    private Set<String> getTypesWithProperty(String property) {
+        List<AtlasStructType> types = new ArrayList<>();
+        Set<String>           ret   = new LinkedHashSet<>();
+
+        types.addAll(typeRegistry.getAllEntityTypes());
+        types.addAll(typeRegistry.getAllClassificationTypes());
+        types.addAll(typeRegistry.getAllStructTypes());
+
+        for (AtlasStructType type : types) {
+            for (AtlasAttribute attribute : type.getAllAttributes().values()) {
+                if (StringUtils.equals(attribute.getVertexPropertyName(), property)) {
+                    ret.add(type.getTypeName());
+
+                    break;
+                }
+            }
+        }
+
+        if (ret.isEmpty()) {
+            for (AtlasStructType type : types) {
+                ret.add(type.getTypeName());
+            }
+        }
+
+        return ret;
+    }
+
+    private List<String> getTypeAndSubTypes(String typeName) throws AtlasBaseException {
+        AtlasType    type = typeRegistry.getType(typeName);
+        List<String> ret  = new ArrayList<>();
+
+        ret.add(typeName);
+
+        if (type instanceof AtlasEntityType) {
+            ret.addAll(((AtlasEntityType) type).getAllSubTypes());
+        } else if (type instanceof AtlasClassificationType) {
+            ret.addAll(((AtlasClassificationType) type).getAllSubTypes());
+        } else if (!(type instanceof AtlasStructType)) {
+            throw new AtlasBaseException(AtlasErrorCode.INVALID_PARAMETERS, typeName + ": not an entity, classification or struct type");
+        }
+
+        return ret;
+    }
+
+    private BackfillJob loadJob() throws RepositoryException {
+        AtlasGraph graph = provider.get();
+
+        try {
+            AtlasVertex vertex = getJobVertex(graph);
+            String      json   = vertex != null ? vertex.getProperty(JOB_PROPERTY_KEY, String.class) : null;
+
+            return StringUtils.isNotEmpty(json) ? AtlasType.fromJson(json, BackfillJob.class) : null;
+        } finally {
+            graph.rollback();
+        }
+    }
+
+    private void saveJob(String json) throws RepositoryException {
+        AtlasGraph graph       = provider.get();
+        boolean    isCommitted = false;
+
+        try {
+            updateJobVertex(graph, json);
+
+            graph.commit();
+
+            isCommitted = true;
+        } finally {
+            if (!isCommitted) {
+                graph.rollback();
+            }
+        }
+    }
+
+    private String toJson(BackfillJob job) {
+        job.setUpdateTime(System.currentTimeMillis());
+
+        return AtlasType.toJson(job);
+    }
+
+    private void updateJobVertex(AtlasGraph graph, String json) {
+        AtlasVertex vertex = getJobVertex(graph);
+
+        if (vertex == null) {
+            vertex = graph.addVertex();
+
+            vertex.setProperty(Constants.VERTEX_TYPE_PROPERTY_KEY, JOB_VERTEX_TYPE);
+        }
+
+        vertex.setProperty(JOB_PROPERTY_KEY, json);
+    }
+
+    private AtlasVertex getJobVertex(AtlasGraph graph) {
+        Iterator<AtlasVertex> iter = graph.query().has(Constants.VERTEX_TYPE_PROPERTY_KEY, JOB_VERTEX_TYPE).vertices().iterator();
+
+        return iter.hasNext() ? iter.next() : null;
+    }
+
+    private class BatchWriter implements Callable<Boolean> {
+        private final BackfillJob       job;
+        private final BackfillTask      task;
+        private final List<BatchVertex> batch;
+        private final Set<String>       properties;
+        private final boolean           isLastBatch;
+
+        BatchWriter(BackfillJob job, BackfillTask task, List<BatchVertex> batch, Set<String> properties, boolean isLastBatch) {
+            this.job         = job;
+            this.task        = task;
+            this.batch       = batch;
+            this.properties  = properties;
+            this.isLastBatch = isLastBatch;
+        }
+
+        @Override
+        public Boolean call() throws Exception {
+            return backfillBatch(job, task, batch, properties, isLastBatch);
+        }
+    }
+
+    private static class BatchVertex {
+        final String vertexId;
+        final String guid;
+
+        BatchVertex(String vertexId, String guid) {
+            this.vertexId = vertexId;
+            this.guid     = guid;
+        }
+    }
+
+    public static class BackfillJob {
+        private Status             status;
+        private List<BackfillTask> tasks           = new ArrayList<>();
+        private int                taskIndex       = 0;
+        private long               backfilledCount = 0;
+        private long               startTime       = System.currentTimeMillis();
+        private long               updateTime;
+        private String             error;
+
+        public BackfillJob() {
+        }
+
+        // tasks of types already pending are merged, so that each type is scanned once more at most; only tasks after
+        // the last index task are merged, as the index may have to be registered before, or enabled after, the scan
+        void addTasks(List<BackfillTask> newTasks) {
+            for (BackfillTask newTask : newTasks) {
+                BackfillTask pending = null;
+
+                if (newTask.getIndexName() == null) {
+                    for (int i = tasks.size() - 1; i > taskIndex && tasks.get(i).getIndexName() == null; i--) {
+                        if (tasks.get(i).isSameTarget(newTask)) {
+                            pending = tasks.get(i);
+
+                            break;
+                        }
+                    }
+                }
+
+                if (pending == null) {
+                    tasks.add(newTask);
+                } else {
+                    pending.merge(newTask);
+                }
+            }
+        }
+
+        public Status getStatus() { return status; }
+
+        public void setStatus(Status status) { this.status = status; }
+
+        public List<BackfillTask> getTasks() { return tasks; }
+
+        public void setTasks(List<BackfillTask> tasks) { this.tasks = tasks; }
+
+        public int getTaskIndex() { return taskIndex; }
+
+        public void setTaskIndex(int taskIndex) { this.taskIndex = taskIndex; }
+
+        public long getBackfilledCount() { return backfilledCount; }
+
+        public void setBackfilledCount(long backfilledCount) { this.backfilledCount = backfilledCount; }
+
+        public long getStartTime() { return startTime; }
+
+        public void setStartTime(long startTime) { this.startTime = startTime; }
+
+        public long getUpdateTime() { return updateTime; }
+
+        public void setUpdateTime(long updateTime) { this.updateTime = updateTime; }
+
+        public String getError() { return error; }
+
+        public void setError(String error) { this.error = error; }
+
+        @Override
+        public String toString() {
+            return "BackfillJob{status=" + status + ", taskCount=" + tasks.size() + ", taskIndex=" + taskIndex +
+                   ", backfilledCount=" + backfilledCount + "}";
+        }
+    }
+
+    /**
+     * Either rewrites properties of the vertices of a type, or waits for an index to be registered, or enables an index.
+     */
+    public static class BackfillTask {
+        private String      typeName;
+        private Set<String> propertyNames; // null: indexed attributes of the type
+        private String      indexName;
+        private IndexAction indexAction;
+        private String      lastGuid;      // of the last batch backfilled
+
+        public BackfillTask() {
+        }
+
+        static BackfillTask forType(String typeName, Collection<String> propertyNames) {
+            BackfillTask ret = new BackfillTask();
+
+            ret.typeName      = typeName;
+            ret.propertyNames = propertyNames != null ? new LinkedHashSet<>(propertyNames) : null;
+
+            return ret;
+        }
+
+        static BackfillTask forIndex(String indexName, IndexAction indexAction) {
+            BackfillTask ret = new BackfillTask();
+
+            ret.indexName   = indexName;
+            ret.indexAction = indexAction;
+
+            return ret;
+        }
+
+        boolean isSameTarget(BackfillTask other) {
+            return StringUtils.equals(typeName, other.typeName) && StringUtils.equals(indexName, other.indexName);
+        }
+
+        void merge(BackfillTask other) {
+            if (propertyNames == null || other.propertyNames == null) {
+                propertyNames = null;
+            } else {
+                propertyNames.addAll(other.propertyNames);
+            }
+        }
+
+        public String getTypeName() { return typeName; }
+
+        public void setTypeName(String typeName) { this.typeName = typeName; }
+
+        public Set<String> getPropertyNames() { return propertyNames; }
+
+        public void setPropertyNames(Set<String> propertyNames) { this.propertyNames = propertyNames; }
+
+        public String getIndexName() { return indexName; }
+
+        public void setIndexName(String indexName) { this.indexName = indexName; }
+
+        public IndexAction getIndexAction() { return indexAction; }
+
+        public void setIndexAction(IndexAction indexAction) { this.indexAction = indexAction; }
+
+        public String getLastGuid() { return lastGuid; }
+
+        public void setLastGuid(String lastGuid) { this.lastGuid = lastGuid; }
+    }
+}
@@ -0,0 +1,191 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.graph;
+
+import org.apache.atlas.repository.Constants;
+import org.apache.atlas.repository.graphdb.AtlasElement;
+import org.apache.atlas.repository.graphdb.AtlasVertex;
+import org.apache.atlas.utils.AtlasPerfTracer;
+import org.slf4j.Logger;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache of guid => vertex, and of decoded attribute values of vertices, for the graph transaction in progress in the
+ * current thread. Stages of an entity mutation - discovery, mapping, change notification, full-text mapping - look
+ * up the same vertices and read the same attributes; with this cache, each is read from the graph once.
+ *
+ * The cache is active only within a graph transaction (GraphTransactionInterceptor), and is cleared when the
+ * outermost transaction commits or rolls back - as vertices are bound to the transaction they were read in. Property
+ * writes through GraphHelper and AtlasGraphUtilsV1 invalidate the cached attribute values of the vertex, once written -
+ * see onPropertyUpdate(); removal of a vertex invalidates its guid entry. Hits and misses of each transaction are
+ * written to the perf log when it ends.
+ */
+public final class TransactionVertexCache {
+    private static final Logger PERF_LOG = AtlasPerfTracer.getPerfLogger("TransactionVertexCache");
+
+    public static final String METRIC_GUID_HITS        = "guidHits";
+    public static final String METRIC_GUID_MISSES      = "guidMisses";
+    public static final String METRIC_ATTRIBUTE_HITS   = "attributeHits";
+    public static final String METRIC_ATTRIBUTE_MISSES = "attributeMisses";
+
+    private static final ThreadLocal<TransactionVertexCache> CURRENT_CACHE = new ThreadLocal<>();
+    private static final Object                              NULL_VALUE    = new Object();
+
+    private final Map<String, AtlasVertex>         guidVertices     = new HashMap<>();
+    private final Map<Object, Map<String, Object>> vertexAttributes = new HashMap<>(); // vertex-id => attribute => value
+    private int                                    depth            = 0;
+    private long                                   guidHits         = 0;
+    private long                                   guidMisses       = 0;
+    private long                                   attributeHits    = 0;
+    private long                                   attributeMisses  = 0;
+
+    private TransactionVertexCache() {
+    }
+
+    /**
+     * Returns the cache of the graph transaction in progress in this thread; null if no transaction is in progress.
+     */
+    public static TransactionVertexCache get() {
+        return CURRENT_CACHE.get();
+    }
+
+    /**
+     * Called at the beginning of a graph transaction.
+     */
+    public static void begin() {
+        TransactionVertexCache cache = CURRENT_CACHE.get();
+
+        if (cache == null) {
+            cache = new TransactionVertexCache();
+
+            CURRENT_CACHE.set(cache);
+        }
+
+        cache.depth++;
+    }
+
+    /**
+     * Called when a graph transaction commits or rolls back; the cache is cleared when the outermost transaction ends.
+     */
+    public static void end() {
+        TransactionVertexCache cache = CURRENT_CACHE.get();
+
+        if (cache == null || --cache.depth > 0) {
+            return;
+        }
+
+        CURRENT_CACHE.remove();
+
+        if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
+            PERF_LOG.debug("TransactionVertexCache: {}", cache.getMetrics());
+        }
+    }
+
+    /**
+     * Hits and misses of the cache, in this transaction.
+     */
+    public Map<String, Number> getMetrics() {
+        Map<String, Number> ret = new LinkedHashMap<>();
+
+        ret.put(METRIC_GUID_HITS, guidHits);
+        ret.put(METRIC_GUID_MISSES, guidMisses);
+        ret.put(METRIC_ATTRIBUTE_HITS, attributeHits);
+        ret.put(METRIC_ATTRIBUTE_MISSES, attributeMisses);
+
+        return ret;
+    }
+
+    public AtlasVertex getVertex(String guid) {
+        AtlasVertex ret = guidVertices.get(guid);
+
+        if (ret != null) {
+            guidHits++;
+        } else {
+            guidMisses++;
+        }
+
+        return ret;
+    }
+
+    public void putVertex(String guid, AtlasVertex vertex) {
+        if (guid != null && vertex != null) {
+            guidVertices.put(guid, vertex);
+        }
+    }
+
+    public void removeVertex(AtlasVertex vertex) {
+        String guid = vertex.getProperty(Constants.GUID_PROPERTY_KEY, String.class);
+
+        if (guid != null) {
+            guidVertices.remove(guid);
+        }
+
+        vertexAttributes.remove(vertex.getId());
+    }
+
+    public boolean hasAttribute(AtlasVertex vertex, String attrName) {
+        Map<String, Object> attributes = vertexAttributes.get(vertex.getId());
+        boolean             ret        = attributes != null && attributes.containsKey(attrName);
+
+        if (ret) {
+            attributeHits++;
+        } else {
+            attributeMisses++;
+        }
+
+        return ret;
+    }
+
+    public Object getAttribute(AtlasVertex vertex, String attrName) {
+        Map<String, Object> attributes = vertexAttributes.get(vertex.getId());
+        Object              ret        = attributes != null ? attributes.get(attrName) : null;
+
+        return ret == NULL_VALUE ? null : ret;
+    }
+
+    public void putAttribute(AtlasVertex vertex, String attrName, Object value) {
+        Map<String, Object> attributes = vertexAttributes.get(vertex.getId());
+
+        if (attributes == null) {
+            attributes = new HashMap<>();
+
+            vertexAttributes.put(vertex.getId(), attributes);
+        }
+
+        attributes.put(attrName, value == null ? NULL_VALUE : value);
+    }
+
+    public void invalidateAttributes(AtlasVertex vertex) {
+        vertexAttributes.remove(vertex.getId());
+    }
+
+    /**
+     * Invalidates cached attribute values of the given element, if it is a vertex, in the current transaction. To be
+     * called after a property of the element is written.
+     */
+    public static void onPropertyUpdate(AtlasElement element) {
+        TransactionVertexCache cache = CURRENT_CACHE.get();
+
+        if (cache != null && element instanceof AtlasVertex) {
+            cache.invalidateAttributes((AtlasVertex) element);
+        }
+    }
+}
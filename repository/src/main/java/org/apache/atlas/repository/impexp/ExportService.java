@@ -18,9 +18,12 @@
 package org.apache.atlas.repository.impexp;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.atlas.AtlasConfiguration;
 import org.apache.atlas.AtlasErrorCode;
 import org.apache.atlas.AtlasException;
 import org.apache.atlas.AtlasServiceException;
+import org.apache.atlas.RequestContextV1;
 import org.apache.atlas.exception.AtlasBaseException;
 import org.apache.atlas.model.TypeCategory;
 import org.apache.atlas.model.impexp.AtlasExportRequest;
@@ -58,8 +61,6 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import javax.inject.Inject;
-import javax.script.ScriptEngine;
-import javax.script.ScriptException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -67,6 +68,12 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.apache.atlas.model.impexp.AtlasExportRequest.*;
 
@@ -102,8 +109,10 @@ public class ExportService {
             updateSinkWithOperationMetrics(context, statuses, getOperationDuration(startTime));
         } catch(Exception ex) {
             LOG.error("Operation failed: ", ex);
+
+            exportSink.abortAsyncWriter();
         } finally {
-            atlasGraph.releaseGremlinScriptEngine(context.scriptEngine);
+            context.shutdownExecutor();
             LOG.info("<== export(user={}, from={}): status {}", userName, requestingIP, context.result.getOperationStatus());
             context.clear();
             result.clear();
@@ -113,6 +122,7 @@ public class ExportService {
     }
 
     private void updateSinkWithOperationMetrics(ExportContext context, AtlasExportResult.OperationStatus[] statuses, int duration) throws AtlasBaseException {
+        context.sink.stopAsyncWriter();
         context.result.getData().getEntityCreationOrder().addAll(context.lineageProcessed);
         context.sink.setExportOrder(context.result.getData().getEntityCreationOrder());
         context.sink.setTypesDef(context.result.getData().getTypesDef());
@@ -198,9 +208,13 @@ public class ExportService {
             }
 
             while (!context.guidsToProcess.isEmpty()) {
-                while (!context.guidsToProcess.isEmpty()) {
-                    String guid = context.guidsToProcess.remove(0);
-                    processEntity(guid, context);
+                if (context.executor != null) {
+                    processEntitiesInParallel(context);
+                } else {
+                    while (!context.guidsToProcess.isEmpty()) {
+                        String guid = context.guidsToProcess.remove(0);
+                        processEntity(guid, context);
+                    }
                 }
 
                 if (!context.lineageToProcess.isEmpty()) {
@@ -261,12 +275,13 @@ public class ExportService {
                     continue;
                 }
 
-                context.bindings.clear();
-                context.bindings.put("typeName", typeName);
-                context.bindings.put("attrName", attribute.getQualifiedName());
-                context.bindings.put("attrValue", attrValue);
+                Map<String, Object> bindings = new HashMap<>();
+
+                bindings.put("typeName", typeName);
+                bindings.put("attrName", attribute.getQualifiedName());
+                bindings.put("attrValue", attrValue);
 
-                List<String> guids = executeGremlinQueryForGuids(queryTemplate, context);
+                List<String> guids = executeGremlinQueryForGuids(queryTemplate, bindings);
 
                 if (CollectionUtils.isNotEmpty(guids)) {
                     for (String guid : guids) {
@@ -295,55 +310,156 @@ public class ExportService {
         }
 
         if (!context.guidsProcessed.contains(guid)) {
-            TraversalDirection      direction         = context.guidDirection.get(guid);
-            AtlasEntityWithExtInfo  entityWithExtInfo = entityGraphRetriever.toAtlasEntityWithExtInfo(guid);
+            ExportEntityResult result = fetchEntity(guid, context.guidDirection.get(guid), context.fetchType, context.referredEntitiesFetched, false);
 
-            if(!context.lineageProcessed.contains(guid)) {
-                context.result.getData().getEntityCreationOrder().add(entityWithExtInfo.getEntity().getGuid());
-            }
+            addEntityResult(result, context);
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("<== processEntity({})", guid);
+        }
+    }
+
+    /**
+     * Processes the entities to be exported, fetching them and their connected entities on worker threads. Results
+     * are merged into the context in submission order, so that the shared state is only updated by this thread.
+     * To bound memory, at most context.parallelWindow entities are fetched ahead of the merge.
+     */
+    private void processEntitiesInParallel(ExportContext context) throws AtlasBaseException {
+        while (!context.guidsToProcess.isEmpty()) {
+            List<String> guids = new ArrayList<>(context.guidsToProcess.getList());
+
+            context.guidsToProcess.clear();
 
-            addEntity(entityWithExtInfo, context);
-            addTypes(entityWithExtInfo.getEntity(), context);
+            for (int startIdx = 0; startIdx < guids.size(); startIdx += context.parallelWindow) {
+                List<Future<ExportEntityResult>> futures = new ArrayList<>();
+                int                              endIdx  = Math.min(startIdx + context.parallelWindow, guids.size());
 
-            context.guidsProcessed.add(entityWithExtInfo.getEntity().getGuid());
-            getConntedEntitiesBasedOnOption(entityWithExtInfo.getEntity(), context, direction);
+                for (final String guid : guids.subList(startIdx, endIdx)) {
+                    if (context.guidsProcessed.contains(guid)) {
+                        continue;
+                    }
 
-            if(entityWithExtInfo.getReferredEntities() != null) {
-                for (AtlasEntity e : entityWithExtInfo.getReferredEntities().values()) {
-                    addTypes(e, context);
-                    getConntedEntitiesBasedOnOption(e, context, direction);
+                    final TraversalDirection direction               = context.guidDirection.get(guid);
+                    final ExportFetchType    fetchType               = context.fetchType;
+                    final Set<String>        referredEntitiesFetched = context.referredEntitiesFetched;
+
+                    futures.add(context.executor.submit(new Callable<ExportEntityResult>() {
+                        @Override
+                        public ExportEntityResult call() throws Exception {
+                            try {
+                                return fetchEntity(guid, direction, fetchType, referredEntitiesFetched, true);
+                            } finally {
+                                // release the read transaction of the worker thread
+                                atlasGraph.rollback();
+                                RequestContextV1.clear();
+                            }
+                        }
+                    }));
                 }
 
-                context.guidsProcessed.addAll(entityWithExtInfo.getReferredEntities().keySet());
+                for (Future<ExportEntityResult> future : futures) {
+                    ExportEntityResult result = getResult(future);
+
+                    if (!context.guidsProcessed.contains(result.guid)) {
+                        addEntityResult(result, context);
+                    }
+                }
             }
         }
+    }
 
-        if (LOG.isDebugEnabled()) {
-            LOG.debug("<== processEntity({})", guid);
+    private ExportEntityResult getResult(Future<ExportEntityResult> future) throws AtlasBaseException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new AtlasBaseException("export(): interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+
+            if (cause instanceof AtlasBaseException) {
+                throw (AtlasBaseException) cause;
+            }
+
+            throw new AtlasBaseException(cause);
+        }
+    }
+
+    /**
+     * Retrieves the entity and the entities connected to it. Does not update the export context, hence can be
+     * called from multiple threads.
+     *
+     * @param referredEntitiesFetched referred entities whose connected entities have been retrieved, with the direction;
+     *                                an entity referred by many others, like a database by its tables, is traversed once
+     */
+    private ExportEntityResult fetchEntity(String guid, TraversalDirection direction, ExportFetchType fetchType, Set<String> referredEntitiesFetched, boolean convertToJson) throws AtlasBaseException {
+        AtlasEntityWithExtInfo entityWithExtInfo = entityGraphRetriever.toAtlasEntityWithExtInfo(guid);
+        ExportEntityResult     ret               = new ExportEntityResult(guid, entityWithExtInfo);
+
+        getConnectedEntitiesBasedOnOption(entityWithExtInfo.getEntity(), fetchType, direction, ret.connectedEntities);
+
+        if (entityWithExtInfo.getReferredEntities() != null) {
+            for (AtlasEntity e : entityWithExtInfo.getReferredEntities().values()) {
+                if (referredEntitiesFetched.add(e.getGuid() + ":" + direction)) {
+                    getConnectedEntitiesBasedOnOption(e, fetchType, direction, ret.referredConnectedEntities);
+                }
+            }
+        }
+
+        if (convertToJson) {
+            ret.json = AtlasType.toJson(entityWithExtInfo);
+        }
+
+        return ret;
+    }
+
+    private void addEntityResult(ExportEntityResult result, ExportContext context) throws AtlasBaseException {
+        AtlasEntityWithExtInfo entityWithExtInfo = result.entityWithExtInfo;
+
+        if(!context.lineageProcessed.contains(result.guid)) {
+            context.result.getData().getEntityCreationOrder().add(entityWithExtInfo.getEntity().getGuid());
+        }
+
+        addEntity(entityWithExtInfo, result.json, context);
+        addTypes(entityWithExtInfo.getEntity(), context);
+
+        context.guidsProcessed.add(entityWithExtInfo.getEntity().getGuid());
+        addConnectedEntities(result.connectedEntities, context);
+
+        if(entityWithExtInfo.getReferredEntities() != null) {
+            for (AtlasEntity e : entityWithExtInfo.getReferredEntities().values()) {
+                addTypes(e, context);
+            }
+
+            addConnectedEntities(result.referredConnectedEntities, context);
+
+            context.guidsProcessed.addAll(entityWithExtInfo.getReferredEntities().keySet());
         }
     }
 
-    private void getConntedEntitiesBasedOnOption(AtlasEntity entity, ExportContext context, TraversalDirection direction) throws AtlasBaseException {
-        switch (context.fetchType) {
+    private void getConnectedEntitiesBasedOnOption(AtlasEntity entity, ExportFetchType fetchType, TraversalDirection direction, List<ConnectedEntities> connectedEntities) throws AtlasBaseException {
+        switch (fetchType) {
             case CONNECTED:
-                getEntityGuidsForConnectedFetch(entity, context, direction);
+                getEntityGuidsForConnectedFetch(entity, direction, connectedEntities);
                 break;
 
             case FULL:
             default:
-                getEntityGuidsForFullFetch(entity, context);
+                getEntityGuidsForFullFetch(entity, connectedEntities);
         }
     }
 
-    private void getEntityGuidsForConnectedFetch(AtlasEntity entity, ExportContext context, TraversalDirection direction) throws AtlasBaseException {
+    private void getEntityGuidsForConnectedFetch(AtlasEntity entity, TraversalDirection direction, List<ConnectedEntities> connectedEntities) throws AtlasBaseException {
         if (direction == null || direction == TraversalDirection.UNKNOWN) {
-            getConnectedEntityGuids(entity, context, TraversalDirection.OUTWARD, TraversalDirection.INWARD);
+            getConnectedEntityGuids(entity, connectedEntities, TraversalDirection.OUTWARD, TraversalDirection.INWARD);
         } else {
             if (isProcessEntity(entity)) {
                 direction = TraversalDirection.OUTWARD;
             }
 
-            getConnectedEntityGuids(entity, context, direction);
+            getConnectedEntityGuids(entity, connectedEntities, direction);
         }
     }
 
@@ -354,7 +470,7 @@ public class ExportService {
         return entityType.isSubTypeOf(AtlasBaseTypeDef.ATLAS_TYPE_PROCESS);
     }
 
-    private void getConnectedEntityGuids(AtlasEntity entity, ExportContext context, TraversalDirection... directions) {
+    private void getConnectedEntityGuids(AtlasEntity entity, List<ConnectedEntities> connectedEntities, TraversalDirection... directions) {
         if(directions == null) {
             return;
         }
@@ -363,35 +479,19 @@ public class ExportService {
             String query = getQueryForTraversalDirection(direction);
 
             if (LOG.isDebugEnabled()) {
-                LOG.debug("==> getConnectedEntityGuids({}): guidsToProcess {} query {}", AtlasTypeUtil.getAtlasObjectId(entity), context.guidsToProcess.size(), query);
+                LOG.debug("==> getConnectedEntityGuids({}): query {}", AtlasTypeUtil.getAtlasObjectId(entity), query);
             }
 
-            context.bindings.clear();
-            context.bindings.put("startGuid", entity.getGuid());
-
-            List<Map<String, Object>> result = executeGremlinQuery(query, context);
+            List<Map<String, Object>> result = executeGremlinQuery(query, Collections.<String, Object>singletonMap("startGuid", entity.getGuid()));
 
             if (CollectionUtils.isEmpty(result)) {
                 continue;
             }
 
-            for (Map<String, Object> map : result) {
-                String             guid             = (String) map.get("__guid");
-                TraversalDirection currentDirection = context.guidDirection.get(guid);
-                boolean            isLineage        = (boolean) map.get("isProcess");
-
-                if (currentDirection == null) {
-                    context.addToBeProcessed(isLineage, guid, direction);
-
-                } else if (currentDirection == TraversalDirection.OUTWARD && direction == TraversalDirection.INWARD) {
-                    // the entity should be reprocessed to get inward entities
-                    context.guidsProcessed.remove(guid);
-                    context.addToBeProcessed(isLineage, guid, direction);
-                }
-            }
+            connectedEntities.add(new ConnectedEntities(direction, result));
 
             if (LOG.isDebugEnabled()) {
-                LOG.debug("<== getConnectedEntityGuids({}): found {} guids; guidsToProcess {}", entity.getGuid(), result.size(), context.guidsToProcess.size());
+                LOG.debug("<== getConnectedEntityGuids({}): found {} guids", entity.getGuid(), result.size());
             }
         }
     }
@@ -407,42 +507,63 @@ public class ExportService {
         }
     }
 
-    private void getEntityGuidsForFullFetch(AtlasEntity entity, ExportContext context) {
+    private void getEntityGuidsForFullFetch(AtlasEntity entity, List<ConnectedEntities> connectedEntities) {
         if (LOG.isDebugEnabled()) {
-            LOG.debug("==> getEntityGuidsForFullFetch({}): guidsToProcess {}", AtlasTypeUtil.getAtlasObjectId(entity), context.guidsToProcess.size());
+            LOG.debug("==> getEntityGuidsForFullFetch({})", AtlasTypeUtil.getAtlasObjectId(entity));
         }
 
         String query = this.gremlinQueryProvider.getQuery(AtlasGremlinQuery.EXPORT_BY_GUID_FULL);
 
-        context.bindings.clear();
-        context.bindings.put("startGuid", entity.getGuid());
-
-        List<Map<String, Object>> result = executeGremlinQuery(query, context);
+        List<Map<String, Object>> result = executeGremlinQuery(query, Collections.<String, Object>singletonMap("startGuid", entity.getGuid()));
 
         if (CollectionUtils.isEmpty(result)) {
             return;
         }
 
-        for (Map<String, Object> map : result) {
-            String  guid      = (String) map.get("__guid");
-            boolean isLineage = (boolean) map.get("isProcess");
+        connectedEntities.add(new ConnectedEntities(TraversalDirection.BOTH, result));
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("<== getEntityGuidsForFullFetch({}): found {} guids", entity.getGuid(), result.size());
+        }
+    }
+
+    private void addConnectedEntities(List<ConnectedEntities> connectedEntities, ExportContext context) {
+        for (ConnectedEntities connected : connectedEntities) {
+            for (Map<String, Object> map : connected.result) {
+                String             guid             = (String) map.get("__guid");
+                TraversalDirection currentDirection = context.guidDirection.get(guid);
+                boolean            isLineage        = (boolean) map.get("isProcess");
+
+                if (connected.direction == TraversalDirection.BOTH) {
+                    if (!context.guidsProcessed.contains(guid)) {
+                        context.addToBeProcessed(isLineage, guid, TraversalDirection.BOTH);
+                    }
+                } else if (currentDirection == null) {
+                    context.addToBeProcessed(isLineage, guid, connected.direction);
 
-            if (!context.guidsProcessed.contains(guid)) {
-                context.addToBeProcessed(isLineage, guid, TraversalDirection.BOTH);
+                } else if (currentDirection == TraversalDirection.OUTWARD && connected.direction == TraversalDirection.INWARD) {
+                    // the entity should be reprocessed to get inward entities
+                    context.guidsProcessed.remove(guid);
+                    context.addToBeProcessed(isLineage, guid, connected.direction);
+                }
             }
         }
 
         if (LOG.isDebugEnabled()) {
-            LOG.debug("<== getEntityGuidsForFullFetch({}): found {} guids; guidsToProcess {}", entity.getGuid(), result.size(), context.guidsToProcess.size());
+            LOG.debug("addConnectedEntities(): guidsToProcess {}", context.guidsToProcess.size());
         }
     }
 
-    private void addEntity(AtlasEntityWithExtInfo entity, ExportContext context) throws AtlasBaseException {
+    private void addEntity(AtlasEntityWithExtInfo entity, String json, ExportContext context) throws AtlasBaseException {
         if(context.sink.hasEntity(entity.getEntity().getGuid())) {
             return;
         }
 
-        context.sink.add(entity);
+        if (json != null) {
+            context.sink.add(entity, json);
+        } else {
+            context.sink.add(entity);
+        }
 
         context.result.incrementMeticsCounter(String.format("entity:%s", entity.getEntity().getTypeName()));
         if(entity.getReferredEntities() != null) {
@@ -566,19 +687,19 @@ public class ExportService {
         }
     }
 
-    private List<Map<String, Object>> executeGremlinQuery(String query, ExportContext context) {
+    private List<Map<String, Object>> executeGremlinQuery(String query, Map<String, Object> bindings) {
         try {
-            return (List<Map<String, Object>>) atlasGraph.executeGremlinScript(context.scriptEngine, context.bindings, query, false);
-        } catch (ScriptException e) {
+            return (List<Map<String, Object>>) atlasGraph.executeGremlinScript(query, bindings, false);
+        } catch (AtlasBaseException e) {
             LOG.error("Script execution failed for query: ", query, e);
             return null;
         }
     }
 
-    private List<String> executeGremlinQueryForGuids(String query, ExportContext context) {
+    private List<String> executeGremlinQueryForGuids(String query, Map<String, Object> bindings) {
         try {
-            return (List<String>) atlasGraph.executeGremlinScript(context.scriptEngine, context.bindings, query, false);
-        } catch (ScriptException e) {
+            return (List<String>) atlasGraph.executeGremlinScript(query, bindings, false);
+        } catch (AtlasBaseException e) {
             LOG.error("Script execution failed for query: ", query, e);
             return null;
         }
@@ -663,12 +784,36 @@ public class ExportService {
     }
 
 
+    private static class ConnectedEntities {
+        final TraversalDirection        direction;
+        final List<Map<String, Object>> result;
+
+        ConnectedEntities(TraversalDirection direction, List<Map<String, Object>> result) {
+            this.direction = direction;
+            this.result    = result;
+        }
+    }
+
+    private static class ExportEntityResult {
+        final String                  guid;
+        final AtlasEntityWithExtInfo  entityWithExtInfo;
+        final List<ConnectedEntities> connectedEntities         = new ArrayList<>();
+        final List<ConnectedEntities> referredConnectedEntities = new ArrayList<>();
+        String                        json;
+
+        ExportEntityResult(String guid, AtlasEntityWithExtInfo entityWithExtInfo) {
+            this.guid              = guid;
+            this.entityWithExtInfo = entityWithExtInfo;
+        }
+    }
+
     private class ExportContext {
         final Set<String>                     guidsProcessed = new HashSet<>();
         final UniqueList<String>              guidsToProcess = new UniqueList<>();
         final UniqueList<String>              lineageToProcess = new UniqueList<>();
         final Set<String>                     lineageProcessed = new HashSet<>();
         final Map<String, TraversalDirection> guidDirection  = new HashMap<>();
+        final Set<String>                     referredEntitiesFetched = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
         final Set<String>                     entityTypes         = new HashSet<>();
         final Set<String>                     classificationTypes = new HashSet<>();
         final Set<String>                     structTypes         = new HashSet<>();
@@ -676,10 +821,10 @@ public class ExportService {
         final AtlasExportResult               result;
         final ZipSink                         sink;
 
-        private final ScriptEngine        scriptEngine;
-        private final Map<String, Object> bindings;
         private final ExportFetchType     fetchType;
         private final String              matchType;
+        private final ExecutorService     executor;
+        private final int                 parallelWindow;
 
         private       int                 progressReportCount = 0;
 
@@ -687,10 +832,40 @@ public class ExportService {
             this.result = result;
             this.sink   = sink;
 
-            scriptEngine = atlasGraph.getGremlinScriptEngine();
-            bindings     = new HashMap<>();
             fetchType    = getFetchType(result.getRequest());
             matchType    = getMatchType(result.getRequest());
+
+            if (isParallel(result.getRequest())) {
+                int threadCount = Math.max(AtlasConfiguration.EXPORT_PARALLEL_THREADS.getInt(), 1);
+
+                LOG.info("export(): using {} threads", threadCount);
+
+                executor       = Executors.newFixedThreadPool(threadCount, new ThreadFactoryBuilder().setNameFormat("atlas-export-%d").setDaemon(true).build());
+                parallelWindow = threadCount * 16;
+
+                sink.startAsyncWriter(AtlasConfiguration.EXPORT_PARALLEL_WRITE_QUEUE_SIZE.getInt());
+            } else {
+                executor       = null;
+                parallelWindow = 1;
+            }
+        }
+
+        private boolean isParallel(AtlasExportRequest request) {
+            Object parallelOption = request.getOptions() != null ? request.getOptions().get(OPTION_PARALLEL) : null;
+
+            if (parallelOption instanceof Boolean) {
+                return (Boolean) parallelOption;
+            } else if (parallelOption != null) {
+                return Boolean.parseBoolean(parallelOption.toString());
+            }
+
+            return false;
+        }
+
+        public void shutdownExecutor() {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
         }
 
         private ExportFetchType getFetchType(AtlasExportRequest request) {
@@ -721,6 +896,7 @@ public class ExportService {
             guidsToProcess.clear();
             guidsProcessed.clear();
             guidDirection.clear();
+            referredEntitiesFetched.clear();
         }
 
         public void addToBeProcessed(boolean isSuperTypeProcess, String guid, TraversalDirection direction) {
@@ -0,0 +1,272 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.impexp;
+
+import org.apache.atlas.AtlasConfiguration;
+import org.apache.atlas.exception.AtlasBaseException;
+import org.apache.atlas.model.impexp.AtlasExportResult;
+import org.apache.atlas.model.instance.AtlasEntity;
+import org.apache.atlas.model.instance.AtlasEntity.AtlasEntityWithExtInfo;
+import org.apache.atlas.model.typedef.AtlasTypesDef;
+import org.apache.atlas.repository.store.graph.v1.EntityImportStream;
+import org.apache.atlas.type.AtlasType;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Import source that reads entities from an export ZIP file on demand.
+ *
+ * Unlike ZipSource, which reads the contents of all entries in memory upfront, this source only reads the central
+ * directory of the archive (the offset of each entry) and deserializes an entity when it is requested. A bounded
+ * LRU of recently parsed entities avoids re-reading entities that are looked up repeatedly, for example while
+ * resolving references or retrying the residual list.
+ */
+public class ZipFileSource implements EntityImportStream {
+    private static final Logger LOG = LoggerFactory.getLogger(ZipFileSource.class);
+
+    private final File                                 file;
+    private final ZipFile                              zipFile;
+    private final Map<String, AtlasEntityWithExtInfo> entityCache;
+    private final Set<String>                          importedGuids;
+    private List<String>                               creationOrder;
+    private Iterator<String>                           iterator;
+    private ImportTransforms                           importTransform;
+    private int                                        currentPosition;
+
+    public ZipFileSource(File file) throws IOException {
+        this(file, null);
+    }
+
+    public ZipFileSource(File file, ImportTransforms importTransform) throws IOException {
+        this(file, importTransform, AtlasConfiguration.IMPORT_ZIP_ENTITY_CACHE_SIZE.getInt());
+    }
+
+    public ZipFileSource(File file, ImportTransforms importTransform, final int entityCacheSize) throws IOException {
+        this.file            = file;
+        this.zipFile         = new ZipFile(file);
+        this.importTransform = importTransform;
+        this.importedGuids   = new HashSet<>();
+        this.entityCache     = new LinkedHashMap<String, AtlasEntityWithExtInfo>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, AtlasEntityWithExtInfo> eldest) {
+                return size() > entityCacheSize;
+            }
+        };
+
+        LOG.info("ZipFileSource(file={}, entries={}, entityCacheSize={})", file.getAbsolutePath(), zipFile.size(), entityCacheSize);
+
+        setCreationOrder();
+    }
+
+    @Override
+    public ImportTransforms getImportTransform() { return this.importTransform; }
+
+    @Override
+    public void setImportTransform(ImportTransforms importTransform) {
+        this.importTransform = importTransform;
+
+        // cached entities were transformed with the earlier transforms
+        entityCache.clear();
+    }
+
+    @Override
+    public AtlasTypesDef getTypesDef() throws AtlasBaseException {
+        return convertFromJson(AtlasTypesDef.class, getEntryContent(ZipExportFileNames.ATLAS_TYPESDEF_NAME.toString()));
+    }
+
+    @Override
+    public AtlasExportResult getExportResult() throws AtlasBaseException {
+        return convertFromJson(AtlasExportResult.class, getEntryContent(ZipExportFileNames.ATLAS_EXPORT_INFO_NAME.toString()));
+    }
+
+    @Override
+    public List<String> getCreationOrder() {
+        return this.creationOrder;
+    }
+
+    public AtlasEntityWithExtInfo getEntityWithExtInfo(String guid) throws AtlasBaseException {
+        AtlasEntityWithExtInfo ret = entityCache.get(guid);
+
+        if (ret == null) {
+            String json = getEntryContent(guid);
+
+            if (json == null) {
+                return null;
+            }
+
+            ret = convertFromJson(AtlasEntityWithExtInfo.class, json);
+
+            if (importTransform != null) {
+                ret = importTransform.apply(ret);
+            }
+
+            entityCache.put(guid, ret);
+        }
+
+        return ret;
+    }
+
+    @Override
+    public void close() {
+        try {
+            entityCache.clear();
+            importedGuids.clear();
+            zipFile.close();
+        } catch (IOException ex) {
+            LOG.warn("{}: Error closing zip file.", file.getAbsolutePath(), ex);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return this.iterator.hasNext();
+    }
+
+    @Override
+    public AtlasEntity next() {
+        AtlasEntityWithExtInfo entityWithExtInfo = getNextEntityWithExtInfo();
+
+        return entityWithExtInfo != null ? entityWithExtInfo.getEntity() : null;
+    }
+
+    @Override
+    public AtlasEntityWithExtInfo getNextEntityWithExtInfo() {
+        try {
+            currentPosition++;
+            return getEntityWithExtInfo(this.iterator.next());
+        } catch (AtlasBaseException e) {
+            LOG.error("getNextEntityWithExtInfo", e);
+            return null;
+        }
+    }
+
+    @Override
+    public void reset() {
+        this.iterator = this.creationOrder.iterator();
+    }
+
+    @Override
+    public AtlasEntity getByGuid(String guid) {
+        if (importedGuids.contains(guid)) {
+            return null;
+        }
+
+        try {
+            AtlasEntityWithExtInfo extInfo = getEntityWithExtInfo(guid);
+
+            return (extInfo != null) ? extInfo.getEntity() : null;
+        } catch (AtlasBaseException e) {
+            LOG.error("getByGuid: {} failed!", guid, e);
+            return null;
+        }
+    }
+
+    @Override
+    public int size() {
+        return this.creationOrder.size();
+    }
+
+    @Override
+    public void onImportComplete(String guid) {
+        importedGuids.add(guid);
+        entityCache.remove(guid);
+    }
+
+    @Override
+    public void setPosition(int index) {
+        currentPosition = index;
+        reset();
+        for (int i = 0; i < creationOrder.size() && i <= index; i++) {
+            iterator.next();
+        }
+    }
+
+    @Override
+    public void setPositionUsingEntityGuid(String guid) {
+        if (StringUtils.isBlank(guid)) {
+            return;
+        }
+
+        int index = creationOrder.indexOf(guid);
+        if (index == -1) {
+            return;
+        }
+
+        setPosition(index);
+    }
+
+    @Override
+    public int getPosition() {
+        return currentPosition;
+    }
+
+    private void setCreationOrder() {
+        String fileName = ZipExportFileNames.ATLAS_EXPORT_ORDER_NAME.toString();
+
+        try {
+            this.creationOrder = convertFromJson(List.class, getEntryContent(fileName));
+            this.iterator      = this.creationOrder.iterator();
+        } catch (AtlasBaseException e) {
+            LOG.error(String.format("Error retrieving '%s' from zip.", fileName), e);
+        }
+    }
+
+    private String getEntryContent(String entryName) throws AtlasBaseException {
+        ZipEntry zipEntry = zipFile.getEntry(entryName + ".json");
+
+        if (zipEntry == null) {
+            return null;
+        }
+
+        try (InputStream inputStream = zipFile.getInputStream(zipEntry)) {
+            return IOUtils.toString(inputStream, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new AtlasBaseException(String.format("Error reading '%s' from zip.", entryName), e);
+        }
+    }
+
+    private <T> T convertFromJson(Class<T> clazz, String jsonData) throws AtlasBaseException {
+        T t;
+        try {
+            t = AtlasType.fromJson(jsonData, clazz);
+            if(t == null) {
+                throw new AtlasBaseException("Error converting file to JSON.");
+            }
+
+        } catch (Exception e) {
+            throw new AtlasBaseException("Error converting file to JSON.", e);
+        }
+
+        return t;
+    }
+}
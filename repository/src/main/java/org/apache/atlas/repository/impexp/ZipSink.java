@@ -30,15 +30,25 @@ import java.io.OutputStream;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
 public class ZipSink {
     private static final Logger LOG = LoggerFactory.getLogger(ZipSink.class);
 
-    private ZipOutputStream zipOutputStream;
-    final Set<String>       guids = new HashSet<>();
+    private static final ZipEntryPayload END_OF_ENTRIES         = new ZipEntryPayload(null, null);
+    private static final long            QUEUE_WAIT_TIMEOUT_MS  = 1000;
+    private static final long            WRITER_STOP_TIMEOUT_MS = 10 * 1000;
 
+    private ZipOutputStream                zipOutputStream;
+    final Set<String>                      guids = new HashSet<>();
+    private BlockingQueue<ZipEntryPayload> writeQueue;
+    private Thread                         writerThread;
+    private volatile IOException           writeError;
+    private volatile boolean               isAborted;
 
     public ZipSink(OutputStream outputStream) {
         zipOutputStream = new ZipOutputStream(outputStream);
@@ -51,11 +61,92 @@ public class ZipSink {
     }
 
     public void add(AtlasEntity.AtlasEntityWithExtInfo entityWithExtInfo) throws AtlasBaseException {
-        String jsonData = convertToJSON(entityWithExtInfo);
+        add(entityWithExtInfo, convertToJSON(entityWithExtInfo));
+    }
+
+    public void add(AtlasEntity.AtlasEntityWithExtInfo entityWithExtInfo, String jsonData) throws AtlasBaseException {
         saveToZip(entityWithExtInfo.getEntity().getGuid(), jsonData);
         recordAddedEntityGuids(entityWithExtInfo);
     }
 
+    /**
+     * Writes subsequent entries to the zip stream from a dedicated thread, so that callers don't block on the
+     * output stream. Entries are written in the order they are added; callers block when the queue is full.
+     */
+    public void startAsyncWriter(int queueSize) {
+        if (writerThread != null) {
+            return;
+        }
+
+        final BlockingQueue<ZipEntryPayload> queue = new ArrayBlockingQueue<>(queueSize);
+
+        writeQueue   = queue;
+        writerThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeQueuedEntries(queue);
+            }
+        }, "atlas-export-zip-writer");
+
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Waits for the queued entries to be written, after which entries are written directly to the zip stream.
+     */
+    public void stopAsyncWriter() throws AtlasBaseException {
+        if (writerThread == null) {
+            return;
+        }
+
+        try {
+            enqueue(END_OF_ENTRIES);
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new AtlasBaseException("Interrupted while writing to zip stream.", e);
+        } finally {
+            writerThread = null;
+            writeQueue   = null;
+        }
+
+        checkWriteError();
+    }
+
+    /**
+     * Stops the writer without writing the queued entries, to be called when the export fails; entries added
+     * afterwards are rejected. Waits a limited time for the writer to stop, as it might be blocked on the output stream.
+     */
+    public void abortAsyncWriter() {
+        isAborted = true;
+
+        if (writerThread == null) {
+            return;
+        }
+
+        Thread thread = writerThread;
+
+        writerThread = null;
+
+        writeQueue.clear();
+        writeQueue.offer(END_OF_ENTRIES);
+        thread.interrupt();
+
+        try {
+            thread.join(WRITER_STOP_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (thread.isAlive()) {
+            LOG.warn("zip writer did not stop in {} ms", WRITER_STOP_TIMEOUT_MS);
+        }
+
+        writeQueue = null;
+    }
+
     public void setResult(AtlasExportResult result) throws AtlasBaseException {
         String jsonData = convertToJSON(result);
         saveToZip(ZipExportFileNames.ATLAS_EXPORT_INFO_NAME, jsonData);
@@ -72,6 +163,12 @@ public class ZipSink {
     }
 
     public void close() {
+        try {
+            stopAsyncWriter();
+        } catch (AtlasBaseException e) {
+            LOG.error("Error writing queued entries to zip stream", e);
+        }
+
         try {
             if(zipOutputStream != null) {
                 zipOutputStream.close();
@@ -91,6 +188,24 @@ public class ZipSink {
     }
 
     private void saveToZip(String fileName, String jsonData) throws AtlasBaseException {
+        if (isAborted) {
+            throw new AtlasBaseException(String.format("Error writing file %s: export aborted.", fileName));
+        }
+
+        if (writeQueue != null) {
+            checkWriteError();
+
+            try {
+                enqueue(new ZipEntryPayload(fileName + ".json", jsonData));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+
+                throw new AtlasBaseException(String.format("Interrupted while writing file %s.", fileName), e);
+            }
+
+            return;
+        }
+
         try {
             addToZipStream(fileName.toString() + ".json", jsonData);
         } catch (IOException e) {
@@ -98,6 +213,39 @@ public class ZipSink {
         }
     }
 
+    // waits for space in the queue only while the writer is running, so that a failed writer doesn't block the caller
+    private void enqueue(ZipEntryPayload entry) throws InterruptedException, AtlasBaseException {
+        while (!writeQueue.offer(entry, QUEUE_WAIT_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+            if (!writerThread.isAlive()) {
+                throw new AtlasBaseException("Error writing to zip stream: writer stopped.", writeError);
+            }
+        }
+    }
+
+    private void writeQueuedEntries(BlockingQueue<ZipEntryPayload> queue) {
+        try {
+            for (ZipEntryPayload entry = queue.take(); entry != END_OF_ENTRIES && !isAborted; entry = queue.take()) {
+                if (writeError == null) {
+                    try {
+                        addToZipStream(entry.entryName, entry.payload);
+                    } catch (IOException e) {
+                        LOG.error("Error writing file {} to zip stream", entry.entryName, e);
+
+                        writeError = e;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            LOG.warn("zip writer interrupted");
+        }
+    }
+
+    private void checkWriteError() throws AtlasBaseException {
+        if (writeError != null) {
+            throw new AtlasBaseException("Error writing to zip stream.", writeError);
+        }
+    }
+
     private void addToZipStream(String entryName, String payload) throws IOException {
 
         ZipEntry e = new ZipEntry(entryName);
@@ -121,4 +269,14 @@ public class ZipSink {
     private void recordAddedEntityGuids(AtlasEntity entity) {
         guids.add(entity.getGuid());
     }
+
+    private static class ZipEntryPayload {
+        final String entryName;
+        final String payload;
+
+        ZipEntryPayload(String entryName, String payload) {
+            this.entryName = entryName;
+            this.payload   = payload;
+        }
+    }
 }
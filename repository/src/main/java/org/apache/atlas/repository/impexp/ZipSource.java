@@ -62,12 +62,15 @@ public class ZipSource implements EntityImportStream {
         setCreationOrder();
     }
 
+    @Override
     public ImportTransforms getImportTransform() { return this.importTransform; }
 
+    @Override
     public void setImportTransform(ImportTransforms importTransform) {
         this.importTransform = importTransform;
     }
 
+    @Override
     public AtlasTypesDef getTypesDef() throws AtlasBaseException {
         final String fileName = ZipExportFileNames.ATLAS_TYPESDEF_NAME.toString();
 
@@ -75,6 +78,7 @@ public class ZipSource implements EntityImportStream {
         return convertFromJson(AtlasTypesDef.class, s);
     }
 
+    @Override
     public AtlasExportResult getExportResult() throws AtlasBaseException {
         final String fileName = ZipExportFileNames.ATLAS_EXPORT_INFO_NAME.toString();
 
@@ -119,7 +123,8 @@ public class ZipSource implements EntityImportStream {
         zipInputStream.close();
     }
 
-    public List<String> getCreationOrder() throws AtlasBaseException {
+    @Override
+    public List<String> getCreationOrder() {
         return this.creationOrder;
     }
 
@@ -153,6 +158,7 @@ public class ZipSource implements EntityImportStream {
         return guidEntityJsonMap.get(entryName);
     }
 
+    @Override
     public void close() {
         try {
             inputStream.close();
@@ -188,12 +194,7 @@ public class ZipSource implements EntityImportStream {
 
     @Override
     public void reset() {
-        try {
-            getCreationOrder();
-            this.iterator = this.creationOrder.iterator();
-        } catch (AtlasBaseException e) {
-            LOG.error("reset", e);
-        }
+        this.iterator = this.creationOrder.iterator();
     }
 
     @Override
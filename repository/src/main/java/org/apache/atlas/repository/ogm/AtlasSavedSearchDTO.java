@@ -37,6 +37,7 @@ public class AtlasSavedSearchDTO extends AbstractDataTransferObject<AtlasUserSav
     private static final String PROPERTY_UNIQUE_NAME       = "uniqueName";
     private static final String PROPERTY_SEARCH_TYPE       = "searchType";
     private static final String PROPERTY_UI_PARAMETERS       = "uiParameters";
+    private static final String PROPERTY_MATERIALIZED        = "materialized";
 
     public AtlasSavedSearchDTO(AtlasTypeRegistry typeRegistry) {
         super(typeRegistry, AtlasUserSavedSearch.class);
@@ -58,6 +59,7 @@ public class AtlasSavedSearchDTO extends AbstractDataTransferObject<AtlasUserSav
         }
 
         savedSearch.setUiParameters((String) entity.getAttribute(PROPERTY_UI_PARAMETERS));
+        savedSearch.setMaterialized(Boolean.TRUE.equals(entity.getAttribute(PROPERTY_MATERIALIZED)));
 
         return savedSearch;
     }
@@ -81,6 +83,7 @@ public class AtlasSavedSearchDTO extends AbstractDataTransferObject<AtlasUserSav
         }
 
         entity.setAttribute(PROPERTY_UI_PARAMETERS, obj.getUiParameters());
+        entity.setAttribute(PROPERTY_MATERIALIZED, obj.getMaterialized());
 
         return entity;
     }
@@ -0,0 +1,424 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.outbox;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.apache.atlas.AtlasConfiguration;
+import org.apache.atlas.GraphTransactionInterceptor;
+import org.apache.atlas.exception.AtlasBaseException;
+import org.apache.atlas.type.AtlasType;
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Singleton;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Outbox for the side effects of entity changes - like audit events and entity notifications.
+ *
+ * Listeners add records to the outbox while the graph transaction is in progress. Once the transaction commits, the
+ * records are appended to a local journal and dispatched to the sinks, in order, by a background thread; records of
+ * a transaction that is rolled back are discarded. A slow or unavailable sink therefore doesn't delay, or fail, the
+ * graph transaction.
+ *
+ * Consecutive records for a sink are dispatched in a batch. Failed batches are retried, with back-off, up to
+ * maxRetries times; then each payload of the batch is dispatched on its own, and payloads that still fail are written
+ * to a dead-letter file in the outbox directory - so that a payload the sink rejects doesn't block the records after
+ * it. Records not yet dispatched when the server stops are replayed from the journal on restart - hence a record can
+ * be dispatched more than once.
+ */
+@Singleton
+@Component
+public class EntityChangeOutbox {
+    private static final Logger LOG = LoggerFactory.getLogger(EntityChangeOutbox.class);
+
+    public static final String METRIC_PENDING       = "outboxPending";
+    public static final String METRIC_LAG_MS        = "outboxLagMs";
+    public static final String METRIC_DISPATCHED    = "outboxDispatched";
+    public static final String METRIC_RETRIES       = "outboxRetries";
+    public static final String METRIC_DEAD_LETTERED = "outboxDeadLettered";
+
+    private static final ThreadLocal<List<OutboxRecord>> transactionRecords = new ThreadLocal<>();
+
+    private final boolean                     isEnabled;
+    private final int                         batchSize;
+    private final long                        retryIntervalMs;
+    private final long                        maxRetryIntervalMs;
+    private final int                         maxRetries;
+    private final OutboxJournal               journal;
+    private final Map<String, Sink>           sinks           = new ConcurrentHashMap<>();
+    private final BlockingDeque<OutboxRecord> pendingRecords  = new LinkedBlockingDeque<>();
+    private final AtomicLong                  dispatchedCount = new AtomicLong();
+    private final AtomicLong                  retryCount      = new AtomicLong();
+    private final AtomicLong                  deadLetterCount = new AtomicLong();
+    private final Thread                      dispatcher;
+    private volatile List<OutboxRecord>       inProgress      = null;
+    private volatile boolean                  isStopped       = false;
+
+    /**
+     * Destination of outbox records, like the audit repository or the notification topic.
+     */
+    public interface Sink {
+        String getName();
+
+        /**
+         * Delivers the given payloads; on exception, the payloads will be dispatched again.
+         */
+        void dispatch(List<String> payloads) throws AtlasBaseException;
+    }
+
+    public EntityChangeOutbox() {
+        this(AtlasConfiguration.ENTITY_CHANGE_OUTBOX_ENABLED.getBoolean(),
+             getOutboxDir(AtlasConfiguration.ENTITY_CHANGE_OUTBOX_DIR.getString()),
+             AtlasConfiguration.ENTITY_CHANGE_OUTBOX_SYNC.getBoolean(),
+             AtlasConfiguration.ENTITY_CHANGE_OUTBOX_SEGMENT_SIZE_BYTES.getLong(),
+             AtlasConfiguration.ENTITY_CHANGE_OUTBOX_BATCH_SIZE.getInt(),
+             AtlasConfiguration.ENTITY_CHANGE_OUTBOX_RETRY_INTERVAL_MS.getLong(),
+             AtlasConfiguration.ENTITY_CHANGE_OUTBOX_MAX_RETRY_INTERVAL_MS.getLong(),
+             AtlasConfiguration.ENTITY_CHANGE_OUTBOX_MAX_RETRIES.getInt());
+    }
+
+    @VisibleForTesting
+    EntityChangeOutbox(boolean isEnabled, File dir, boolean isSyncEnabled, long segmentSize, int batchSize, long retryIntervalMs, long maxRetryIntervalMs, int maxRetries) {
+        OutboxJournal journal = null;
+
+        if (isEnabled) {
+            try {
+                journal = new OutboxJournal(dir, isSyncEnabled, segmentSize);
+
+                pendingRecords.addAll(journal.replay());
+            } catch (IOException excp) {
+                LOG.error("failed to initialize outbox journal in {}. Entity change listeners will not use the outbox", dir, excp);
+
+                journal   = null;
+                isEnabled = false;
+            }
+        }
+
+        this.isEnabled          = isEnabled;
+        this.journal            = journal;
+        this.batchSize          = Math.max(batchSize, 1);
+        this.retryIntervalMs    = Math.max(retryIntervalMs, 1);
+        this.maxRetryIntervalMs = Math.max(maxRetryIntervalMs, this.retryIntervalMs);
+        this.maxRetries         = maxRetries;
+
+        if (isEnabled) {
+            dispatcher = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    dispatchRecords();
+                }
+            }, "atlas-entity-change-outbox");
+
+            dispatcher.setDaemon(true);
+            dispatcher.start();
+        } else {
+            dispatcher = null;
+        }
+
+        LOG.info("EntityChangeOutbox(isEnabled={}, dir={}, isSyncEnabled={}, segmentSize={}, batchSize={}, retryIntervalMs={}, maxRetryIntervalMs={}, maxRetries={})",
+                 isEnabled, dir, isSyncEnabled, segmentSize, batchSize, retryIntervalMs, maxRetryIntervalMs, maxRetries);
+    }
+
+    public boolean isEnabled() {
+        return isEnabled;
+    }
+
+    public void registerSink(Sink sink) {
+        sinks.put(sink.getName(), sink);
+    }
+
+    /**
+     * Adds the given payloads to the outbox of the current graph transaction. The payloads are dispatched to the
+     * sink after the transaction commits.
+     */
+    public void add(String sinkName, List<String> payloads) {
+        if (CollectionUtils.isEmpty(payloads)) {
+            return;
+        }
+
+        List<OutboxRecord> records = transactionRecords.get();
+
+        if (records == null) {
+            final List<OutboxRecord> trxRecords = new ArrayList<>();
+
+            transactionRecords.set(trxRecords);
+
+            new GraphTransactionInterceptor.PostTransactionHook() {
+                @Override
+                public void onComplete(boolean isSuccess) {
+                    transactionRecords.remove();
+
+                    if (isSuccess) {
+                        enqueue(trxRecords);
+                    } else if (LOG.isDebugEnabled()) {
+                        LOG.debug("transaction rolled back: discarded {} outbox records", trxRecords.size());
+                    }
+                }
+            };
+
+            records = trxRecords;
+        }
+
+        records.add(new OutboxRecord(sinkName, payloads));
+    }
+
+    public Map<String, Number> getMetrics() {
+        Map<String, Number> ret        = new LinkedHashMap<>();
+        List<OutboxRecord>  inProgress = this.inProgress;
+        OutboxRecord        oldest     = inProgress != null ? inProgress.get(0) : pendingRecords.peekFirst();
+
+        ret.put(METRIC_PENDING, pendingRecords.size() + (inProgress != null ? inProgress.size() : 0));
+        ret.put(METRIC_LAG_MS, oldest != null ? Math.max(System.currentTimeMillis() - oldest.getTime(), 0) : 0);
+        ret.put(METRIC_DISPATCHED, dispatchedCount.get());
+        ret.put(METRIC_RETRIES, retryCount.get());
+        ret.put(METRIC_DEAD_LETTERED, deadLetterCount.get());
+
+        return ret;
+    }
+
+    @PreDestroy
+    public void close() {
+        isStopped = true;
+
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+
+            try {
+                dispatcher.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    // records must be queued in the order of their sequence numbers: the dispatcher checkpoints the sequence number
+    // of the last record it dispatched, which must not skip records still in the queue
+    private void enqueue(List<OutboxRecord> records) {
+        synchronized (journal) {
+            try {
+                journal.append(records);
+            } catch (IOException excp) {
+                // the records are still dispatched, but will not be replayed if the server stops before that
+                LOG.error("failed to append {} records to outbox journal", records.size(), excp);
+            }
+
+            pendingRecords.addAll(records);
+        }
+    }
+
+    private void dispatchRecords() {
+        while (!isStopped) {
+            try {
+                List<OutboxRecord> batch = nextBatch();
+
+                inProgress = batch;
+
+                dispatch(batch);
+
+                inProgress = null;
+
+                journal.checkpoint(batch.get(batch.size() - 1).getSeq());
+            } catch (InterruptedException e) {
+                break;
+            } catch (IOException excp) {
+                LOG.error("failed to update outbox checkpoint", excp);
+            }
+        }
+    }
+
+    // consecutive records for a sink, with up to batchSize payloads in total
+    private List<OutboxRecord> nextBatch() throws InterruptedException {
+        List<OutboxRecord> ret          = new ArrayList<>();
+        OutboxRecord       first        = pendingRecords.takeFirst();
+        int                payloadCount = first.getPayloads().size();
+
+        ret.add(first);
+
+        for (OutboxRecord next = pendingRecords.peekFirst(); next != null; next = pendingRecords.peekFirst()) {
+            if (!StringUtils.equals(next.getSink(), first.getSink()) || payloadCount + next.getPayloads().size() > batchSize) {
+                break;
+            }
+
+            ret.add(pendingRecords.pollFirst());
+
+            payloadCount += next.getPayloads().size();
+        }
+
+        return ret;
+    }
+
+    private void dispatch(List<OutboxRecord> batch) throws InterruptedException {
+        String       sinkName = batch.get(0).getSink();
+        List<String> payloads = new ArrayList<>();
+
+        for (OutboxRecord record : batch) {
+            payloads.addAll(record.getPayloads());
+        }
+
+        if (dispatch(sinkName, payloads, maxRetries)) {
+            return;
+        }
+
+        // dispatch the payloads one by one, to find the ones the sink fails on
+        List<OutboxRecord> failedRecords = new ArrayList<>();
+
+        for (OutboxRecord record : batch) {
+            List<String> failedPayloads = new ArrayList<>();
+
+            for (String payload : record.getPayloads()) {
+                if (isStopped) {
+                    throw new InterruptedException();
+                }
+
+                if (!dispatch(sinkName, Collections.singletonList(payload), 0)) {
+                    failedPayloads.add(payload);
+                }
+            }
+
+            if (!failedPayloads.isEmpty()) {
+                OutboxRecord failedRecord = new OutboxRecord(sinkName, failedPayloads);
+
+                failedRecord.setSeq(record.getSeq());
+                failedRecord.setTime(record.getTime());
+
+                failedRecords.add(failedRecord);
+            }
+        }
+
+        if (!failedRecords.isEmpty()) {
+            deadLetter(failedRecords);
+        }
+    }
+
+    // returns false if dispatch failed after the given number of retries; retries without limit if maxRetries < 0
+    private boolean dispatch(String sinkName, List<String> payloads, int maxRetries) throws InterruptedException {
+        long retryInterval = retryIntervalMs;
+
+        for (int attempt = 0; ; attempt++) {
+            Sink sink = sinks.get(sinkName);
+
+            try {
+                if (sink == null) { // sink registers on startup; replayed records can arrive earlier
+                    throw new IllegalStateException("sink " + sinkName + " is not registered");
+                }
+
+                sink.dispatch(payloads);
+
+                dispatchedCount.addAndGet(payloads.size());
+
+                return true;
+            } catch (Exception excp) {
+                if (maxRetries >= 0 && attempt >= maxRetries) {
+                    LOG.warn("outbox: failed to dispatch {} payloads to {}, after {} retries", payloads.size(), sinkName, attempt, excp);
+
+                    return false;
+                }
+
+                retryCount.incrementAndGet();
+
+                LOG.warn("outbox: failed to dispatch {} payloads to {}. Will retry in {}ms", payloads.size(), sinkName, retryInterval, excp);
+            }
+
+            if (isStopped) { // the sink could have swallowed the interrupt
+                throw new InterruptedException();
+            }
+
+            Thread.sleep(retryInterval);
+
+            retryInterval = Math.min(retryInterval * 2, maxRetryIntervalMs);
+        }
+    }
+
+    private void deadLetter(List<OutboxRecord> records) {
+        int payloadCount = 0;
+
+        for (OutboxRecord record : records) {
+            payloadCount += record.getPayloads().size();
+        }
+
+        deadLetterCount.addAndGet(payloadCount);
+
+        try {
+            journal.deadLetter(records);
+
+            LOG.error("outbox: {} payloads for {} could not be dispatched; written to dead-letter file", payloadCount, records.get(0).getSink());
+        } catch (IOException excp) {
+            LOG.error("outbox: {} payloads for {} could not be dispatched, nor written to dead-letter file: {}", payloadCount, records.get(0).getSink(), AtlasType.toJson(records), excp);
+        }
+    }
+
+    private static File getOutboxDir(String dir) {
+        if (StringUtils.isNotEmpty(dir)) {
+            return new File(dir);
+        }
+
+        return new File(System.getProperty("atlas.data", System.getProperty("java.io.tmpdir")), "outbox");
+    }
+
+    public static class OutboxRecord {
+        private long         seq;
+        private long         time;
+        private String       sink;
+        private List<String> payloads;
+
+        public OutboxRecord() {
+        }
+
+        public OutboxRecord(String sink, List<String> payloads) {
+            this.time     = System.currentTimeMillis();
+            this.sink     = sink;
+            this.payloads = payloads;
+        }
+
+        public long getSeq() { return seq; }
+
+        public void setSeq(long seq) { this.seq = seq; }
+
+        public long getTime() { return time; }
+
+        public void setTime(long time) { this.time = time; }
+
+        public String getSink() { return sink; }
+
+        public void setSink(String sink) { this.sink = sink; }
+
+        public List<String> getPayloads() { return payloads; }
+
+        public void setPayloads(List<String> payloads) { this.payloads = payloads; }
+    }
+}
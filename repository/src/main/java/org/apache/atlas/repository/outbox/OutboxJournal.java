@@ -0,0 +1,281 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.outbox;
+
+import org.apache.atlas.repository.outbox.EntityChangeOutbox.OutboxRecord;
+import org.apache.atlas.type.AtlasType;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Append-only files of outbox records, one JSON record per line, and a checkpoint file with the sequence number of the
+ * last dispatched record. Records after the checkpoint are replayed on startup.
+ *
+ * The journal is a series of segment files, each named after the sequence number of its first record. A new segment
+ * is started once the current one reaches segmentSize bytes; segments with only dispatched records are deleted on
+ * checkpoint, hence the journal doesn't grow while the dispatcher keeps up - even if it is never fully drained.
+ */
+class OutboxJournal {
+    private static final Logger LOG = LoggerFactory.getLogger(OutboxJournal.class);
+
+    static final String SEGMENT_FILE_PREFIX   = "outbox.";
+    static final String SEGMENT_FILE_SUFFIX   = ".journal";
+    static final String CHECKPOINT_FILE_NAME  = "outbox.checkpoint";
+    static final String DEAD_LETTER_FILE_NAME = "outbox.deadletter";
+
+    private static final Pattern SEGMENT_FILE_PATTERN = Pattern.compile(Pattern.quote(SEGMENT_FILE_PREFIX) + "(\\d+)" + Pattern.quote(SEGMENT_FILE_SUFFIX));
+
+    private final File                dir;
+    private final File                checkpointFile;
+    private final File                deadLetterFile;
+    private final boolean             isSyncEnabled;
+    private final long                segmentSize;
+    private final TreeMap<Long, File> segments = new TreeMap<>(); // sequence number of the first record => segment file
+    private       FileOutputStream    out;
+    private       long                outSize;
+    private       long                lastSeq;
+    private       long                checkpointSeq;
+
+    OutboxJournal(File dir, boolean isSyncEnabled, long segmentSize) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("failed to create outbox directory " + dir);
+        }
+
+        this.dir            = dir;
+        this.checkpointFile = new File(dir, CHECKPOINT_FILE_NAME);
+        this.deadLetterFile = new File(dir, DEAD_LETTER_FILE_NAME);
+        this.isSyncEnabled  = isSyncEnabled;
+        this.segmentSize    = Math.max(segmentSize, 1);
+        this.checkpointSeq  = readCheckpoint();
+        this.lastSeq        = checkpointSeq;
+    }
+
+    /**
+     * Reads the records not yet dispatched, in the order of their sequence numbers, and opens the journal for append.
+     */
+    synchronized List<OutboxRecord> replay() throws IOException {
+        List<OutboxRecord> ret   = new ArrayList<>();
+        File[]             files = dir.listFiles();
+
+        if (files != null) {
+            for (File file : files) {
+                Matcher matcher = SEGMENT_FILE_PATTERN.matcher(file.getName());
+
+                if (matcher.matches()) {
+                    segments.put(Long.parseLong(matcher.group(1)), file);
+                }
+            }
+        }
+
+        for (File segment : segments.values()) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(segment), StandardCharsets.UTF_8))) {
+                for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                    if (StringUtils.isBlank(line)) {
+                        continue;
+                    }
+
+                    OutboxRecord record = AtlasType.fromJson(line, OutboxRecord.class);
+
+                    if (record == null) { // last line could be partially written, on a crash
+                        LOG.warn("{}: ignoring invalid record {}", segment, line);
+
+                        continue;
+                    }
+
+                    lastSeq = Math.max(lastSeq, record.getSeq());
+
+                    if (record.getSeq() > checkpointSeq) {
+                        ret.add(record);
+                    }
+                }
+            }
+        }
+
+        deleteDispatchedSegments();
+
+        // records after a partially written line go to a new segment
+        startSegment();
+
+        LOG.info("{}: {} records to replay; checkpoint={}", dir, ret.size(), checkpointSeq);
+
+        return ret;
+    }
+
+    /**
+     * Assigns sequence numbers to the given records and appends them to the journal.
+     */
+    synchronized void append(List<OutboxRecord> records) throws IOException {
+        for (OutboxRecord record : records) {
+            record.setSeq(++lastSeq);
+        }
+
+        write(records);
+    }
+
+    /**
+     * Records that all records up to the given sequence number are dispatched, and deletes segments that have no
+     * other records.
+     */
+    synchronized void checkpoint(long seq) throws IOException {
+        if (seq <= checkpointSeq) {
+            return;
+        }
+
+        File tmpFile = new File(checkpointFile.getPath() + ".tmp");
+
+        Files.write(tmpFile.toPath(), Long.toString(seq).getBytes(StandardCharsets.UTF_8));
+        Files.move(tmpFile.toPath(), checkpointFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        checkpointSeq = seq;
+
+        if (checkpointSeq >= lastSeq && outSize >= segmentSize) { // all records dispatched: start afresh
+            startSegment();
+        }
+
+        deleteDispatchedSegments();
+    }
+
+    /**
+     * Appends the given records, which could not be dispatched, to the dead-letter file - for an operator to inspect
+     * and replay.
+     */
+    synchronized void deadLetter(List<OutboxRecord> records) throws IOException {
+        StringBuilder sb = new StringBuilder();
+
+        for (OutboxRecord record : records) {
+            sb.append(AtlasType.toJson(record)).append('\n');
+        }
+
+        try (FileOutputStream deadLetterOut = new FileOutputStream(deadLetterFile, true)) {
+            deadLetterOut.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+
+            if (isSyncEnabled) {
+                deadLetterOut.getFD().sync();
+            }
+        }
+    }
+
+    synchronized long getLastSeq() { return lastSeq; }
+
+    synchronized int getSegmentCount() { return segments.size(); }
+
+    synchronized void close() {
+        closeSegment();
+    }
+
+    private void write(List<OutboxRecord> records) throws IOException {
+        if (out == null || outSize >= segmentSize) {
+            startSegment();
+        }
+
+        StringBuilder sb = new StringBuilder();
+
+        for (OutboxRecord record : records) {
+            sb.append(AtlasType.toJson(record)).append('\n');
+        }
+
+        byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+
+        out.write(bytes);
+        out.flush();
+
+        outSize += bytes.length;
+
+        if (isSyncEnabled) {
+            out.getFD().sync();
+        }
+    }
+
+    // the new segment starts with the next record to be appended
+    private void startSegment() throws IOException {
+        closeSegment();
+
+        long startSeq = lastSeq + 1;
+        File segment  = new File(dir, String.format("%s%020d%s", SEGMENT_FILE_PREFIX, startSeq, SEGMENT_FILE_SUFFIX));
+
+        out     = new FileOutputStream(segment, true);
+        outSize = segment.length();
+
+        segments.put(startSeq, segment);
+    }
+
+    private void closeSegment() {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                LOG.warn("{}: failed to close outbox journal segment", dir, e);
+            }
+
+            out = null;
+        }
+    }
+
+    // a segment has only dispatched records if the next segment starts at or before the record after the checkpoint
+    private void deleteDispatchedSegments() {
+        while (segments.size() > 1) {
+            Map.Entry<Long, File> first     = segments.firstEntry();
+            long                  nextStart = segments.higherKey(first.getKey());
+
+            if (nextStart > checkpointSeq + 1) {
+                break;
+            }
+
+            File segment = first.getValue();
+
+            if (segment.exists() && !segment.delete()) {
+                LOG.warn("{}: failed to delete outbox journal segment", segment);
+
+                break;
+            }
+
+            segments.remove(first.getKey());
+        }
+    }
+
+    private long readCheckpoint() throws IOException {
+        long ret = 0;
+
+        if (checkpointFile.exists()) {
+            String value = new String(Files.readAllBytes(checkpointFile.toPath()), StandardCharsets.UTF_8).trim();
+
+            if (StringUtils.isNotEmpty(value)) {
+                ret = Long.parseLong(value);
+            }
+        }
+
+        return ret;
+    }
+}
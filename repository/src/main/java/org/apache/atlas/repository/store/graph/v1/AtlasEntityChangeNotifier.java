@@ -20,6 +20,9 @@ package org.apache.atlas.repository.store.graph.v1;
 
 import org.apache.atlas.AtlasErrorCode;
 import org.apache.atlas.AtlasException;
+import org.apache.atlas.GraphTransactionInterceptor;
+import org.apache.atlas.discovery.AtlasLineageCache;
+import org.apache.atlas.discovery.SavedSearchSnapshots;
 import org.apache.atlas.exception.AtlasBaseException;
 import org.apache.atlas.listener.EntityChangeListener;
 import org.apache.atlas.listener.EntityChangeListenerV2;
@@ -30,13 +33,19 @@ import org.apache.atlas.model.instance.AtlasEntity.AtlasEntityWithExtInfo;
 import org.apache.atlas.model.instance.AtlasEntityHeader;
 import org.apache.atlas.model.instance.EntityMutationResponse;
 import org.apache.atlas.model.instance.EntityMutations.EntityOperation;
+import org.apache.atlas.model.typedef.AtlasBaseTypeDef;
 import org.apache.atlas.v1.model.instance.Referenceable;
 import org.apache.atlas.v1.model.instance.Struct;
 import org.apache.atlas.repository.Constants;
 import org.apache.atlas.repository.converters.AtlasInstanceConverter;
+import org.apache.atlas.repository.graph.AsyncFullTextIndexer;
 import org.apache.atlas.repository.graph.FullTextMapperV2;
 import org.apache.atlas.repository.graph.GraphHelper;
+import org.apache.atlas.repository.graphdb.AtlasEdge;
+import org.apache.atlas.repository.graphdb.AtlasEdgeDirection;
 import org.apache.atlas.repository.graphdb.AtlasVertex;
+import org.apache.atlas.type.AtlasEntityType;
+import org.apache.atlas.type.AtlasTypeRegistry;
 import org.apache.atlas.util.AtlasRepositoryConfiguration;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -47,6 +56,7 @@ import org.springframework.stereotype.Component;
 import javax.inject.Inject;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -61,9 +71,24 @@ public class AtlasEntityChangeNotifier {
     private final Set<EntityChangeListenerV2> entityChangeListenersV2;
     private final AtlasInstanceConverter      instanceConverter;
 
+    private static final String PROCESS_INPUTS_EDGE  = "__Process.inputs";
+    private static final String PROCESS_OUTPUTS_EDGE = "__Process.outputs";
+
     @Inject
     private FullTextMapperV2 fullTextMapperV2;
 
+    @Inject
+    private AsyncFullTextIndexer fullTextIndexer;
+
+    @Inject
+    private AtlasLineageCache lineageCache;
+
+    @Inject
+    private AtlasTypeRegistry typeRegistry;
+
+    @Inject
+    private SavedSearchSnapshots savedSearchSnapshots;
+
     @Inject
     public AtlasEntityChangeNotifier(Set<EntityChangeListener> entityChangeListeners, Set<EntityChangeListenerV2> entityChangeListenersV2,
                                      AtlasInstanceConverter instanceConverter) {
@@ -73,6 +98,9 @@ public class AtlasEntityChangeNotifier {
     }
 
     public void onEntitiesMutated(EntityMutationResponse entityMutationResponse, boolean isImport) throws AtlasBaseException {
+        invalidateLineageCache(entityMutationResponse);
+        notifySavedSearchSnapshots(entityMutationResponse);
+
         if (CollectionUtils.isEmpty(entityChangeListeners) || instanceConverter == null) {
             return;
         }
@@ -95,6 +123,9 @@ public class AtlasEntityChangeNotifier {
     }
 
     public void onClassificationAddedToEntity(AtlasEntity entity, List<AtlasClassification> addedClassifications) throws AtlasBaseException {
+        invalidateLineageCache(entity.getGuid());
+        notifySavedSearchSnapshots(getClassificationNames(addedClassifications));
+
         if (isV2EntityNotificationEnabled()) {
             doFullTextMapping(entity.getGuid());
 
@@ -122,6 +153,9 @@ public class AtlasEntityChangeNotifier {
     }
 
     public void onClassificationUpdatedToEntity(AtlasEntity entity, List<AtlasClassification> updatedClassifications) throws AtlasBaseException {
+        invalidateLineageCache(entity.getGuid());
+        notifySavedSearchSnapshots(getClassificationNames(updatedClassifications));
+
         if (isV2EntityNotificationEnabled()) {
             doFullTextMapping(entity.getGuid());
 
@@ -149,6 +183,9 @@ public class AtlasEntityChangeNotifier {
     }
 
     public void onClassificationDeletedFromEntity(AtlasEntity entity, List<String> deletedClassificationNames) throws AtlasBaseException {
+        invalidateLineageCache(entity.getGuid());
+        notifySavedSearchSnapshots(deletedClassificationNames == null ? null : new HashSet<>(deletedClassificationNames));
+
         if (isV2EntityNotificationEnabled()) {
             doFullTextMapping(entity.getGuid());
 
@@ -175,6 +212,163 @@ public class AtlasEntityChangeNotifier {
         }
     }
 
+    /**
+     * Invalidates cached lineage that includes any of the mutated entities or, for processes, any of their inputs
+     * and outputs. Invalidation is repeated after the transaction commits, as lineage could be computed again in
+     * between from the state before the mutation.
+     *
+     * Inputs and outputs of processes are not read from the graph when no lineage is cached; if lineage gets cached
+     * before the transaction commits, all of it is invalidated then, as it could miss the changes to the processes.
+     */
+    private void invalidateLineageCache(EntityMutationResponse entityMutationResponse) {
+        if (lineageCache == null || !lineageCache.isEnabled()) {
+            return;
+        }
+
+        boolean     readProcessEdges = !lineageCache.isEmpty();
+        Set<String> guids            = new HashSet<>();
+        boolean     hasProcesses     = addLineageGuids(entityMutationResponse.getCreatedEntities(), guids, readProcessEdges);
+
+        hasProcesses |= addLineageGuids(entityMutationResponse.getUpdatedEntities(), guids, readProcessEdges);
+        hasProcesses |= addLineageGuids(entityMutationResponse.getPartialUpdatedEntities(), guids, readProcessEdges);
+        hasProcesses |= addLineageGuids(entityMutationResponse.getDeletedEntities(), guids, readProcessEdges);
+
+        invalidateLineageCache(guids, hasProcesses && !readProcessEdges);
+    }
+
+    // classifications are included in the entity headers of cached lineage
+    private void invalidateLineageCache(String guid) {
+        if (lineageCache == null || !lineageCache.isEnabled() || guid == null) {
+            return;
+        }
+
+        invalidateLineageCache(Collections.singleton(guid), false);
+    }
+
+    private void invalidateLineageCache(final Set<String> guids, final boolean hasSkippedProcessEdges) {
+        if (guids.isEmpty()) {
+            return;
+        }
+
+        lineageCache.invalidate(guids);
+
+        new GraphTransactionInterceptor.PostTransactionHook() {
+            @Override
+            public void onComplete(boolean isSuccess) {
+                if (isSuccess) {
+                    if (hasSkippedProcessEdges && !lineageCache.isEmpty()) {
+                        lineageCache.invalidateAll();
+                    } else {
+                        lineageCache.invalidate(guids);
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Marks stale the snapshots of materialized saved searches that could include the mutated entities, once the
+     * transaction commits.
+     */
+    private void notifySavedSearchSnapshots(EntityMutationResponse entityMutationResponse) {
+        if (savedSearchSnapshots == null || savedSearchSnapshots.getSearchCount() == 0) {
+            return;
+        }
+
+        final Set<String> typeNames = new HashSet<>();
+
+        addTypeNames(entityMutationResponse.getCreatedEntities(), typeNames);
+        addTypeNames(entityMutationResponse.getUpdatedEntities(), typeNames);
+        addTypeNames(entityMutationResponse.getPartialUpdatedEntities(), typeNames);
+        addTypeNames(entityMutationResponse.getDeletedEntities(), typeNames);
+
+        if (typeNames.isEmpty()) {
+            return;
+        }
+
+        new GraphTransactionInterceptor.PostTransactionHook() {
+            @Override
+            public void onComplete(boolean isSuccess) {
+                if (isSuccess) {
+                    savedSearchSnapshots.onEntitiesChanged(typeNames);
+                }
+            }
+        };
+    }
+
+    private void notifySavedSearchSnapshots(final Set<String> classificationNames) {
+        if (savedSearchSnapshots == null || savedSearchSnapshots.getSearchCount() == 0 || CollectionUtils.isEmpty(classificationNames)) {
+            return;
+        }
+
+        new GraphTransactionInterceptor.PostTransactionHook() {
+            @Override
+            public void onComplete(boolean isSuccess) {
+                if (isSuccess) {
+                    savedSearchSnapshots.onClassificationsChanged(classificationNames);
+                }
+            }
+        };
+    }
+
+    private void addTypeNames(List<AtlasEntityHeader> entityHeaders, Set<String> typeNames) {
+        if (CollectionUtils.isNotEmpty(entityHeaders)) {
+            for (AtlasEntityHeader entityHeader : entityHeaders) {
+                typeNames.add(entityHeader.getTypeName());
+            }
+        }
+    }
+
+    private Set<String> getClassificationNames(List<AtlasClassification> classifications) {
+        Set<String> ret = new HashSet<>();
+
+        if (CollectionUtils.isNotEmpty(classifications)) {
+            for (AtlasClassification classification : classifications) {
+                ret.add(classification.getTypeName());
+            }
+        }
+
+        return ret;
+    }
+
+    // returns true if any of the entities is a process
+    private boolean addLineageGuids(List<AtlasEntityHeader> entityHeaders, Set<String> guids, boolean readProcessEdges) {
+        boolean ret = false;
+
+        if (CollectionUtils.isEmpty(entityHeaders)) {
+            return ret;
+        }
+
+        for (AtlasEntityHeader entityHeader : entityHeaders) {
+            guids.add(entityHeader.getGuid());
+
+            AtlasEntityType entityType = typeRegistry != null ? typeRegistry.getEntityTypeByName(entityHeader.getTypeName()) : null;
+
+            if (entityType == null || !entityType.isSubTypeOf(AtlasBaseTypeDef.ATLAS_TYPE_PROCESS)) {
+                continue;
+            }
+
+            ret = true;
+
+            if (!readProcessEdges) {
+                continue;
+            }
+
+            // vertex of a hard-deleted process is not available; cached lineage including it is found by its guid
+            AtlasVertex processVertex = AtlasGraphUtilsV1.findByGuid(entityHeader.getGuid());
+
+            if (processVertex != null) {
+                for (String edgeLabel : new String[] { PROCESS_INPUTS_EDGE, PROCESS_OUTPUTS_EDGE }) {
+                    for (AtlasEdge edge : (Iterable<AtlasEdge>) processVertex.getEdges(AtlasEdgeDirection.OUT, edgeLabel)) {
+                        guids.add(AtlasGraphUtilsV1.getIdFromVertex(edge.getInVertex()));
+                    }
+                }
+            }
+        }
+
+        return ret;
+    }
+
     private String getListenerName(EntityChangeListener listener) {
         return listener.getClass().getSimpleName();
     }
@@ -306,6 +500,20 @@ public class AtlasEntityChangeNotifier {
             LOG.warn("Unable to determine if FullText is disabled. Proceeding with FullText mapping");
         }
 
+        if (fullTextIndexer != null && fullTextIndexer.isEnabled()) {
+            List<String> guids = new ArrayList<>(entityHeaders.size());
+
+            for (AtlasEntityHeader entityHeader : entityHeaders) {
+                if (!GraphHelper.isInternalType(entityHeader.getTypeName())) {
+                    guids.add(entityHeader.getGuid());
+                }
+            }
+
+            fullTextIndexer.indexAfterCommit(guids);
+
+            return;
+        }
+
         for (AtlasEntityHeader entityHeader : entityHeaders) {
             if(GraphHelper.isInternalType(entityHeader.getTypeName())) {
                 continue;
@@ -341,6 +549,12 @@ public class AtlasEntityChangeNotifier {
             return;
         }
 
+        if (fullTextIndexer != null && fullTextIndexer.isEnabled()) {
+            fullTextIndexer.indexAfterCommit(Collections.singletonList(entityId));
+
+            return;
+        }
+
         AtlasVertex atlasVertex = AtlasGraphUtilsV1.findByGuid(entityId);
         if(atlasVertex == null || GraphHelper.isInternalType(atlasVertex)) {
             return;
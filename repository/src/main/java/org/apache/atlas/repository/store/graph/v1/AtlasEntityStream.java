@@ -50,7 +50,11 @@ public class AtlasEntityStream implements EntityStream {
     }
 
     public AtlasEntityStream(AtlasEntityWithExtInfo entityWithExtInfo, EntityStream entityStream) {
-        this.entitiesWithExtInfo = new AtlasEntitiesWithExtInfo(entityWithExtInfo);
+        this(new AtlasEntitiesWithExtInfo(entityWithExtInfo), entityStream);
+    }
+
+    public AtlasEntityStream(AtlasEntitiesWithExtInfo entitiesWithExtInfo, EntityStream entityStream) {
+        this.entitiesWithExtInfo = entitiesWithExtInfo;
         this.iterator            = this.entitiesWithExtInfo.getEntities().iterator();
         this.entityStream        = entityStream;
     }
@@ -17,8 +17,14 @@
  */
 package org.apache.atlas.repository.store.graph.v1;
 
+import org.apache.atlas.model.impexp.AtlasExportResult;
 import org.apache.atlas.model.instance.AtlasEntity;
+import org.apache.atlas.model.instance.AtlasEntity.AtlasEntitiesWithExtInfo;
 import org.apache.atlas.model.instance.AtlasEntity.AtlasEntityWithExtInfo;
+import org.apache.atlas.model.typedef.AtlasTypesDef;
+import org.apache.atlas.repository.impexp.ImportTransforms;
+
+import java.util.List;
 
 public class AtlasEntityStreamForImport extends AtlasEntityStream implements EntityImportStream {
     private int currentPosition = 0;
@@ -27,6 +33,10 @@ public class AtlasEntityStreamForImport extends AtlasEntityStream implements Ent
         super(entityWithExtInfo, entityStream);
     }
 
+    public AtlasEntityStreamForImport(AtlasEntitiesWithExtInfo entitiesWithExtInfo, EntityStream entityStream) {
+        super(entitiesWithExtInfo, entityStream);
+    }
+
     @Override
     public AtlasEntityWithExtInfo getNextEntityWithExtInfo() {
         currentPosition++;
@@ -48,12 +58,12 @@ public class AtlasEntityStreamForImport extends AtlasEntityStream implements Ent
 
     @Override
     public int size() {
-        return 1;
+        return super.entitiesWithExtInfo.getEntities() != null ? super.entitiesWithExtInfo.getEntities().size() : 0;
     }
 
     @Override
     public void setPosition(int position) {
-        // not applicable for a single entity stream
+        // not applicable for an in-memory entity stream
     }
 
     @Override
@@ -69,4 +79,34 @@ public class AtlasEntityStreamForImport extends AtlasEntityStream implements Ent
     public void onImportComplete(String guid) {
 
     }
+
+    @Override
+    public ImportTransforms getImportTransform() {
+        return null;
+    }
+
+    @Override
+    public void setImportTransform(ImportTransforms importTransform) {
+        // not applicable for an in-memory entity stream
+    }
+
+    @Override
+    public AtlasTypesDef getTypesDef() {
+        return null;
+    }
+
+    @Override
+    public AtlasExportResult getExportResult() {
+        return null;
+    }
+
+    @Override
+    public List<String> getCreationOrder() {
+        return null;
+    }
+
+    @Override
+    public void close() {
+
+    }
 }
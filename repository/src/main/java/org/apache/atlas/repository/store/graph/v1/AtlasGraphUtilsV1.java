@@ -28,6 +28,7 @@ import org.apache.atlas.model.typedef.AtlasBaseTypeDef;
 import org.apache.atlas.repository.Constants;
 import org.apache.atlas.repository.graph.AtlasGraphProvider;
 import org.apache.atlas.repository.graph.GraphHelper;
+import org.apache.atlas.repository.graph.TransactionVertexCache;
 import org.apache.atlas.repository.graphdb.AtlasEdge;
 import org.apache.atlas.repository.graphdb.AtlasElement;
 import org.apache.atlas.repository.graphdb.AtlasGraphQuery;
@@ -47,7 +48,9 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -67,6 +70,8 @@ public class AtlasGraphUtilsV1 {
     public static final String RELATIONSHIPTYPE_EDGE_LABEL = PROPERTY_PREFIX + ".relationshipType";
     public static final String VERTEX_TYPE                 = "typeSystem";
 
+    private static final int UNIQUE_ATTRIBUTE_QUERY_BATCH_SIZE = 100;
+
     private static boolean USE_INDEX_QUERY_TO_FIND_ENTITY_BY_UNIQUE_ATTRIBUTES = false;
     private static String  INDEX_SEARCH_PREFIX;
 
@@ -173,6 +178,9 @@ public class AtlasGraphUtilsV1 {
         }
         propertyName = encodePropertyKey(propertyName);
         vertex.addProperty(propertyName, value);
+
+        TransactionVertexCache.onPropertyUpdate(vertex);
+
         return vertex;
     }
 
@@ -207,6 +215,8 @@ public class AtlasGraphUtilsV1 {
                 }
             }
         }
+
+        TransactionVertexCache.onPropertyUpdate(element);
     }
 
     public static <T extends AtlasElement, O> O getProperty(T element, String propertyName, Class<O> returnType) {
@@ -273,13 +283,68 @@ public class AtlasGraphUtilsV1 {
         return vertex;
     }
 
+    /**
+     * Finds vertices of the given entity type, or its sub-types, having the given values for a unique attribute. All
+     * values are looked up with one query, in batches of UNIQUE_ATTRIBUTE_QUERY_BATCH_SIZE; a query on the super-type
+     * property is run only for values not found in entities of the type itself.
+     *
+     * @return attribute value => vertex, for the values found
+     */
+    public static Map<Object, AtlasVertex> findByUniqueAttribute(AtlasEntityType entityType, AtlasAttribute attribute, Collection<?> attrValues) {
+        Map<Object, AtlasVertex> ret           = new HashMap<>();
+        List<Object>             values        = new ArrayList<>(new LinkedHashSet<>(attrValues));
+        boolean                  useIndexQuery = canUseIndexQuery(entityType, attribute.getName());
+        String                   propertyName  = attribute.getVertexPropertyName();
+
+        for (int i = 0; i < values.size(); i += UNIQUE_ATTRIBUTE_QUERY_BATCH_SIZE) {
+            List<Object>             batch = values.subList(i, Math.min(i + UNIQUE_ATTRIBUTE_QUERY_BATCH_SIZE, values.size()));
+            Map<Object, AtlasVertex> found;
+
+            if (useIndexQuery && isAllStrings(batch)) {
+                found = getAtlasVerticesFromIndexQuery(entityType, attribute, batch);
+            } else {
+                found = findByTypeAndPropertyValues(Constants.ENTITY_TYPE_PROPERTY_KEY, entityType.getTypeName(), propertyName, batch);
+
+                // for values not found in instances of the type, try to find an instance of type's sub-type
+                if (found.size() < batch.size() && !entityType.getAllSubTypes().isEmpty()) {
+                    List<Object> misses = new ArrayList<>();
+
+                    for (Object value : batch) {
+                        if (!found.containsKey(value)) {
+                            misses.add(value);
+                        }
+                    }
+
+                    found.putAll(findByTypeAndPropertyValues(Constants.SUPER_TYPES_PROPERTY_KEY, entityType.getTypeName(), propertyName, misses));
+                }
+            }
+
+            ret.putAll(found);
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("findByUniqueAttribute(type={}, attrName={}): found {} of {} values", entityType.getTypeName(), attribute.getName(), ret.size(), values.size());
+        }
+
+        return ret;
+    }
+
     public static AtlasVertex findByGuid(String guid) {
-        AtlasGraphQuery query = AtlasGraphProvider.getGraphInstance().query()
-                                                  .has(Constants.GUID_PROPERTY_KEY, guid);
+        TransactionVertexCache cache  = TransactionVertexCache.get();
+        AtlasVertex            vertex = cache != null ? cache.getVertex(guid) : null;
 
-        Iterator<AtlasVertex> results = query.vertices().iterator();
+        if (vertex == null) {
+            AtlasGraphQuery query = AtlasGraphProvider.getGraphInstance().query()
+                                                      .has(Constants.GUID_PROPERTY_KEY, guid);
 
-        AtlasVertex vertex = results.hasNext() ? results.next() : null;
+            Iterator<AtlasVertex> results = query.vertices().iterator();
+
+            vertex = results.hasNext() ? results.next() : null;
+
+            if (vertex != null && cache != null) {
+                cache.putVertex(guid, vertex);
+            }
+        }
 
         return vertex;
     }
@@ -338,6 +403,63 @@ public class AtlasGraphUtilsV1 {
         return vertex;
     }
 
+    private static Map<Object, AtlasVertex> findByTypeAndPropertyValues(String typePropertyName, String typeName, String propertyName, List<Object> attrValues) {
+        Map<Object, AtlasVertex> ret = new HashMap<>();
+
+        if (attrValues.isEmpty()) {
+            return ret;
+        }
+
+        AtlasGraphQuery query = AtlasGraphProvider.getGraphInstance().query()
+                                                    .has(typePropertyName, typeName)
+                                                    .has(Constants.STATE_PROPERTY_KEY, AtlasEntity.Status.ACTIVE.name())
+                                                    .in(propertyName, attrValues);
+
+        for (Iterator<AtlasVertex> iter = query.vertices().iterator(); iter.hasNext(); ) {
+            AtlasVertex vertex = iter.next();
+            Object      value  = getMatchingValue(attrValues, vertex.getProperty(propertyName, Object.class), false);
+
+            if (value != null && !ret.containsKey(value)) {
+                ret.put(value, vertex);
+            }
+        }
+
+        return ret;
+    }
+
+    // returns the value in attrValues that matches vertexValue; values of numeric attributes could be of a different Number type
+    private static Object getMatchingValue(List<Object> attrValues, Object vertexValue, boolean ignoreCase) {
+        if (vertexValue == null) {
+            return null;
+        }
+
+        for (Object attrValue : attrValues) {
+            if (attrValue.equals(vertexValue)) {
+                return attrValue;
+            }
+        }
+
+        String vertexStr = vertexValue.toString();
+
+        for (Object attrValue : attrValues) {
+            if (ignoreCase ? vertexStr.equalsIgnoreCase(attrValue.toString()) : vertexStr.equals(attrValue.toString())) {
+                return attrValue;
+            }
+        }
+
+        return null;
+    }
+
+    private static boolean isAllStrings(List<Object> values) {
+        for (Object value : values) {
+            if (!(value instanceof String)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     public static List<String> findEntityGUIDsByType(String typename) {
         AtlasGraphQuery query = AtlasGraphProvider.getGraphInstance().query()
                                                   .has(Constants.ENTITY_TYPE_PROPERTY_KEY, typename);
@@ -448,7 +570,7 @@ public class AtlasGraphUtilsV1 {
 
     private static AtlasVertex getAtlasVertexFromIndexQuery(AtlasEntityType entityType, AtlasAttribute attribute, Object attrVal) {
         String          propertyName = attribute.getVertexPropertyName();
-        AtlasIndexQuery query        = getIndexQuery(entityType, propertyName, attrVal.toString());
+        AtlasIndexQuery query        = getIndexQuery(entityType, propertyName, AtlasAttribute.escapeIndexQueryValue(attrVal.toString()));
 
         for (Iterator<AtlasIndexQuery.Result> iter = query.vertices(); iter.hasNext(); ) {
             AtlasIndexQuery.Result result = iter.next();
@@ -485,12 +607,52 @@ public class AtlasGraphUtilsV1 {
         return null;
     }
 
-    private static AtlasIndexQuery getIndexQuery(AtlasEntityType entityType, String propertyName, String value) {
+    private static Map<Object, AtlasVertex> getAtlasVerticesFromIndexQuery(AtlasEntityType entityType, AtlasAttribute attribute, List<Object> attrValues) {
+        Map<Object, AtlasVertex> ret          = new HashMap<>();
+        String                   propertyName = attribute.getVertexPropertyName();
+        List<String>             values       = new ArrayList<>(attrValues.size());
+
+        for (Object attrValue : attrValues) {
+            values.add(attrValue.toString());
+        }
+
+        AtlasIndexQuery query = getIndexQuery(entityType, propertyName, AtlasAttribute.escapeIndexQueryValue(values));
+
+        for (Iterator<AtlasIndexQuery.Result> iter = query.vertices(); iter.hasNext(); ) {
+            AtlasIndexQuery.Result result = iter.next();
+            AtlasVertex            vertex = result.getVertex();
+
+            // skip non-entity vertices, if any got returned
+            if (vertex == null || !vertex.getPropertyKeys().contains(Constants.GUID_PROPERTY_KEY)) {
+                continue;
+            }
+
+            // verify the typeName
+            String typeNameInVertex = getTypeName(vertex);
+
+            if (!entityType.getTypeAndAllSubTypes().contains(typeNameInVertex)) {
+                LOG.warn("incorrect vertex type from index-query: expected='{}'; found='{}'", entityType.getTypeName(), typeNameInVertex);
+
+                continue;
+            }
+
+            Object value = getMatchingValue(attrValues, vertex.getProperty(propertyName, String.class), true);
+
+            if (value != null && !ret.containsKey(value)) {
+                ret.put(value, vertex);
+            }
+        }
+
+        return ret;
+    }
+
+    // valueExpr: escaped value, or expression of escaped values, to match propertyName with
+    private static AtlasIndexQuery getIndexQuery(AtlasEntityType entityType, String propertyName, String valueExpr) {
         StringBuilder sb = new StringBuilder();
 
         sb.append(INDEX_SEARCH_PREFIX + "\"").append(Constants.TYPE_NAME_PROPERTY_KEY).append("\":").append(entityType.getTypeAndAllSubTypesQryStr())
                 .append(" AND ")
-                .append(INDEX_SEARCH_PREFIX + "\"").append(propertyName).append("\":").append(AtlasAttribute.escapeIndexQueryValue(value))
+                .append(INDEX_SEARCH_PREFIX + "\"").append(propertyName).append("\":").append(valueExpr)
                 .append(" AND ")
                 .append(INDEX_SEARCH_PREFIX + "\"").append(Constants.STATE_PROPERTY_KEY).append("\":ACTIVE");
 
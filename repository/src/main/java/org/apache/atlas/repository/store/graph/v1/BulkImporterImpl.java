@@ -18,16 +18,20 @@
 package org.apache.atlas.repository.store.graph.v1;
 
 import com.google.common.annotations.VisibleForTesting;
+import org.apache.atlas.AtlasConfiguration;
 import org.apache.atlas.AtlasErrorCode;
 import org.apache.atlas.RequestContextV1;
 import org.apache.atlas.exception.AtlasBaseException;
 import org.apache.atlas.model.impexp.AtlasImportResult;
 import org.apache.atlas.model.instance.AtlasEntity;
+import org.apache.atlas.model.instance.AtlasEntity.AtlasEntitiesWithExtInfo;
 import org.apache.atlas.model.instance.AtlasEntity.AtlasEntityWithExtInfo;
 import org.apache.atlas.model.instance.AtlasEntityHeader;
 import org.apache.atlas.model.instance.EntityMutationResponse;
 import org.apache.atlas.repository.store.graph.AtlasEntityStore;
 import org.apache.atlas.repository.store.graph.BulkImporter;
+import org.apache.commons.collections.MapUtils;
+import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
@@ -66,41 +70,37 @@ public class BulkImporterImpl implements BulkImporter {
         Set<String>  processedGuids = new HashSet<>();
         float        currentPercent = 0f;
         List<String> residualList   = new ArrayList<>();
+        int          batchSize      = getBatchSize(importResult);
 
         EntityImportStreamWithResidualList entityImportStreamWithResidualList = new EntityImportStreamWithResidualList(entityStream, residualList);
 
-        while (entityImportStreamWithResidualList.hasNext()) {
-            AtlasEntityWithExtInfo entityWithExtInfo = entityImportStreamWithResidualList.getNextEntityWithExtInfo();
-            AtlasEntity            entity            = entityWithExtInfo != null ? entityWithExtInfo.getEntity() : null;
-
-            if (entity == null || processedGuids.contains(entity.getGuid())) {
-                continue;
-            }
+        if (batchSize > 1) {
+            LOG.info("bulkImport(): importing entities in batches of {}", batchSize);
 
-            AtlasEntityStreamForImport oneEntityStream = new AtlasEntityStreamForImport(entityWithExtInfo, entityStream);
+            BatchMetrics batchMetrics = new BatchMetrics();
 
-            try {
-                EntityMutationResponse resp = entityStore.createOrUpdateForImport(oneEntityStream);
+            while (entityImportStreamWithResidualList.hasNext()) {
+                List<Integer>                batchPositions = new ArrayList<>(batchSize);
+                List<AtlasEntityWithExtInfo> batch          = getNextBatch(entityImportStreamWithResidualList, processedGuids, batchSize, batchPositions);
 
-                if (resp.getGuidAssignments() != null) {
-                    ret.getGuidAssignments().putAll(resp.getGuidAssignments());
+                if (batch.isEmpty()) {
+                    continue;
                 }
 
-                currentPercent = updateImportMetrics(entityWithExtInfo, resp, importResult, processedGuids, entityStream.getPosition(), entityImportStreamWithResidualList.getStreamSize(), currentPercent);
+                currentPercent = processBatch(batch, batchPositions, entityStream, entityImportStreamWithResidualList, ret, importResult, processedGuids, residualList, currentPercent, batchMetrics);
+            }
 
-                entityStream.onImportComplete(entity.getGuid());
-            } catch (AtlasBaseException e) {
-                if (!updateResidualList(e, residualList, entityWithExtInfo.getEntity().getGuid())) {
-                    throw e;
-                }
-            } catch (Throwable e) {
-                AtlasBaseException abe = new AtlasBaseException(e);
+            batchMetrics.updateImportResult(importResult);
+        } else {
+            while (entityImportStreamWithResidualList.hasNext()) {
+                AtlasEntityWithExtInfo entityWithExtInfo = entityImportStreamWithResidualList.getNextEntityWithExtInfo();
+                AtlasEntity            entity            = entityWithExtInfo != null ? entityWithExtInfo.getEntity() : null;
 
-                if (!updateResidualList(abe, residualList, entityWithExtInfo.getEntity().getGuid())) {
-                    throw abe;
+                if (entity == null || processedGuids.contains(entity.getGuid())) {
+                    continue;
                 }
-            } finally {
-                RequestContextV1.clear();
+
+                currentPercent = processEntity(entityWithExtInfo, entityStream, entityImportStreamWithResidualList, ret, importResult, processedGuids, residualList, currentPercent);
             }
         }
 
@@ -110,6 +110,146 @@ public class BulkImporterImpl implements BulkImporter {
         return ret;
     }
 
+    private float processEntity(AtlasEntityWithExtInfo             entityWithExtInfo,
+                                EntityImportStream                 entityStream,
+                                EntityImportStreamWithResidualList entityImportStreamWithResidualList,
+                                EntityMutationResponse             ret,
+                                AtlasImportResult                  importResult,
+                                Set<String>                        processedGuids,
+                                List<String>                       residualList,
+                                float                              currentPercent) throws AtlasBaseException {
+        AtlasEntity                entity          = entityWithExtInfo.getEntity();
+        AtlasEntityStreamForImport oneEntityStream = new AtlasEntityStreamForImport(entityWithExtInfo, entityStream);
+
+        try {
+            EntityMutationResponse resp = entityStore.createOrUpdateForImport(oneEntityStream);
+
+            if (resp.getGuidAssignments() != null) {
+                ret.getGuidAssignments().putAll(resp.getGuidAssignments());
+            }
+
+            currentPercent = updateImportMetrics(entityWithExtInfo, resp, importResult, processedGuids, entityStream.getPosition(), entityImportStreamWithResidualList.getStreamSize(), currentPercent);
+
+            entityStream.onImportComplete(entity.getGuid());
+        } catch (AtlasBaseException e) {
+            if (!updateResidualList(e, residualList, entity.getGuid())) {
+                throw e;
+            }
+        } catch (Throwable e) {
+            AtlasBaseException abe = new AtlasBaseException(e);
+
+            if (!updateResidualList(abe, residualList, entity.getGuid())) {
+                throw abe;
+            }
+        } finally {
+            RequestContextV1.clear();
+        }
+
+        return currentPercent;
+    }
+
+    /**
+     * Creates/updates all entities in the batch in a single graph transaction. In case of failure the transaction is
+     * rolled back and the entities in the batch are processed one at a time, to isolate the failed entity and to
+     * add entities with unresolved references to the residual list.
+     */
+    private float processBatch(List<AtlasEntityWithExtInfo>       batch,
+                               List<Integer>                      batchPositions,
+                               EntityImportStream                 entityStream,
+                               EntityImportStreamWithResidualList entityImportStreamWithResidualList,
+                               EntityMutationResponse             ret,
+                               AtlasImportResult                  importResult,
+                               Set<String>                        processedGuids,
+                               List<String>                       residualList,
+                               float                              currentPercent,
+                               BatchMetrics                       batchMetrics) throws AtlasBaseException {
+        AtlasEntitiesWithExtInfo entitiesWithExtInfo = new AtlasEntitiesWithExtInfo();
+
+        for (AtlasEntityWithExtInfo entityWithExtInfo : batch) {
+            entitiesWithExtInfo.addEntity(entityWithExtInfo.getEntity());
+
+            if (MapUtils.isNotEmpty(entityWithExtInfo.getReferredEntities())) {
+                for (AtlasEntity referredEntity : entityWithExtInfo.getReferredEntities().values()) {
+                    entitiesWithExtInfo.addReferredEntity(referredEntity);
+                }
+            }
+        }
+
+        long    startTime = System.currentTimeMillis();
+        boolean isFailed  = false;
+
+        try {
+            EntityMutationResponse resp = entityStore.createOrUpdateForImport(new AtlasEntityStreamForImport(entitiesWithExtInfo, entityStream));
+
+            if (resp.getGuidAssignments() != null) {
+                ret.getGuidAssignments().putAll(resp.getGuidAssignments());
+            }
+
+            updateImportMetrics(resp, importResult, processedGuids);
+
+            for (int i = 0; i < batch.size(); i++) {
+                AtlasEntityWithExtInfo entityWithExtInfo = batch.get(i);
+
+                currentPercent = updateImportProgress(entityWithExtInfo, batchPositions.get(i), entityImportStreamWithResidualList.getStreamSize(), currentPercent);
+
+                entityStream.onImportComplete(entityWithExtInfo.getEntity().getGuid());
+            }
+        } catch (Throwable e) {
+            isFailed = true;
+
+            LOG.warn("bulkImport(): failed to import batch of {} entities; importing them one at a time. Error: {}", batch.size(), e.getMessage());
+        } finally {
+            RequestContextV1.clear();
+        }
+
+        batchMetrics.onBatchComplete(batch.size(), System.currentTimeMillis() - startTime, isFailed);
+
+        if (isFailed) {
+            for (AtlasEntityWithExtInfo entityWithExtInfo : batch) {
+                if (processedGuids.contains(entityWithExtInfo.getEntity().getGuid())) {
+                    continue;
+                }
+
+                currentPercent = processEntity(entityWithExtInfo, entityStream, entityImportStreamWithResidualList, ret, importResult, processedGuids, residualList, currentPercent);
+            }
+        }
+
+        return currentPercent;
+    }
+
+    // positions: position in the stream of each entity in the returned batch, to report the import progress
+    private List<AtlasEntityWithExtInfo> getNextBatch(EntityImportStreamWithResidualList entityImportStreamWithResidualList, Set<String> processedGuids, int batchSize, List<Integer> positions) {
+        List<AtlasEntityWithExtInfo> ret        = new ArrayList<>(batchSize);
+        Set<String>                  batchGuids = new HashSet<>();
+
+        while (ret.size() < batchSize && entityImportStreamWithResidualList.hasNext()) {
+            AtlasEntityWithExtInfo entityWithExtInfo = entityImportStreamWithResidualList.getNextEntityWithExtInfo();
+            AtlasEntity            entity            = entityWithExtInfo != null ? entityWithExtInfo.getEntity() : null;
+
+            if (entity == null || processedGuids.contains(entity.getGuid()) || !batchGuids.add(entity.getGuid())) {
+                continue;
+            }
+
+            ret.add(entityWithExtInfo);
+            positions.add(entityImportStreamWithResidualList.getPosition());
+        }
+
+        return ret;
+    }
+
+    private int getBatchSize(AtlasImportResult importResult) {
+        String batchSize = importResult.getRequest() != null ? importResult.getRequest().getBatchSize() : null;
+
+        if (StringUtils.isNotEmpty(batchSize)) {
+            try {
+                return Integer.parseInt(batchSize);
+            } catch (NumberFormatException excp) {
+                LOG.warn("bulkImport(): invalid batchSize {}; using default", batchSize);
+            }
+        }
+
+        return AtlasConfiguration.IMPORT_BATCH_SIZE.getInt();
+    }
 
     private boolean updateResidualList(AtlasBaseException e, List<String> lineageList, String guid) {
         if (!e.getAtlasErrorCode().getErrorCode().equals(AtlasErrorCode.INVALID_OBJECT_ID.getErrorCode())) {
@@ -126,10 +266,18 @@ public class BulkImporterImpl implements BulkImporter {
                                       AtlasImportResult                  importResult,
                                       Set<String>                        processedGuids,
                                       int currentIndex, int streamSize, float currentPercent) {
+        updateImportMetrics(resp, importResult, processedGuids);
+
+        return updateImportProgress(currentEntity, currentIndex, streamSize, currentPercent);
+    }
+
+    private void updateImportMetrics(EntityMutationResponse resp, AtlasImportResult importResult, Set<String> processedGuids) {
         updateImportMetrics("entity:%s:created", resp.getCreatedEntities(), processedGuids, importResult);
         updateImportMetrics("entity:%s:updated", resp.getUpdatedEntities(), processedGuids, importResult);
         updateImportMetrics("entity:%s:deleted", resp.getDeletedEntities(), processedGuids, importResult);
+    }
 
+    private float updateImportProgress(AtlasEntityWithExtInfo currentEntity, int currentIndex, int streamSize, float currentPercent) {
         String lastEntityImported = String.format("entity:last-imported:%s:[%s]:(%s)", currentEntity.getEntity().getTypeName(), currentIndex, currentEntity.getEntity().getGuid());
 
         return updateImportProgress(LOG, currentIndex + 1, streamSize, currentPercent, lastEntityImported);
@@ -166,6 +314,52 @@ public class BulkImporterImpl implements BulkImporter {
         }
     }
 
+    private static class BatchMetrics {
+        private int  batchCount    = 0;
+        private int  failedCount   = 0;
+        private int  entityCount   = 0;
+        private long totalDuration = 0;
+        private int  minThroughput = Integer.MAX_VALUE;
+        private int  maxThroughput = 0;
+
+        public void onBatchComplete(int batchSize, long duration, boolean isFailed) {
+            batchCount++;
+
+            if (isFailed) {
+                failedCount++;
+            } else {
+                int throughput = getThroughput(batchSize, duration);
+
+                entityCount   += batchSize;
+                totalDuration += duration;
+                minThroughput  = Math.min(minThroughput, throughput);
+                maxThroughput  = Math.max(maxThroughput, throughput);
+
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("bulkImport(): batch #{}: {} entities in {} ms ({} entities/sec)", batchCount, batchSize, duration, throughput);
+                }
+            }
+        }
+
+        public void updateImportResult(AtlasImportResult importResult) {
+            importResult.incrementMeticsCounter("batch:count", batchCount);
+            importResult.incrementMeticsCounter("batch:failed", failedCount);
+            importResult.incrementMeticsCounter("batch:entities", entityCount);
+            importResult.incrementMeticsCounter("batch:duration", (int) totalDuration);
+
+            if (entityCount > 0) {
+                importResult.incrementMeticsCounter("batch:throughput:avg", getThroughput(entityCount, totalDuration));
+                importResult.incrementMeticsCounter("batch:throughput:min", minThroughput);
+                importResult.incrementMeticsCounter("batch:throughput:max", maxThroughput);
+            }
+        }
+
+        // entities per second
+        private static int getThroughput(int entityCount, long duration) {
+            return (int) ((entityCount * 1000L) / Math.max(duration, 1));
+        }
+    }
+
     private static class EntityImportStreamWithResidualList {
         private final EntityImportStream stream;
         private final List<String>       residualList;
@@ -202,5 +396,9 @@ public class BulkImporterImpl implements BulkImporter {
         public int getStreamSize() {
             return stream.size() + residualList.size();
         }
+
+        public int getPosition() {
+            return stream.getPosition();
+        }
     }
 }
@@ -18,6 +18,7 @@
 package org.apache.atlas.repository.store.graph.v1;
 
 
+import com.google.common.annotations.VisibleForTesting;
 import org.apache.atlas.AtlasErrorCode;
 import org.apache.atlas.AtlasException;
 import org.apache.atlas.RequestContextV1;
@@ -29,9 +30,11 @@ import org.apache.atlas.model.typedef.AtlasStructDef.AtlasAttributeDef;
 import org.apache.atlas.repository.Constants;
 import org.apache.atlas.repository.graph.AtlasEdgeLabel;
 import org.apache.atlas.repository.graph.GraphHelper;
+import org.apache.atlas.repository.graph.TransactionVertexCache;
 import org.apache.atlas.repository.graphdb.AtlasEdge;
 import org.apache.atlas.repository.graphdb.AtlasEdgeDirection;
 import org.apache.atlas.repository.graphdb.AtlasVertex;
+import org.apache.atlas.services.EntityCounters;
 import org.apache.atlas.type.AtlasArrayType;
 import org.apache.atlas.type.AtlasEntityType;
 import org.apache.atlas.type.AtlasMapType;
@@ -45,6 +48,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.inject.Inject;
 import java.util.*;
 
 import static org.apache.atlas.model.instance.AtlasEntity.Status.DELETED;
@@ -71,6 +75,9 @@ public abstract class DeleteHandlerV1 {
 
     protected static final GraphHelper graphHelper = GraphHelper.getInstance();
 
+    @Inject
+    private EntityCounters entityCounters;
+
     public DeleteHandlerV1(AtlasTypeRegistry typeRegistry, boolean shouldUpdateInverseReference, boolean softDelete) {
         this.typeRegistry                  = typeRegistry;
         this.entityRetriever               = new EntityGraphRetriever(typeRegistry);
@@ -78,6 +85,11 @@ public abstract class DeleteHandlerV1 {
         this.softDelete                    = softDelete;
     }
 
+    @VisibleForTesting
+    void setEntityCounters(EntityCounters entityCounters) {
+        this.entityCounters = entityCounters;
+    }
+
     /**
      * Deletes the specified entity vertices.
      * Deletes any traits, composite entities, and structs owned by each entity.
@@ -112,8 +124,14 @@ public abstract class DeleteHandlerV1 {
 
         // Delete traits and vertices.
         for (AtlasVertex deletionCandidateVertex : deletionCandidateVertices) {
-            deleteAllTraits(deletionCandidateVertex);
+            String       typeName   = GraphHelper.getTypeName(deletionCandidateVertex);
+            List<String> traitNames = deleteAllTraits(deletionCandidateVertex);
+
             deleteTypeVertex(deletionCandidateVertex, false);
+
+            if (entityCounters != null) {
+                entityCounters.onEntityDeleted(typeName, traitNames, softDelete);
+            }
         }
     }
 
@@ -392,6 +410,8 @@ public abstract class DeleteHandlerV1 {
             for (String propagatedTraitName : propagatedTraitNames) {
                 addListProperty(entityVertex, PROPAGATED_TRAIT_NAMES_PROPERTY_KEY, propagatedTraitName);
             }
+
+            TransactionVertexCache.onPropertyUpdate(entityVertex);
         }
     }
 
@@ -487,9 +507,10 @@ public abstract class DeleteHandlerV1 {
     /**
      * Delete all traits from the specified vertex.
      * @param instanceVertex
+     * @return names of the deleted traits
      * @throws AtlasException
      */
-    private void deleteAllTraits(AtlasVertex instanceVertex) throws AtlasBaseException {
+    private List<String> deleteAllTraits(AtlasVertex instanceVertex) throws AtlasBaseException {
         String       typeName   = GraphHelper.getTypeName(instanceVertex);
         List<String> traitNames = GraphHelper.getTraitNames(instanceVertex);
 
@@ -502,6 +523,8 @@ public abstract class DeleteHandlerV1 {
 
             deleteEdgeReference(instanceVertex, relationshipLabel, TypeCategory.CLASSIFICATION, false);
         }
+
+        return traitNames;
     }
 
     protected AtlasAttribute getAttributeForEdge(String edgeLabel) throws AtlasBaseException {
@@ -39,10 +39,12 @@ import org.apache.atlas.repository.Constants;
 import org.apache.atlas.repository.RepositoryException;
 import org.apache.atlas.repository.converters.AtlasInstanceConverter;
 import org.apache.atlas.repository.graph.GraphHelper;
+import org.apache.atlas.repository.graph.TransactionVertexCache;
 import org.apache.atlas.repository.graphdb.AtlasEdge;
 import org.apache.atlas.repository.graphdb.AtlasGraph;
 import org.apache.atlas.repository.graphdb.AtlasVertex;
 import org.apache.atlas.repository.store.graph.AtlasRelationshipStore;
+import org.apache.atlas.services.EntityCounters;
 import org.apache.atlas.type.AtlasArrayType;
 import org.apache.atlas.type.AtlasClassificationType;
 import org.apache.atlas.type.AtlasEntityType;
@@ -105,11 +107,12 @@ public class EntityGraphMapper {
     private final AtlasEntityChangeNotifier entityChangeNotifier;
     private final AtlasInstanceConverter    instanceConverter;
     private final EntityGraphRetriever      entityRetriever;
+    private final EntityCounters            entityCounters;
 
     @Inject
     public EntityGraphMapper(DeleteHandlerV1 deleteHandler, AtlasTypeRegistry typeRegistry, AtlasGraph atlasGraph,
                              AtlasRelationshipStore relationshipStore, AtlasEntityChangeNotifier entityChangeNotifier,
-                             AtlasInstanceConverter instanceConverter) {
+                             AtlasInstanceConverter instanceConverter, EntityCounters entityCounters) {
         this.deleteHandler        = deleteHandler;
         this.typeRegistry         = typeRegistry;
         this.graph                = atlasGraph;
@@ -117,6 +120,7 @@ public class EntityGraphMapper {
         this.entityChangeNotifier = entityChangeNotifier;
         this.instanceConverter    = instanceConverter;
         this.entityRetriever      = new EntityGraphRetriever(typeRegistry);
+        this.entityCounters       = entityCounters;
     }
 
     public AtlasVertex createVertex(AtlasEntity entity) {
@@ -140,6 +144,14 @@ public class EntityGraphMapper {
         AtlasGraphUtilsV1.setProperty(ret, Constants.GUID_PROPERTY_KEY, guid);
         AtlasGraphUtilsV1.setProperty(ret, Constants.VERSION_PROPERTY_KEY, getEntityVersion(entity));
 
+        TransactionVertexCache cache = TransactionVertexCache.get();
+
+        if (cache != null) {
+            cache.putVertex(guid, ret);
+        }
+
+        entityCounters.onEntityCreated(entity.getTypeName());
+
         return ret;
     }
 
@@ -500,11 +512,13 @@ public class EntityGraphMapper {
                 elements = new ArrayList<>();
                 elements.add(newEdge.getId().toString());
                 inverseVertex.setProperty(propertyName, elements);
+                TransactionVertexCache.onPropertyUpdate(inverseVertex);
             }
             else {
                if (newEdge != null && !elements.contains(newEdge.getId().toString())) {
                     elements.add(newEdge.getId().toString());
                     inverseVertex.setProperty(propertyName, elements);
+                    TransactionVertexCache.onPropertyUpdate(inverseVertex);
                }
                else {
                    // Property value list already contains the edge ID.
@@ -1076,6 +1090,8 @@ public class EntityGraphMapper {
         else {
             vertex.setProperty(vertexPropertyName, value);
         }
+
+        TransactionVertexCache.onPropertyUpdate(vertex);
     }
 
     //Remove unused entries from map
@@ -1312,6 +1328,8 @@ public class EntityGraphMapper {
 
             final String                                entityTypeName        = AtlasGraphUtilsV1.getTypeName(entityVertex);
             final AtlasEntityType                       entityType            = typeRegistry.getEntityTypeByName(entityTypeName);
+            final boolean                               wasUntagged           = CollectionUtils.isEmpty(entityVertex.getPropertyValues(TRAIT_NAMES_PROPERTY_KEY, String.class));
+            List<String>                                classificationNames   = new ArrayList<>(classifications.size());
             List<AtlasVertex>                           entitiesToPropagateTo = null;
             Map<AtlasVertex, List<AtlasClassification>> propagations          = null;
 
@@ -1328,6 +1346,8 @@ public class EntityGraphMapper {
 
                 GraphHelper.addProperty(entityVertex, TRAIT_NAMES_PROPERTY_KEY, classificationName);
 
+                classificationNames.add(classificationName);
+
                 // add a new AtlasVertex for the struct or trait instance
                 AtlasVertex classificationVertex = createClassificationVertex(classification);
 
@@ -1376,6 +1396,8 @@ public class EntityGraphMapper {
                 }
             }
 
+            entityCounters.onClassificationsAdded(entityTypeName, classificationNames, wasUntagged);
+
             // notify listeners on classification addition
             List<AtlasVertex> notificationVertices = new ArrayList<AtlasVertex>() {{ add(entityVertex); }};
 
@@ -1456,6 +1478,8 @@ public class EntityGraphMapper {
 
         updateTraitNamesProperty(entityVertex, traitNames);
 
+        entityCounters.onClassificationsDeleted(getTypeName(entityVertex), classificationNames, traitNames.isEmpty());
+
         updateModificationMetadata(entityVertex);
 
         for (Map.Entry<AtlasVertex, List<String>> entry : removedClassifications.entrySet()) {
@@ -1686,6 +1710,8 @@ public class EntityGraphMapper {
             for (String traitName : traitNames) {
                 GraphHelper.addProperty(entityVertex, TRAIT_NAMES_PROPERTY_KEY, traitName);
             }
+
+            TransactionVertexCache.onPropertyUpdate(entityVertex);
         }
     }
 
@@ -20,6 +20,7 @@ package org.apache.atlas.repository.store.graph.v1;
 import org.apache.atlas.AtlasErrorCode;
 import org.apache.atlas.exception.AtlasBaseException;
 import org.apache.atlas.model.TimeBoundary;
+import org.apache.atlas.model.TypeCategory;
 import org.apache.atlas.model.instance.AtlasClassification;
 import org.apache.atlas.model.instance.AtlasEntity;
 import org.apache.atlas.model.instance.AtlasEntity.AtlasEntitiesWithExtInfo;
@@ -37,6 +38,7 @@ import org.apache.atlas.model.typedef.AtlasStructDef.AtlasAttributeDef;
 import org.apache.atlas.repository.Constants;
 import org.apache.atlas.repository.RepositoryException;
 import org.apache.atlas.repository.graph.GraphHelper;
+import org.apache.atlas.repository.graph.TransactionVertexCache;
 import org.apache.atlas.repository.graphdb.AtlasEdge;
 import org.apache.atlas.repository.graphdb.AtlasEdgeDirection;
 import org.apache.atlas.repository.graphdb.AtlasElement;
@@ -60,6 +62,7 @@ import org.slf4j.LoggerFactory;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
@@ -167,6 +170,41 @@ public final class EntityGraphRetriever {
         return atlasVertex != null ? mapVertexToAtlasEntityHeader(atlasVertex, attributes) : null;
     }
 
+    /**
+     * Maps the given vertices to entity headers, after loading the properties of all vertices in one graph query.
+     */
+    public List<AtlasEntityHeader> toAtlasEntityHeaders(List<AtlasVertex> entityVertices, Set<String> attributes) throws AtlasBaseException {
+        List<AtlasEntityHeader> ret = new ArrayList<>(entityVertices.size());
+
+        graphHelper.preloadProperties(entityVertices);
+
+        for (AtlasVertex entityVertex : entityVertices) {
+            ret.add(mapVertexToAtlasEntityHeader(entityVertex, attributes));
+        }
+
+        return ret;
+    }
+
+    /**
+     * Retrieves entity headers for the given guids, looking up all vertices in one graph query instead of
+     * one query per guid. Guids not found in the graph are not included in the returned map.
+     */
+    public Map<String, AtlasEntityHeader> toAtlasEntityHeaders(Collection<String> guids) throws AtlasBaseException {
+        Map<String, AtlasEntityHeader> ret = new HashMap<>();
+
+        if (CollectionUtils.isNotEmpty(guids)) {
+            Map<String, AtlasVertex> entityVertices = graphHelper.getVerticesForGUIDs(new ArrayList<>(guids));
+
+            graphHelper.preloadProperties(entityVertices.values());
+
+            for (Map.Entry<String, AtlasVertex> entry : entityVertices.entrySet()) {
+                ret.put(entry.getKey(), mapVertexToAtlasEntityHeader(entry.getValue()));
+            }
+        }
+
+        return ret;
+    }
+
     public AtlasEntityHeader toAtlasEntityHeaderWithClassifications(String guid) throws AtlasBaseException {
         return toAtlasEntityHeaderWithClassifications(getEntityVertex(guid), Collections.emptySet());
     }
@@ -434,15 +472,35 @@ public final class EntityGraphRetriever {
             throw new AtlasBaseException(AtlasErrorCode.TYPE_NAME_INVALID, struct.getTypeName());
         }
 
-        AtlasStructType structType = (AtlasStructType) objType;
+        AtlasStructType        structType = (AtlasStructType) objType;
+        TransactionVertexCache cache      = TransactionVertexCache.get();
 
         for (AtlasAttribute attribute : structType.getAllAttributes().values()) {
-            Object attrValue = mapVertexToAttribute(entityVertex, attribute, entityExtInfo);
+            Object attrValue;
+
+            if (cache != null && isCacheableAttribute(attribute)) {
+                if (cache.hasAttribute(entityVertex, attribute.getQualifiedName())) {
+                    attrValue = cache.getAttribute(entityVertex, attribute.getQualifiedName());
+                } else {
+                    attrValue = mapVertexToAttribute(entityVertex, attribute, entityExtInfo);
+
+                    cache.putAttribute(entityVertex, attribute.getQualifiedName(), attrValue);
+                }
+            } else {
+                attrValue = mapVertexToAttribute(entityVertex, attribute, entityExtInfo);
+            }
 
             struct.setAttribute(attribute.getName(), attrValue);
         }
     }
 
+    // values of primitive and enum attributes are read from vertex properties only, and are immutable
+    private boolean isCacheableAttribute(AtlasAttribute attribute) {
+        TypeCategory typeCategory = attribute.getAttributeType().getTypeCategory();
+
+        return typeCategory == TypeCategory.PRIMITIVE || typeCategory == TypeCategory.ENUM;
+    }
+
     public List<AtlasClassification> getAllClassifications(AtlasVertex entityVertex) throws AtlasBaseException {
         List<AtlasClassification> ret   = new ArrayList<>();
         Iterable                  edges = entityVertex.query().direction(AtlasEdgeDirection.OUT).label(CLASSIFICATION_LABEL).edges();
@@ -25,12 +25,17 @@ import org.apache.atlas.repository.graphdb.AtlasVertex;
 import org.apache.atlas.repository.store.graph.EntityGraphDiscoveryContext;
 import org.apache.atlas.repository.store.graph.EntityResolver;
 import org.apache.atlas.type.AtlasEntityType;
+import org.apache.atlas.type.AtlasStructType.AtlasAttribute;
 import org.apache.atlas.type.AtlasTypeRegistry;
+import org.apache.commons.collections.MapUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 
 public class UniqAttrBasedEntityResolver implements EntityResolver {
@@ -48,28 +53,108 @@ public class UniqAttrBasedEntityResolver implements EntityResolver {
             throw new AtlasBaseException(AtlasErrorCode.INTERNAL_ERROR, "UniqAttrBasedEntityResolver.resolveEntityReferences(): context is null");
         }
 
-        //Resolve attribute references
-        List<AtlasObjectId> resolvedReferences = new ArrayList<>();
+        // group references by type and unique attribute, to look up each group with one query
+        Map<UniqAttrKey, List<AtlasObjectId>> referencesByKey = new LinkedHashMap<>();
 
         for (AtlasObjectId objId : context.getReferencedByUniqAttribs()) {
-            //query in graph repo that given unique attribute - check for deleted also?
             AtlasEntityType entityType = typeRegistry.getEntityTypeByName(objId.getTypeName());
 
             if (entityType == null) {
                 throw new AtlasBaseException(AtlasErrorCode.TYPE_NAME_INVALID, TypeCategory.ENTITY.name(), objId.getTypeName());
             }
 
-            AtlasVertex vertex = AtlasGraphUtilsV1.findByUniqueAttributes(entityType, objId.getUniqueAttributes());
+            AtlasAttribute attribute = getFirstUniqueAttribute(entityType, objId.getUniqueAttributes());
 
-            if (vertex != null) {
-                context.addResolvedIdByUniqAttribs(objId, vertex);
-                resolvedReferences.add(objId);
-            } else {
+            if (attribute == null) {
                 throw new AtlasBaseException(AtlasErrorCode.REFERENCED_ENTITY_NOT_FOUND, objId.toString());
             }
+
+            UniqAttrKey         key        = new UniqAttrKey(entityType, attribute);
+            List<AtlasObjectId> references = referencesByKey.get(key);
+
+            if (references == null) {
+                references = new ArrayList<>();
+
+                referencesByKey.put(key, references);
+            }
+
+            references.add(objId);
+        }
+
+        for (Map.Entry<UniqAttrKey, List<AtlasObjectId>> entry : referencesByKey.entrySet()) {
+            AtlasEntityType     entityType = entry.getKey().entityType;
+            AtlasAttribute      attribute  = entry.getKey().attribute;
+            List<AtlasObjectId> references = entry.getValue();
+            List<Object>        attrValues = new ArrayList<>(references.size());
+
+            for (AtlasObjectId objId : references) {
+                attrValues.add(objId.getUniqueAttributes().get(attribute.getName()));
+            }
+
+            Map<Object, AtlasVertex> vertices = AtlasGraphUtilsV1.findByUniqueAttribute(entityType, attribute, attrValues);
+
+            for (AtlasObjectId objId : references) {
+                AtlasVertex vertex = vertices.get(objId.getUniqueAttributes().get(attribute.getName()));
+
+                if (vertex == null) { // not found by this attribute; try other unique attributes in objId, if any
+                    vertex = AtlasGraphUtilsV1.findByUniqueAttributes(entityType, objId.getUniqueAttributes());
+                }
+
+                if (vertex != null) {
+                    context.addResolvedIdByUniqAttribs(objId, vertex);
+                } else {
+                    throw new AtlasBaseException(AtlasErrorCode.REFERENCED_ENTITY_NOT_FOUND, objId.toString());
+                }
+            }
+
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("resolveEntityReferences(): resolved {} references to {} by {}", references.size(), entityType.getTypeName(), attribute.getName());
+            }
         }
 
         return context;
     }
-}
 
+    // unique attribute of the type, with a value in attrValues, that findByUniqueAttributes() would look up first
+    private AtlasAttribute getFirstUniqueAttribute(AtlasEntityType entityType, Map<String, Object> attrValues) {
+        if (MapUtils.isNotEmpty(entityType.getUniqAttributes()) && MapUtils.isNotEmpty(attrValues)) {
+            for (AtlasAttribute attribute : entityType.getUniqAttributes().values()) {
+                if (attrValues.get(attribute.getName()) != null) {
+                    return attribute;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private static class UniqAttrKey {
+        private final AtlasEntityType entityType;
+        private final AtlasAttribute  attribute;
+
+        UniqAttrKey(AtlasEntityType entityType, AtlasAttribute attribute) {
+            this.entityType = entityType;
+            this.attribute  = attribute;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            UniqAttrKey other = (UniqAttrKey) o;
+
+            return entityType.getTypeName().equals(other.entityType.getTypeName()) && attribute.getName().equals(other.attribute.getName());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(entityType.getTypeName(), attribute.getName());
+        }
+    }
+}
@@ -0,0 +1,749 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.services;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.apache.atlas.ApplicationProperties;
+import org.apache.atlas.AtlasConfiguration;
+import org.apache.atlas.AtlasException;
+import org.apache.atlas.GraphTransactionInterceptor;
+import org.apache.atlas.ha.HAConfiguration;
+import org.apache.atlas.listener.ActiveStateChangeHandler;
+import org.apache.atlas.model.instance.AtlasEntity;
+import org.apache.atlas.model.typedef.AtlasEntityDef;
+import org.apache.atlas.repository.Constants;
+import org.apache.atlas.repository.graphdb.AtlasGraph;
+import org.apache.atlas.repository.graphdb.AtlasVertex;
+import org.apache.atlas.type.AtlasType;
+import org.apache.atlas.type.AtlasTypeRegistry;
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Entity counts - per entity-type, per classification, deleted and tagged - maintained incrementally from entity
+ * create/delete and classification add/remove, instead of being recounted from the graph by MetricsService.
+ *
+ * Changes made in a graph transaction are applied to the counters after the transaction commits, and are discarded
+ * if it rolls back. The counters are flushed periodically to a file in the local data directory, and loaded from it
+ * on restart. As with the metric queries of MetricsService, the per entity-type counts include soft-deleted entities,
+ * which are also counted in the deleted count; classification and tagged counts are of active entities.
+ *
+ * Counters can drift from the graph - for example, with changes made since the last flush when the server stops
+ * abruptly, or made directly in the graph. The file is trusted on restart only if the server was shut down cleanly,
+ * as marked by a file written on close; otherwise, and on becoming the active instance in HA - when the file misses
+ * changes made on the other instance - the counters are reconciled. Reconciliation recounts entities from the graph
+ * in a background thread, reading each entity type with a single query and pausing after every batch of entities to
+ * limit the load on the graph, and replaces the counters with the result. Changes to entities of a type committed after
+ * its recount started are recorded, and added to the result before it replaces the counters; a change committed while
+ * its entity type is being read may also be seen by the read, and counted twice until the next reconciliation. Until
+ * the counters are loaded from the file or reconciled, MetricsService continues to query the graph.
+ */
+@Singleton
+@Component
+public class EntityCounters implements ActiveStateChangeHandler {
+    private static final Logger LOG = LoggerFactory.getLogger(EntityCounters.class);
+
+    public static final String METRIC_RECONCILE_IN_PROGRESS = "reconcileInProgress";
+    public static final String METRIC_RECONCILE_SCANNED     = "reconcileScannedEntities";
+    public static final String METRIC_LAST_RECONCILE_TIME   = "lastReconcileTime";
+    public static final String METRIC_LAST_FLUSH_TIME       = "lastFlushTime";
+
+    private static final String COUNTS_FILE_NAME         = "entity-counts.json";
+    private static final String CLEAN_SHUTDOWN_FILE_NAME = "entity-counts.clean";
+
+    private static final ThreadLocal<Map<String, CountsDelta>> transactionDeltas = new ThreadLocal<>();
+
+    private final boolean           isEnabled;
+    private final AtlasGraph        graph;
+    private final AtlasTypeRegistry typeRegistry;
+    private final File              countsFile;
+    private final File              cleanShutdownFile;
+    private final long              flushIntervalMs;
+    private final int               reconcileBatchSize;
+    private final long              reconcileBatchIntervalMs;
+    private final AtomicBoolean     isDirty           = new AtomicBoolean(false);
+    private final AtomicLong        reconcileScanned  = new AtomicLong();
+    private final Thread            flusher;
+    private final Object            reconcileLock     = new Object();
+    private volatile Counts         counts            = new Counts();
+    private volatile boolean        isInitialized     = false;
+    private volatile Thread         reconciler        = null;
+    private volatile long           lastReconcileTime = 0;
+    private volatile long           lastFlushTime     = 0;
+    private volatile boolean        isStopped         = false;
+
+    // changes committed while reconciling, by entity-type; guarded by reconcileLock
+    private Map<String, CountsDelta> reconcileDeltas = null;
+
+    @Inject
+    public EntityCounters(AtlasGraph graph, AtlasTypeRegistry typeRegistry) throws AtlasException {
+        this(graph, typeRegistry, AtlasConfiguration.METRICS_INCREMENTAL_ENABLED.getBoolean(),
+             getCountsDir(AtlasConfiguration.METRICS_INCREMENTAL_DIR.getString()),
+             AtlasConfiguration.METRICS_INCREMENTAL_FLUSH_INTERVAL_MS.getLong(),
+             AtlasConfiguration.METRICS_RECONCILE_BATCH_SIZE.getInt(),
+             AtlasConfiguration.METRICS_RECONCILE_BATCH_INTERVAL_MS.getLong());
+
+        // with HA, counters are reconciled on becoming active
+        if (!isInitialized && !HAConfiguration.isHAEnabled(ApplicationProperties.get())) {
+            startReconcile();
+        }
+    }
+
+    @VisibleForTesting
+    public EntityCounters(AtlasGraph graph, AtlasTypeRegistry typeRegistry, boolean isEnabled, File dir, long flushIntervalMs,
+                          int reconcileBatchSize, long reconcileBatchIntervalMs) {
+        this.isEnabled                = isEnabled;
+        this.graph                    = graph;
+        this.typeRegistry             = typeRegistry;
+        this.countsFile               = new File(dir, COUNTS_FILE_NAME);
+        this.cleanShutdownFile        = new File(dir, CLEAN_SHUTDOWN_FILE_NAME);
+        this.flushIntervalMs          = Math.max(flushIntervalMs, 1);
+        this.reconcileBatchSize       = Math.max(reconcileBatchSize, 1);
+        this.reconcileBatchIntervalMs = Math.max(reconcileBatchIntervalMs, 0);
+
+        if (isEnabled) {
+            load();
+
+            flusher = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    flushPeriodically();
+                }
+            }, "atlas-entity-counters-flusher");
+
+            flusher.setDaemon(true);
+            flusher.start();
+        } else {
+            flusher = null;
+        }
+
+        LOG.info("EntityCounters(isEnabled={}, dir={}, flushIntervalMs={}, reconcileBatchSize={}, reconcileBatchIntervalMs={}, isInitialized={})",
+                 isEnabled, dir, flushIntervalMs, reconcileBatchSize, reconcileBatchIntervalMs, isInitialized);
+    }
+
+    @Override
+    public void instanceIsActive() {
+        LOG.info("Reacting to active state: reconciling entity counters");
+
+        isInitialized = false; // counts in the local file miss changes made while another instance was active
+
+        startReconcile();
+    }
+
+    @Override
+    public void instanceIsPassive() {
+        LOG.info("Reacting to passive state: stopping reconciliation of entity counters");
+
+        stopReconcile();
+    }
+
+    @Override
+    public int getHandlerOrder() {
+        return HandlerOrder.ENTITY_COUNTERS.getOrder();
+    }
+
+    public boolean isEnabled() {
+        return isEnabled;
+    }
+
+    /**
+     * Returns true once the counters are loaded from the file or reconciled with the graph - i.e. can be used as
+     * entity counts.
+     */
+    public boolean isInitialized() {
+        return isEnabled && isInitialized;
+    }
+
+    public boolean isReconcileInProgress() {
+        return reconciler != null;
+    }
+
+    public void onEntityCreated(String typeName) {
+        CountsDelta delta = getTransactionDelta(typeName);
+
+        if (delta != null) {
+            delta.entities++;
+        }
+    }
+
+    // a soft-deleted entity remains in the count of its type
+    public void onEntityDeleted(String typeName, Collection<String> traitNames, boolean isSoftDelete) {
+        CountsDelta delta = getTransactionDelta(typeName);
+
+        if (delta != null) {
+            if (isSoftDelete) {
+                delta.deleted++;
+            } else {
+                delta.entities--;
+            }
+
+            if (CollectionUtils.isNotEmpty(traitNames)) {
+                for (String traitName : traitNames) {
+                    delta.addTag(traitName, -1);
+                }
+
+                delta.tagged--;
+            }
+        }
+    }
+
+    public void onClassificationsAdded(String entityTypeName, Collection<String> classificationNames, boolean wasUntagged) {
+        CountsDelta delta = getTransactionDelta(entityTypeName);
+
+        if (delta != null && CollectionUtils.isNotEmpty(classificationNames)) {
+            for (String classificationName : classificationNames) {
+                delta.addTag(classificationName, 1);
+            }
+
+            if (wasUntagged) {
+                delta.tagged++;
+            }
+        }
+    }
+
+    public void onClassificationsDeleted(String entityTypeName, Collection<String> classificationNames, boolean isUntagged) {
+        CountsDelta delta = getTransactionDelta(entityTypeName);
+
+        if (delta != null && CollectionUtils.isNotEmpty(classificationNames)) {
+            for (String classificationName : classificationNames) {
+                delta.addTag(classificationName, -1);
+            }
+
+            if (isUntagged) {
+                delta.tagged--;
+            }
+        }
+    }
+
+    public Map<String, Long> getEntityCounts() {
+        return counts.getEntityCounts();
+    }
+
+    public Map<String, Long> getTagCounts() {
+        return counts.getTagCounts();
+    }
+
+    public long getDeletedCount() {
+        return counts.deleted.get();
+    }
+
+    public long getTaggedCount() {
+        return counts.tagged.get();
+    }
+
+    public Map<String, Number> getMetrics() {
+        Map<String, Number> ret = new LinkedHashMap<>();
+
+        ret.put(METRIC_RECONCILE_IN_PROGRESS, isReconcileInProgress() ? 1 : 0);
+        ret.put(METRIC_RECONCILE_SCANNED, reconcileScanned.get());
+        ret.put(METRIC_LAST_RECONCILE_TIME, lastReconcileTime);
+        ret.put(METRIC_LAST_FLUSH_TIME, lastFlushTime);
+
+        return ret;
+    }
+
+    /**
+     * Starts recounting entities from the graph in a background thread.
+     *
+     * @return false if reconciliation is disabled or is already in progress
+     */
+    public synchronized boolean startReconcile() {
+        if (!isEnabled || isStopped || reconciler != null) {
+            return false;
+        }
+
+        reconciler = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    reconcile();
+                } catch (InterruptedException e) {
+                    LOG.info("entity counters reconciliation stopped after scanning {} entities", reconcileScanned.get());
+                } catch (Throwable t) {
+                    LOG.error("entity counters reconciliation failed", t);
+                } finally {
+                    reconciler = null;
+                }
+            }
+        }, "atlas-entity-counters-reconciler");
+
+        reconciler.setDaemon(true);
+        reconciler.start();
+
+        return true;
+    }
+
+    /**
+     * Writes the counters to the file, and marks the shutdown as clean only if they are complete and written.
+     */
+    @PreDestroy
+    public void close() {
+        isStopped = true;
+
+        for (Thread thread : new Thread[] { flusher, reconciler }) {
+            stopThread(thread);
+        }
+
+        if (isEnabled && isInitialized) {
+            isDirty.set(true);
+
+            if (flush()) {
+                try {
+                    Files.write(cleanShutdownFile.toPath(), new byte[0]);
+                } catch (IOException excp) {
+                    LOG.error("failed to create {}: entity counts will be reconciled on restart", cleanShutdownFile, excp);
+                }
+            }
+        }
+    }
+
+    @VisibleForTesting
+    void reconcile() throws InterruptedException {
+        LOG.info("==> EntityCounters.reconcile()");
+
+        long   startTime = System.currentTimeMillis();
+        Counts recounted = new Counts();
+
+        reconcileScanned.set(0);
+
+        synchronized (reconcileLock) {
+            reconcileDeltas = new HashMap<>();
+        }
+
+        try {
+            for (AtlasEntityDef entityDef : typeRegistry.getAllEntityDefs()) {
+                if (!recount(recounted, entityDef.getName())) {
+                    LOG.info("<== EntityCounters.reconcile(): stopped after scanning {} entities", reconcileScanned.get());
+
+                    return;
+                }
+            }
+
+            // no change is applied between adding the recorded changes and replacing the counters
+            synchronized (reconcileLock) {
+                for (Map.Entry<String, CountsDelta> entry : reconcileDeltas.entrySet()) {
+                    recounted.add(entry.getKey(), entry.getValue());
+                }
+
+                counts            = recounted;
+                isInitialized     = true;
+                lastReconcileTime = System.currentTimeMillis();
+            }
+        } finally {
+            synchronized (reconcileLock) {
+                reconcileDeltas = null;
+            }
+        }
+
+        isDirty.set(true);
+
+        flush();
+
+        LOG.info("<== EntityCounters.reconcile(): scanned {} entities in {}ms", reconcileScanned.get(), lastReconcileTime - startTime);
+    }
+
+    // reads the entities of the type with a single query, pausing after every batch; returns false if stopped
+    private boolean recount(Counts recounted, String typeName) throws InterruptedException {
+        // changes committed from now on may not be seen by the query
+        synchronized (reconcileLock) {
+            reconcileDeltas.put(typeName, new CountsDelta());
+        }
+
+        try {
+            Iterator<AtlasVertex> vertices = graph.query().has(Constants.ENTITY_TYPE_PROPERTY_KEY, typeName).vertices().iterator();
+
+            for (int batchCount = 0; vertices.hasNext(); ) {
+                if (batchCount == reconcileBatchSize) {
+                    batchCount = 0;
+
+                    if (reconcileBatchIntervalMs > 0) {
+                        Thread.sleep(reconcileBatchIntervalMs);
+                    }
+                }
+
+                if (batchCount == 0 && isReconcileStopped()) {
+                    return false;
+                }
+
+                AtlasVertex vertex = vertices.next();
+                String      state  = vertex.getProperty(Constants.STATE_PROPERTY_KEY, String.class);
+
+                batchCount++;
+                reconcileScanned.incrementAndGet();
+
+                recounted.addEntity(typeName, 1);
+
+                if (StringUtils.equals(state, AtlasEntity.Status.DELETED.name())) {
+                    recounted.deleted.incrementAndGet();
+
+                    continue;
+                }
+
+                Collection<String> traitNames = vertex.getPropertyValues(Constants.TRAIT_NAMES_PROPERTY_KEY, String.class);
+
+                if (CollectionUtils.isNotEmpty(traitNames)) {
+                    for (String traitName : traitNames) {
+                        recounted.addTag(traitName, 1);
+                    }
+
+                    recounted.tagged.incrementAndGet();
+                }
+            }
+        } finally {
+            graph.rollback(); // read-only; releases the vertices read for the type
+        }
+
+        return true;
+    }
+
+    private boolean isReconcileStopped() {
+        return isStopped || Thread.currentThread().isInterrupted();
+    }
+
+    private void stopReconcile() {
+        stopThread(reconciler);
+    }
+
+    private static void stopThread(Thread thread) {
+        if (thread != null) {
+            thread.interrupt();
+
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // counts are not written until initialized, as they would otherwise be taken as complete on restart;
+    // returns true if the counts were written
+    @VisibleForTesting
+    boolean flush() {
+        if (!isInitialized || !isDirty.compareAndSet(true, false)) {
+            return false;
+        }
+
+        try {
+            File dir     = countsFile.getParentFile();
+            File tmpFile = new File(dir, COUNTS_FILE_NAME + ".tmp");
+
+            if (!dir.exists() && !dir.mkdirs()) {
+                throw new IOException("failed to create directory " + dir);
+            }
+
+            Files.write(tmpFile.toPath(), AtlasType.toJson(counts.toSnapshot()).getBytes(StandardCharsets.UTF_8));
+            Files.move(tmpFile.toPath(), countsFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            lastFlushTime = System.currentTimeMillis();
+
+            return true;
+        } catch (IOException excp) {
+            isDirty.set(true);
+
+            LOG.error("failed to write entity counts to {}", countsFile, excp);
+
+            return false;
+        }
+    }
+
+    private void load() {
+        if (!countsFile.exists()) {
+            LOG.info("{} not found: entity counts will be available after reconciliation", countsFile);
+
+            return;
+        }
+
+        // the marker is removed while running, so that the counts are not trusted after an abrupt stop
+        boolean wasShutdownCleanly = cleanShutdownFile.exists();
+
+        if (wasShutdownCleanly && !cleanShutdownFile.delete()) {
+            LOG.warn("failed to delete {}: entity counts will be reconciled", cleanShutdownFile);
+
+            wasShutdownCleanly = false;
+        }
+
+        if (!wasShutdownCleanly) {
+            LOG.info("{} may miss changes, as the server was not shut down cleanly: entity counts will be available after reconciliation", countsFile);
+
+            return;
+        }
+
+        try {
+            String               json     = new String(Files.readAllBytes(countsFile.toPath()), StandardCharsets.UTF_8);
+            EntityCountsSnapshot snapshot = AtlasType.fromJson(json, EntityCountsSnapshot.class);
+
+            if (snapshot != null) {
+                counts        = new Counts(snapshot);
+                isInitialized = true;
+                lastFlushTime = snapshot.getTime();
+            }
+        } catch (Exception excp) {
+            LOG.error("failed to read entity counts from {}: entity counts will be available after reconciliation", countsFile, excp);
+        }
+    }
+
+    private void flushPeriodically() {
+        while (!isStopped) {
+            try {
+                Thread.sleep(flushIntervalMs);
+            } catch (InterruptedException e) {
+                break;
+            }
+
+            flush();
+        }
+    }
+
+    // counts changes of the current transaction to entities of the type, to be applied after it commits
+    private CountsDelta getTransactionDelta(String typeName) {
+        if (!isEnabled) {
+            return null;
+        }
+
+        Map<String, CountsDelta> trxDeltas = transactionDeltas.get();
+
+        if (trxDeltas == null) {
+            final Map<String, CountsDelta> deltas = new HashMap<>();
+
+            transactionDeltas.set(deltas);
+
+            new GraphTransactionInterceptor.PostTransactionHook() {
+                @Override
+                public void onComplete(boolean isSuccess) {
+                    transactionDeltas.remove();
+
+                    if (isSuccess) {
+                        apply(deltas);
+                    }
+                }
+            };
+
+            trxDeltas = deltas;
+        }
+
+        CountsDelta ret = trxDeltas.get(typeName);
+
+        if (ret == null) {
+            ret = new CountsDelta();
+
+            trxDeltas.put(typeName, ret);
+        }
+
+        return ret;
+    }
+
+    // changes are also recorded for the entity-types being reconciled, to be added to the recount
+    private void apply(Map<String, CountsDelta> deltas) {
+        synchronized (reconcileLock) {
+            Counts counts = this.counts;
+
+            for (Map.Entry<String, CountsDelta> entry : deltas.entrySet()) {
+                counts.add(entry.getKey(), entry.getValue());
+
+                CountsDelta recorded = reconcileDeltas != null ? reconcileDeltas.get(entry.getKey()) : null;
+
+                if (recorded != null) {
+                    recorded.add(entry.getValue());
+                }
+            }
+        }
+
+        isDirty.set(true);
+    }
+
+    private static File getCountsDir(String dir) {
+        if (StringUtils.isNotEmpty(dir)) {
+            return new File(dir);
+        }
+
+        return new File(System.getProperty("atlas.data", System.getProperty("java.io.tmpdir")), "metrics");
+    }
+
+    // changes to the counts of entities of a type
+    private static class CountsDelta {
+        private final Map<String, Long> tags     = new HashMap<>();
+        private long                    entities = 0;
+        private long                    deleted  = 0;
+        private long                    tagged   = 0;
+
+        void addTag(String classificationName, long delta) {
+            Long value = tags.get(classificationName);
+
+            tags.put(classificationName, value == null ? delta : value + delta);
+        }
+
+        void add(CountsDelta other) {
+            for (Map.Entry<String, Long> entry : other.tags.entrySet()) {
+                addTag(entry.getKey(), entry.getValue());
+            }
+
+            entities += other.entities;
+            deleted  += other.deleted;
+            tagged   += other.tagged;
+        }
+    }
+
+    private static class Counts {
+        private final ConcurrentMap<String, AtomicLong> entities = new ConcurrentHashMap<>();
+        private final ConcurrentMap<String, AtomicLong> tags     = new ConcurrentHashMap<>();
+        private final AtomicLong                        deleted  = new AtomicLong();
+        private final AtomicLong                        tagged   = new AtomicLong();
+
+        Counts() {
+        }
+
+        Counts(EntityCountsSnapshot snapshot) {
+            if (snapshot.getEntities() != null) {
+                for (Map.Entry<String, Long> entry : snapshot.getEntities().entrySet()) {
+                    addEntity(entry.getKey(), entry.getValue());
+                }
+            }
+
+            if (snapshot.getTags() != null) {
+                for (Map.Entry<String, Long> entry : snapshot.getTags().entrySet()) {
+                    addTag(entry.getKey(), entry.getValue());
+                }
+            }
+
+            deleted.set(snapshot.getDeleted());
+            tagged.set(snapshot.getTagged());
+        }
+
+        void addEntity(String typeName, long delta) {
+            add(entities, typeName, delta);
+        }
+
+        void addTag(String classificationName, long delta) {
+            add(tags, classificationName, delta);
+        }
+
+        void add(String typeName, CountsDelta delta) {
+            addEntity(typeName, delta.entities);
+
+            for (Map.Entry<String, Long> entry : delta.tags.entrySet()) {
+                addTag(entry.getKey(), entry.getValue());
+            }
+
+            deleted.addAndGet(delta.deleted);
+            tagged.addAndGet(delta.tagged);
+        }
+
+        Map<String, Long> getEntityCounts() {
+            return toMap(entities);
+        }
+
+        Map<String, Long> getTagCounts() {
+            return toMap(tags);
+        }
+
+        EntityCountsSnapshot toSnapshot() {
+            EntityCountsSnapshot ret = new EntityCountsSnapshot();
+
+            ret.setTime(System.currentTimeMillis());
+            ret.setEntities(getEntityCounts());
+            ret.setTags(getTagCounts());
+            ret.setDeleted(deleted.get());
+            ret.setTagged(tagged.get());
+
+            return ret;
+        }
+
+        private static void add(ConcurrentMap<String, AtomicLong> map, String key, long delta) {
+            AtomicLong value = map.get(key);
+
+            if (value == null) {
+                AtomicLong existing = map.putIfAbsent(key, value = new AtomicLong());
+
+                if (existing != null) {
+                    value = existing;
+                }
+            }
+
+            value.addAndGet(delta);
+        }
+
+        // counters that dropped to zero are left out
+        private static Map<String, Long> toMap(ConcurrentMap<String, AtomicLong> map) {
+            Map<String, Long> ret = new HashMap<>();
+
+            for (Map.Entry<String, AtomicLong> entry : map.entrySet()) {
+                long value = entry.getValue().get();
+
+                if (value > 0) {
+                    ret.put(entry.getKey(), value);
+                }
+            }
+
+            return ret;
+        }
+    }
+
+    public static class EntityCountsSnapshot {
+        private long              time;
+        private Map<String, Long> entities;
+        private Map<String, Long> tags;
+        private long              deleted;
+        private long              tagged;
+
+        public EntityCountsSnapshot() {
+        }
+
+        public long getTime() { return time; }
+
+        public void setTime(long time) { this.time = time; }
+
+        public Map<String, Long> getEntities() { return entities; }
+
+        public void setEntities(Map<String, Long> entities) { this.entities = entities; }
+
+        public Map<String, Long> getTags() { return tags; }
+
+        public void setTags(Map<String, Long> tags) { this.tags = tags; }
+
+        public long getDeleted() { return deleted; }
+
+        public void setDeleted(long deleted) { this.deleted = deleted; }
+
+        public long getTagged() { return tagged; }
+
+        public void setTagged(long tagged) { this.tagged = tagged; }
+    }
+}
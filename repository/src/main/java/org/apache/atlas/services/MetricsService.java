@@ -20,10 +20,25 @@ package org.apache.atlas.services;
 import com.google.common.annotations.VisibleForTesting;
 import org.apache.atlas.ApplicationProperties;
 import org.apache.atlas.AtlasException;
+import org.apache.atlas.GraphTransactionInterceptor;
 import org.apache.atlas.annotation.AtlasService;
+import org.apache.atlas.discovery.AtlasLineageCache;
 import org.apache.atlas.exception.AtlasBaseException;
 import org.apache.atlas.model.metrics.AtlasMetrics;
+import org.apache.atlas.model.typedef.AtlasBaseTypeDef;
+import org.apache.atlas.model.typedef.AtlasClassificationDef;
+import org.apache.atlas.model.typedef.AtlasEntityDef;
+import org.apache.atlas.model.typedef.AtlasRelationshipDef;
+import org.apache.atlas.model.typedef.AtlasStructDef;
+import org.apache.atlas.model.typedef.AtlasStructDef.AtlasAttributeDef;
+import org.apache.atlas.query.DSLQueryCache;
+import org.apache.atlas.repository.graph.AsyncFullTextIndexer;
 import org.apache.atlas.repository.graphdb.AtlasGraph;
+import org.apache.atlas.repository.outbox.EntityChangeOutbox;
+import org.apache.atlas.repository.store.graph.v1.AtlasGraphUtilsV1;
+import org.apache.atlas.type.AtlasTypeRegistry;
+import org.apache.atlas.type.AtlasTypeUtil;
+import org.apache.atlas.typesystem.types.DataTypes.TypeCategory;
 import org.apache.atlas.util.AtlasGremlinQueryProvider;
 import org.apache.atlas.util.AtlasGremlinQueryProvider.AtlasGremlinQuery;
 import org.apache.commons.configuration.Configuration;
@@ -31,18 +46,31 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @AtlasService
 public class MetricsService {
     private static final Logger LOG = LoggerFactory.getLogger(MetricsService.class);
 
     // Query Category constants
-    public static final String TYPE    = "type";
-    public static final String ENTITY  = "entity";
-    public static final String TAG     = "tag";
-    public static final String GENERAL = "general";
+    public static final String TYPE     = "type";
+    public static final String ENTITY   = "entity";
+    public static final String TAG      = "tag";
+    public static final String GENERAL  = "general";
+    public static final String GREMLIN  = "gremlin";
+    public static final String LINEAGE  = "lineage";
+    public static final String OUTBOX   = "outbox";
+    public static final String FULLTEXT = "fullText";
+    public static final String LOCK     = "entityLock";
+    public static final String HOT_LOCK = "entityLockHotGuids";
+    public static final String DSL      = "dslQueryCache";
+    public static final String COUNTERS = "entityCounters";
 
     // Query names
     protected static final String METRIC_TYPE_COUNT        = TYPE + "Count";
@@ -63,14 +91,49 @@ public class MetricsService {
 
     public static final String METRIC_COLLECTION_TIME = "collectionTime";
 
+    private static final int HOT_LOCK_MAX_COUNT = 10;
+
+    // type names and categories referred by the metric queries; passed as bindings to keep the query text constant
+    private static final Map<String, Object> METRIC_QUERY_BINDINGS;
+
+    static {
+        Map<String, Object> bindings = new HashMap<>();
+
+        bindings.put("typeSystemVertexType", AtlasGraphUtilsV1.VERTEX_TYPE);
+        bindings.put("traitCategory", TypeCategory.TRAIT.name());
+        bindings.put("classCategory", TypeCategory.CLASS.name());
+        bindings.put("referenceableTypeName", "Referenceable");
+
+        METRIC_QUERY_BINDINGS = Collections.unmodifiableMap(bindings);
+    }
+
     private static Configuration            configuration = null;
     private static AtlasGremlinQueryProvider gremlinQueryProvider = null;
 
     private final AtlasGraph                atlasGraph;
     private final int                       cacheTTLInSecs;
 
-    private AtlasMetrics cachedMetrics       = null;
-    private long         cacheExpirationTime = 0;
+    @Inject
+    private AtlasLineageCache lineageCache;
+
+    @Inject
+    private EntityChangeOutbox entityChangeOutbox;
+
+    @Inject
+    private AsyncFullTextIndexer fullTextIndexer;
+
+    @Inject
+    private DSLQueryCache dslQueryCache;
+
+    @Inject
+    private EntityCounters entityCounters;
+
+    @Inject
+    private AtlasTypeRegistry typeRegistry;
+
+    private volatile AtlasMetrics cachedMetrics       = null;
+    private volatile long         cacheCollectionTime = 0;
+    private volatile long         cacheExpirationTime = 0;
 
 
     @Inject
@@ -88,39 +151,242 @@ public class MetricsService {
         gremlinQueryProvider = AtlasGremlinQueryProvider.INSTANCE;
     }
 
-    @SuppressWarnings("unchecked")
     public AtlasMetrics getMetrics(boolean ignoreCache) {
+        final AtlasMetrics metrics;
+
+        if (entityCounters != null && entityCounters.isInitialized()) {
+            metrics = getCounterMetrics();
+        } else {
+            metrics = copyOf(getQueryMetrics(ignoreCache));
+        }
+
+        addGremlinScriptMetrics(metrics);
+        addLineageCacheMetrics(metrics);
+        addOutboxMetrics(metrics);
+        addFullTextIndexerMetrics(metrics);
+        addEntityLockMetrics(metrics);
+        addDslQueryCacheMetrics(metrics);
+        addEntityCountersMetrics(metrics);
+
+        return metrics;
+    }
+
+    /**
+     * Starts recounting entities from the graph, to reconcile incrementally maintained entity counts.
+     *
+     * @return false if incremental entity counts are disabled, or a reconciliation is already in progress
+     */
+    public boolean reconcileEntityCounts() {
+        return entityCounters != null && entityCounters.startReconcile();
+    }
+
+    // entity counts maintained by EntityCounters - cheap to collect, hence are refreshed on every call. Like the metric
+    // queries, entity counts include deleted entities
+    private AtlasMetrics getCounterMetrics() {
+        AtlasMetrics      ret          = new AtlasMetrics();
+        Map<String, Long> entityCounts = entityCounters.getEntityCounts();
+        Map<String, Long> tagCounts    = entityCounters.getTagCounts();
+        long              entityCount  = 0;
+
+        for (Map.Entry<String, Long> entry : entityCounts.entrySet()) {
+            ret.addData(ENTITY, entry.getKey(), entry.getValue());
+
+            entityCount += entry.getValue();
+        }
+
+        for (Map.Entry<String, Long> entry : tagCounts.entrySet()) {
+            ret.addData(TAG, entry.getKey(), entry.getValue());
+        }
+
+        if (typeRegistry != null) {
+            ret.addData(GENERAL, METRIC_TYPE_COUNT, typeRegistry.getAllEnumDefs().size() + typeRegistry.getAllStructDefs().size() +
+                                                    typeRegistry.getAllEntityDefs().size() + typeRegistry.getAllRelationshipDefs().size());
+            ret.addData(GENERAL, METRIC_TYPE_UNUSED_COUNT, getUnusedTypeCount(typeRegistry));
+            ret.addData(GENERAL, METRIC_TAG_COUNT, typeRegistry.getAllClassificationDefs().size());
+        }
+
+        ret.addData(GENERAL, METRIC_ENTITY_COUNT, entityCount);
+        ret.addData(GENERAL, METRIC_ENTITY_DELETED, entityCounters.getDeletedCount());
+        ret.addData(ENTITY, METRIC_TAGGED_ENTITIES, entityCounters.getTaggedCount());
+        ret.addData(GENERAL, METRIC_COLLECTION_TIME, System.currentTimeMillis());
+
+        return ret;
+    }
+
+    // as TYPE_UNUSED_COUNT_METRIC counts type vertices without incoming edges: non-classification types that are not
+    // a super-type, an attribute type, a relationship end or an entity-type of a classification
+    @VisibleForTesting
+    static int getUnusedTypeCount(AtlasTypeRegistry typeRegistry) {
+        Set<String> referredTypeNames = new HashSet<>();
+
+        for (AtlasEntityDef entityDef : typeRegistry.getAllEntityDefs()) {
+            referredTypeNames.addAll(entityDef.getSuperTypes());
+
+            addAttributeTypeNames(referredTypeNames, entityDef);
+        }
+
+        for (AtlasStructDef structDef : typeRegistry.getAllStructDefs()) {
+            addAttributeTypeNames(referredTypeNames, structDef);
+        }
+
+        for (AtlasClassificationDef classificationDef : typeRegistry.getAllClassificationDefs()) {
+            addAttributeTypeNames(referredTypeNames, classificationDef);
+
+            if (classificationDef.getEntityTypes() != null) {
+                referredTypeNames.addAll(classificationDef.getEntityTypes());
+            }
+        }
+
+        for (AtlasRelationshipDef relationshipDef : typeRegistry.getAllRelationshipDefs()) {
+            referredTypeNames.add(relationshipDef.getEndDef1().getType());
+            referredTypeNames.add(relationshipDef.getEndDef2().getType());
+        }
+
+        return getUnreferredCount(typeRegistry.getAllEnumDefs(), referredTypeNames) + getUnreferredCount(typeRegistry.getAllStructDefs(), referredTypeNames) +
+               getUnreferredCount(typeRegistry.getAllEntityDefs(), referredTypeNames) + getUnreferredCount(typeRegistry.getAllRelationshipDefs(), referredTypeNames);
+    }
+
+    private static int getUnreferredCount(Collection<? extends AtlasBaseTypeDef> typeDefs, Set<String> referredTypeNames) {
+        int ret = 0;
+
+        for (AtlasBaseTypeDef typeDef : typeDefs) {
+            if (!referredTypeNames.contains(typeDef.getName())) {
+                ret++;
+            }
+        }
+
+        return ret;
+    }
+
+    private static void addAttributeTypeNames(Set<String> typeNames, AtlasStructDef structDef) {
+        if (structDef.getAttributeDefs() != null) {
+            for (AtlasAttributeDef attributeDef : structDef.getAttributeDefs()) {
+                typeNames.addAll(AtlasTypeUtil.getReferencedTypeNames(attributeDef.getTypeName()));
+            }
+        }
+    }
+
+    // only one caller runs the queries when the cache expires; concurrent callers wait for, and use, its result
+    private AtlasMetrics getQueryMetrics(boolean ignoreCache) {
         if (ignoreCache || !isCacheValid()) {
-            AtlasMetrics metrics = new AtlasMetrics();
-
-            for (MetricQuery metricQuery : MetricQuery.values()) {
-                try {
-                    if (LOG.isDebugEnabled()) {
-                        LOG.debug("Executing query: {}", metricQuery);
-                    }
-                    executeGremlinQuery(metrics, metricQuery.group, metricQuery.name, metricQuery.query);
-                } catch (AtlasBaseException e) {
-                    if (LOG.isDebugEnabled()) {
-                        LOG.debug("Gremlin execution failed for metric {}", metricQuery, e);
-                    } else {
-                        LOG.warn("Gremlin execution failed for metric {}", metricQuery);
-                    }
+            long requestTime = System.currentTimeMillis();
+
+            synchronized (this) {
+                boolean isRefreshed = cachedMetrics != null && cacheCollectionTime >= requestTime;
+
+                if (!isRefreshed && (ignoreCache || !isCacheValid())) {
+                    refreshQueryMetrics();
                 }
             }
+        }
 
-            long collectionTime = System.currentTimeMillis();
+        return cachedMetrics;
+    }
 
-            metrics.addData(GENERAL, METRIC_COLLECTION_TIME, collectionTime);
+    @SuppressWarnings("unchecked")
+    private void refreshQueryMetrics() {
+        AtlasMetrics metrics = new AtlasMetrics();
 
-            this.cachedMetrics       = metrics;
-            this.cacheExpirationTime = (collectionTime + cacheTTLInSecs * 1000);
+        for (MetricQuery metricQuery : MetricQuery.values()) {
+            try {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Executing query: {}", metricQuery);
+                }
+                executeGremlinQuery(metrics, metricQuery.group, metricQuery.name, metricQuery.query);
+            } catch (AtlasBaseException e) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Gremlin execution failed for metric {}", metricQuery, e);
+                } else {
+                    LOG.warn("Gremlin execution failed for metric {}", metricQuery);
+                }
+            }
         }
 
-        return cachedMetrics;
+        long collectionTime = System.currentTimeMillis();
+
+        metrics.addData(GENERAL, METRIC_COLLECTION_TIME, collectionTime);
+
+        this.cachedMetrics       = metrics;
+        this.cacheCollectionTime = collectionTime;
+        this.cacheExpirationTime = (collectionTime + cacheTTLInSecs * 1000);
+    }
+
+    // cachedMetrics is shared by concurrent callers, hence is never modified once published; live groups go into a copy
+    private static AtlasMetrics copyOf(AtlasMetrics metrics) {
+        Map<String, Map<String, Number>> data = new HashMap<>();
+
+        if (metrics != null && metrics.getData() != null) {
+            for (Map.Entry<String, Map<String, Number>> entry : metrics.getData().entrySet()) {
+                data.put(entry.getKey(), new HashMap<>(entry.getValue()));
+            }
+        }
+
+        return new AtlasMetrics(data);
+    }
+
+    // script execution counters are cheap to collect, hence are refreshed on every call
+    private void addGremlinScriptMetrics(AtlasMetrics metrics) {
+        Map<String, Number> scriptMetrics = atlasGraph.getGremlinScriptMetrics();
+
+        if (scriptMetrics != null) {
+            for (Map.Entry<String, Number> entry : scriptMetrics.entrySet()) {
+                metrics.addData(GREMLIN, entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private void addLineageCacheMetrics(AtlasMetrics metrics) {
+        if (lineageCache != null) {
+            for (Map.Entry<String, Number> entry : lineageCache.getMetrics().entrySet()) {
+                metrics.addData(LINEAGE, entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private void addOutboxMetrics(AtlasMetrics metrics) {
+        if (entityChangeOutbox != null && entityChangeOutbox.isEnabled()) {
+            for (Map.Entry<String, Number> entry : entityChangeOutbox.getMetrics().entrySet()) {
+                metrics.addData(OUTBOX, entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private void addFullTextIndexerMetrics(AtlasMetrics metrics) {
+        if (fullTextIndexer != null && fullTextIndexer.isEnabled()) {
+            for (Map.Entry<String, Number> entry : fullTextIndexer.getMetrics().entrySet()) {
+                metrics.addData(FULLTEXT, entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private void addEntityLockMetrics(AtlasMetrics metrics) {
+        for (Map.Entry<String, Number> entry : GraphTransactionInterceptor.getObjectLockMetrics().entrySet()) {
+            metrics.addData(LOCK, entry.getKey(), entry.getValue());
+        }
+
+        for (Map.Entry<String, Number> entry : GraphTransactionInterceptor.getHotObjectLocks(HOT_LOCK_MAX_COUNT).entrySet()) {
+            metrics.addData(HOT_LOCK, entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void addDslQueryCacheMetrics(AtlasMetrics metrics) {
+        if (dslQueryCache != null) {
+            for (Map.Entry<String, Number> entry : dslQueryCache.getMetrics().entrySet()) {
+                metrics.addData(DSL, entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private void addEntityCountersMetrics(AtlasMetrics metrics) {
+        if (entityCounters != null && entityCounters.isEnabled()) {
+            for (Map.Entry<String, Number> entry : entityCounters.getMetrics().entrySet()) {
+                metrics.addData(COUNTERS, entry.getKey(), entry.getValue());
+            }
+        }
     }
 
     private void executeGremlinQuery(AtlasMetrics metrics, String type, String name, String query) throws AtlasBaseException {
-        Object result = atlasGraph.executeGremlinScript(query, false);
+        Object result = atlasGraph.executeGremlinScript(query, METRIC_QUERY_BINDINGS, false);
 
         if (result instanceof Number) {
             metrics.addData(type, name, ((Number) result).intValue());
@@ -22,21 +22,21 @@ public class AtlasGremlin2QueryProvider extends AtlasGremlinQueryProvider {
     public String getQuery(final AtlasGremlinQuery gremlinQuery) {
         switch (gremlinQuery) {
             case TYPE_COUNT_METRIC:
-                return "g.V().has('__type', 'typeSystem').filter({!it.'__type.category'.name().matches('TRAIT')}).count()";
+                return "g.V().has('__type', typeSystemVertexType).filter({!it.'__type.category'.name().matches(traitCategory)}).count()";
             case TYPE_UNUSED_COUNT_METRIC:
-                return "g.V('__type', 'typeSystem').filter({ !it.getProperty('__type.category').name().matches('TRAIT') && it.inE().count() == 0}).count()";
+                return "g.V('__type', typeSystemVertexType).filter({ !it.getProperty('__type.category').name().matches(traitCategory) && it.inE().count() == 0}).count()";
             case ENTITY_COUNT_METRIC:
-                return "g.V().has('__superTypeNames', T.in, ['Referenceable']).count()";
+                return "g.V().has('__superTypeNames', T.in, [referenceableTypeName]).count()";
             case TAG_COUNT_METRIC:
-                return "g.V().has('__type', 'typeSystem').filter({it.getProperty('__type.category').name().matches('TRAIT')}).count()";
+                return "g.V().has('__type', typeSystemVertexType).filter({it.getProperty('__type.category').name().matches(traitCategory)}).count()";
             case ENTITY_DELETED_METRIC:
-                return "g.V().has('__typeName', T.in, g.V().has('__type', 'typeSystem').filter{it.getProperty('__type.category').name().matches('CLASS')}.'__type.name'.toSet()).has('__status', 'DELETED').count()";
+                return "g.V().has('__typeName', T.in, g.V().has('__type', typeSystemVertexType).filter{it.getProperty('__type.category').name().matches(classCategory)}.'__type.name'.toSet()).has('__status', 'DELETED').count()";
             case ENTITIES_PER_TYPE_METRIC:
-                return "g.V().has('__typeName', T.in, g.V().has('__type', 'typeSystem').filter{it.getProperty('__type.category').name() == 'CLASS'}.'__type.name'.toSet()).groupCount{it.getProperty('__typeName')}.cap.toList()";
+                return "g.V().has('__typeName', T.in, g.V().has('__type', typeSystemVertexType).filter{it.getProperty('__type.category').name() == classCategory}.'__type.name'.toSet()).groupCount{it.getProperty('__typeName')}.cap.toList()";
             case TAGGED_ENTITIES_METRIC:
-                return "g.V().has('__traitNames', T.in, g.V().has('__type', 'typeSystem').filter{it.getProperty('__type.category').name() == 'TRAIT'}.'__type.name'.toSet()).count()";
+                return "g.V().has('__traitNames', T.in, g.V().has('__type', typeSystemVertexType).filter{it.getProperty('__type.category').name() == traitCategory}.'__type.name'.toSet()).count()";
             case ENTITIES_FOR_TAG_METRIC:
-                return "g.V().has('__typeName', T.in, g.V().has('__type', 'typeSystem').filter{it.getProperty('__type.category').name() == 'TRAIT'}.'__type.name'.toSet()).groupCount{it.getProperty('__typeName')}.cap.toList()";
+                return "g.V().has('__typeName', T.in, g.V().has('__type', typeSystemVertexType).filter{it.getProperty('__type.category').name() == traitCategory}.'__type.name'.toSet()).groupCount{it.getProperty('__typeName')}.cap.toList()";
             case EXPORT_BY_GUID_FULL:
                 return "g.V('__guid', startGuid).bothE().bothV().has('__guid').transform{[__guid:it.__guid,isProcess:(it.__superTypeNames != null) ? it.__superTypeNames.contains('Process') : false ]}.dedup().toList()";
             case EXPORT_BY_GUID_CONNECTED_IN_EDGE:
@@ -54,14 +54,14 @@ public class AtlasGremlin2QueryProvider extends AtlasGremlinQueryProvider {
             case EXPORT_TYPE_DEFAULT:
                 return "g.V().has('__typeName',typeName).has(attrName, attrValue).has('__guid').__guid.toList()";
             case FULL_LINEAGE:
-                return "g.V('__guid', '%s').as('src').in('%s').out('%s')." +
+                return "g.V('__guid', guid).as('src').in(incomingEdgeLabel).out(outgoingEdgeLabel)." +
                         "loop('src', {((it.path.contains(it.object)) ? false : true)}, " +
                         "{((it.object.'__superTypeNames') ? " +
                         "(it.object.'__superTypeNames'.contains('DataSet')) : false)})." +
                         "path().toList()";
             case PARTIAL_LINEAGE:
-                return "g.V('__guid', '%s').as('src').in('%s').out('%s')." +
-                        "loop('src', {it.loops <= %s}, {((it.object.'__superTypeNames') ? " +
+                return "g.V('__guid', guid).as('src').in(incomingEdgeLabel).out(outgoingEdgeLabel)." +
+                        "loop('src', {it.loops <= depth}, {((it.object.'__superTypeNames') ? " +
                         "(it.object.'__superTypeNames'.contains('DataSet')) : false)})." +
                         "path().toList()";
 
@@ -99,12 +99,6 @@ public class AtlasGremlin2QueryProvider extends AtlasGremlinQueryProvider {
                 return ".hasNot('%s')";
             case COMPARE_NOT_NULL:
                 return ".has('%s')";
-            case RELATIONSHIP_SEARCH:
-                return "g.V('__guid', guid).both(relation).has('__state', T.in, states)";
-            case RELATIONSHIP_SEARCH_ASCENDING_SORT:
-                return ".order{it.a.getProperty(sortAttributeName) <=> it.b.getProperty(sortAttributeName)}";
-            case RELATIONSHIP_SEARCH_DESCENDING_SORT:
-                return ".order{it.b.getProperty(sortAttributeName) <=> it.a.getProperty(sortAttributeName)}";
             case GREMLIN_SEARCH_RETURNS_VERTEX_ID:
                 return "g.V.range(0,0).collect()";
             case GREMLIN_SEARCH_RETURNS_EDGE_ID:
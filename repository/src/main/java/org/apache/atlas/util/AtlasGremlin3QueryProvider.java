@@ -24,9 +24,9 @@ public class AtlasGremlin3QueryProvider extends AtlasGremlin2QueryProvider {
         // return Gremlin 3 specific query otherwise delegate to super.getQuery
         switch (gremlinQuery) {
             case TYPE_UNUSED_COUNT_METRIC:
-                return "g.V().has('__type', 'typeSystem').filter({ !it.getProperty('__type.category').name().matches('TRAIT') && it.inE().count() == 0}).count()";
+                return "g.V().has('__type', typeSystemVertexType).filter({ !it.getProperty('__type.category').name().matches(traitCategory) && it.inE().count() == 0}).count()";
             case ENTITY_COUNT_METRIC:
-                return "g.V().has('__superTypeNames', within(['Referenceable'])).count()";
+                return "g.V().has('__superTypeNames', within([referenceableTypeName])).count()";
             case EXPORT_TYPE_STARTS_WITH:
                 return "g.V().has('__typeName',typeName).filter({it.get().value(attrName).startsWith(attrValue)}).has('__guid').values('__guid').toList()";
             case EXPORT_TYPE_ENDS_WITH:
@@ -44,17 +44,11 @@ public class AtlasGremlin3QueryProvider extends AtlasGremlin2QueryProvider {
             case EXPORT_BY_GUID_CONNECTED_OUT_EDGE:
                 return "g.V().has('__guid', startGuid).outE().inV().has('__guid').project('__guid', 'isProcess').by('__guid').by(map {it.get().values('__superTypeNames').toSet().contains('Process')}).dedup().toList()";
             case FULL_LINEAGE:
-                return "g.V().has('__guid', '%s').repeat(__.inE('%s').as('e1').outV().outE('%s').as('e2').inV()).emit().select('e1', 'e2').toList()";
+                return "g.V().has('__guid', guid).repeat(__.inE(incomingEdgeLabel).as('e1').outV().outE(outgoingEdgeLabel).as('e2').inV()).emit().select('e1', 'e2').toList()";
             case PARTIAL_LINEAGE:
-                return "g.V().has('__guid', '%s').repeat(__.inE('%s').as('e1').outV().outE('%s').as('e2').inV()).times(%s).emit().select('e1', 'e2').toList()";
+                return "g.V().has('__guid', guid).repeat(__.inE(incomingEdgeLabel).as('e1').outV().outE(outgoingEdgeLabel).as('e2').inV()).times(depth).emit().select('e1', 'e2').toList()";
             case TO_RANGE_LIST:
                 return ".range(startIdx, endIdx).toList()";
-            case RELATIONSHIP_SEARCH:
-                return "g.V().has('__guid', guid).both(relation).has('__state', within(states))";
-            case RELATIONSHIP_SEARCH_ASCENDING_SORT:
-                return ".order().by(sortAttributeName, incr)";
-            case RELATIONSHIP_SEARCH_DESCENDING_SORT:
-                return ".order().by(sortAttributeName, decr)";
             case GREMLIN_SEARCH_RETURNS_VERTEX_ID:
                 return "g.V().range(0,1).toList()";
             case GREMLIN_SEARCH_RETURNS_EDGE_ID:
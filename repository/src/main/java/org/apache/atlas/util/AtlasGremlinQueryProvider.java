@@ -61,9 +61,6 @@ public abstract class AtlasGremlinQueryProvider {
         BASIC_SEARCH_STATE_FILTER,
         TO_RANGE_LIST,
         GUID_PREFIX_FILTER,
-        RELATIONSHIP_SEARCH,
-        RELATIONSHIP_SEARCH_ASCENDING_SORT,
-        RELATIONSHIP_SEARCH_DESCENDING_SORT,
 
         // Discovery test queries
         GREMLIN_SEARCH_RETURNS_VERTEX_ID,
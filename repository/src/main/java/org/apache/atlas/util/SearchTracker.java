@@ -17,57 +17,280 @@
  */
 package org.apache.atlas.util;
 
+import com.google.common.annotations.VisibleForTesting;
+import org.apache.atlas.AtlasConfiguration;
+import org.apache.atlas.AtlasErrorCode;
+import org.apache.atlas.RequestContextV1;
 import org.apache.atlas.annotation.AtlasService;
 import org.apache.atlas.discovery.SearchContext;
+import org.apache.atlas.exception.AtlasBaseException;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Registry of searches in progress, used to terminate searches and to report their progress.
+ *
+ * Each search is given a deadline, after which the search processors stop - see SearchContext.terminateSearch(); a
+ * search that runs in batches, each with its own SearchContext, keeps the deadline it was given when it was added,
+ * unless the caller gives each batch a deadline of its own - as streamed searches do.
+ * The number of concurrent searches per user is limited; a search over the limit waits for a running search of
+ * the same user to complete, and fails if none completes within the queue timeout. Searches without a SearchContext,
+ * like DSL searches, count toward the limit too, but can't be terminated.
+ */
 @AtlasService
 public class SearchTracker {
-    private Map<String, SearchContext> activeSearches = new HashMap<>();
+    private static final Logger LOG = LoggerFactory.getLogger(SearchTracker.class);
+
+    private static final String UNKNOWN_USER = "<unknown>";
+
+    private final long                      maxDurationMs;
+    private final int                       maxConcurrentPerUser;
+    private final long                      queueTimeoutMs;
+    private final Map<String, ActiveSearch> activeSearches = new ConcurrentHashMap<>();
+    private final Map<String, UserPermits>  userPermits    = new ConcurrentHashMap<>(); // only users with searches in progress, or waiting
+
+    public SearchTracker() {
+        this(AtlasConfiguration.SEARCH_MAX_DURATION_MS.getLong(), AtlasConfiguration.SEARCH_MAX_CONCURRENT_PER_USER.getInt(),
+             AtlasConfiguration.SEARCH_QUEUE_TIMEOUT_MS.getLong());
+    }
+
+    @VisibleForTesting
+    SearchTracker(long maxDurationMs, int maxConcurrentPerUser, long queueTimeoutMs) {
+        this.maxDurationMs        = maxDurationMs;
+        this.maxConcurrentPerUser = maxConcurrentPerUser;
+        this.queueTimeoutMs       = queueTimeoutMs;
+
+        LOG.info("SearchTracker(maxDurationMs={}, maxConcurrentPerUser={}, queueTimeoutMs={})", maxDurationMs, maxConcurrentPerUser, queueTimeoutMs);
+    }
 
     /**
+     * Registers a search, waiting if the user already has the maximum number of searches in progress.
+     * remove() must be called once the search completes.
      *
      * @param context
+     * @return id of the search
+     * @throws AtlasBaseException if the user has too many searches in progress
+     */
+    public String add(SearchContext context) throws AtlasBaseException {
+        return add(context, null);
+    }
+
+    /**
+     * Registers a search that has no SearchContext, like a DSL search; the search can't be terminated.
+     * remove() must be called once the search completes.
+     *
+     * @param query query of the search, reported in its progress
+     * @return id of the search
+     * @throws AtlasBaseException if the user has too many searches in progress
      */
-    public String add(SearchContext context) {
-        String searchId = Thread.currentThread().getName();
+    public String add(String query) throws AtlasBaseException {
+        return add(null, query);
+    }
 
-        activeSearches.put(searchId, context);
+    /**
+     * Replaces the context of the search, for the next batch of a search that runs in batches; the context is given
+     * the deadline of the search.
+     */
+    public void setContext(String searchId, SearchContext context) {
+        ActiveSearch activeSearch = activeSearches.get(searchId);
 
-        return searchId;
+        if (activeSearch != null) {
+            setContext(activeSearch, context);
+        }
     }
 
     /**
+     * Requests the search to stop; the search remains active until it completes and is removed.
      *
      * @param searchId
-     * @return
+     * @return context of the search; null if no such search is in progress, or the search has no context
      */
     public SearchContext terminate(String searchId) {
-        SearchContext ret = null;
+        ActiveSearch  activeSearch = activeSearches.get(searchId);
+        SearchContext context      = activeSearch != null ? activeSearch.context : null;
+
+        if (context == null) {
+            return null;
+        }
+
+        LOG.info("terminating search {} of user {}", searchId, activeSearch.user);
 
-        if (activeSearches.containsKey(searchId)) {
-            SearchContext pipelineToTerminate = activeSearches.remove(searchId);
+        context.terminateSearch(true);
 
-            pipelineToTerminate.terminateSearch(true);
+        return context;
+    }
 
-            ret = pipelineToTerminate;
+    public SearchContext remove(String searchId) {
+        ActiveSearch activeSearch = activeSearches.remove(searchId);
+
+        if (activeSearch == null) {
+            return null;
         }
 
-        return ret;
-    }
+        if (activeSearch.permits != null) {
+            releasePermit(activeSearch.user, activeSearch.permits);
+        }
 
-    public SearchContext remove(String id) {
-        return activeSearches.remove(id);
+        return activeSearch.context;
     }
 
     /**
      *
-     * @return
+     * @return ids of the searches in progress
      */
     public Set<String> getActiveSearches() {
-        return activeSearches.keySet();
+        return new HashSet<>(activeSearches.keySet());
+    }
+
+    /**
+     * @return details and progress of the search; null if no such search is in progress
+     */
+    public Map<String, Object> getSearchProgress(String searchId) {
+        ActiveSearch activeSearch = activeSearches.get(searchId);
+
+        return activeSearch != null ? activeSearch.toMap() : null;
+    }
+
+    @VisibleForTesting
+    int getUserCount() {
+        return userPermits.size();
+    }
+
+    private String add(SearchContext context, String query) throws AtlasBaseException {
+        String       user     = getCurrentUser();
+        UserPermits  permits  = acquirePermit(user);
+        String       searchId = UUID.randomUUID().toString();
+        long         deadline = maxDurationMs > 0 ? System.currentTimeMillis() + maxDurationMs : 0;
+        ActiveSearch search   = new ActiveSearch(searchId, user, query, deadline, permits);
+
+        if (context != null) {
+            setContext(search, context);
+        }
+
+        activeSearches.put(searchId, search);
+
+        return searchId;
+    }
+
+    private static void setContext(ActiveSearch activeSearch, SearchContext context) {
+        if (activeSearch.deadline > 0) {
+            context.setDeadline(activeSearch.deadline);
+        }
+
+        activeSearch.context = context;
+    }
+
+    private UserPermits acquirePermit(String user) throws AtlasBaseException {
+        if (maxConcurrentPerUser <= 0) {
+            return null;
+        }
+
+        // the user count is updated atomically with the map, so that an entry is removed only when no search holds or waits for its permits
+        UserPermits ret = userPermits.compute(user, (k, v) -> {
+            UserPermits permits = v != null ? v : new UserPermits(maxConcurrentPerUser);
+
+            permits.userCount++;
+
+            return permits;
+        });
+
+        boolean isAcquired = false;
+
+        try {
+            isAcquired = ret.semaphore.tryAcquire(Math.max(queueTimeoutMs, 0), TimeUnit.MILLISECONDS);
+
+            if (!isAcquired) {
+                LOG.warn("user {} has {} searches in progress; rejecting search after waiting for {} ms", user, maxConcurrentPerUser, queueTimeoutMs);
+
+                throw new AtlasBaseException(AtlasErrorCode.TOO_MANY_CONCURRENT_SEARCHES, user);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new AtlasBaseException(AtlasErrorCode.TOO_MANY_CONCURRENT_SEARCHES, e, user);
+        } finally {
+            if (!isAcquired) {
+                removeUser(user);
+            }
+        }
+
+        return ret;
+    }
+
+    private void releasePermit(String user, UserPermits permits) {
+        permits.semaphore.release();
+
+        removeUser(user);
+    }
+
+    private void removeUser(String user) {
+        userPermits.computeIfPresent(user, (k, v) -> --v.userCount > 0 ? v : null);
+    }
+
+    private static String getCurrentUser() {
+        String ret = RequestContextV1.get().getUser();
+
+        return StringUtils.isNotEmpty(ret) ? ret : UNKNOWN_USER;
+    }
+
+    private static class UserPermits {
+        private final Semaphore semaphore;
+        private       int       userCount = 0; // searches holding, or waiting for, a permit; updated in userPermits.compute()
+
+        UserPermits(int maxConcurrentPerUser) {
+            this.semaphore = new Semaphore(maxConcurrentPerUser, true);
+        }
+    }
+
+    private static class ActiveSearch {
+        private final    String        searchId;
+        private final    String        user;
+        private final    String        query;
+        private final    long          deadline;
+        private final    UserPermits   permits;
+        private final    long          startTime;
+        private volatile SearchContext context;
+
+        ActiveSearch(String searchId, String user, String query, long deadline, UserPermits permits) {
+            this.searchId  = searchId;
+            this.user      = user;
+            this.query     = query;
+            this.deadline  = deadline;
+            this.permits   = permits;
+            this.startTime = System.currentTimeMillis();
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> ret     = new LinkedHashMap<>();
+            SearchContext       context = this.context;
+
+            ret.put("searchId", searchId);
+            ret.put("user", user);
+            ret.put("startTime", startTime);
+            ret.put("elapsedMs", System.currentTimeMillis() - startTime);
+            ret.put("deadline", deadline);
+
+            if (context != null) {
+                ret.put("terminated", context.terminateSearch());
+                ret.put("scannedCount", context.getScannedCount());
+                ret.put("filteredCount", context.getFilteredCount());
+                ret.put("returnedCount", context.getReturnedCount());
+                ret.put("searchParameters", context.getSearchParameters());
+            } else {
+                ret.put("query", query);
+            }
+
+            return ret;
+        }
     }
 }
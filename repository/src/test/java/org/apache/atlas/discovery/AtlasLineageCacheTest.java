@@ -0,0 +1,115 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.discovery;
+
+import org.apache.atlas.model.instance.AtlasEntityHeader;
+import org.apache.atlas.model.lineage.AtlasLineageInfo;
+import org.apache.atlas.model.lineage.AtlasLineageInfo.LineageDirection;
+import org.apache.atlas.model.lineage.AtlasLineageInfo.LineageRelation;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class AtlasLineageCacheTest {
+    @Test
+    public void testGetAndPut() {
+        AtlasLineageCache cache       = new AtlasLineageCache(10, 60);
+        AtlasLineageInfo  lineageInfo = createLineageInfo("table1", "process1", "table2");
+
+        assertNull(cache.get("table1", LineageDirection.OUTPUT, 3));
+
+        cache.put("table1", LineageDirection.OUTPUT, 3, lineageInfo, cache.getGeneration());
+
+        assertSame(cache.get("table1", LineageDirection.OUTPUT, 3), lineageInfo);
+        assertNull(cache.get("table1", LineageDirection.INPUT, 3));
+        assertNull(cache.get("table1", LineageDirection.OUTPUT, 2));
+
+        Map<String, Number> metrics = cache.getMetrics();
+
+        assertEquals(metrics.get(AtlasLineageCache.METRIC_CACHE_HITS).longValue(), 1);
+        assertEquals(metrics.get(AtlasLineageCache.METRIC_CACHE_MISSES).longValue(), 3);
+        assertEquals(metrics.get(AtlasLineageCache.METRIC_CACHE_SIZE).longValue(), 1);
+    }
+
+    @Test
+    public void testInvalidateOnlyAffectedEntries() {
+        AtlasLineageCache cache = new AtlasLineageCache(10, 60);
+
+        assertTrue(cache.isEmpty());
+
+        cache.put("table1", LineageDirection.OUTPUT, 3, createLineageInfo("table1", "process1", "table2"), cache.getGeneration());
+        cache.put("table3", LineageDirection.OUTPUT, 3, createLineageInfo("table3", "process2", "table4"), cache.getGeneration());
+
+        cache.invalidate(Collections.singleton("table2"));
+
+        assertNull(cache.get("table1", LineageDirection.OUTPUT, 3));
+        assertNotNull(cache.get("table3", LineageDirection.OUTPUT, 3));
+
+        cache.invalidate(Collections.singleton("process2"));
+
+        assertNull(cache.get("table3", LineageDirection.OUTPUT, 3));
+        assertEquals(cache.getMetrics().get(AtlasLineageCache.METRIC_CACHE_INVALIDATIONS).longValue(), 2);
+        assertTrue(cache.isEmpty());
+    }
+
+    @Test
+    public void testPutAfterInvalidationIsNotCached() {
+        AtlasLineageCache cache      = new AtlasLineageCache(10, 60);
+        long              generation = cache.getGeneration();
+
+        cache.invalidate(Collections.singleton("table2"));
+
+        cache.put("table1", LineageDirection.OUTPUT, 3, createLineageInfo("table1", "process1", "table2"), generation);
+
+        assertNull(cache.get("table1", LineageDirection.OUTPUT, 3));
+    }
+
+    @Test
+    public void testDisabledCache() {
+        AtlasLineageCache cache = new AtlasLineageCache(0, 60);
+
+        cache.put("table1", LineageDirection.OUTPUT, 3, createLineageInfo("table1", "process1", "table2"), cache.getGeneration());
+
+        assertNull(cache.get("table1", LineageDirection.OUTPUT, 3));
+        assertTrue(cache.isEmpty());
+    }
+
+    private AtlasLineageInfo createLineageInfo(String inputGuid, String processGuid, String outputGuid) {
+        Map<String, AtlasEntityHeader> entities  = new HashMap<>();
+        Set<LineageRelation>           relations = new HashSet<>();
+
+        entities.put(inputGuid, new AtlasEntityHeader("DataSet", inputGuid, null));
+        entities.put(processGuid, new AtlasEntityHeader("Process", processGuid, null));
+        entities.put(outputGuid, new AtlasEntityHeader("DataSet", outputGuid, null));
+
+        relations.add(new LineageRelation(inputGuid, processGuid, null));
+        relations.add(new LineageRelation(processGuid, outputGuid, null));
+
+        return new AtlasLineageInfo(inputGuid, entities, relations, LineageDirection.OUTPUT, 3);
+    }
+}
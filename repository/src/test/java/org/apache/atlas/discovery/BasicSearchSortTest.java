@@ -0,0 +1,160 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.discovery;
+
+import org.apache.atlas.ApplicationProperties;
+import org.apache.atlas.SortOrder;
+import org.apache.atlas.TestModules;
+import org.apache.atlas.exception.AtlasBaseException;
+import org.apache.atlas.model.discovery.AtlasSearchResult;
+import org.apache.atlas.model.discovery.SearchParameters;
+import org.apache.atlas.model.instance.AtlasEntityHeader;
+import org.apache.atlas.query.BasicTestSetup;
+import org.apache.atlas.repository.graph.AtlasGraphProvider;
+import org.apache.atlas.runner.LocalSolrRunner;
+import org.apache.commons.collections.CollectionUtils;
+import org.testng.SkipException;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Guice;
+import org.testng.annotations.Test;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.apache.atlas.graph.GraphSandboxUtil.useLocalSolr;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+@Guice(modules = TestModules.TestOnlyModule.class)
+public class BasicSearchSortTest extends BasicTestSetup {
+    private static final String BATCH_SIZE_PROPERTY = "atlas.search.sort.batch.size";
+    private static final int    BATCH_SIZE          = 2;
+    private static final String QUERY               = "sales";
+
+    @Inject
+    private EntityDiscoveryService discoveryService;
+
+    private Object batchSizeToRestore;
+
+    @BeforeClass
+    public void setup() throws Exception {
+        LocalSolrRunner.start();
+        setupTestData();
+
+        batchSizeToRestore = ApplicationProperties.get().getProperty(BATCH_SIZE_PROPERTY);
+
+        ApplicationProperties.get().setProperty(BATCH_SIZE_PROPERTY, BATCH_SIZE);
+
+        pollForData();
+    }
+
+    @AfterClass
+    public void teardown() throws Exception {
+        if (batchSizeToRestore != null) {
+            ApplicationProperties.get().setProperty(BATCH_SIZE_PROPERTY, batchSizeToRestore);
+        } else {
+            ApplicationProperties.get().clearProperty(BATCH_SIZE_PROPERTY);
+        }
+
+        AtlasGraphProvider.cleanup();
+
+        if (useLocalSolr()) {
+            LocalSolrRunner.stop();
+        }
+    }
+
+    @Test
+    public void testFullTextResultsSortedAcrossBatches() throws AtlasBaseException {
+        List<AtlasEntityHeader> unsorted = getEntities(discoveryService.searchWithParameters(createParameters(null)));
+
+        assertTrue(unsorted.size() > BATCH_SIZE, "full-text query should match more than one batch: " + unsorted);
+
+        List<AtlasEntityHeader> ascending  = getEntities(discoveryService.searchWithParameters(createParameters(SortOrder.ASCENDING)));
+        List<AtlasEntityHeader> descending = getEntities(discoveryService.searchWithParameters(createParameters(SortOrder.DESCENDING)));
+        List<String>            names      = getNames(ascending);
+        List<String>            expected   = new ArrayList<>(names);
+
+        Collections.sort(expected);
+
+        assertEquals(getGuids(ascending), getGuids(unsorted));
+        assertEquals(names, expected);
+
+        Collections.reverse(expected);
+
+        assertEquals(getNames(descending), expected);
+    }
+
+    private SearchParameters createParameters(SortOrder sortOrder) {
+        SearchParameters ret = new SearchParameters();
+
+        ret.setTypeName(HIVE_TABLE_TYPE);
+        ret.setQuery(QUERY);
+        ret.setExcludeDeletedEntities(true);
+        ret.setLimit(100);
+
+        if (sortOrder != null) {
+            ret.setSortBy("name");
+            ret.setSortOrder(sortOrder);
+        }
+
+        return ret;
+    }
+
+    private List<AtlasEntityHeader> getEntities(AtlasSearchResult result) {
+        return result.getEntities() != null ? result.getEntities() : Collections.<AtlasEntityHeader>emptyList();
+    }
+
+    private Set<String> getGuids(List<AtlasEntityHeader> entities) {
+        Set<String> ret = new HashSet<>();
+
+        for (AtlasEntityHeader entity : entities) {
+            ret.add(entity.getGuid());
+        }
+
+        return ret;
+    }
+
+    private List<String> getNames(List<AtlasEntityHeader> entities) {
+        List<String> ret = new ArrayList<>();
+
+        for (AtlasEntityHeader entity : entities) {
+            ret.add((String) entity.getAttribute("name"));
+        }
+
+        return ret;
+    }
+
+    private void pollForData() throws Exception {
+        for (int attempt = 0; attempt < 5; attempt++) {
+            AtlasSearchResult result = discoveryService.searchWithParameters(createParameters(null));
+
+            if (CollectionUtils.size(result.getEntities()) > BATCH_SIZE) {
+                return;
+            }
+
+            Thread.sleep(attempt * 5000);
+        }
+
+        throw new SkipException("Polling for test data was unsuccessful");
+    }
+}
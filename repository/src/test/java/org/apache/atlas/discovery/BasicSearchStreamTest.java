@@ -0,0 +1,245 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.discovery;
+
+import org.apache.atlas.ApplicationProperties;
+import org.apache.atlas.AtlasErrorCode;
+import org.apache.atlas.TestModules;
+import org.apache.atlas.exception.AtlasBaseException;
+import org.apache.atlas.model.discovery.AtlasSearchResult;
+import org.apache.atlas.model.discovery.SearchParameters;
+import org.apache.atlas.model.instance.AtlasEntityHeader;
+import org.apache.atlas.query.BasicTestSetup;
+import org.apache.atlas.repository.graph.AtlasGraphProvider;
+import org.apache.atlas.runner.LocalSolrRunner;
+import org.apache.commons.collections.CollectionUtils;
+import org.testng.SkipException;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Guice;
+import org.testng.annotations.Test;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.apache.atlas.graph.GraphSandboxUtil.useLocalSolr;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+@Guice(modules = TestModules.TestOnlyModule.class)
+public class BasicSearchStreamTest extends BasicTestSetup {
+    private static final String BATCH_SIZE_PROPERTY = "atlas.search.stream.batch.size";
+    private static final int    BATCH_SIZE          = 2;
+    private static final String COLUMN_TYPE         = "hive_column";
+    private static final int    COLUMN_COUNT        = 17;
+
+    @Inject
+    private EntityDiscoveryService discoveryService;
+
+    private Object batchSizeToRestore;
+
+    @BeforeClass
+    public void setup() throws Exception {
+        LocalSolrRunner.start();
+        setupTestData();
+
+        batchSizeToRestore = ApplicationProperties.get().getProperty(BATCH_SIZE_PROPERTY);
+
+        ApplicationProperties.get().setProperty(BATCH_SIZE_PROPERTY, BATCH_SIZE);
+
+        pollForData();
+    }
+
+    @AfterClass
+    public void teardown() throws Exception {
+        if (batchSizeToRestore != null) {
+            ApplicationProperties.get().setProperty(BATCH_SIZE_PROPERTY, batchSizeToRestore);
+        } else {
+            ApplicationProperties.get().clearProperty(BATCH_SIZE_PROPERTY);
+        }
+
+        AtlasGraphProvider.cleanup();
+
+        if (useLocalSolr()) {
+            LocalSolrRunner.stop();
+        }
+    }
+
+    @Test
+    public void testStreamReadsAllBatches() throws AtlasBaseException {
+        SearchParameters params   = createParameters(COLUMN_TYPE, null);
+        BatchCollector   consumer = new BatchCollector(Integer.MAX_VALUE);
+
+        assertEquals(discoveryService.searchWithParameters(params, consumer), COLUMN_COUNT);
+        assertEquals(consumer.getGuids().size(), COLUMN_COUNT);
+        assertEquals(consumer.getBatchCount(), (COLUMN_COUNT + BATCH_SIZE - 1) / BATCH_SIZE);
+        assertEquals(consumer.getGuids(), getGuids(discoveryService.searchWithParameters(createParameters(COLUMN_TYPE, null))));
+
+        assertEquals(params.getLimit(), 100, "parameters of the caller are not updated");
+        assertNull(params.getContinuationToken(), "parameters of the caller are not updated");
+    }
+
+    @Test
+    public void testStreamWithQueryReadsAllBatches() throws AtlasBaseException {
+        Set<String>    expected = getGuids(discoveryService.searchWithParameters(createParameters(null, "sales")));
+        BatchCollector consumer = new BatchCollector(Integer.MAX_VALUE);
+
+        assertTrue(expected.size() > BATCH_SIZE, "full-text query should match more than one batch: " + expected);
+
+        assertEquals(discoveryService.searchWithParameters(createParameters(null, "sales"), consumer), expected.size());
+        assertEquals(consumer.getGuids(), expected);
+        assertTrue(consumer.getBatchCount() > 1);
+    }
+
+    @Test
+    public void testStreamWithLimit() throws AtlasBaseException {
+        SearchParameters params   = createParameters(COLUMN_TYPE, null);
+        BatchCollector   consumer = new BatchCollector(Integer.MAX_VALUE);
+
+        params.setLimit(BATCH_SIZE * 2 + 1);
+
+        assertEquals(discoveryService.searchWithParameters(params, consumer), BATCH_SIZE * 2 + 1);
+        assertEquals(consumer.getGuids().size(), BATCH_SIZE * 2 + 1);
+        assertEquals(consumer.getBatchCount(), 3);
+    }
+
+    @Test
+    public void testStreamStoppedByConsumer() throws AtlasBaseException {
+        BatchCollector consumer = new BatchCollector(2);
+
+        assertEquals(discoveryService.searchWithParameters(createParameters(COLUMN_TYPE, null), consumer), BATCH_SIZE);
+        assertEquals(consumer.getBatchCount(), 2, "batch that failed to be consumed is not counted");
+    }
+
+    @Test
+    public void testStreamWithOffset() throws AtlasBaseException {
+        SearchParameters params   = createParameters(COLUMN_TYPE, null);
+        BatchCollector   consumer = new BatchCollector(Integer.MAX_VALUE);
+
+        params.setOffset(BATCH_SIZE + 1);
+        params.setLimit(0);
+
+        assertEquals(discoveryService.searchWithParameters(params, consumer), COLUMN_COUNT - BATCH_SIZE - 1);
+        assertEquals(consumer.getGuids().size(), COLUMN_COUNT - BATCH_SIZE - 1);
+
+        consumer = new BatchCollector(Integer.MAX_VALUE);
+
+        params.setLimit(BATCH_SIZE * 2);
+
+        assertEquals(discoveryService.searchWithParameters(params, consumer), BATCH_SIZE * 2);
+        assertEquals(consumer.getGuids().size(), BATCH_SIZE * 2);
+
+        params.setOffset(COLUMN_COUNT);
+
+        assertEquals(discoveryService.searchWithParameters(params, new BatchCollector(Integer.MAX_VALUE)), 0);
+    }
+
+    @Test
+    public void testStreamRejectsSortWithoutIndex() throws AtlasBaseException {
+        SearchParameters params = createParameters(COLUMN_TYPE, null);
+
+        params.setSortBy("name"); // string attributes are sorted in memory
+
+        try {
+            discoveryService.validateStreamSearchParameters(params);
+
+            fail("sortBy on an attribute the index can't sort on should be rejected");
+        } catch (AtlasBaseException excp) {
+            assertEquals(excp.getAtlasErrorCode(), AtlasErrorCode.INVALID_PARAMETERS);
+        }
+
+        try {
+            discoveryService.searchWithParameters(params, new BatchCollector(Integer.MAX_VALUE));
+
+            fail("sortBy on an attribute the index can't sort on should be rejected");
+        } catch (AtlasBaseException excp) {
+            assertEquals(excp.getAtlasErrorCode(), AtlasErrorCode.INVALID_PARAMETERS);
+        }
+    }
+
+    private SearchParameters createParameters(String typeName, String query) {
+        SearchParameters ret = new SearchParameters();
+
+        ret.setTypeName(typeName);
+        ret.setQuery(query);
+        ret.setExcludeDeletedEntities(true);
+        ret.setLimit(100);
+
+        return ret;
+    }
+
+    private Set<String> getGuids(AtlasSearchResult result) {
+        Set<String> ret = new HashSet<>();
+
+        if (result.getEntities() != null) {
+            for (AtlasEntityHeader entity : result.getEntities()) {
+                ret.add(entity.getGuid());
+            }
+        }
+
+        return ret;
+    }
+
+    private void pollForData() throws Exception {
+        for (int attempt = 0; attempt < 5; attempt++) {
+            AtlasSearchResult result = discoveryService.searchWithParameters(createParameters(COLUMN_TYPE, null));
+
+            if (CollectionUtils.size(result.getEntities()) == COLUMN_COUNT) {
+                return;
+            }
+
+            Thread.sleep(attempt * 5000);
+        }
+
+        throw new SkipException("Polling for test data was unsuccessful");
+    }
+
+    // collects the guids of the entities, failing as a disconnected client would on the given batch
+    private static class BatchCollector implements SearchResultConsumer {
+        private final int           failOnBatch;
+        private final Set<String>   guids      = new HashSet<>();
+        private final List<Integer> batchSizes = new ArrayList<>();
+
+        BatchCollector(int failOnBatch) {
+            this.failOnBatch = failOnBatch;
+        }
+
+        @Override
+        public void consume(List<AtlasEntityHeader> entities) throws IOException {
+            batchSizes.add(entities.size());
+
+            if (batchSizes.size() == failOnBatch) {
+                throw new IOException("client disconnected");
+            }
+
+            for (AtlasEntityHeader entity : entities) {
+                guids.add(entity.getGuid());
+            }
+        }
+
+        Set<String> getGuids() { return guids; }
+
+        int getBatchCount() { return batchSizes.size(); }
+    }
+}
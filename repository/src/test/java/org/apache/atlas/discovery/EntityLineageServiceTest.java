@@ -0,0 +1,179 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.discovery;
+
+import org.apache.atlas.TestModules;
+import org.apache.atlas.exception.AtlasBaseException;
+import org.apache.atlas.model.lineage.AtlasLineageInfo;
+import org.apache.atlas.model.lineage.AtlasLineageInfo.LineageDirection;
+import org.apache.atlas.model.lineage.AtlasLineageInfo.LineageRelation;
+import org.apache.atlas.query.BasicTestSetup;
+import org.apache.atlas.repository.graph.AtlasGraphProvider;
+import org.apache.atlas.repository.graphdb.AtlasGraph;
+import org.apache.atlas.runner.LocalSolrRunner;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Guice;
+import org.testng.annotations.Test;
+
+import javax.inject.Inject;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.apache.atlas.graph.GraphSandboxUtil.useLocalSolr;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+@Guice(modules = TestModules.TestOnlyModule.class)
+public class EntityLineageServiceTest extends BasicTestSetup {
+    private static final String PROCESS_TYPE = "hive_process";
+
+    @Inject
+    private AtlasGraph graph;
+
+    // sales_fact, time_dim -> loadSalesDaily -> sales_fact_daily_mv -> loadSalesMonthly -> sales_fact_monthly_mv
+    private String salesFact;
+    private String timeDim;
+    private String loadSalesDaily;
+    private String salesFactDaily;
+    private String loadSalesMonthly;
+    private String salesFactMonthly;
+
+    @BeforeClass
+    public void setup() throws Exception {
+        LocalSolrRunner.start();
+        setupTestData();
+
+        salesFact        = getGuid(HIVE_TABLE_TYPE, "Sales.sales_fact");
+        timeDim          = getGuid(HIVE_TABLE_TYPE, "Sales.time_dim");
+        loadSalesDaily   = getGuid(PROCESS_TYPE, "loadSalesDaily");
+        salesFactDaily   = getGuid(HIVE_TABLE_TYPE, "Reporting.sales_fact_daily_mv");
+        loadSalesMonthly = getGuid(PROCESS_TYPE, "loadSalesMonthly");
+        salesFactMonthly = getGuid(HIVE_TABLE_TYPE, "Reporting.sales_fact_monthly_mv");
+    }
+
+    @AfterClass
+    public void teardown() throws Exception {
+        AtlasGraphProvider.cleanup();
+
+        if (useLocalSolr()) {
+            LocalSolrRunner.stop();
+        }
+    }
+
+    @Test
+    public void testInputLineageDepth() throws AtlasBaseException {
+        EntityLineageService lineageService = createLineageService(0);
+
+        AtlasLineageInfo depth1 = lineageService.getAtlasLineageInfo(salesFactMonthly, LineageDirection.INPUT, 1);
+
+        assertEquals(depth1.getGuidEntityMap().keySet(), asSet(salesFactMonthly, loadSalesMonthly, salesFactDaily));
+        assertEquals(getRelations(depth1), asSet(relation(salesFactDaily, loadSalesMonthly), relation(loadSalesMonthly, salesFactMonthly)));
+        assertFalse(depth1.isTruncated());
+
+        AtlasLineageInfo depth2 = lineageService.getAtlasLineageInfo(salesFactMonthly, LineageDirection.INPUT, 2);
+        AtlasLineageInfo full   = lineageService.getAtlasLineageInfo(salesFactMonthly, LineageDirection.INPUT, 0);
+
+        assertEquals(depth2.getGuidEntityMap().keySet(), asSet(salesFactMonthly, loadSalesMonthly, salesFactDaily, loadSalesDaily, salesFact, timeDim));
+        assertEquals(depth2.getRelations().size(), 5);
+        assertEquals(full.getGuidEntityMap().keySet(), depth2.getGuidEntityMap().keySet());
+        assertEquals(full.getRelations(), depth2.getRelations());
+        assertFalse(full.isTruncated());
+    }
+
+    @Test
+    public void testOutputLineage() throws AtlasBaseException {
+        AtlasLineageInfo lineage = createLineageService(0).getAtlasLineageInfo(salesFact, LineageDirection.OUTPUT, 0);
+
+        assertEquals(lineage.getGuidEntityMap().keySet(), asSet(salesFact, loadSalesDaily, salesFactDaily, loadSalesMonthly, salesFactMonthly),
+                     "other inputs of the processes are not part of output lineage");
+        assertEquals(lineage.getRelations().size(), 4);
+    }
+
+    @Test
+    public void testBothLineage() throws AtlasBaseException {
+        AtlasLineageInfo lineage = createLineageService(0).getAtlasLineageInfo(salesFactDaily, LineageDirection.BOTH, 1);
+
+        assertEquals(lineage.getGuidEntityMap().keySet(), asSet(salesFact, timeDim, loadSalesDaily, salesFactDaily, loadSalesMonthly, salesFactMonthly));
+        assertEquals(lineage.getRelations().size(), 5);
+        assertEquals(lineage.getLineageDirection(), LineageDirection.BOTH);
+    }
+
+    @Test
+    public void testCircularLineage() throws AtlasBaseException {
+        String table1 = getGuid(HIVE_TABLE_TYPE, "Reporting.table1");
+        String table2 = getGuid(HIVE_TABLE_TYPE, "Reporting.table2");
+
+        AtlasLineageInfo lineage = createLineageService(0).getAtlasLineageInfo(table1, LineageDirection.OUTPUT, 0);
+
+        assertEquals(lineage.getGuidEntityMap().keySet(), asSet(table1, table2, getGuid(PROCESS_TYPE, "circularLineage1"), getGuid(PROCESS_TYPE, "circularLineage2")));
+        assertEquals(lineage.getRelations().size(), 4);
+    }
+
+    @Test
+    public void testMaxNodeCount() throws AtlasBaseException {
+        AtlasLineageInfo truncated = createLineageService(3).getAtlasLineageInfo(salesFactMonthly, LineageDirection.INPUT, 0);
+
+        assertEquals(truncated.getGuidEntityMap().keySet(), asSet(salesFactMonthly, loadSalesMonthly, salesFactDaily));
+        assertTrue(truncated.isTruncated());
+
+        AtlasLineageInfo complete = createLineageService(6).getAtlasLineageInfo(salesFactMonthly, LineageDirection.INPUT, 0);
+
+        assertEquals(complete.getGuidEntityMap().size(), 6);
+        assertFalse(complete.isTruncated(), "limit reached, but no lineage is left out");
+
+        AtlasLineageInfo depthLimited = createLineageService(3).getAtlasLineageInfo(salesFactMonthly, LineageDirection.INPUT, 1);
+
+        assertFalse(depthLimited.isTruncated(), "depth limit is not a truncation");
+    }
+
+    // lineage cache is disabled, to compute the lineage on each call
+    private EntityLineageService createLineageService(int maxNodeCount) {
+        return new EntityLineageService(typeRegistry, graph, new AtlasLineageCache(0, 0), true, maxNodeCount);
+    }
+
+    private String getGuid(String typeName, String qualifiedName) throws AtlasBaseException {
+        Map<String, Object> uniqAttributes = new HashMap<>(Collections.singletonMap("qualifiedName", (Object) qualifiedName));
+
+        return entityStore.getByUniqueAttributes(typeRegistry.getEntityTypeByName(typeName), uniqAttributes).getEntity().getGuid();
+    }
+
+    private Set<String> asSet(String... guids) {
+        return new HashSet<>(Arrays.asList(guids));
+    }
+
+    // relations without the relationship guid
+    private Set<String> getRelations(AtlasLineageInfo lineage) {
+        Set<String> ret = new HashSet<>();
+
+        for (LineageRelation relation : lineage.getRelations()) {
+            ret.add(relation(relation.getFromEntityId(), relation.getToEntityId()));
+        }
+
+        return ret;
+    }
+
+    private String relation(String fromGuid, String toGuid) {
+        return fromGuid + "->" + toGuid;
+    }
+}
@@ -0,0 +1,251 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.discovery;
+
+import org.apache.atlas.ApplicationProperties;
+import org.apache.atlas.TestModules;
+import org.apache.atlas.discovery.SavedSearchSnapshots.Snapshot;
+import org.apache.atlas.model.discovery.AtlasSearchResult;
+import org.apache.atlas.model.discovery.SearchParameters;
+import org.apache.atlas.model.instance.AtlasEntityHeader;
+import org.apache.atlas.model.profile.AtlasUserSavedSearch;
+import org.apache.atlas.model.profile.AtlasUserSavedSearch.SavedSearchType;
+import org.apache.atlas.query.BasicTestSetup;
+import org.apache.atlas.repository.graph.AtlasGraphProvider;
+import org.apache.atlas.repository.graphdb.AtlasGraph;
+import org.apache.atlas.repository.userprofile.UserProfileService;
+import org.apache.atlas.runner.LocalSolrRunner;
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.configuration.Configuration;
+import org.testng.SkipException;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Guice;
+import org.testng.annotations.Test;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.apache.atlas.graph.GraphSandboxUtil.useLocalSolr;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+@Guice(modules = TestModules.TestOnlyModule.class)
+public class SavedSearchMaterializerTest extends BasicTestSetup {
+    private static final String COLUMN_TYPE   = "hive_column";
+    private static final String PROCESS_TYPE  = "hive_process";
+    private static final int    COLUMN_COUNT  = 17;
+    private static final int    PROCESS_COUNT = 7;
+
+    @Inject
+    private AtlasDiscoveryService discoveryService;
+
+    @Inject
+    private UserProfileService userProfileService;
+
+    @Inject
+    private AtlasGraph graph;
+
+    @BeforeClass
+    public void setup() throws Exception {
+        LocalSolrRunner.start();
+        setupTestData();
+
+        pollForData();
+    }
+
+    @AfterClass
+    public void teardown() throws Exception {
+        AtlasGraphProvider.cleanup();
+
+        if (useLocalSolr()) {
+            LocalSolrRunner.stop();
+        }
+    }
+
+    @Test
+    public void testResultsWithoutSnapshot() throws Exception {
+        SavedSearchSnapshots    snapshots    = new SavedSearchSnapshots(typeRegistry, 10);
+        SavedSearchMaterializer materializer = createMaterializer(snapshots, 1000);
+        AtlasUserSavedSearch    savedSearch  = createSavedSearch(COLUMN_TYPE, 5);
+
+        assertNull(materializer.getResults(savedSearch, 5, 0), "search not registered yet");
+        assertTrue(snapshots.isRegistered(savedSearch.getGuid()));
+        assertNull(materializer.getResults(savedSearch, 5, 0), "snapshot not taken yet");
+
+        savedSearch.setMaterialized(false);
+
+        assertNull(materializer.getResults(savedSearch, 5, 0), "search not materialized");
+    }
+
+    @Test
+    public void testPaging() throws Exception {
+        SavedSearchSnapshots    snapshots    = new SavedSearchSnapshots(typeRegistry, 10);
+        SavedSearchMaterializer materializer = createMaterializer(snapshots, 1000);
+        AtlasUserSavedSearch    savedSearch  = materialize(snapshots, materializer, createSavedSearch(COLUMN_TYPE, 5));
+        Snapshot                snapshot     = snapshots.getSnapshot(savedSearch.getGuid());
+
+        assertNotNull(snapshot);
+        assertEquals(snapshot.size(), COLUMN_COUNT);
+        assertFalse(snapshot.isTruncated());
+
+        AtlasSearchResult firstPage = materializer.getResults(savedSearch, 0, 0);
+
+        assertEquals(getGuids(firstPage), snapshot.getGuids(0, 5), "limit of the saved search");
+        assertEquals(firstPage.getSnapshotCount().intValue(), COLUMN_COUNT);
+        assertEquals(firstPage.getSnapshotTime().longValue(), snapshot.getTime());
+        assertFalse(firstPage.getSnapshotTruncated());
+
+        assertEquals(getGuids(materializer.getResults(savedSearch, 10, 5)), snapshot.getGuids(5, 10));
+        assertEquals(getGuids(materializer.getResults(savedSearch, 10, 15)), snapshot.getGuids(15, 10));
+        assertEquals(getGuids(materializer.getResults(savedSearch, 10, COLUMN_COUNT)).size(), 0);
+    }
+
+    @Test
+    public void testTruncatedSnapshot() throws Exception {
+        SavedSearchSnapshots    snapshots    = new SavedSearchSnapshots(typeRegistry, 10);
+        SavedSearchMaterializer materializer = createMaterializer(snapshots, 10);
+        AtlasUserSavedSearch    savedSearch  = materialize(snapshots, materializer, createSavedSearch(COLUMN_TYPE, 5));
+        Snapshot                snapshot     = snapshots.getSnapshot(savedSearch.getGuid());
+
+        assertEquals(snapshot.size(), 10);
+        assertTrue(snapshot.isTruncated());
+
+        AtlasSearchResult page = materializer.getResults(savedSearch, 5, 5);
+
+        assertEquals(getGuids(page), snapshot.getGuids(5, 5));
+        assertEquals(page.getSnapshotCount().intValue(), 10);
+        assertTrue(page.getSnapshotTruncated());
+
+        assertNull(materializer.getResults(savedSearch, 5, 8), "page beyond the snapshot: served by the live search");
+        assertNull(materializer.getResults(savedSearch, 5, 10), "page beyond the snapshot: served by the live search");
+    }
+
+    @Test
+    public void testMaxResultsIsBelowSearchLimit() throws Exception {
+        Configuration config         = ApplicationProperties.get();
+        Object        searchMaxLimit = config.getProperty("atlas.search.maxlimit");
+
+        // a limit above the search limit would return the default number of results, hiding the truncation
+        config.setProperty("atlas.search.maxlimit", 11);
+
+        try {
+            SavedSearchSnapshots    snapshots    = new SavedSearchSnapshots(typeRegistry, 10);
+            SavedSearchMaterializer materializer = createMaterializer(snapshots, 1000);
+            AtlasUserSavedSearch    savedSearch  = materialize(snapshots, materializer, createSavedSearch(COLUMN_TYPE, 5));
+            Snapshot                snapshot     = snapshots.getSnapshot(savedSearch.getGuid());
+
+            assertEquals(snapshot.size(), 10);
+            assertTrue(snapshot.isTruncated());
+        } finally {
+            if (searchMaxLimit != null) {
+                config.setProperty("atlas.search.maxlimit", searchMaxLimit);
+            } else {
+                config.clearProperty("atlas.search.maxlimit");
+            }
+        }
+    }
+
+    @Test
+    public void testDeletedEntitiesAreSkipped() throws Exception {
+        SavedSearchSnapshots    snapshots    = new SavedSearchSnapshots(typeRegistry, 10);
+        SavedSearchMaterializer materializer = createMaterializer(snapshots, 1000);
+        AtlasUserSavedSearch    savedSearch  = materialize(snapshots, materializer, createSavedSearch(PROCESS_TYPE, 100));
+        List<String>            guids        = snapshots.getSnapshot(savedSearch.getGuid()).getGuids(0, 100);
+
+        assertEquals(guids.size(), PROCESS_COUNT);
+
+        entityStore.deleteById(guids.get(1));
+
+        AtlasSearchResult result   = materializer.getResults(savedSearch, 3, 0);
+        List<String>      expected = new ArrayList<>(guids.subList(0, 3));
+
+        expected.remove(1);
+
+        assertEquals(getGuids(result), expected, "deleted entity is left out of the page, without shifting the next page");
+        assertEquals(result.getSnapshotCount().intValue(), PROCESS_COUNT);
+        assertEquals(getGuids(materializer.getResults(savedSearch, 3, 3)), guids.subList(3, 6));
+    }
+
+    private SavedSearchMaterializer createMaterializer(SavedSearchSnapshots snapshots, int maxResults) {
+        return new SavedSearchMaterializer(discoveryService, userProfileService, snapshots, graph, typeRegistry, maxResults, 0, 0, 0);
+    }
+
+    // registers the search and takes its snapshot
+    private AtlasUserSavedSearch materialize(SavedSearchSnapshots snapshots, SavedSearchMaterializer materializer, AtlasUserSavedSearch savedSearch) {
+        assertTrue(snapshots.register(savedSearch));
+
+        materializer.refresh(snapshots.getSearchToRefresh(System.currentTimeMillis(), 0, 0));
+
+        assertNotNull(snapshots.getSnapshot(savedSearch.getGuid()));
+
+        return savedSearch;
+    }
+
+    private AtlasUserSavedSearch createSavedSearch(String typeName, int limit) {
+        SearchParameters params = new SearchParameters();
+
+        params.setTypeName(typeName);
+        params.setExcludeDeletedEntities(true);
+        params.setLimit(limit);
+
+        AtlasUserSavedSearch ret = new AtlasUserSavedSearch("admin", typeName + "-search", SavedSearchType.BASIC, params);
+
+        ret.setGuid(UUID.randomUUID().toString());
+        ret.setMaterialized(true);
+
+        return ret;
+    }
+
+    private List<String> getGuids(AtlasSearchResult result) {
+        List<String> ret = new ArrayList<>();
+
+        assertNotNull(result);
+
+        if (result.getEntities() != null) {
+            for (AtlasEntityHeader entity : result.getEntities()) {
+                ret.add(entity.getGuid());
+            }
+        }
+
+        return ret;
+    }
+
+    private void pollForData() throws Exception {
+        SearchParameters params = new SearchParameters();
+
+        params.setTypeName(COLUMN_TYPE);
+        params.setExcludeDeletedEntities(true);
+        params.setLimit(100);
+
+        for (int attempt = 0; attempt < 5; attempt++) {
+            if (CollectionUtils.size(discoveryService.searchWithParameters(params).getEntities()) == COLUMN_COUNT) {
+                return;
+            }
+
+            Thread.sleep(attempt * 5000);
+        }
+
+        throw new SkipException("Polling for test data was unsuccessful");
+    }
+}
@@ -0,0 +1,228 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.discovery;
+
+import org.apache.atlas.discovery.SavedSearchSnapshots.MaterializedSearch;
+import org.apache.atlas.discovery.SavedSearchSnapshots.Snapshot;
+import org.apache.atlas.model.discovery.SearchParameters;
+import org.apache.atlas.model.profile.AtlasUserSavedSearch;
+import org.apache.atlas.model.profile.AtlasUserSavedSearch.SavedSearchType;
+import org.apache.atlas.type.AtlasClassificationType;
+import org.apache.atlas.type.AtlasEntityType;
+import org.apache.atlas.type.AtlasTypeRegistry;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class SavedSearchSnapshotsTest {
+    private static final String TABLE_TYPE = "hive_table";
+    private static final String DB_TYPE    = "hive_db";
+    private static final String PII_TAG    = "PII";
+    private static final String ETL_TAG    = "ETL";
+
+    private final AtlasTypeRegistry typeRegistry = createTypeRegistry();
+
+    @Test
+    public void testRegister() {
+        SavedSearchSnapshots snapshots = new SavedSearchSnapshots(typeRegistry, 2);
+
+        assertTrue(snapshots.register(createSavedSearch("s1", TABLE_TYPE, null)));
+        assertTrue(snapshots.register(createSavedSearch("s2", DB_TYPE, null)));
+        assertFalse(snapshots.register(createSavedSearch("s3", DB_TYPE, null)), "more searches than the limit");
+        assertTrue(snapshots.register(createSavedSearch("s1", DB_TYPE, null)), "update of a registered search");
+
+        AtlasUserSavedSearch advanced = createSavedSearch("s4", TABLE_TYPE, null);
+
+        advanced.setSearchType(SavedSearchType.ADVANCED);
+
+        snapshots.unregister("s2");
+
+        assertFalse(snapshots.register(advanced));
+        assertFalse(snapshots.isRegistered("s2"));
+        assertEquals(snapshots.getSearchCount(), 1);
+    }
+
+    @Test
+    public void testSnapshotDiscardedOnParameterChange() {
+        SavedSearchSnapshots snapshots = new SavedSearchSnapshots(typeRegistry, 10);
+
+        snapshots.register(createSavedSearch("s1", TABLE_TYPE, null));
+        snapshots.setSnapshot(snapshots.getSearchToRefresh(1000, 0, 0), createSnapshot(1000, 3), 0);
+
+        snapshots.register(createSavedSearch("s1", TABLE_TYPE, null));
+
+        assertNotNull(snapshots.getSnapshot("s1"), "same parameters");
+
+        snapshots.register(createSavedSearch("s1", TABLE_TYPE, PII_TAG));
+
+        assertNull(snapshots.getSnapshot("s1"));
+    }
+
+    @Test
+    public void testStaleOnChanges() {
+        SavedSearchSnapshots snapshots = new SavedSearchSnapshots(typeRegistry, 10);
+
+        MaterializedSearch tables = register(snapshots, createSavedSearch("tables", TABLE_TYPE, null));
+        MaterializedSearch pii    = register(snapshots, createSavedSearch("pii", null, PII_TAG));
+
+        assertFalse(tables.isStale());
+        assertFalse(pii.isStale());
+
+        snapshots.onEntitiesChanged(Collections.singleton(DB_TYPE));
+        snapshots.onClassificationsChanged(Collections.singleton(ETL_TAG));
+
+        assertFalse(tables.isStale());
+        assertTrue(pii.isStale(), "search on any entity type");
+
+        snapshots.setSnapshot(pii, createSnapshot(2000, 1), pii.getChangeCount());
+        snapshots.onClassificationsChanged(Collections.singleton(PII_TAG));
+
+        assertFalse(tables.isStale(), "search without classification");
+        assertTrue(pii.isStale());
+
+        snapshots.onEntitiesChanged(Collections.singleton(TABLE_TYPE));
+
+        assertTrue(tables.isStale());
+    }
+
+    @Test
+    public void testSearchToRefresh() {
+        SavedSearchSnapshots snapshots = new SavedSearchSnapshots(typeRegistry, 10);
+
+        snapshots.register(createSavedSearch("s1", TABLE_TYPE, null));
+
+        MaterializedSearch search = snapshots.getSearchToRefresh(1000, 0, 100);
+
+        assertNotNull(search, "never refreshed");
+
+        search.setLastAttemptTime(1000);
+
+        assertNull(snapshots.getSearchToRefresh(1050, 0, 100), "failed attempt, within the minimum interval");
+        assertSame(snapshots.getSearchToRefresh(1100, 0, 100), search);
+
+        snapshots.setSnapshot(search, createSnapshot(1000, 1), search.getChangeCount());
+
+        assertNull(snapshots.getSearchToRefresh(5000, 0, 100), "no changes, no periodic refresh");
+        assertSame(snapshots.getSearchToRefresh(5000, 4000, 100), search);
+
+        snapshots.onEntitiesChanged(Collections.singleton(TABLE_TYPE));
+
+        assertNull(snapshots.getSearchToRefresh(1050, 0, 100), "stale, within the minimum interval");
+        assertSame(snapshots.getSearchToRefresh(1100, 0, 100), search);
+    }
+
+    @Test
+    public void testSnapshotIgnoredAfterUnregister() {
+        SavedSearchSnapshots snapshots = new SavedSearchSnapshots(typeRegistry, 10);
+
+        snapshots.register(createSavedSearch("s1", TABLE_TYPE, null));
+
+        MaterializedSearch search = snapshots.getSearchToRefresh(1000, 0, 0);
+
+        snapshots.unregister("s1");
+        snapshots.setSnapshot(search, createSnapshot(1000, 1), 0);
+
+        assertNull(snapshots.getSnapshot("s1"));
+    }
+
+    @Test
+    public void testSnapshotGuids() {
+        List<String> guids    = Arrays.asList(UUID.randomUUID().toString(), "-123", UUID.randomUUID().toString(), "not-a-uuid");
+        Snapshot     snapshot = new Snapshot(1000, guids, new HashSet<>(Arrays.asList("name", "owner")), false);
+
+        assertEquals(snapshot.size(), 4);
+        assertEquals(snapshot.getGuids(0, 10), guids);
+        assertEquals(snapshot.getGuids(1, 2), guids.subList(1, 3));
+        assertEquals(snapshot.getGuids(4, 10), Collections.emptyList());
+        assertEquals(snapshot.getAttributes(), new HashSet<>(Arrays.asList("name", "owner")));
+    }
+
+    // registers the search and sets its snapshot; only to be used when no other search is due for a refresh
+    private MaterializedSearch register(SavedSearchSnapshots snapshots, AtlasUserSavedSearch savedSearch) {
+        snapshots.register(savedSearch);
+
+        MaterializedSearch ret = snapshots.getSearchToRefresh(1000, 0, 0);
+
+        assertEquals(ret.getGuid(), savedSearch.getGuid());
+
+        ret.setLastAttemptTime(1000);
+        snapshots.setSnapshot(ret, createSnapshot(1000, 1), ret.getChangeCount());
+
+        return ret;
+    }
+
+    private AtlasUserSavedSearch createSavedSearch(String guid, String typeName, String classification) {
+        SearchParameters params = new SearchParameters();
+
+        params.setTypeName(typeName);
+        params.setClassification(classification);
+        params.setLimit(25);
+
+        AtlasUserSavedSearch ret = new AtlasUserSavedSearch("admin", guid, SavedSearchType.BASIC, params);
+
+        ret.setGuid(guid);
+        ret.setMaterialized(true);
+
+        return ret;
+    }
+
+    private Snapshot createSnapshot(long time, int count) {
+        String[] guids = new String[count];
+
+        for (int i = 0; i < count; i++) {
+            guids[i] = UUID.randomUUID().toString();
+        }
+
+        return new Snapshot(time, Arrays.asList(guids), Collections.<String>emptySet(), false);
+    }
+
+    private AtlasTypeRegistry createTypeRegistry() {
+        AtlasTypeRegistry ret = mock(AtlasTypeRegistry.class);
+
+        for (String typeName : Arrays.asList(TABLE_TYPE, DB_TYPE)) {
+            AtlasEntityType entityType = mock(AtlasEntityType.class);
+
+            when(entityType.getTypeName()).thenReturn(typeName);
+            when(entityType.getTypeAndAllSubTypes()).thenReturn(Collections.singleton(typeName));
+            when(ret.getEntityTypeByName(typeName)).thenReturn(entityType);
+        }
+
+        for (String tagName : Arrays.asList(PII_TAG, ETL_TAG)) {
+            AtlasClassificationType classificationType = mock(AtlasClassificationType.class);
+
+            when(classificationType.getTypeName()).thenReturn(tagName);
+            when(classificationType.getTypeAndAllSubTypes()).thenReturn(Collections.singleton(tagName));
+            when(ret.getClassificationTypeByName(tagName)).thenReturn(classificationType);
+        }
+
+        return ret;
+    }
+}
@@ -0,0 +1,202 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.discovery;
+
+import com.google.common.collect.ImmutableSet;
+import org.apache.atlas.TestModules;
+import org.apache.atlas.exception.AtlasBaseException;
+import org.apache.atlas.model.discovery.AtlasSearchResult;
+import org.apache.atlas.model.discovery.SearchParameters;
+import org.apache.atlas.model.instance.AtlasClassification;
+import org.apache.atlas.model.instance.AtlasEntityHeader;
+import org.apache.atlas.model.typedef.AtlasClassificationDef;
+import org.apache.atlas.model.typedef.AtlasEntityDef;
+import org.apache.atlas.model.typedef.AtlasEnumDef;
+import org.apache.atlas.model.typedef.AtlasStructDef;
+import org.apache.atlas.model.typedef.AtlasTypesDef;
+import org.apache.atlas.query.BasicTestSetup;
+import org.apache.atlas.repository.graph.AtlasGraphProvider;
+import org.apache.atlas.repository.graph.GraphBackedSearchIndexer;
+import org.apache.atlas.repository.graph.GraphHelper;
+import org.apache.atlas.repository.graphdb.AtlasGraph;
+import org.apache.atlas.repository.graphdb.AtlasVertex;
+import org.apache.atlas.runner.LocalSolrRunner;
+import org.apache.commons.collections.CollectionUtils;
+import org.testng.SkipException;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Guice;
+import org.testng.annotations.Test;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.apache.atlas.graph.GraphSandboxUtil.useLocalSolr;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Pages through the results of the search processors with continuation tokens.
+ */
+@Guice(modules = TestModules.TestOnlyModule.class)
+public class SearchContinuationPagingTest extends BasicTestSetup {
+    private static final String COLUMN_TYPE   = "hive_column";
+    private static final int    COLUMN_COUNT  = 17;
+    private static final String PAGING_TAG    = "PagingTag";
+    private static final String PAGING_SUBTAG = "PagingSubTag";
+    private static final int    PAGE_SIZE     = 3;
+
+    @Inject
+    private EntityDiscoveryService discoveryService;
+
+    @Inject
+    private GraphBackedSearchIndexer indexer;
+
+    @Inject
+    private AtlasGraph graph;
+
+    private final List<String> columnGuids = new ArrayList<>();
+
+    @BeforeClass
+    public void setup() throws Exception {
+        LocalSolrRunner.start();
+        setupTestData();
+
+        AtlasClassificationDef tag    = new AtlasClassificationDef(PAGING_TAG, "classification to page through", "1.0");
+        AtlasClassificationDef subTag = new AtlasClassificationDef(PAGING_SUBTAG, "sub-classification to page through", "1.0",
+                                                                   Collections.<AtlasStructDef.AtlasAttributeDef>emptyList(), ImmutableSet.of(PAGING_TAG));
+
+        typeDefStore.createTypesDef(new AtlasTypesDef(Collections.<AtlasEnumDef>emptyList(), Collections.<AtlasStructDef>emptyList(),
+                                                      Arrays.asList(tag, subTag), Collections.<AtlasEntityDef>emptyList()));
+
+        columnGuids.addAll(pollForData(createParameters(COLUMN_TYPE, null, 100), COLUMN_COUNT));
+
+        // every other column has both classifications: it is matched by two classification vertices
+        List<String> subTagged = new ArrayList<>();
+
+        for (int i = 0; i < columnGuids.size(); i += 2) {
+            subTagged.add(columnGuids.get(i));
+        }
+
+        entityStore.addClassification(columnGuids, new AtlasClassification(PAGING_TAG));
+        entityStore.addClassification(subTagged, new AtlasClassification(PAGING_SUBTAG));
+
+        pollForData(createParameters(null, PAGING_SUBTAG, 100), subTagged.size());
+    }
+
+    @AfterClass
+    public void teardown() throws Exception {
+        AtlasGraphProvider.cleanup();
+
+        if (useLocalSolr()) {
+            LocalSolrRunner.stop();
+        }
+    }
+
+    @Test
+    public void testEntitySearchPages() throws AtlasBaseException {
+        SearchParameters params = createParameters(COLUMN_TYPE, null, PAGE_SIZE);
+
+        assertTrue(new SearchContext(params, typeRegistry, graph, indexer.getVertexIndexKeys()).getSearchProcessor() instanceof EntitySearchProcessor);
+
+        assertPages(params);
+    }
+
+    @Test
+    public void testClassificationSearchPages() throws AtlasBaseException {
+        SearchParameters params = createParameters(null, PAGING_TAG, PAGE_SIZE);
+
+        params.setIncludeSubClassifications(true);
+
+        assertTrue(new SearchContext(params, typeRegistry, graph, indexer.getVertexIndexKeys()).getSearchProcessor() instanceof ClassificationSearchProcessor);
+
+        assertPages(params);
+    }
+
+    // pages through the results: each column is to be returned once, in full pages till the last
+    private void assertPages(SearchParameters params) throws AtlasBaseException {
+        List<String> returned = new ArrayList<>();
+
+        for (int pageCount = 0; ; pageCount++) {
+            if (pageCount > COLUMN_COUNT) {
+                fail("continuation tokens don't end: " + returned);
+            }
+
+            SearchContext     context = new SearchContext(params, typeRegistry, graph, indexer.getVertexIndexKeys());
+            List<AtlasVertex> page    = context.getSearchProcessor().execute();
+
+            for (AtlasVertex vertex : page) {
+                returned.add(GraphHelper.getGuid(vertex));
+            }
+
+            if (context.getNextContinuationToken() == null) {
+                break;
+            }
+
+            assertEquals(page.size(), PAGE_SIZE, "a page with a continuation token is to be full");
+
+            params.setContinuationToken(context.getNextContinuationToken().encode());
+        }
+
+        assertEquals(returned.size(), new HashSet<>(returned).size(), "duplicates in " + returned);
+        assertEquals(new HashSet<>(returned), new HashSet<>(columnGuids), "gaps in " + returned);
+    }
+
+    private SearchParameters createParameters(String typeName, String classification, int limit) {
+        SearchParameters ret = new SearchParameters();
+
+        ret.setTypeName(typeName);
+        ret.setClassification(classification);
+        ret.setExcludeDeletedEntities(true);
+        ret.setLimit(limit);
+
+        return ret;
+    }
+
+    private Set<String> getGuids(AtlasSearchResult result) {
+        Set<String> ret = new HashSet<>();
+
+        if (result.getEntities() != null) {
+            for (AtlasEntityHeader entity : result.getEntities()) {
+                ret.add(entity.getGuid());
+            }
+        }
+
+        return ret;
+    }
+
+    private Set<String> pollForData(SearchParameters params, int expectedCount) throws Exception {
+        for (int attempt = 0; attempt < 5; attempt++) {
+            AtlasSearchResult result = discoveryService.searchWithParameters(params);
+
+            if (CollectionUtils.size(result.getEntities()) == expectedCount) {
+                return getGuids(result);
+            }
+
+            Thread.sleep(attempt * 5000);
+        }
+
+        throw new SkipException("Polling for test data was unsuccessful");
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.discovery;
+
+import org.apache.atlas.AtlasErrorCode;
+import org.apache.atlas.exception.AtlasBaseException;
+import org.apache.atlas.model.discovery.SearchParameters;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.fail;
+
+public class SearchContinuationTokenTest {
+    @Test
+    public void testRoundTrip() throws AtlasBaseException {
+        SearchParameters        params = createSearchParameters("hive_table");
+        SearchContinuationToken token  = new SearchContinuationToken(params, 200, 17);
+
+        params.setContinuationToken(token.encode());
+        params.setOffset(500); // offset and limit are not part of the search criteria
+        params.setLimit(25);
+
+        SearchContinuationToken decoded = SearchContinuationToken.fromSearchParameters(params);
+
+        assertEquals(decoded.getQueryOffset(), 200);
+        assertEquals(decoded.getSkipCount(), 17);
+    }
+
+    @Test
+    public void testNoToken() throws AtlasBaseException {
+        assertNull(SearchContinuationToken.fromSearchParameters(createSearchParameters("hive_table")));
+    }
+
+    @Test
+    public void testTokenForDifferentSearch() {
+        String token = new SearchContinuationToken(createSearchParameters("hive_table"), 200, 17).encode();
+
+        SearchParameters params = createSearchParameters("hive_db");
+
+        params.setContinuationToken(token);
+
+        assertInvalidToken(params);
+    }
+
+    @Test
+    public void testMalformedToken() {
+        SearchParameters params = createSearchParameters("hive_table");
+
+        params.setContinuationToken("not-a-token");
+
+        assertInvalidToken(params);
+    }
+
+    private void assertInvalidToken(SearchParameters params) {
+        try {
+            SearchContinuationToken.fromSearchParameters(params);
+
+            fail("expected invalid continuation token");
+        } catch (AtlasBaseException e) {
+            assertEquals(e.getAtlasErrorCode(), AtlasErrorCode.INVALID_CONTINUATION_TOKEN);
+        }
+    }
+
+    private SearchParameters createSearchParameters(String typeName) {
+        SearchParameters ret = new SearchParameters();
+
+        ret.setTypeName(typeName);
+        ret.setExcludeDeletedEntities(true);
+        ret.setLimit(100);
+
+        return ret;
+    }
+}
@@ -0,0 +1,133 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.discovery;
+
+import org.apache.atlas.SortOrder;
+import org.apache.atlas.repository.Constants;
+import org.apache.atlas.repository.graphdb.AtlasVertex;
+import org.apache.atlas.type.AtlasEntityType;
+import org.apache.atlas.type.AtlasStructType.AtlasAttribute;
+import org.apache.atlas.type.AtlasTypeRegistry;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+
+public class TopKVertexCollectorTest {
+    private static final String TABLE_TYPE = "hive_table";
+    private static final String DB_TYPE    = "hive_db";
+
+    private final AtlasTypeRegistry typeRegistry = createTypeRegistry();
+    private       long              nextVertexId = 1;
+
+    @Test
+    public void testFirstKInAscendingOrder() {
+        AtlasVertex t1 = createVertex(TABLE_TYPE, "hive_table.name", "t1");
+        AtlasVertex t2 = createVertex(TABLE_TYPE, "hive_table.name", "t2");
+        AtlasVertex t3 = createVertex(TABLE_TYPE, "hive_table.name", "t3");
+        AtlasVertex d1 = createVertex(DB_TYPE, "hive_db.name", "d1");
+
+        TopKVertexCollector collector = new TopKVertexCollector(typeRegistry, "name", SortOrder.ASCENDING, 3);
+
+        collector.addAll(Arrays.asList(t3, t1, d1, t2));
+
+        assertEquals(collector.getAddedCount(), 4);
+        assertEquals(collector.getSortedVertices(), Arrays.asList(d1, t1, t2));
+    }
+
+    @Test
+    public void testMissingValuesAreLast() {
+        AtlasVertex t1      = createVertex(TABLE_TYPE, "hive_table.name", "t1");
+        AtlasVertex t2      = createVertex(TABLE_TYPE, "hive_table.name", "t2");
+        AtlasVertex noName1 = createVertex(TABLE_TYPE, "hive_table.name", null);
+        AtlasVertex noName2 = createVertex(TABLE_TYPE, "hive_table.name", null);
+        AtlasVertex noType  = createVertex("unknown_type", "unknown_type.name", "u1");
+
+        TopKVertexCollector collector = new TopKVertexCollector(typeRegistry, "name", SortOrder.DESCENDING, 10);
+
+        collector.addAll(Arrays.asList(noName1, t1, noType, noName2, t2));
+
+        assertEquals(collector.getSortedVertices(), Arrays.asList(t2, t1, noName1, noType, noName2));
+    }
+
+    @Test
+    public void testVertexAddedAgainIsCollectedOnce() {
+        AtlasVertex t1 = createVertex(TABLE_TYPE, "hive_table.name", "t1");
+        AtlasVertex t2 = createVertex(TABLE_TYPE, "hive_table.name", "t2");
+        AtlasVertex t3 = createVertex(TABLE_TYPE, "hive_table.name", "t3");
+        AtlasVertex t4 = createVertex(TABLE_TYPE, "hive_table.name", "t4");
+
+        TopKVertexCollector collector = new TopKVertexCollector(typeRegistry, "name", SortOrder.ASCENDING, 3);
+
+        collector.addAll(Arrays.asList(t2, t4, t1));
+        collector.addAll(Arrays.asList(t1, t4, t3, t2, t1));
+
+        assertEquals(collector.getSortedVertices(), Arrays.asList(t1, t2, t3));
+    }
+
+    @Test
+    public void testNumbersOfDifferentTypes() {
+        AtlasVertex t1 = createVertex(TABLE_TYPE, "hive_table.name", 10L);
+        AtlasVertex t2 = createVertex(TABLE_TYPE, "hive_table.name", 9);
+        AtlasVertex t3 = createVertex(TABLE_TYPE, "hive_table.name", 9.5d);
+
+        TopKVertexCollector collector = new TopKVertexCollector(typeRegistry, "name", SortOrder.ASCENDING, 3);
+
+        collector.addAll(Arrays.asList(t1, t2, t3));
+
+        assertEquals(collector.getSortedVertices(), Arrays.asList(t2, t3, t1), "compared by value, not by string form");
+    }
+
+    @Test
+    public void testZeroK() {
+        TopKVertexCollector collector = new TopKVertexCollector(typeRegistry, "name", SortOrder.ASCENDING, 0);
+
+        collector.add(createVertex(TABLE_TYPE, "hive_table.name", "t1"));
+
+        assertEquals(collector.getSortedVertices(), Collections.emptyList());
+    }
+
+    private AtlasTypeRegistry createTypeRegistry() {
+        AtlasTypeRegistry ret = mock(AtlasTypeRegistry.class);
+
+        for (String typeName : Arrays.asList(TABLE_TYPE, DB_TYPE)) {
+            AtlasEntityType entityType = mock(AtlasEntityType.class);
+            AtlasAttribute  attribute  = mock(AtlasAttribute.class);
+
+            when(attribute.getVertexPropertyName()).thenReturn(typeName + ".name");
+            when(entityType.getAttribute("name")).thenReturn(attribute);
+            when(ret.getEntityTypeByName(typeName)).thenReturn(entityType);
+        }
+
+        return ret;
+    }
+
+    private AtlasVertex createVertex(String typeName, String propertyName, Object value) {
+        AtlasVertex ret = mock(AtlasVertex.class);
+
+        when(ret.getId()).thenReturn(nextVertexId++);
+        when(ret.getProperty(Constants.ENTITY_TYPE_PROPERTY_KEY, String.class)).thenReturn(typeName);
+        when(ret.getProperty(propertyName, Object.class)).thenReturn(value);
+
+        return ret;
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.query;
+
+import org.apache.atlas.TestUtilsV2;
+import org.apache.atlas.exception.AtlasBaseException;
+import org.apache.atlas.listener.ChangedTypeDefs;
+import org.apache.atlas.type.AtlasTypeRegistry;
+import org.apache.atlas.type.AtlasTypeRegistry.AtlasTransientTypeRegistry;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class DSLQueryCacheTest {
+    private static final int OFFSET = 0;
+    private static final int LIMIT  = 25;
+
+    private final AtlasTypeRegistry typeRegistry = new AtlasTypeRegistry();
+
+    @BeforeClass
+    public void setUp() throws AtlasBaseException {
+        AtlasTransientTypeRegistry ttr = typeRegistry.lockTypeRegistryForUpdate();
+
+        ttr.addTypes(TestUtilsV2.defineHiveTypes());
+
+        typeRegistry.releaseTypeRegistryForUpdate(ttr, true);
+    }
+
+    @Test
+    public void testQueriesDifferingInLiteralsShareTranslation() throws AtlasBaseException {
+        DSLQueryCache cache = new DSLQueryCache(typeRegistry, 10, 0);
+
+        GremlinQuery query1 = cache.getGremlinQuery("hive_table where name = \"table1\"", OFFSET, LIMIT);
+        GremlinQuery query2 = cache.getGremlinQuery("hive_table where name = 'table2'", OFFSET, LIMIT);
+
+        assertEquals(query2.queryStr(), query1.queryStr());
+        assertFalse(query1.queryStr().contains("table1"));
+        assertEquals(query1.getBindings().get("dslParam0"), "table1");
+        assertEquals(query2.getBindings().get("dslParam0"), "table2");
+
+        assertEquals(cache.getMetrics().get(DSLQueryCache.METRIC_CACHE_MISSES).longValue(), 1);
+        assertEquals(cache.getMetrics().get(DSLQueryCache.METRIC_CACHE_HITS).longValue(), 1);
+
+        cache.getGremlinQuery("hive_table where name = \"table1\"", OFFSET, LIMIT + 1);
+
+        assertEquals(cache.getMetrics().get(DSLQueryCache.METRIC_CACHE_MISSES).longValue(), 2);
+    }
+
+    @Test
+    public void testLikeLiteralIsBoundAsRegex() throws AtlasBaseException {
+        DSLQueryCache cache = new DSLQueryCache(typeRegistry, 10, 0);
+        GremlinQuery  query = cache.getGremlinQuery("hive_table where name like \"tab*\"", OFFSET, LIMIT);
+
+        assertEquals(query.getBindings().get("dslParam0"), "tab.*");
+    }
+
+    @Test
+    public void testDateLiteralIsNotLifted() throws AtlasBaseException {
+        DSLQueryCache cache = new DSLQueryCache(typeRegistry, 10, 0);
+        GremlinQuery  query = cache.getGremlinQuery("hive_table where created = \"2017-01-01\"", OFFSET, LIMIT);
+        GremlinQuery  plain = new AtlasDSL.Translator("hive_table where created = \"2017-01-01\"", typeRegistry, OFFSET, LIMIT).translate();
+
+        assertEquals(query.queryStr(), plain.queryStr());
+        assertTrue(query.getBindings().isEmpty());
+
+        cache.getGremlinQuery("hive_table where created = \"2017-01-01\"", OFFSET, LIMIT);
+        cache.getGremlinQuery("hive_table where created = \"2017-02-01\"", OFFSET, LIMIT);
+
+        assertEquals(cache.getMetrics().get(DSLQueryCache.METRIC_CACHE_HITS).longValue(), 1);
+        assertEquals(cache.getMetrics().get(DSLQueryCache.METRIC_CACHE_MISSES).longValue(), 2);
+    }
+
+    @Test
+    public void testCacheIsClearedOnTypeChange() throws AtlasBaseException {
+        DSLQueryCache cache = new DSLQueryCache(typeRegistry, 10, 0);
+
+        cache.getGremlinQuery("hive_table", OFFSET, LIMIT);
+        cache.onChange(new ChangedTypeDefs());
+        cache.getGremlinQuery("hive_table", OFFSET, LIMIT);
+
+        assertEquals(cache.getMetrics().get(DSLQueryCache.METRIC_CACHE_HITS).longValue(), 0);
+        assertEquals(cache.getMetrics().get(DSLQueryCache.METRIC_CACHE_MISSES).longValue(), 2);
+        assertEquals(cache.getMetrics().get(DSLQueryCache.METRIC_CACHE_INVALIDATIONS).longValue(), 1);
+    }
+
+    @Test
+    public void testCacheIsClearedOnActivation() throws AtlasBaseException {
+        DSLQueryCache cache = new DSLQueryCache(typeRegistry, 10, 0);
+
+        cache.getGremlinQuery("hive_table", OFFSET, LIMIT);
+        cache.instanceIsActive();
+        cache.getGremlinQuery("hive_table", OFFSET, LIMIT);
+
+        assertEquals(cache.getMetrics().get(DSLQueryCache.METRIC_CACHE_HITS).longValue(), 0);
+        assertEquals(cache.getMetrics().get(DSLQueryCache.METRIC_CACHE_SIZE).longValue(), 1);
+        assertEquals(cache.getMetrics().get(DSLQueryCache.METRIC_CACHE_INVALIDATIONS).longValue(), 1);
+    }
+
+    @Test(expectedExceptions = AtlasBaseException.class)
+    public void testInvalidQueryFails() throws AtlasBaseException {
+        new DSLQueryCache(typeRegistry, 10, 0).getGremlinQuery("hive_table where unknownAttr = \"x\"", OFFSET, LIMIT);
+    }
+}
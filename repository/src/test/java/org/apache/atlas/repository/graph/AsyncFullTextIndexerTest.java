@@ -0,0 +1,145 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.graph;
+
+import org.apache.atlas.repository.graphdb.AtlasGraph;
+import org.apache.atlas.repository.outbox.EntityChangeOutbox;
+import org.apache.atlas.utils.TestTransactionUtils;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class AsyncFullTextIndexerTest {
+    @Test
+    public void testRepeatedUpdatesAreCoalesced() {
+        AsyncFullTextIndexer indexer = createIndexer(2);
+
+        indexer.enqueue(Arrays.asList("e1", "e2"));
+        indexer.enqueue(Arrays.asList("e2", "e3"));
+        indexer.enqueue(Collections.singletonList("e1"));
+
+        assertEquals(indexer.getBacklogSize(), 3);
+        assertEquals(indexer.getMetrics().get(AsyncFullTextIndexer.METRIC_COALESCED).intValue(), 2);
+
+        assertEquals(nextBatch(indexer), Arrays.asList("e1", "e2"));
+        assertEquals(nextBatch(indexer), Collections.singletonList("e3"));
+        assertTrue(indexer.nextBatch().isEmpty());
+
+        assertEquals(indexer.getBacklogSize(), 0);
+        assertEquals(indexer.getMetrics().get(AsyncFullTextIndexer.METRIC_LAG_MS).longValue(), 0);
+    }
+
+    @Test
+    public void testEntitiesAreQueuedOnlyAfterCommit() throws Throwable {
+        AsyncFullTextIndexer indexer = createIndexer(10);
+
+        runInTransaction(indexer, Arrays.asList("e1", "e2"), false);
+        runInTransaction(indexer, Collections.singletonList("e3"), true); // rolled back
+
+        assertEquals(nextBatch(indexer), Arrays.asList("e1", "e2"));
+    }
+
+    @Test
+    public void testFailedBatchIsRequeuedAtHead() {
+        AsyncFullTextIndexer indexer   = createIndexer(2);
+        long                 queueTime = System.currentTimeMillis() - 60000;
+
+        indexer.enqueue(Arrays.asList("e1", "e2", "e3"), queueTime);
+
+        Map<String, Long> batch = indexer.nextBatch();
+
+        indexer.enqueue(Arrays.asList("e1", "e4"));
+        indexer.requeue(batch);
+
+        assertEquals(indexer.getBacklogSize(), 4);
+        assertEquals(nextBatch(indexer), Arrays.asList("e1", "e2"));
+        assertEquals(nextBatch(indexer), Arrays.asList("e3", "e4"));
+
+        indexer.requeue(batch);
+
+        assertTrue(indexer.getMetrics().get(AsyncFullTextIndexer.METRIC_LAG_MS).longValue() >= 60000, "lag from the time entities were first queued");
+    }
+
+    @Test
+    public void testCloseIndexesQueuedEntities() throws Exception {
+        final List<String>   indexed = new CopyOnWriteArrayList<>();
+        AsyncFullTextIndexer indexer = new AsyncFullTextIndexer(mock(AtlasGraph.class), mock(FullTextMapperV2.class), null, true, 2, 100, true) {
+            @Override
+            void index(List<String> guids) {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+
+                indexed.addAll(guids);
+            }
+        };
+
+        indexer.enqueue(Arrays.asList("e1", "e2", "e3", "e4", "e5"));
+        indexer.close();
+
+        assertEquals(indexed, Arrays.asList("e1", "e2", "e3", "e4", "e5"));
+        assertEquals(indexer.getBacklogSize(), 0);
+    }
+
+    @Test
+    public void testEntitiesAreQueuedInOutbox() throws Throwable {
+        EntityChangeOutbox outbox = mock(EntityChangeOutbox.class);
+
+        when(outbox.isEnabled()).thenReturn(true);
+
+        AsyncFullTextIndexer indexer = new AsyncFullTextIndexer(mock(AtlasGraph.class), mock(FullTextMapperV2.class), outbox, true, 10, 100, true);
+
+        verify(outbox).registerSink(any(EntityChangeOutbox.Sink.class));
+
+        runInTransaction(indexer, Arrays.asList("e1", "e2", "e1"), false);
+
+        verify(outbox).add(AsyncFullTextIndexer.OUTBOX_SINK_NAME, Arrays.asList("e1", "e2"));
+        assertEquals(indexer.getBacklogSize(), 0, "outbox keeps the queue");
+    }
+
+    private AsyncFullTextIndexer createIndexer(int batchSize) {
+        return new AsyncFullTextIndexer(mock(AtlasGraph.class), mock(FullTextMapperV2.class), null, true, batchSize, 100, false);
+    }
+
+    private List<String> nextBatch(AsyncFullTextIndexer indexer) {
+        return new ArrayList<>(indexer.nextBatch().keySet());
+    }
+
+    private void runInTransaction(final AsyncFullTextIndexer indexer, final List<String> guids, final boolean fail) throws Throwable {
+        TestTransactionUtils.runInTransaction(new Runnable() {
+            @Override
+            public void run() {
+                indexer.indexAfterCommit(guids);
+            }
+        }, fail);
+    }
+}
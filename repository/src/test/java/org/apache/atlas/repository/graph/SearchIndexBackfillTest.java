@@ -0,0 +1,451 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.graph;
+
+import org.apache.atlas.GraphTransactionInterceptor;
+import org.apache.atlas.SortOrder;
+import org.apache.atlas.exception.AtlasBaseException;
+import org.apache.atlas.model.typedef.AtlasStructDef.AtlasAttributeDef;
+import org.apache.atlas.repository.Constants;
+import org.apache.atlas.repository.graph.SearchIndexBackfill.BackfillJob;
+import org.apache.atlas.repository.graph.SearchIndexBackfill.BackfillTask;
+import org.apache.atlas.repository.graphdb.AtlasCardinality;
+import org.apache.atlas.repository.graphdb.AtlasGraph;
+import org.apache.atlas.repository.graphdb.AtlasGraphManagement;
+import org.apache.atlas.repository.graphdb.AtlasGraphQuery;
+import org.apache.atlas.repository.graphdb.AtlasGraphQuery.ComparisionOperator;
+import org.apache.atlas.repository.graphdb.AtlasPropertyKey;
+import org.apache.atlas.repository.graphdb.AtlasVertex;
+import org.apache.atlas.type.AtlasEntityType;
+import org.apache.atlas.type.AtlasStructType.AtlasAttribute;
+import org.apache.atlas.type.AtlasType;
+import org.apache.atlas.type.AtlasTypeRegistry;
+import org.mockito.InOrder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class SearchIndexBackfillTest {
+    private static final String TABLE_TYPE = "hive_table";
+    private static final String DB_TYPE    = "hive_db";
+
+    private final Map<String, String> jobStore = new ConcurrentHashMap<>();
+
+    @BeforeMethod
+    public void setup() {
+        jobStore.clear();
+    }
+
+    @Test
+    public void testVerticesAreRewrittenInBatches() throws Exception {
+        AtlasVertex         v1       = createVertex("v1", "t1", "PII", "Finance");
+        AtlasVertex         v2       = createVertex("v2", "t2");
+        AtlasVertex         v3       = createVertex("v3", "t3");
+        AtlasGraph          graph    = createGraph(v1, v2, v3);
+        SearchIndexBackfill backfill = createBackfill(graph);
+
+        backfill.activate();
+        backfill.start(Collections.singletonMap(TABLE_TYPE, Arrays.asList("name", "tags")));
+
+        Map<String, Object> progress = waitForCompletion(backfill);
+
+        assertEquals(progress.get("status"), SearchIndexBackfill.Status.COMPLETED);
+        assertEquals(progress.get("backfilledVertexCount"), 3L);
+
+        verify(v1).setProperty("name", "t1");
+        verify(v1).addProperty("tags", "PII");
+        verify(v1).addProperty("tags", "Finance");
+        verify(v3).removeProperty("name");
+        verify(v3).setProperty("name", "t3");
+
+        // the vertices of the type are read with one query, not a query per batch
+        verify(graph.query().has(Constants.ENTITY_TYPE_PROPERTY_KEY, TABLE_TYPE), times(1)).vertices();
+
+        backfill.deactivate();
+
+        // the job is read from the graph on activation
+        SearchIndexBackfill restarted = createBackfill(createGraph());
+
+        restarted.activate();
+
+        assertEquals(restarted.getProgress().get("status"), SearchIndexBackfill.Status.COMPLETED);
+    }
+
+    @Test
+    public void testJobResumesAfterLastVertex() throws Exception {
+        AtlasVertex v1    = createVertex("v1", "t1");
+        AtlasVertex v2    = createVertex("v2", "t2");
+        AtlasVertex v3    = createVertex("v3", "t3");
+        AtlasGraph  graph = createGraph(v1, v2, v3);
+
+        saveRunningJob("guid-v2");
+
+        SearchIndexBackfill backfill = createBackfill(graph);
+
+        backfill.activate();
+
+        assertEquals(waitForCompletion(backfill).get("status"), SearchIndexBackfill.Status.COMPLETED);
+
+        verify(v1, never()).setProperty("name", "t1");
+        verify(v2, never()).setProperty("name", "t2");
+        verify(v3).setProperty("name", "t3");
+
+        // the scan resumes from the checkpoint, rather than reading the vertices before it again
+        verify(graph.query().has(Constants.ENTITY_TYPE_PROPERTY_KEY, TABLE_TYPE), never()).vertices();
+
+        // the guid of a vertex deleted since the checkpoint is still a position in the scan
+        saveRunningJob("guid-v2a");
+
+        backfill = createBackfill(createGraph(v1, v2, v3));
+
+        backfill.activate();
+
+        assertEquals(waitForCompletion(backfill).get("status"), SearchIndexBackfill.Status.COMPLETED);
+
+        verify(v2, never()).setProperty("name", "t2");
+        verify(v3, times(2)).setProperty("name", "t3");
+    }
+
+    @Test
+    public void testDeactivateInterruptsWorker() throws Exception {
+        final CountDownLatch isWaiting = new CountDownLatch(1);
+        AtlasGraph           graph     = createGraph();
+        SearchIndexBackfill  backfill  = createBackfill(graph);
+
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws InterruptedException {
+                isWaiting.countDown();
+
+                Thread.sleep(Long.MAX_VALUE); // till interrupted
+
+                return null;
+            }
+        }).when(graph.getManagementSystem()).awaitIndexRegistered("name__typeName");
+
+        backfill.activate();
+        backfill.startReindex(Collections.singletonMap("name__typeName", "name"));
+
+        isWaiting.await();
+
+        long startTime = System.currentTimeMillis();
+
+        backfill.deactivate();
+
+        assertTrue(System.currentTimeMillis() - startTime < 5000);
+
+        // the job is left running, to continue on the server that becomes active
+        assertEquals(backfill.getProgress().get("status"), SearchIndexBackfill.Status.RUNNING);
+        assertEquals(backfill.getProgress().get("completedTaskCount"), 0);
+    }
+
+    @Test
+    public void testBatchWaitsForEntityLock() throws Exception {
+        final CountDownLatch isLocked  = new CountDownLatch(1);
+        final CountDownLatch doRelease = new CountDownLatch(1);
+        AtlasVertex          v1        = createVertex("v1", "t1");
+        SearchIndexBackfill  backfill  = createBackfill(createGraph(v1));
+
+        Thread lockHolder = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    GraphTransactionInterceptor.lockObjectAndReleasePostCommit("guid-v1");
+
+                    isLocked.countDown();
+
+                    doRelease.await();
+                } catch (Exception excp) {
+                    throw new RuntimeException(excp);
+                } finally {
+                    GraphTransactionInterceptor.releaseLockedObjects();
+                }
+            }
+        });
+
+        lockHolder.start();
+        isLocked.await();
+
+        backfill.activate();
+        backfill.start(Collections.singletonMap(TABLE_TYPE, Collections.singletonList("name")));
+
+        Thread.sleep(500);
+
+        verify(v1, never()).setProperty("name", "t1");
+        assertEquals(backfill.getProgress().get("status"), SearchIndexBackfill.Status.RUNNING);
+
+        doRelease.countDown();
+        lockHolder.join();
+
+        assertEquals(waitForCompletion(backfill).get("status"), SearchIndexBackfill.Status.COMPLETED);
+
+        verify(v1).setProperty("name", "t1");
+    }
+
+    @Test
+    public void testIndexedAttributesAreRewrittenByDefault() throws Exception {
+        AtlasEntityType             entityType = mock(AtlasEntityType.class);
+        GraphBackedSearchIndexer    indexer    = mock(GraphBackedSearchIndexer.class);
+        Map<String, AtlasAttribute> attributes = new HashMap<>();
+
+        attributes.put("name", createAttribute("name", false));
+        attributes.put("qualifiedName", createAttribute("qualifiedName", true));
+        attributes.put("description", createAttribute("description", false));
+
+        when(entityType.getAllSubTypes()).thenReturn(Collections.<String>emptySet());
+        when(entityType.getAllAttributes()).thenReturn(attributes);
+        when(indexer.getVertexIndexKeys()).thenReturn(new HashSet<>(Arrays.asList("name", "qualifiedName", Constants.GUID_PROPERTY_KEY)));
+
+        AtlasVertex         v1       = createVertex("v1", "t1");
+        SearchIndexBackfill backfill = createBackfill(createGraph(v1), entityType, indexer);
+
+        backfill.activate();
+        backfill.start(Collections.singletonMap(TABLE_TYPE, (Collection<String>) null));
+
+        assertEquals(waitForCompletion(backfill).get("status"), SearchIndexBackfill.Status.COMPLETED);
+
+        verify(v1).setProperty("name", "t1");
+        verify(v1, never()).removeProperty("qualifiedName");
+        verify(v1, never()).removeProperty("description");
+        verify(v1, never()).removeProperty(Constants.GUID_PROPERTY_KEY);
+    }
+
+    @Test
+    public void testIndexesAreReindexed() throws Exception {
+        AtlasVertex          v1         = createVertex("v1", "t1");
+        AtlasVertex          v2         = createVertex("v2", "t2");
+        AtlasVertex          v3         = createVertex("v3", "t3");
+        AtlasGraph           graph      = createGraph(v1, v2, v3);
+        AtlasGraphManagement management = graph.getManagementSystem();
+        SearchIndexBackfill  backfill   = createBackfill(graph);
+
+        backfill.activate();
+        backfill.startReindex(Collections.singletonMap("name__typeName", "name"));
+
+        Map<String, Object> progress = waitForCompletion(backfill);
+
+        assertEquals(progress.get("status"), SearchIndexBackfill.Status.COMPLETED);
+        assertEquals(progress.get("completedTaskCount"), 3);
+        assertEquals(progress.get("backfilledVertexCount"), 3L);
+
+        // the index is registered before, and enabled after, the vertices are rewritten in rate-limited batches
+        InOrder inOrder = inOrder(management, v1, v3);
+
+        inOrder.verify(management).awaitIndexRegistered("name__typeName");
+        inOrder.verify(v1).setProperty("name", "t1");
+        inOrder.verify(v3).setProperty("name", "t3");
+        inOrder.verify(management).enableIndex("name__typeName");
+    }
+
+    @Test
+    public void testPendingTypesAreMerged() throws Exception {
+        SearchIndexBackfill backfill = createBackfill(createGraph()); // not active: the job stays pending
+
+        backfill.start(Collections.singletonMap(DB_TYPE, Collections.singletonList("name")));
+        backfill.start(Collections.singletonMap(TABLE_TYPE, Collections.singletonList("name")));
+        backfill.start(Collections.singletonMap(TABLE_TYPE, Collections.singletonList("owner")));
+        backfill.startReindex(Collections.singletonMap("name__typeName", "name"));
+        backfill.start(Collections.singletonMap(TABLE_TYPE, Collections.singletonList("owner")));
+
+        Map<String, Object> progress = backfill.getProgress();
+
+        // the reindex adds its own scan of TABLE_TYPE, as the index must be registered before the scan; the type
+        // started after that is merged into the scan after the index is enabled
+        assertEquals(progress.get("status"), SearchIndexBackfill.Status.RUNNING);
+        assertEquals(progress.get("taskCount"), 6);
+        assertEquals(progress.get("currentType"), DB_TYPE);
+
+        assertEquals(backfill.cancel(), true);
+        assertEquals(backfill.getProgress().get("status"), SearchIndexBackfill.Status.CANCELLED);
+        assertEquals(backfill.cancel(), false);
+    }
+
+    private void saveRunningJob(String lastGuid) {
+        BackfillJob  job  = new BackfillJob();
+        BackfillTask task = BackfillTask.forType(TABLE_TYPE, Collections.singletonList("name"));
+
+        task.setLastGuid(lastGuid);
+
+        job.addTasks(Collections.singletonList(task));
+        job.setStatus(SearchIndexBackfill.Status.RUNNING);
+
+        jobStore.put(SearchIndexBackfill.JOB_PROPERTY_KEY, AtlasType.toJson(job));
+    }
+
+    private SearchIndexBackfill createBackfill(AtlasGraph graph) throws AtlasBaseException {
+        AtlasEntityType entityType = mock(AtlasEntityType.class);
+
+        when(entityType.getAllSubTypes()).thenReturn(Collections.<String>emptySet());
+
+        return createBackfill(graph, entityType, null);
+    }
+
+    private SearchIndexBackfill createBackfill(final AtlasGraph graph, AtlasEntityType entityType, GraphBackedSearchIndexer indexer) throws AtlasBaseException {
+        AtlasTypeRegistry typeRegistry = mock(AtlasTypeRegistry.class);
+
+        when(entityType.getTypeName()).thenReturn(TABLE_TYPE);
+        when(typeRegistry.getType(anyString())).thenReturn(entityType);
+        when(typeRegistry.getEntityTypeByName(TABLE_TYPE)).thenReturn(entityType);
+        when(typeRegistry.getAllEntityTypes()).thenReturn(Collections.singletonList(entityType));
+
+        return new SearchIndexBackfill(new IAtlasGraphProvider() {
+            @Override
+            public AtlasGraph get() {
+                return graph;
+            }
+        }, typeRegistry, indexer, 2, 0);
+    }
+
+    // returns a graph with the given vertices of TABLE_TYPE, in the order of their guid, written in batches of 2; the
+    // job vertex is kept in jobStore
+    private AtlasGraph createGraph(final AtlasVertex... vertices) {
+        AtlasGraph           ret        = mock(AtlasGraph.class);
+        AtlasGraphQuery      query      = mock(AtlasGraphQuery.class);
+        AtlasGraphQuery      jobQuery   = mock(AtlasGraphQuery.class);
+        AtlasGraphQuery      typeQuery  = mock(AtlasGraphQuery.class);
+        AtlasGraphManagement management = mock(AtlasGraphManagement.class);
+        AtlasVertex          jobVertex  = mock(AtlasVertex.class);
+
+        when(ret.query()).thenReturn(query);
+        when(query.has(Constants.VERTEX_TYPE_PROPERTY_KEY, SearchIndexBackfill.JOB_VERTEX_TYPE)).thenReturn(jobQuery);
+        when(query.has(Constants.ENTITY_TYPE_PROPERTY_KEY, TABLE_TYPE)).thenReturn(typeQuery);
+        when(jobQuery.vertices()).thenReturn(Collections.singletonList(jobVertex));
+        when(typeQuery.vertices()).thenReturn(Arrays.asList(vertices));
+        when(typeQuery.orderBy(Constants.GUID_PROPERTY_KEY, SortOrder.ASCENDING)).thenReturn(typeQuery);
+        when(typeQuery.has(eq(Constants.GUID_PROPERTY_KEY), eq(ComparisionOperator.GREATER_THAN), anyString())).thenAnswer(new Answer<AtlasGraphQuery>() {
+            @Override
+            public AtlasGraphQuery answer(InvocationOnMock invocation) {
+                String            lastGuid = (String) invocation.getArguments()[2];
+                AtlasGraphQuery   ret      = mock(AtlasGraphQuery.class);
+                List<AtlasVertex> after    = new ArrayList<>();
+
+                for (AtlasVertex vertex : vertices) {
+                    if (vertex.getProperty(Constants.GUID_PROPERTY_KEY, String.class).compareTo(lastGuid) > 0) {
+                        after.add(vertex);
+                    }
+                }
+
+                when(ret.orderBy(Constants.GUID_PROPERTY_KEY, SortOrder.ASCENDING)).thenReturn(ret);
+                when(ret.vertices()).thenReturn(after);
+
+                return ret;
+            }
+        });
+
+        for (AtlasVertex vertex : vertices) {
+            String vertexId = vertex.getIdForDisplay();
+
+            when(ret.getVertex(vertexId)).thenReturn(vertex);
+        }
+
+        when(ret.getManagementSystem()).thenReturn(management);
+        when(management.getPropertyKey("name")).thenReturn(createPropertyKey(AtlasCardinality.SINGLE));
+        when(management.getPropertyKey("owner")).thenReturn(createPropertyKey(AtlasCardinality.SINGLE));
+        when(management.getPropertyKey("tags")).thenReturn(createPropertyKey(AtlasCardinality.SET));
+        when(management.getPropertyKey("qualifiedName")).thenReturn(createPropertyKey(AtlasCardinality.SINGLE));
+        when(management.getPropertyKey("description")).thenReturn(createPropertyKey(AtlasCardinality.SINGLE));
+
+        when(jobVertex.getProperty(SearchIndexBackfill.JOB_PROPERTY_KEY, String.class)).thenAnswer(new Answer<String>() {
+            @Override
+            public String answer(InvocationOnMock invocation) {
+                return jobStore.get(SearchIndexBackfill.JOB_PROPERTY_KEY);
+            }
+        });
+
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                jobStore.put(SearchIndexBackfill.JOB_PROPERTY_KEY, (String) invocation.getArguments()[1]);
+
+                return null;
+            }
+        }).when(jobVertex).setProperty(eq(SearchIndexBackfill.JOB_PROPERTY_KEY), anyString());
+
+        return ret;
+    }
+
+    private AtlasVertex createVertex(String vertexId, String name, Object... tags) {
+        AtlasVertex ret = mock(AtlasVertex.class);
+
+        when(ret.getIdForDisplay()).thenReturn(vertexId);
+        when(ret.getProperty(Constants.GUID_PROPERTY_KEY, String.class)).thenReturn("guid-" + vertexId);
+        when(ret.getProperty("name", Object.class)).thenReturn(name);
+        when(ret.getProperty("qualifiedName", Object.class)).thenReturn(name + "@cl1");
+        when(ret.getPropertyValues("tags", Object.class)).thenReturn(Arrays.asList(tags));
+
+        return ret;
+    }
+
+    private AtlasAttribute createAttribute(String name, boolean isUnique) {
+        AtlasAttribute    ret          = mock(AtlasAttribute.class);
+        AtlasAttributeDef attributeDef = new AtlasAttributeDef(name, "string");
+
+        attributeDef.setIsUnique(isUnique);
+
+        when(ret.getAttributeDef()).thenReturn(attributeDef);
+        when(ret.getVertexPropertyName()).thenReturn(name);
+
+        return ret;
+    }
+
+    private AtlasPropertyKey createPropertyKey(AtlasCardinality cardinality) {
+        AtlasPropertyKey ret = mock(AtlasPropertyKey.class);
+
+        when(ret.getCardinality()).thenReturn(cardinality);
+
+        return ret;
+    }
+
+    private Map<String, Object> waitForCompletion(SearchIndexBackfill backfill) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            Map<String, Object> ret = backfill.getProgress();
+
+            if (ret.get("status") != SearchIndexBackfill.Status.RUNNING) {
+                return ret;
+            }
+
+            Thread.sleep(100);
+        }
+
+        return backfill.getProgress();
+    }
+}
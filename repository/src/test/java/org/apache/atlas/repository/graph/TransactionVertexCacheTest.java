@@ -0,0 +1,192 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.graph;
+
+import org.apache.atlas.AtlasException;
+import org.apache.atlas.repository.Constants;
+import org.apache.atlas.repository.graphdb.AtlasElement;
+import org.apache.atlas.repository.graphdb.AtlasVertex;
+import org.apache.atlas.repository.store.graph.v1.AtlasGraphUtilsV1;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class TransactionVertexCacheTest {
+    @AfterMethod
+    public void endTransactions() {
+        while (TransactionVertexCache.get() != null) {
+            TransactionVertexCache.end();
+        }
+    }
+
+    @Test
+    public void testCacheIsActiveOnlyInTransaction() {
+        assertNull(TransactionVertexCache.get());
+
+        TransactionVertexCache.begin();
+
+        TransactionVertexCache cache  = TransactionVertexCache.get();
+        AtlasVertex            vertex = createVertex(1L, "guid1");
+
+        assertNotNull(cache);
+
+        cache.putVertex("guid1", vertex);
+
+        assertSame(cache.getVertex("guid1"), vertex);
+
+        TransactionVertexCache.end();
+
+        assertNull(TransactionVertexCache.get());
+    }
+
+    @Test
+    public void testCacheIsClearedWhenOutermostTransactionEnds() {
+        TransactionVertexCache.begin();
+        TransactionVertexCache.begin();
+
+        TransactionVertexCache cache  = TransactionVertexCache.get();
+        AtlasVertex            vertex = createVertex(1L, "guid1");
+
+        cache.putVertex("guid1", vertex);
+
+        TransactionVertexCache.end(); // nested transaction
+
+        assertSame(TransactionVertexCache.get(), cache);
+        assertSame(cache.getVertex("guid1"), vertex);
+
+        TransactionVertexCache.end();
+
+        assertNull(TransactionVertexCache.get());
+
+        TransactionVertexCache.begin();
+
+        assertNull(TransactionVertexCache.get().getVertex("guid1"));
+    }
+
+    @Test
+    public void testMetricsAreForTheTransaction() {
+        TransactionVertexCache.begin();
+
+        TransactionVertexCache cache  = TransactionVertexCache.get();
+        AtlasVertex            vertex = createVertex(1L, "guid1");
+
+        cache.putVertex("guid1", vertex);
+        cache.getVertex("guid1");
+        cache.getVertex("guid2");
+        cache.hasAttribute(vertex, "Asset.name");
+
+        assertEquals(cache.getMetrics().get(TransactionVertexCache.METRIC_GUID_HITS).longValue(), 1);
+        assertEquals(cache.getMetrics().get(TransactionVertexCache.METRIC_GUID_MISSES).longValue(), 1);
+        assertEquals(cache.getMetrics().get(TransactionVertexCache.METRIC_ATTRIBUTE_MISSES).longValue(), 1);
+
+        TransactionVertexCache.end();
+        TransactionVertexCache.begin();
+
+        assertEquals(TransactionVertexCache.get().getMetrics().get(TransactionVertexCache.METRIC_GUID_HITS).longValue(), 0);
+    }
+
+    @Test
+    public void testAttributesAreInvalidatedOnUpdate() {
+        TransactionVertexCache.begin();
+
+        TransactionVertexCache cache  = TransactionVertexCache.get();
+        AtlasVertex            vertex = createVertex(1L, "guid1");
+        AtlasVertex            other  = createVertex(2L, "guid2");
+
+        assertFalse(cache.hasAttribute(vertex, "Asset.name"));
+
+        cache.putAttribute(vertex, "Asset.name", "table1");
+        cache.putAttribute(vertex, "Asset.description", null);
+        cache.putAttribute(other, "Asset.name", "table2");
+
+        assertTrue(cache.hasAttribute(vertex, "Asset.name"));
+        assertEquals(cache.getAttribute(vertex, "Asset.name"), "table1");
+        assertTrue(cache.hasAttribute(vertex, "Asset.description"));
+        assertNull(cache.getAttribute(vertex, "Asset.description"));
+
+        TransactionVertexCache.onPropertyUpdate(vertex);
+
+        assertFalse(cache.hasAttribute(vertex, "Asset.name"));
+        assertTrue(cache.hasAttribute(other, "Asset.name"));
+    }
+
+    @Test
+    public void testPropertyWritesInvalidateAttributes() throws AtlasException {
+        TransactionVertexCache.begin();
+
+        TransactionVertexCache cache  = TransactionVertexCache.get();
+        AtlasVertex            vertex = createVertex(1L, "guid1");
+
+        cache.putAttribute(vertex, "Asset.name", "table1");
+        GraphHelper.setListProperty(vertex, "Asset.owners", new ArrayList<>(Arrays.asList("admin")));
+
+        assertFalse(cache.hasAttribute(vertex, "Asset.name"), "GraphHelper.setListProperty()");
+
+        cache.putAttribute(vertex, "Asset.name", "table1");
+        GraphHelper.addProperty(vertex, Constants.TRAIT_NAMES_PROPERTY_KEY, "PII");
+
+        assertFalse(cache.hasAttribute(vertex, "Asset.name"), "GraphHelper.addProperty()");
+
+        cache.putAttribute(vertex, "Asset.name", "table1");
+        GraphHelper.setListPropertyFromElementIds(vertex, "Asset.columns", Collections.<AtlasElement>emptyList());
+
+        assertFalse(cache.hasAttribute(vertex, "Asset.name"), "GraphHelper.setListPropertyFromElementIds()");
+
+        cache.putAttribute(vertex, "Asset.name", "table1");
+        AtlasGraphUtilsV1.addProperty(vertex, Constants.SUPER_TYPES_PROPERTY_KEY, "Asset");
+
+        assertFalse(cache.hasAttribute(vertex, "Asset.name"), "AtlasGraphUtilsV1.addProperty()");
+    }
+
+    @Test
+    public void testRemovedVertexIsInvalidated() {
+        TransactionVertexCache.begin();
+
+        TransactionVertexCache cache  = TransactionVertexCache.get();
+        AtlasVertex            vertex = createVertex(1L, "guid1");
+
+        cache.putVertex("guid1", vertex);
+        cache.putAttribute(vertex, "Asset.name", "table1");
+
+        cache.removeVertex(vertex);
+
+        assertNull(cache.getVertex("guid1"));
+        assertFalse(cache.hasAttribute(vertex, "Asset.name"));
+    }
+
+    private AtlasVertex createVertex(Object id, String guid) {
+        AtlasVertex ret = mock(AtlasVertex.class);
+
+        when(ret.getId()).thenReturn(id);
+        when(ret.getProperty(Constants.GUID_PROPERTY_KEY, String.class)).thenReturn(guid);
+
+        return ret;
+    }
+}
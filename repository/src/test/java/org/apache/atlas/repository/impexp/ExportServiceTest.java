@@ -265,6 +265,33 @@ public class ExportServiceTest {
         verifyExportForEmployeeData(zipSource);
     }
 
+    @Test
+    public void requestingDeptEntityFoundFullFetchInParallel_ContainsData() throws Exception {
+        AtlasExportRequest request = getRequestForDept(true, "FULL", false, "");
+
+        request.getOptions().put(AtlasExportRequest.OPTION_PARALLEL, true);
+
+        verifyExportForHrData(runExportWithParameters(request));
+    }
+
+    @Test
+    public void requestingDeptEntityFoundConnectedFetchInParallel_ContainsData() throws Exception {
+        AtlasExportRequest request = getRequestForDept(true, "CONNECTED", false, "");
+
+        request.getOptions().put(AtlasExportRequest.OPTION_PARALLEL, "true");
+
+        verifyExportForHrDataForConnected(runExportWithParameters(request));
+    }
+
+    @Test
+    public void requestingEmployeeEntityFoundConnectedFetchInParallel_ContainsData() throws Exception {
+        AtlasExportRequest request = getRequestForEmployee();
+
+        request.getOptions().put(AtlasExportRequest.OPTION_PARALLEL, true);
+
+        verifyExportForEmployeeData(runExportWithParameters(request));
+    }
+
     @Test
     public void verifyOverallStatus() throws Exception {
 
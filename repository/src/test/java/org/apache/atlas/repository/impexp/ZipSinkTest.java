@@ -30,9 +30,12 @@ import org.testng.annotations.Test;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
@@ -196,6 +199,123 @@ public class ZipSinkTest {
         assertFalse(zipSink.hasEntity(ZipExportFileNames.ATLAS_EXPORT_ORDER_NAME.toString()));
     }
 
+    @Test
+    public void asyncWriter_writesEntriesInOrder() throws AtlasBaseException, IOException {
+        ByteArrayOutputStream byteOutputStream = new ByteArrayOutputStream();
+        ZipSink               zs               = new ZipSink(byteOutputStream);
+        List<String>          expected         = new ArrayList<>();
+
+        zs.startAsyncWriter(1);
+
+        for (int i = 0; i < 5; i++) {
+            AtlasEntity entity = new AtlasEntity();
+
+            entity.setGuid(String.format(knownEntityGuidFormat, i));
+
+            zs.add(new AtlasEntity.AtlasEntityWithExtInfo(entity));
+            expected.add(entity.getGuid() + ".json");
+        }
+
+        zs.stopAsyncWriter();
+        zs.setExportOrder(defaultExportOrder);
+        zs.close();
+
+        expected.add(ZipExportFileNames.ATLAS_EXPORT_ORDER_NAME.toString() + ".json");
+
+        assertEquals(getEntryNames(byteOutputStream), expected);
+    }
+
+    @Test
+    public void asyncWriter_writeErrorIsReported() throws AtlasBaseException {
+        ZipSink     zs     = new ZipSink(new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("stream closed");
+            }
+        });
+        AtlasEntity entity = new AtlasEntity();
+
+        entity.setGuid(String.format(knownEntityGuidFormat, 0));
+
+        zs.startAsyncWriter(10);
+        zs.add(new AtlasEntity.AtlasEntityWithExtInfo(entity));
+
+        try {
+            zs.stopAsyncWriter();
+
+            fail("write error should be reported");
+        } catch (AtlasBaseException excp) {
+            assertTrue(excp.getCause() instanceof IOException);
+        }
+    }
+
+    @Test(timeOut = 60000)
+    public void asyncWriter_abortDoesNotWaitForStalledStream() throws Exception {
+        final CountDownLatch writeStarted = new CountDownLatch(1);
+        final CountDownLatch stall        = new CountDownLatch(1);
+        ZipSink              zs           = new ZipSink(new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                writeStarted.countDown();
+
+                try {
+                    stall.await();
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+            }
+        });
+
+        zs.startAsyncWriter(10);
+
+        for (int i = 0; i < 3; i++) {
+            AtlasEntity entity = new AtlasEntity();
+
+            entity.setGuid(String.format(knownEntityGuidFormat, i));
+
+            zs.add(new AtlasEntity.AtlasEntityWithExtInfo(entity));
+        }
+
+        writeStarted.await();
+
+        zs.abortAsyncWriter(); // as on a failure of the export: the writer is blocked on the stream, entries are queued
+
+        assertFalse(isWriterRunning());
+
+        try {
+            zs.setExportOrder(defaultExportOrder);
+
+            fail("entries should not be accepted after abort");
+        } catch (AtlasBaseException excp) {
+            // expected
+        }
+
+        stall.countDown();
+
+        zs.close();
+    }
+
+    private List<String> getEntryNames(ByteArrayOutputStream byteOutputStream) throws IOException {
+        List<String>   ret       = new ArrayList<>();
+        ZipInputStream zipStream = new ZipInputStream(new ByteArrayInputStream(byteOutputStream.toByteArray()));
+
+        for (ZipEntry entry = zipStream.getNextEntry(); entry != null; entry = zipStream.getNextEntry()) {
+            ret.add(entry.getName());
+        }
+
+        return ret;
+    }
+
+    private boolean isWriterRunning() {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals("atlas-export-zip-writer")) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     private void useZipSinkToCreateEntries(ByteArrayOutputStream byteOutputStream) throws AtlasBaseException {
         ZipSink zs = new ZipSink(byteOutputStream);
         zs.setExportOrder(defaultExportOrder);
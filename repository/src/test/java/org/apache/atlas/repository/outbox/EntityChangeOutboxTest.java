@@ -0,0 +1,409 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.outbox;
+
+import org.apache.atlas.type.AtlasType;
+import org.apache.atlas.utils.TestTransactionUtils;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class EntityChangeOutboxTest {
+    private static final long SEGMENT_SIZE = 1024 * 1024;
+
+    @Test
+    public void testRecordsAreDispatchedAfterCommit() throws Throwable {
+        EntityChangeOutbox outbox = createOutbox(createTempDir());
+        TestSink           sink   = new TestSink("test");
+
+        outbox.registerSink(sink);
+
+        runInTransaction(outbox, "test", Arrays.asList("e1", "e2"), false);
+        runInTransaction(outbox, "test", Collections.singletonList("e3"), true); // rolled back
+
+        waitForPayloads(sink, 2);
+
+        Thread.sleep(100);
+
+        assertEquals(sink.getPayloads(), Arrays.asList("e1", "e2"));
+        assertEquals(outbox.getMetrics().get(EntityChangeOutbox.METRIC_PENDING).intValue(), 0);
+
+        outbox.close();
+    }
+
+    @Test
+    public void testFailedDispatchIsRetried() throws Throwable {
+        EntityChangeOutbox outbox = createOutbox(createTempDir());
+        TestSink           sink   = new TestSink("test");
+
+        sink.failCount = 2;
+
+        outbox.registerSink(sink);
+
+        runInTransaction(outbox, "test", Collections.singletonList("e1"), false);
+
+        waitForPayloads(sink, 1);
+
+        assertEquals(sink.getPayloads(), Collections.singletonList("e1"));
+        assertEquals(outbox.getMetrics().get(EntityChangeOutbox.METRIC_RETRIES).intValue(), 2);
+
+        outbox.close();
+    }
+
+    @Test
+    public void testPendingRecordsAreReplayedOnRestart() throws Throwable {
+        File               dir    = createTempDir();
+        EntityChangeOutbox outbox = createOutbox(dir);
+
+        // no sink registered - records stay pending
+        runInTransaction(outbox, "test", Arrays.asList("e1", "e2"), false);
+        runInTransaction(outbox, "test", Collections.singletonList("e3"), false);
+
+        Thread.sleep(100);
+
+        assertEquals(outbox.getMetrics().get(EntityChangeOutbox.METRIC_PENDING).intValue(), 2);
+
+        outbox.close();
+
+        EntityChangeOutbox restarted = createOutbox(dir);
+        TestSink           sink      = new TestSink("test");
+
+        restarted.registerSink(sink);
+
+        waitForPayloads(sink, 3);
+
+        assertEquals(sink.getPayloads(), Arrays.asList("e1", "e2", "e3"));
+
+        restarted.close();
+
+        // all records were dispatched; nothing to replay
+        EntityChangeOutbox restartedAgain = createOutbox(dir);
+        TestSink           sink2          = new TestSink("test");
+
+        restartedAgain.registerSink(sink2);
+
+        runInTransaction(restartedAgain, "test", Collections.singletonList("e4"), false);
+
+        waitForPayloads(sink2, 1);
+
+        assertEquals(sink2.getPayloads(), Collections.singletonList("e4"));
+
+        restartedAgain.close();
+    }
+
+    @Test
+    public void testFailingPayloadIsDeadLettered() throws Throwable {
+        File               dir    = createTempDir();
+        EntityChangeOutbox outbox = new EntityChangeOutbox(true, dir, false, SEGMENT_SIZE, 10, 10, 100, 2);
+        TestSink           sink   = new TestSink("test");
+
+        sink.rejectedPayload = "bad";
+
+        outbox.registerSink(sink);
+
+        runInTransaction(outbox, "test", Arrays.asList("e1", "bad", "e2"), false);
+        runInTransaction(outbox, "test", Collections.singletonList("e3"), false);
+
+        waitForPayloads(sink, 3);
+
+        for (int i = 0; i < 500 && outbox.getMetrics().get(EntityChangeOutbox.METRIC_DEAD_LETTERED).intValue() == 0; i++) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(sink.getPayloads(), Arrays.asList("e1", "e2", "e3"));
+        assertEquals(outbox.getMetrics().get(EntityChangeOutbox.METRIC_DEAD_LETTERED).intValue(), 1);
+
+        outbox.close();
+
+        List<String> deadLettered = Files.readAllLines(new File(dir, OutboxJournal.DEAD_LETTER_FILE_NAME).toPath(), StandardCharsets.UTF_8);
+
+        assertEquals(deadLettered.size(), 1);
+        assertEquals(AtlasType.fromJson(deadLettered.get(0), EntityChangeOutbox.OutboxRecord.class).getPayloads(), Collections.singletonList("bad"));
+    }
+
+    @Test
+    public void testConcurrentCommitsAreDispatchedInSequenceOrder() throws Throwable {
+        File               dir    = createTempDir();
+        EntityChangeOutbox outbox = createOutbox(dir);
+        TestSink           sink   = new TestSink("test");
+
+        sink.blockLatch = new CountDownLatch(1);
+
+        outbox.registerSink(sink);
+
+        List<String> allPayloads = runConcurrently(outbox, 8, 50);
+
+        // sink is blocked on the first batch; nothing is checkpointed yet - all records are in the journal
+        OutboxJournal journal  = new OutboxJournal(dir, false, SEGMENT_SIZE);
+        List<String>  expected = new ArrayList<>();
+
+        for (EntityChangeOutbox.OutboxRecord record : journal.replay()) {
+            expected.addAll(record.getPayloads());
+        }
+
+        journal.close();
+
+        assertEquals(expected.size(), allPayloads.size());
+
+        sink.blockLatch.countDown();
+
+        waitForPayloads(sink, allPayloads.size());
+
+        assertEquals(sink.getPayloads(), expected);
+
+        outbox.close();
+    }
+
+    @Test
+    public void testConcurrentCommitsAreReplayedAfterCrash() throws Throwable {
+        File               dir    = createTempDir();
+        EntityChangeOutbox outbox = new EntityChangeOutbox(true, dir, false, SEGMENT_SIZE, 5, 10, 100, -1);
+        TestSink           sink   = new TestSink("test");
+
+        sink.acceptCount = 100; // then the sink fails, until the outbox stops
+
+        outbox.registerSink(sink);
+
+        List<String> allPayloads = runConcurrently(outbox, 8, 50);
+
+        waitForPayloads(sink, 100);
+
+        outbox.close(); // records are journaled on commit; close() doesn't write anything - like a crash
+
+        EntityChangeOutbox restarted = createOutbox(dir);
+        TestSink           sink2     = new TestSink("test");
+
+        restarted.registerSink(sink2);
+
+        Set<String> delivered = new HashSet<>(sink.getPayloads());
+
+        for (int i = 0; i < 500 && !delivered.containsAll(allPayloads); i++) {
+            Thread.sleep(10);
+
+            delivered.addAll(sink2.getPayloads());
+        }
+
+        assertEquals(delivered, new HashSet<>(allPayloads), "every committed payload must be dispatched at least once");
+
+        // payloads of each thread are replayed in commit order
+        Map<String, Integer> lastIndexOfThread = new HashMap<>();
+
+        for (String payload : sink2.getPayloads()) {
+            String[] parts     = payload.split("-");
+            Integer  lastIndex = lastIndexOfThread.put(parts[0], Integer.valueOf(parts[1]));
+
+            assertTrue(lastIndex == null || lastIndex < Integer.valueOf(parts[1]), "out of order: " + payload);
+        }
+
+        restarted.close();
+    }
+
+    @Test
+    public void testDispatchedSegmentsAreDeleted() throws Throwable {
+        File               dir    = createTempDir();
+        EntityChangeOutbox outbox = new EntityChangeOutbox(true, dir, false, 200, 1, 10, 100, -1);
+        TestSink           sink   = new TestSink("test");
+
+        sink.acceptCount = 20; // then the sink fails - the outbox is never fully drained
+
+        outbox.registerSink(sink);
+
+        for (int i = 0; i < 40; i++) {
+            runInTransaction(outbox, "test", Collections.singletonList("entity-" + i), false);
+        }
+
+        waitForPayloads(sink, 20);
+
+        Thread.sleep(100);
+
+        File[] segments = dir.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.endsWith(OutboxJournal.SEGMENT_FILE_SUFFIX);
+            }
+        });
+
+        assertTrue(segments.length > 1);
+        assertFalse(new File(dir, String.format("%s%020d%s", OutboxJournal.SEGMENT_FILE_PREFIX, 1, OutboxJournal.SEGMENT_FILE_SUFFIX)).exists(), "first segment should be deleted");
+
+        outbox.close();
+
+        EntityChangeOutbox restarted = createOutbox(dir);
+        TestSink           sink2     = new TestSink("test");
+
+        restarted.registerSink(sink2);
+
+        waitForPayloads(sink2, 20);
+
+        assertEquals(sink2.getPayloads().get(sink2.getPayloads().size() - 1), "entity-39");
+        assertFalse(sink2.getPayloads().contains("entity-0"));
+
+        restarted.close();
+    }
+
+    private EntityChangeOutbox createOutbox(File dir) {
+        return new EntityChangeOutbox(true, dir, false, SEGMENT_SIZE, 10, 10, 100, -1);
+    }
+
+    // each thread commits transactionCount transactions, with one payload each: <thread>-<transaction>
+    private List<String> runConcurrently(final EntityChangeOutbox outbox, int threadCount, final int transactionCount) throws Exception {
+        final List<String>   ret     = Collections.synchronizedList(new ArrayList<String>());
+        final CountDownLatch start   = new CountDownLatch(1);
+        ExecutorService      workers = Executors.newFixedThreadPool(threadCount);
+        List<Future<?>>      futures = new ArrayList<>();
+
+        for (int t = 0; t < threadCount; t++) {
+            final String threadName = "t" + t;
+
+            futures.add(workers.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    start.await();
+
+                    for (int i = 0; i < transactionCount; i++) {
+                        String payload = threadName + "-" + i;
+
+                        try {
+                            runInTransaction(outbox, "test", Collections.singletonList(payload), false);
+                        } catch (Throwable excp) {
+                            throw new Exception(excp);
+                        }
+
+                        ret.add(payload);
+                    }
+
+                    return null;
+                }
+            }));
+        }
+
+        start.countDown();
+
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+
+        workers.shutdown();
+
+        return ret;
+    }
+
+    private void runInTransaction(final EntityChangeOutbox outbox, final String sinkName, final List<String> payloads, final boolean fail) throws Throwable {
+        TestTransactionUtils.runInTransaction(new Runnable() {
+            @Override
+            public void run() {
+                outbox.add(sinkName, payloads);
+            }
+        }, fail);
+    }
+
+    private void waitForPayloads(TestSink sink, int count) throws InterruptedException {
+        for (int i = 0; i < 500 && sink.getPayloads().size() < count; i++) {
+            Thread.sleep(10);
+        }
+
+        if (sink.getPayloads().size() < count) {
+            fail("expected " + count + " payloads; received " + sink.getPayloads());
+        }
+    }
+
+    private File createTempDir() throws Exception {
+        File ret = Files.createTempDirectory("outbox").toFile();
+
+        ret.deleteOnExit();
+
+        assertTrue(ret.isDirectory());
+
+        return ret;
+    }
+
+    private static class TestSink implements EntityChangeOutbox.Sink {
+        private final String       name;
+        private final List<String>   payloads        = new ArrayList<>();
+        private       int            failCount       = 0;
+        private       int            acceptCount     = -1;   // fails once at least this many payloads are accepted; -1 for no limit
+        private       String         rejectedPayload = null; // batches with this payload always fail
+        private       CountDownLatch blockLatch      = null; // first dispatch waits for this latch
+
+        TestSink(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public void dispatch(List<String> payloads) throws AtlasBaseException {
+            CountDownLatch latch = blockLatch;
+
+            if (latch != null) {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    throw new AtlasBaseException(AtlasErrorCode.INTERNAL_ERROR, "interrupted");
+                }
+            }
+
+            synchronized (this) {
+                if (failCount > 0) {
+                    failCount--;
+
+                    throw new AtlasBaseException(AtlasErrorCode.INTERNAL_ERROR, "sink failure");
+                }
+
+                if (rejectedPayload != null && payloads.contains(rejectedPayload)) {
+                    throw new AtlasBaseException(AtlasErrorCode.INTERNAL_ERROR, "rejected payload");
+                }
+
+                if (acceptCount >= 0 && this.payloads.size() >= acceptCount) {
+                    throw new AtlasBaseException(AtlasErrorCode.INTERNAL_ERROR, "sink unavailable");
+                }
+
+                this.payloads.addAll(payloads);
+            }
+        }
+
+        synchronized List<String> getPayloads() {
+            return new ArrayList<>(payloads);
+        }
+    }
+}
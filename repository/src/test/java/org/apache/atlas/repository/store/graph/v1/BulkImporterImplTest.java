@@ -0,0 +1,173 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.store.graph.v1;
+
+import org.apache.atlas.AtlasErrorCode;
+import org.apache.atlas.exception.AtlasBaseException;
+import org.apache.atlas.model.impexp.AtlasImportRequest;
+import org.apache.atlas.model.impexp.AtlasImportResult;
+import org.apache.atlas.model.instance.AtlasEntity;
+import org.apache.atlas.model.instance.AtlasEntity.AtlasEntitiesWithExtInfo;
+import org.apache.atlas.model.instance.AtlasEntityHeader;
+import org.apache.atlas.model.instance.EntityMutationResponse;
+import org.apache.atlas.model.instance.EntityMutations.EntityOperation;
+import org.apache.atlas.repository.store.graph.AtlasEntityStore;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class BulkImporterImplTest {
+    private static final String TABLE_TYPE = "hive_table";
+
+    private AtlasEntityStore   entityStore;
+    private List<List<String>> transactions;
+    private Set<String>        invalidGuids;
+
+    @BeforeMethod
+    public void setup() throws AtlasBaseException {
+        entityStore  = mock(AtlasEntityStore.class);
+        transactions = new ArrayList<>();
+        invalidGuids = new HashSet<>();
+
+        // records the guids created in each call, i.e. in each transaction; fails the call if it has an invalid entity
+        when(entityStore.createOrUpdateForImport(any(EntityStream.class))).thenAnswer(new Answer<EntityMutationResponse>() {
+            @Override
+            public EntityMutationResponse answer(InvocationOnMock invocation) throws Throwable {
+                EntityStream           stream = (EntityStream) invocation.getArguments()[0];
+                EntityMutationResponse ret    = new EntityMutationResponse();
+                List<String>           guids  = new ArrayList<>();
+
+                while (stream.hasNext()) {
+                    AtlasEntity entity = stream.next();
+
+                    if (invalidGuids.contains(entity.getGuid())) {
+                        throw new AtlasBaseException(AtlasErrorCode.INVALID_OBJECT_ID, entity.getGuid());
+                    }
+
+                    guids.add(entity.getGuid());
+                    ret.addEntity(EntityOperation.CREATE, new AtlasEntityHeader(entity.getTypeName(), entity.getGuid(), null));
+                }
+
+                transactions.add(guids);
+
+                return ret;
+            }
+        });
+    }
+
+    @Test
+    public void testImportInBatches() throws AtlasBaseException {
+        EntityImportStream stream       = createStream("e1", "e2", "e3", "e4", "e5");
+        AtlasImportResult  importResult = createImportResult(2);
+
+        new BulkImporterImpl(entityStore).bulkImport(stream, importResult);
+
+        assertEquals(transactions, Arrays.asList(Arrays.asList("e1", "e2"), Arrays.asList("e3", "e4"), Arrays.asList("e5")));
+        assertEquals(new HashSet<>(importResult.getProcessedEntities()), new HashSet<>(Arrays.asList("e1", "e2", "e3", "e4", "e5")));
+        assertEquals(importResult.getMetrics().get("entity:" + TABLE_TYPE + ":created").intValue(), 5);
+        assertEquals(importResult.getMetrics().get("batch:count").intValue(), 3);
+        assertEquals(importResult.getMetrics().get("batch:failed").intValue(), 0);
+        assertEquals(importResult.getMetrics().get("batch:entities").intValue(), 5);
+
+        for (String guid : Arrays.asList("e1", "e2", "e3", "e4", "e5")) {
+            verify(stream).onImportComplete(guid);
+        }
+    }
+
+    @Test
+    public void testFailedBatchIsImportedOneEntityAtATime() throws AtlasBaseException {
+        EntityImportStream stream       = createStream("e1", "e2", "e3", "e4", "e5");
+        AtlasImportResult  importResult = createImportResult(3);
+
+        invalidGuids.add("e2");
+
+        new BulkImporterImpl(entityStore).bulkImport(stream, importResult);
+
+        assertEquals(transactions, Arrays.asList(Arrays.asList("e1"), Arrays.asList("e3"), Arrays.asList("e4", "e5")),
+                     "entities of the failed batch are imported in a transaction each; next batch is not affected");
+        assertEquals(new HashSet<>(importResult.getProcessedEntities()), new HashSet<>(Arrays.asList("e1", "e3", "e4", "e5")));
+        assertFalse(importResult.getProcessedEntities().contains("e2"));
+        assertEquals(importResult.getMetrics().get("entity:" + TABLE_TYPE + ":created").intValue(), 4);
+        assertEquals(importResult.getMetrics().get("batch:count").intValue(), 2);
+        assertEquals(importResult.getMetrics().get("batch:failed").intValue(), 1);
+        assertEquals(importResult.getMetrics().get("batch:entities").intValue(), 2);
+
+        verify(stream, times(0)).onImportComplete("e2");
+    }
+
+    @Test
+    public void testImportWithoutBatches() throws AtlasBaseException {
+        AtlasImportResult importResult = createImportResult(1);
+
+        new BulkImporterImpl(entityStore).bulkImport(createStream("e1", "e2", "e3"), importResult);
+
+        assertEquals(transactions, Arrays.asList(Arrays.asList("e1"), Arrays.asList("e2"), Arrays.asList("e3")));
+        assertEquals(importResult.getMetrics().get("entity:" + TABLE_TYPE + ":created").intValue(), 3);
+        assertFalse(importResult.getMetrics().containsKey("batch:count"));
+    }
+
+    @Test
+    public void testDuplicateEntitiesAreImportedOnce() throws AtlasBaseException {
+        AtlasImportResult importResult = createImportResult(10);
+
+        new BulkImporterImpl(entityStore).bulkImport(createStream("e1", "e2", "e1"), importResult);
+
+        assertEquals(transactions, Arrays.asList(Arrays.asList("e1", "e2")));
+        assertTrue(importResult.getProcessedEntities().containsAll(Arrays.asList("e1", "e2")));
+        assertEquals(importResult.getMetrics().get("entity:" + TABLE_TYPE + ":created").intValue(), 2);
+    }
+
+    private EntityImportStream createStream(String... guids) {
+        AtlasEntitiesWithExtInfo entities = new AtlasEntitiesWithExtInfo();
+
+        for (String guid : guids) {
+            AtlasEntity entity = new AtlasEntity(TABLE_TYPE);
+
+            entity.setGuid(guid);
+
+            entities.addEntity(entity);
+        }
+
+        return spy(new AtlasEntityStreamForImport(entities, null));
+    }
+
+    private AtlasImportResult createImportResult(int batchSize) {
+        AtlasImportRequest request = new AtlasImportRequest();
+
+        request.setOption("batchSize", Integer.toString(batchSize));
+
+        return new AtlasImportResult(request, "admin", null, null, System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,210 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.store.graph.v1;
+
+import org.apache.atlas.RequestContextV1;
+import org.apache.atlas.TestModules;
+import org.apache.atlas.TestUtilsV2;
+import org.apache.atlas.exception.AtlasBaseException;
+import org.apache.atlas.model.instance.AtlasClassification;
+import org.apache.atlas.model.instance.AtlasEntityHeader;
+import org.apache.atlas.model.instance.EntityMutationResponse;
+import org.apache.atlas.model.typedef.AtlasTypesDef;
+import org.apache.atlas.repository.converters.AtlasInstanceConverter;
+import org.apache.atlas.repository.graph.AtlasGraphProvider;
+import org.apache.atlas.repository.graphdb.AtlasGraph;
+import org.apache.atlas.repository.store.bootstrap.AtlasTypeDefStoreInitializer;
+import org.apache.atlas.repository.store.graph.AtlasEntityStore;
+import org.apache.atlas.repository.store.graph.AtlasRelationshipStore;
+import org.apache.atlas.runner.LocalSolrRunner;
+import org.apache.atlas.services.EntityCounters;
+import org.apache.atlas.store.AtlasTypeDefStore;
+import org.apache.atlas.type.AtlasTypeRegistry;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Guice;
+import org.testng.annotations.Test;
+
+import javax.inject.Inject;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import static org.apache.atlas.TestUtilsV2.DATABASE_TYPE;
+import static org.apache.atlas.TestUtilsV2.PII;
+import static org.apache.atlas.graph.GraphSandboxUtil.useLocalSolr;
+import static org.apache.atlas.utils.TestTransactionUtils.runInTransaction;
+import static org.mockito.Mockito.mock;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+/**
+ * Entity counters updated by the hooks in EntityGraphMapper and DeleteHandlerV1, on changes made through the entity store.
+ */
+@Guice(modules = TestModules.TestOnlyModule.class)
+public class EntityCountersHooksTest {
+    @Inject
+    AtlasTypeRegistry typeRegistry;
+
+    @Inject
+    AtlasTypeDefStore typeDefStore;
+
+    @Inject
+    AtlasGraph graph;
+
+    @Inject
+    AtlasRelationshipStore relationshipStore;
+
+    @Inject
+    AtlasInstanceConverter instanceConverter;
+
+    private EntityCounters   counters;
+    private AtlasEntityStore entityStore;
+
+    @BeforeClass
+    public void setUp() throws Exception {
+        RequestContextV1.clear();
+        RequestContextV1.get().setUser(TestUtilsV2.TEST_USER, null);
+
+        AtlasTypesDef typesToCreate = AtlasTypeDefStoreInitializer.getTypesToCreate(TestUtilsV2.defineHiveTypes(), typeRegistry);
+
+        if (!typesToCreate.isEmpty()) {
+            typeDefStore.createTypesDef(typesToCreate);
+        }
+
+        File dir = Files.createTempDirectory("metrics").toFile();
+
+        dir.deleteOnExit();
+
+        counters = new EntityCounters(graph, typeRegistry, true, dir, 60000, 100, 0);
+
+        AtlasEntityChangeNotifier mockChangeNotifier = mock(AtlasEntityChangeNotifier.class);
+        SoftDeleteHandlerV1       deleteHandler      = new SoftDeleteHandlerV1(typeRegistry);
+        EntityGraphMapper         graphMapper        = new EntityGraphMapper(deleteHandler, typeRegistry, graph, relationshipStore,
+                                                                             mockChangeNotifier, instanceConverter, counters);
+
+        deleteHandler.setEntityCounters(counters);
+
+        entityStore = new AtlasEntityStoreV1(deleteHandler, typeRegistry, mockChangeNotifier, graphMapper);
+    }
+
+    @AfterClass
+    public void clear() throws Exception {
+        counters.close();
+
+        AtlasGraphProvider.cleanup();
+
+        if (useLocalSolr()) {
+            LocalSolrRunner.stop();
+        }
+    }
+
+    @Test
+    public void testHooksUpdateCounts() throws Throwable {
+        final String guid = createDatabase();
+
+        assertEquals(counters.getEntityCounts().get(DATABASE_TYPE).longValue(), 1);
+
+        addPII(guid);
+
+        assertEquals(counters.getTagCounts().get(PII).longValue(), 1);
+        assertEquals(counters.getTaggedCount(), 1);
+
+        runInTransaction(new StoreChange() {
+            @Override
+            void change() throws AtlasBaseException {
+                entityStore.deleteClassifications(guid, Collections.singletonList(PII));
+            }
+        }, false);
+
+        assertNull(counters.getTagCounts().get(PII));
+        assertEquals(counters.getTaggedCount(), 0);
+
+        addPII(guid);
+
+        runInTransaction(new StoreChange() {
+            @Override
+            void change() throws AtlasBaseException {
+                entityStore.deleteById(guid);
+            }
+        }, false);
+
+        assertEquals(counters.getEntityCounts().get(DATABASE_TYPE).longValue(), 1, "soft-deleted entities remain counted");
+        assertEquals(counters.getDeletedCount(), 1);
+        assertNull(counters.getTagCounts().get(PII));
+        assertEquals(counters.getTaggedCount(), 0);
+    }
+
+    @Test
+    public void testRolledBackChangesAreNotCounted() throws Throwable {
+        long dbCount = getDatabaseCount();
+
+        runInTransaction(new StoreChange() {
+            @Override
+            void change() throws AtlasBaseException {
+                entityStore.createOrUpdate(new AtlasEntityStream(TestUtilsV2.createDBEntity()), false);
+            }
+        }, true);
+
+        assertEquals(getDatabaseCount(), dbCount);
+    }
+
+    private String createDatabase() throws Throwable {
+        final String[] ret = new String[1];
+
+        runInTransaction(new StoreChange() {
+            @Override
+            void change() throws AtlasBaseException {
+                EntityMutationResponse response = entityStore.createOrUpdate(new AtlasEntityStream(TestUtilsV2.createDBEntity()), false);
+                AtlasEntityHeader      header   = response.getFirstCreatedEntityByTypeName(DATABASE_TYPE);
+
+                ret[0] = header.getGuid();
+            }
+        }, false);
+
+        return ret[0];
+    }
+
+    private void addPII(final String guid) throws Throwable {
+        runInTransaction(new StoreChange() {
+            @Override
+            void change() throws AtlasBaseException {
+                entityStore.addClassifications(guid, Collections.singletonList(new AtlasClassification(PII)));
+            }
+        }, false);
+    }
+
+    private long getDatabaseCount() {
+        Long ret = counters.getEntityCounts().get(DATABASE_TYPE);
+
+        return ret != null ? ret : 0;
+    }
+
+    private static abstract class StoreChange implements Runnable {
+        abstract void change() throws AtlasBaseException;
+
+        @Override
+        public void run() {
+            try {
+                change();
+            } catch (AtlasBaseException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.repository.store.graph.v1;
+
+import org.apache.atlas.AtlasErrorCode;
+import org.apache.atlas.RequestContextV1;
+import org.apache.atlas.TestModules;
+import org.apache.atlas.TestUtilsV2;
+import org.apache.atlas.exception.AtlasBaseException;
+import org.apache.atlas.model.instance.AtlasEntity;
+import org.apache.atlas.model.instance.AtlasEntity.AtlasEntitiesWithExtInfo;
+import org.apache.atlas.model.instance.AtlasObjectId;
+import org.apache.atlas.model.instance.EntityMutationResponse;
+import org.apache.atlas.model.typedef.AtlasTypesDef;
+import org.apache.atlas.repository.graph.AtlasGraphProvider;
+import org.apache.atlas.repository.graph.GraphBackedSearchIndexer;
+import org.apache.atlas.repository.store.bootstrap.AtlasTypeDefStoreInitializer;
+import org.apache.atlas.repository.store.graph.AtlasEntityStore;
+import org.apache.atlas.repository.store.graph.EntityGraphDiscoveryContext;
+import org.apache.atlas.runner.LocalSolrRunner;
+import org.apache.atlas.store.AtlasTypeDefStore;
+import org.apache.atlas.type.AtlasTypeRegistry;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Guice;
+import org.testng.annotations.Test;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.apache.atlas.TestUtilsV2.DATABASE_TYPE;
+import static org.apache.atlas.TestUtilsV2.NAME;
+import static org.apache.atlas.graph.GraphSandboxUtil.useLocalSolr;
+import static org.mockito.Mockito.mock;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+@Guice(modules = TestModules.TestOnlyModule.class)
+public class UniqAttrBasedEntityResolverTest {
+    private static final int DB_COUNT = 250; // more than one query batch
+
+    @Inject
+    AtlasTypeRegistry typeRegistry;
+
+    @Inject
+    AtlasTypeDefStore typeDefStore;
+
+    @Inject
+    DeleteHandlerV1 deleteHandler;
+
+    @Inject
+    private EntityGraphMapper graphMapper;
+
+    private final List<AtlasEntity> dbEntities = new ArrayList<>();
+
+    @BeforeClass
+    public void setUp() throws Exception {
+        RequestContextV1.clear();
+        RequestContextV1.get().setUser(TestUtilsV2.TEST_USER, null);
+
+        new GraphBackedSearchIndexer(typeRegistry);
+
+        AtlasTypesDef typesToCreate = AtlasTypeDefStoreInitializer.getTypesToCreate(TestUtilsV2.defineHiveTypes(), typeRegistry);
+
+        if (!typesToCreate.isEmpty()) {
+            typeDefStore.createTypesDef(typesToCreate);
+        }
+
+        AtlasEntityStore         entityStore = new AtlasEntityStoreV1(deleteHandler, typeRegistry, mock(AtlasEntityChangeNotifier.class), graphMapper);
+        AtlasEntitiesWithExtInfo entities    = new AtlasEntitiesWithExtInfo();
+
+        for (int i = 0; i < DB_COUNT; i++) {
+            AtlasEntity dbEntity = TestUtilsV2.createDBEntity();
+
+            entities.addEntity(dbEntity);
+            dbEntities.add(dbEntity);
+        }
+
+        EntityMutationResponse response = entityStore.createOrUpdate(new AtlasEntityStream(entities), false);
+
+        for (AtlasEntity dbEntity : dbEntities) {
+            dbEntity.setGuid(response.getGuidAssignments().get(dbEntity.getGuid()));
+        }
+    }
+
+    @AfterClass
+    public void clear() throws Exception {
+        AtlasGraphProvider.cleanup();
+
+        if (useLocalSolr()) {
+            LocalSolrRunner.stop();
+        }
+    }
+
+    @Test
+    public void testResolveReferencesInBatch() throws AtlasBaseException {
+        EntityGraphDiscoveryContext context = new EntityGraphDiscoveryContext(typeRegistry, null);
+
+        for (AtlasEntity dbEntity : dbEntities) {
+            context.addReferencedByUniqAttribs(getObjectId(dbEntity.getAttribute(NAME)));
+        }
+
+        new UniqAttrBasedEntityResolver(typeRegistry).resolveEntityReferences(context);
+
+        assertEquals(context.getResolvedIdsByUniqAttribs().size(), DB_COUNT);
+
+        for (AtlasEntity dbEntity : dbEntities) {
+            AtlasObjectId objId = getObjectId(dbEntity.getAttribute(NAME));
+
+            assertEquals(AtlasGraphUtilsV1.getIdFromVertex(context.getResolvedIdsByUniqAttribs().get(objId)), dbEntity.getGuid());
+        }
+    }
+
+    @Test
+    public void testUnresolvedReferenceFails() {
+        EntityGraphDiscoveryContext context = new EntityGraphDiscoveryContext(typeRegistry, null);
+
+        context.addReferencedByUniqAttribs(getObjectId(dbEntities.get(0).getAttribute(NAME)));
+        context.addReferencedByUniqAttribs(getObjectId("no-such-db"));
+
+        try {
+            new UniqAttrBasedEntityResolver(typeRegistry).resolveEntityReferences(context);
+
+            fail("resolveEntityReferences() should have failed for an unknown reference");
+        } catch (AtlasBaseException excp) {
+            assertEquals(excp.getAtlasErrorCode(), AtlasErrorCode.REFERENCED_ENTITY_NOT_FOUND);
+        }
+    }
+
+    private AtlasObjectId getObjectId(Object name) {
+        return new AtlasObjectId(DATABASE_TYPE, Collections.singletonMap(NAME, name));
+    }
+}
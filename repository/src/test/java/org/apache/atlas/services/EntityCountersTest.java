@@ -0,0 +1,280 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.services;
+
+import org.apache.atlas.model.instance.AtlasEntity;
+import org.apache.atlas.model.typedef.AtlasEntityDef;
+import org.apache.atlas.repository.Constants;
+import org.apache.atlas.repository.graphdb.AtlasGraph;
+import org.apache.atlas.repository.graphdb.AtlasGraphQuery;
+import org.apache.atlas.repository.graphdb.AtlasVertex;
+import org.apache.atlas.type.AtlasTypeRegistry;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.apache.atlas.utils.TestTransactionUtils.runInTransaction;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class EntityCountersTest {
+    private static final String TABLE_TYPE = "hive_table";
+    private static final String PII_TAG    = "PII";
+
+    @Test
+    public void testChangesAreCountedAfterCommit() throws Throwable {
+        EntityCounters counters = createCounters(mock(AtlasGraph.class), createTempDir());
+
+        runInTransaction(new Runnable() {
+            @Override
+            public void run() {
+                counters.onEntityCreated(TABLE_TYPE);
+                counters.onEntityCreated(TABLE_TYPE);
+                counters.onClassificationsAdded(TABLE_TYPE, Collections.singletonList(PII_TAG), true);
+            }
+        }, false);
+
+        assertEquals(counters.getEntityCounts().get(TABLE_TYPE).longValue(), 2);
+        assertEquals(counters.getTagCounts().get(PII_TAG).longValue(), 1);
+        assertEquals(counters.getTaggedCount(), 1);
+
+        runInTransaction(new Runnable() {
+            @Override
+            public void run() {
+                counters.onEntityCreated(TABLE_TYPE);
+            }
+        }, true);
+
+        assertEquals(counters.getEntityCounts().get(TABLE_TYPE).longValue(), 2);
+
+        runInTransaction(new Runnable() {
+            @Override
+            public void run() {
+                counters.onEntityDeleted(TABLE_TYPE, Collections.singletonList(PII_TAG), true);
+            }
+        }, false);
+
+        assertEquals(counters.getEntityCounts().get(TABLE_TYPE).longValue(), 2); // soft-deleted entities remain counted
+        assertNull(counters.getTagCounts().get(PII_TAG));
+        assertEquals(counters.getTaggedCount(), 0);
+        assertEquals(counters.getDeletedCount(), 1);
+
+        runInTransaction(new Runnable() {
+            @Override
+            public void run() {
+                counters.onEntityDeleted(TABLE_TYPE, Collections.<String>emptyList(), false);
+            }
+        }, false);
+
+        assertEquals(counters.getEntityCounts().get(TABLE_TYPE).longValue(), 1);
+        assertEquals(counters.getDeletedCount(), 1);
+
+        counters.close();
+    }
+
+    @Test
+    public void testCountsAreRestoredOnRestart() throws Throwable {
+        File           dir      = createTempDir();
+        EntityCounters counters = createCounters(createGraph(), dir);
+
+        assertFalse(counters.isInitialized());
+
+        counters.reconcile(); // empty graph: counts start from zero
+
+        runInTransaction(new Runnable() {
+            @Override
+            public void run() {
+                counters.onEntityCreated(TABLE_TYPE);
+                counters.onClassificationsAdded(TABLE_TYPE, Arrays.asList(PII_TAG, "Finance"), true);
+            }
+        }, false);
+
+        counters.close();
+
+        EntityCounters restarted = createCounters(createGraph(), dir);
+
+        assertTrue(restarted.isInitialized());
+        assertEquals(restarted.getEntityCounts().get(TABLE_TYPE).longValue(), 1);
+        assertEquals(restarted.getTagCounts().get("Finance").longValue(), 1);
+        assertEquals(restarted.getTaggedCount(), 1);
+
+        restarted.close();
+    }
+
+    @Test
+    public void testCountsAreNotTrustedAfterAbruptStop() throws Throwable {
+        File           dir      = createTempDir();
+        EntityCounters counters = createCounters(createGraph(), dir);
+
+        counters.reconcile();
+
+        runInTransaction(new Runnable() {
+            @Override
+            public void run() {
+                counters.onEntityCreated(TABLE_TYPE);
+            }
+        }, false);
+
+        assertTrue(counters.flush(), "periodic flush");
+
+        EntityCounters restarted = createCounters(createGraph(), dir); // without close(): changes since the flush may be missing
+
+        assertFalse(restarted.isInitialized());
+
+        restarted.close();
+        counters.close();
+
+        EntityCounters restartedAfterClose = createCounters(createGraph(), dir);
+
+        assertTrue(restartedAfterClose.isInitialized());
+
+        EntityCounters restartedAgain = createCounters(createGraph(), dir); // the clean shutdown is trusted only once
+
+        assertFalse(restartedAgain.isInitialized());
+
+        restartedAfterClose.close();
+        restartedAgain.close();
+    }
+
+    @Test
+    public void testReconcileReplacesCounts() throws Throwable {
+        AtlasVertex    tagged   = createVertex(AtlasEntity.Status.ACTIVE, Collections.singletonList(PII_TAG));
+        AtlasVertex    deleted  = createVertex(AtlasEntity.Status.DELETED, Collections.<String>emptyList());
+        AtlasVertex    untagged = createVertex(AtlasEntity.Status.ACTIVE, Collections.<String>emptyList());
+        AtlasGraph     graph    = createGraph(tagged, deleted, untagged);
+        EntityCounters counters = createCounters(graph, createTempDir());
+
+        runInTransaction(new Runnable() {
+            @Override
+            public void run() {
+                counters.onEntityCreated("stale_type");
+            }
+        }, false);
+
+        counters.reconcile();
+
+        assertTrue(counters.isInitialized());
+        assertEquals(counters.getEntityCounts(), Collections.singletonMap(TABLE_TYPE, 3L));
+        assertEquals(counters.getTagCounts(), Collections.singletonMap(PII_TAG, 1L));
+        assertEquals(counters.getDeletedCount(), 1);
+        assertEquals(counters.getTaggedCount(), 1);
+        assertEquals(counters.getMetrics().get(EntityCounters.METRIC_RECONCILE_SCANNED).longValue(), 3);
+
+        verify(graph.query(), times(1)).vertices(); // a single query, though read in batches of 2
+
+        counters.close();
+    }
+
+    @Test
+    public void testChangesCommittedDuringReconcileAreKept() throws Throwable {
+        AtlasVertex     untagged = createVertex(AtlasEntity.Status.ACTIVE, Collections.<String>emptyList());
+        AtlasGraph      graph    = mock(AtlasGraph.class);
+        AtlasGraphQuery query    = mock(AtlasGraphQuery.class);
+
+        when(graph.query()).thenReturn(query);
+        when(query.has(anyString(), any())).thenReturn(query);
+
+        final EntityCounters counters = createCounters(graph, createTempDir());
+
+        // committed after the recount of TABLE_TYPE started, hence not seen by it
+        when(query.vertices()).thenAnswer(new Answer<Iterable<AtlasVertex>>() {
+            @Override
+            public Iterable<AtlasVertex> answer(InvocationOnMock invocation) throws Throwable {
+                runInTransaction(new Runnable() {
+                    @Override
+                    public void run() {
+                        counters.onEntityCreated(TABLE_TYPE);
+                        counters.onClassificationsAdded(TABLE_TYPE, Collections.singletonList(PII_TAG), true);
+                    }
+                }, false);
+
+                return Collections.singletonList(untagged);
+            }
+        });
+
+        counters.reconcile();
+
+        assertEquals(counters.getEntityCounts(), Collections.singletonMap(TABLE_TYPE, 2L));
+        assertEquals(counters.getTagCounts(), Collections.singletonMap(PII_TAG, 1L));
+        assertEquals(counters.getTaggedCount(), 1);
+
+        runInTransaction(new Runnable() {
+            @Override
+            public void run() {
+                counters.onEntityCreated(TABLE_TYPE);
+            }
+        }, false);
+
+        assertEquals(counters.getEntityCounts(), Collections.singletonMap(TABLE_TYPE, 3L), "changes after reconcile");
+
+        counters.close();
+    }
+
+    private EntityCounters createCounters(AtlasGraph graph, File dir) {
+        AtlasTypeRegistry typeRegistry = mock(AtlasTypeRegistry.class);
+
+        when(typeRegistry.getAllEntityDefs()).thenReturn(Collections.singletonList(new AtlasEntityDef(TABLE_TYPE)));
+
+        return new EntityCounters(graph, typeRegistry, true, dir, 60000, 2, 0);
+    }
+
+    // returns a graph with the given vertices of TABLE_TYPE
+    private AtlasGraph createGraph(AtlasVertex... vertices) {
+        AtlasGraph      ret   = mock(AtlasGraph.class);
+        AtlasGraphQuery query = mock(AtlasGraphQuery.class);
+
+        when(ret.query()).thenReturn(query);
+        when(query.has(anyString(), any())).thenReturn(query);
+        when(query.vertices()).thenReturn(Arrays.asList(vertices));
+
+        return ret;
+    }
+
+    private AtlasVertex createVertex(AtlasEntity.Status status, List<String> traitNames) {
+        AtlasVertex ret = mock(AtlasVertex.class);
+
+        when(ret.getProperty(Constants.STATE_PROPERTY_KEY, String.class)).thenReturn(status.name());
+        when(ret.getPropertyValues(Constants.TRAIT_NAMES_PROPERTY_KEY, String.class)).thenReturn(traitNames);
+
+        return ret;
+    }
+
+    private File createTempDir() throws Exception {
+        File ret = Files.createTempDirectory("metrics").toFile();
+
+        ret.deleteOnExit();
+
+        assertTrue(ret.isDirectory());
+
+        return ret;
+    }
+}
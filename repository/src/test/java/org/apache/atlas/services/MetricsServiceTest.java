@@ -39,11 +39,13 @@ import java.util.List;
 import java.util.Map;
 
 import static org.apache.atlas.graph.GraphSandboxUtil.useLocalSolr;
+import static org.mockito.Matchers.anyMapOf;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.*;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNotSame;
 
 @Guice(modules = TestModules.TestOnlyModule.class)
 public class MetricsServiceTest {
@@ -88,7 +90,7 @@ public class MetricsServiceTest {
 
     private void setupMockGraph() throws AtlasBaseException {
         if (mockGraph == null) mockGraph = mock(AtlasGraph.class);
-        when(mockGraph.executeGremlinScript(anyString(), eq(false))).thenAnswer(new Answer<Object>() {
+        when(mockGraph.executeGremlinScript(anyString(), anyMapOf(String.class, Object.class), eq(false))).thenAnswer(new Answer<Object>() {
             @Override
             public Object answer(InvocationOnMock invocationOnMock) throws Throwable {
                 if (((String)invocationOnMock.getArguments()[0]).contains("count()")) {
@@ -129,7 +131,7 @@ public class MetricsServiceTest {
         assertNotNull(cTags);
         assertEquals(cTags, 3);
 
-        verify(mockGraph, atLeastOnce()).executeGremlinScript(anyString(), anyBoolean());
+        verify(mockGraph, atLeastOnce()).executeGremlinScript(anyString(), anyMapOf(String.class, Object.class), anyBoolean());
 
         // Subsequent call within the cache timeout window
         metricsService.getMetrics(false);
@@ -138,6 +140,20 @@ public class MetricsServiceTest {
         // Now test the cache refresh
         Thread.sleep(6000);
         metricsService.getMetrics(true);
-        verify(mockGraph, atLeastOnce()).executeGremlinScript(anyString(), anyBoolean());
+        verify(mockGraph, atLeastOnce()).executeGremlinScript(anyString(), anyMapOf(String.class, Object.class), anyBoolean());
+    }
+
+    @Test(dependsOnMethods = "testGetMetrics")
+    public void testCachedMetricsAreNotShared() {
+        AtlasMetrics metrics1 = metricsService.getMetrics(false);
+
+        metrics1.addData("entity", "a", 100);
+        metrics1.getData().remove("tag");
+
+        AtlasMetrics metrics2 = metricsService.getMetrics(false);
+
+        assertNotSame(metrics2, metrics1);
+        assertEquals(metrics2.getMetric("entity", "a"), 1);
+        assertEquals(metrics2.getMetric("tag", "a"), 1);
     }
 }
@@ -0,0 +1,157 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.util;
+
+import org.apache.atlas.AtlasErrorCode;
+import org.apache.atlas.discovery.SearchContext;
+import org.apache.atlas.exception.AtlasBaseException;
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.Test;
+
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class SearchTrackerTest {
+    @Test
+    public void testAddAndRemove() throws AtlasBaseException {
+        SearchTracker tracker  = new SearchTracker(60000, 0, 0);
+        SearchContext context1 = mock(SearchContext.class);
+        SearchContext context2 = mock(SearchContext.class);
+        String        id1      = tracker.add(context1);
+        String        id2      = tracker.add(context2);
+
+        assertNotEquals(id1, id2);
+        assertEquals(tracker.getActiveSearches().size(), 2);
+        assertNotNull(tracker.getSearchProgress(id1));
+
+        verify(context1).setDeadline(anyLong());
+
+        assertSame(tracker.remove(id1), context1);
+        assertNull(tracker.remove(id1));
+        assertNull(tracker.getSearchProgress(id1));
+        assertEquals(tracker.getActiveSearches().size(), 1);
+        assertTrue(tracker.getActiveSearches().contains(id2));
+    }
+
+    @Test
+    public void testTerminate() throws AtlasBaseException {
+        SearchTracker tracker = new SearchTracker(0, 0, 0);
+        SearchContext context = mock(SearchContext.class);
+        String        id      = tracker.add(context);
+
+        assertSame(tracker.terminate(id), context);
+
+        verify(context).terminateSearch(true);
+
+        // search remains registered until it completes
+        assertTrue(tracker.getActiveSearches().contains(id));
+        assertNull(tracker.terminate("no-such-search"));
+    }
+
+    @Test
+    public void testConcurrentSearchesPerUser() throws AtlasBaseException {
+        SearchTracker tracker = new SearchTracker(0, 2, 10);
+        String        id1     = tracker.add(mock(SearchContext.class));
+
+        tracker.add(mock(SearchContext.class));
+
+        try {
+            tracker.add(mock(SearchContext.class));
+
+            fail("expected search to be rejected");
+        } catch (AtlasBaseException e) {
+            assertEquals(e.getAtlasErrorCode(), AtlasErrorCode.TOO_MANY_CONCURRENT_SEARCHES);
+        }
+
+        tracker.remove(id1);
+
+        String id3 = tracker.add(mock(SearchContext.class));
+
+        assertFalse(id3.isEmpty());
+        assertEquals(tracker.getActiveSearches().size(), 2);
+    }
+
+    @Test
+    public void testSearchesWithoutContextCountTowardLimit() throws AtlasBaseException {
+        SearchTracker tracker = new SearchTracker(0, 1, 10);
+        String        id      = tracker.add("hive_table where name = 'sales'");
+
+        assertEquals(tracker.getSearchProgress(id).get("query"), "hive_table where name = 'sales'");
+        assertNull(tracker.terminate(id), "search without context can't be terminated");
+
+        try {
+            tracker.add(mock(SearchContext.class));
+
+            fail("expected search to be rejected");
+        } catch (AtlasBaseException e) {
+            assertEquals(e.getAtlasErrorCode(), AtlasErrorCode.TOO_MANY_CONCURRENT_SEARCHES);
+        }
+
+        assertNull(tracker.remove(id));
+        assertNotNull(tracker.add(mock(SearchContext.class)));
+    }
+
+    @Test
+    public void testIdleUsersAreEvicted() throws AtlasBaseException {
+        SearchTracker tracker = new SearchTracker(0, 1, 10);
+        String        id      = tracker.add(mock(SearchContext.class));
+
+        assertEquals(tracker.getUserCount(), 1);
+
+        try {
+            tracker.add(mock(SearchContext.class));
+
+            fail("expected search to be rejected");
+        } catch (AtlasBaseException e) {
+            assertEquals(tracker.getUserCount(), 1, "rejected search doesn't hold the user");
+        }
+
+        tracker.remove(id);
+
+        assertEquals(tracker.getUserCount(), 0);
+    }
+
+    @Test
+    public void testDeadlineIsSetOncePerSearch() throws AtlasBaseException {
+        SearchTracker        tracker   = new SearchTracker(60000, 1, 10);
+        SearchContext        batch1    = mock(SearchContext.class);
+        SearchContext        batch2    = mock(SearchContext.class);
+        String               id        = tracker.add(batch1);
+        ArgumentCaptor<Long> deadline1 = ArgumentCaptor.forClass(Long.class);
+        ArgumentCaptor<Long> deadline2 = ArgumentCaptor.forClass(Long.class);
+
+        tracker.setContext(id, batch2);
+
+        verify(batch1).setDeadline(deadline1.capture());
+        verify(batch2).setDeadline(deadline2.capture());
+
+        assertEquals(deadline2.getValue(), deadline1.getValue());
+        assertEquals(tracker.getActiveSearches().size(), 1);
+        assertSame(tracker.terminate(id), batch2);
+        assertSame(tracker.remove(id), batch2);
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.utils;
+
+import org.apache.atlas.GraphTransactionInterceptor.ObjectUpdateSynchronizer;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+
+/**
+ * Writer threads locking a few random guids per transaction, out of a small set of guids so that they contend for
+ * the locks: no two threads hold the lock of a guid at the same time, no lock is leaked, and no thread deadlocks.
+ */
+public class ObjectUpdateSynchronizerContentionTest {
+    private static final int  THREAD_COUNT            = 16;
+    private static final int  GUID_COUNT              = 32;
+    private static final int  GUIDS_PER_TRANSACTION   = 4;
+    private static final int  TRANSACTIONS_PER_THREAD = 200;
+    private static final long MAX_DURATION_MS         = TimeUnit.SECONDS.toMillis(60);
+
+    @Test
+    public void testContendedLocks() throws Exception {
+        final ObjectUpdateSynchronizer   synchronizer = new ObjectUpdateSynchronizer(0);
+        final AtomicInteger[]            holders      = new AtomicInteger[GUID_COUNT];
+        final CountDownLatch             start        = new CountDownLatch(1);
+        final AtomicReference<Throwable> failure      = new AtomicReference<>();
+        List<Thread>                     threads      = new ArrayList<>();
+
+        for (int i = 0; i < GUID_COUNT; i++) {
+            holders[i] = new AtomicInteger();
+        }
+
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            Thread thread = new Thread() {
+                public void run() {
+                    try {
+                        start.await();
+
+                        for (int j = 0; j < TRANSACTIONS_PER_THREAD; j++) {
+                            List<String> guids = new ArrayList<>(GUIDS_PER_TRANSACTION);
+
+                            while (guids.size() < GUIDS_PER_TRANSACTION) {
+                                String guid = Integer.toString(ThreadLocalRandom.current().nextInt(GUID_COUNT));
+
+                                if (!guids.contains(guid)) {
+                                    guids.add(guid);
+                                }
+                            }
+
+                            try {
+                                synchronizer.lockObject(guids);
+
+                                for (String guid : guids) {
+                                    assertEquals(holders[Integer.parseInt(guid)].incrementAndGet(), 1, "guid " + guid + " locked by more than one thread");
+                                }
+
+                                Thread.yield();
+
+                                for (String guid : guids) {
+                                    holders[Integer.parseInt(guid)].decrementAndGet();
+                                }
+                            } finally {
+                                synchronizer.releaseLockedObjects();
+                            }
+                        }
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    }
+                }
+            };
+
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+
+        long deadline = System.currentTimeMillis() + MAX_DURATION_MS;
+
+        start.countDown();
+
+        for (Thread thread : threads) {
+            thread.join(Math.max(deadline - System.currentTimeMillis(), 1));
+
+            assertFalse(thread.isAlive(), "writer threads did not complete within " + MAX_DURATION_MS + "ms");
+        }
+
+        assertNull(failure.get());
+
+        Map<String, Number> metrics = synchronizer.getMetrics();
+
+        assertEquals(metrics.get(ObjectUpdateSynchronizer.METRIC_LOCKED_OBJECTS).intValue(), 0, "leaked locks");
+        assertEquals(metrics.get(ObjectUpdateSynchronizer.METRIC_WAITING_THREADS).intValue(), 0);
+        assertEquals(metrics.get(ObjectUpdateSynchronizer.METRIC_ACQUIRED).longValue(), (long) THREAD_COUNT * TRANSACTIONS_PER_THREAD * GUIDS_PER_TRANSACTION);
+        assertEquals(metrics.get(ObjectUpdateSynchronizer.METRIC_TIMEOUTS).longValue(), 0);
+    }
+}
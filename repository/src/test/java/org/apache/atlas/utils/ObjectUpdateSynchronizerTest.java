@@ -17,7 +17,9 @@
  */
 package org.apache.atlas.utils;
 
+import org.apache.atlas.AtlasErrorCode;
 import org.apache.atlas.GraphTransactionInterceptor;
+import org.apache.atlas.exception.AtlasBaseException;
 import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.RandomStringUtils;
 import org.springframework.util.CollectionUtils;
@@ -25,10 +27,15 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
 
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 public class ObjectUpdateSynchronizerTest {
     private static final GraphTransactionInterceptor.ObjectUpdateSynchronizer objectUpdateSynchronizer = new GraphTransactionInterceptor.ObjectUpdateSynchronizer();
@@ -48,7 +55,12 @@ public class ObjectUpdateSynchronizerTest {
         }
 
         public void run() {
-            objectUpdateSynchronizer.lockObject(CollectionUtils.arrayToList(ids));
+            try {
+                objectUpdateSynchronizer.lockObject(CollectionUtils.arrayToList(ids));
+            } catch (AtlasBaseException e) {
+                throw new RuntimeException(e);
+            }
+
             for (int i = 0; i < MAX_COUNT; i++) {
                 outputList.add(i);
                 RandomStringUtils.randomAlphabetic(20);
@@ -166,6 +178,87 @@ public class ObjectUpdateSynchronizerTest {
         assertArrayEquals(populateExpectedArrayOutput(th.length));
     }
 
+    @Test
+    public void lockTimesOutWhenHeldByAnotherThread() throws Exception {
+        final GraphTransactionInterceptor.ObjectUpdateSynchronizer synchronizer = new GraphTransactionInterceptor.ObjectUpdateSynchronizer(100);
+        final CountDownLatch                                       locked       = new CountDownLatch(1);
+        final CountDownLatch                                       release      = new CountDownLatch(1);
+
+        Thread holder = new Thread() {
+            public void run() {
+                try {
+                    synchronizer.lockObject(Collections.singletonList("1"));
+
+                    locked.countDown();
+
+                    release.await();
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                } finally {
+                    synchronizer.releaseLockedObjects();
+                }
+            }
+        };
+
+        holder.start();
+        locked.await();
+
+        try {
+            synchronizer.lockObject(Arrays.asList("1", "0"));
+
+            fail("lockObject() should have timed out");
+        } catch (AtlasBaseException excp) {
+            assertEquals(excp.getAtlasErrorCode(), AtlasErrorCode.ENTITY_LOCK_TIMED_OUT);
+        }
+
+        synchronizer.releaseLockedObjects(); // releases "0", locked before the timeout
+
+        assertEquals(synchronizer.getMetrics().get(GraphTransactionInterceptor.ObjectUpdateSynchronizer.METRIC_TIMEOUTS).intValue(), 1);
+        assertEquals(synchronizer.getMetrics().get(GraphTransactionInterceptor.ObjectUpdateSynchronizer.METRIC_LOCKED_OBJECTS).intValue(), 1);
+
+        release.countDown();
+        holder.join();
+
+        assertEquals(synchronizer.getMetrics().get(GraphTransactionInterceptor.ObjectUpdateSynchronizer.METRIC_LOCKED_OBJECTS).intValue(), 0);
+
+        synchronizer.lockObject(Collections.singletonList("1"));
+        synchronizer.releaseLockedObjects();
+    }
+
+    @Test
+    public void hotObjectsAreReported() throws Exception {
+        final GraphTransactionInterceptor.ObjectUpdateSynchronizer synchronizer = new GraphTransactionInterceptor.ObjectUpdateSynchronizer(0);
+
+        synchronizer.lockObject(Collections.singletonList("1"));
+
+        Thread waiter = new Thread() {
+            public void run() {
+                try {
+                    synchronizer.lockObject(Collections.singletonList("1"));
+                } catch (AtlasBaseException e) {
+                    throw new RuntimeException(e);
+                } finally {
+                    synchronizer.releaseLockedObjects();
+                }
+            }
+        };
+
+        waiter.start();
+
+        for (int i = 0; i < 500 && synchronizer.getHotObjects(10).isEmpty(); i++) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(synchronizer.getHotObjects(10).get("1").intValue(), 1);
+
+        synchronizer.releaseLockedObjects();
+        waiter.join();
+
+        assertTrue(synchronizer.getHotObjects(10).isEmpty());
+        assertEquals(synchronizer.getMetrics().get(GraphTransactionInterceptor.ObjectUpdateSynchronizer.METRIC_CONTENDED).intValue(), 1);
+        assertEquals(synchronizer.getMetrics().get(GraphTransactionInterceptor.ObjectUpdateSynchronizer.METRIC_ACQUIRED).intValue(), 2);
+    }
+
     private void verifyMultipleThreadRun(int limit) throws InterruptedException {
         CounterThread[] th = getCounterThreads(limit);
         startCounterThreads(th);
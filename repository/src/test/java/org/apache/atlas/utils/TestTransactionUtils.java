@@ -0,0 +1,68 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.utils;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.apache.atlas.AtlasErrorCode;
+import org.apache.atlas.GraphTransactionInterceptor;
+import org.apache.atlas.exception.AtlasBaseException;
+import org.apache.atlas.repository.graphdb.AtlasGraph;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs changes in a transaction of GraphTransactionInterceptor on a mock graph, to test post-commit hooks.
+ */
+public final class TestTransactionUtils {
+    private static final GraphTransactionInterceptor INTERCEPTOR = new GraphTransactionInterceptor(mock(AtlasGraph.class));
+
+    private TestTransactionUtils() {
+    }
+
+    /**
+     * @param changes changes to make in the transaction
+     * @param fail    true to fail the transaction after the changes are made, i.e. to roll it back
+     */
+    public static void runInTransaction(final Runnable changes, final boolean fail) throws Throwable {
+        MethodInvocation invocation = mock(MethodInvocation.class);
+
+        when(invocation.proceed()).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocationOnMock) throws Throwable {
+                changes.run();
+
+                if (fail) {
+                    throw new AtlasBaseException(AtlasErrorCode.INTERNAL_ERROR, "test");
+                }
+
+                return null;
+            }
+        });
+
+        try {
+            INTERCEPTOR.invoke(invocation);
+        } catch (AtlasBaseException e) {
+            if (!fail) {
+                throw e;
+            }
+        }
+    }
+}
@@ -31,7 +31,10 @@ public interface ActiveStateChangeHandler {
         GRAPH_BACKED_SEARCH_INDEXER(1),
         TYPEDEF_STORE_INITIALIZER(2),
         DEFAULT_METADATA_SERVICE(3),
-        NOTIFICATION_HOOK_CONSUMER(4);
+        NOTIFICATION_HOOK_CONSUMER(4),
+        SAVED_SEARCH_MATERIALIZER(5),
+        ENTITY_COUNTERS(6),
+        DSL_QUERY_CACHE(7);
 
 
         private final int order;
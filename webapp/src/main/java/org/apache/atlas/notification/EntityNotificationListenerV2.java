@@ -24,7 +24,9 @@ import org.apache.atlas.exception.AtlasBaseException;
 import org.apache.atlas.listener.EntityChangeListenerV2;
 import org.apache.atlas.model.instance.AtlasClassification;
 import org.apache.atlas.model.instance.AtlasEntity;
+import org.apache.atlas.repository.outbox.EntityChangeOutbox;
 import org.apache.atlas.type.AtlasClassificationType;
+import org.apache.atlas.type.AtlasType;
 import org.apache.atlas.type.AtlasTypeRegistry;
 import org.apache.atlas.v1.model.notification.EntityNotificationV2;
 import org.apache.atlas.v1.model.notification.EntityNotificationV2.OperationType;
@@ -56,16 +58,44 @@ import static org.apache.atlas.v1.model.notification.EntityNotificationV2.Operat
 
 @Component
 public class EntityNotificationListenerV2 implements EntityChangeListenerV2 {
+    public static final String OUTBOX_SINK_NAME = "entity-notification";
+
     private final AtlasTypeRegistry         typeRegistry;
     private final NotificationInterface     notificationInterface;
+    private final EntityChangeOutbox        outbox;
     private final Map<String, List<String>> notificationAttributesCache = new HashMap<>();
 
     private static Configuration APPLICATION_PROPERTIES = null;
 
     @Inject
-    public EntityNotificationListenerV2(AtlasTypeRegistry typeRegistry, NotificationInterface notificationInterface) {
+    public EntityNotificationListenerV2(AtlasTypeRegistry typeRegistry, NotificationInterface notificationInterface, EntityChangeOutbox outbox) {
         this.typeRegistry          = typeRegistry;
         this.notificationInterface = notificationInterface;
+        this.outbox                = outbox;
+
+        if (outbox != null && outbox.isEnabled()) {
+            outbox.registerSink(new EntityChangeOutbox.Sink() {
+                @Override
+                public String getName() {
+                    return OUTBOX_SINK_NAME;
+                }
+
+                @Override
+                public void dispatch(List<String> payloads) throws AtlasBaseException {
+                    List<EntityNotificationV2> messages = new ArrayList<>(payloads.size());
+
+                    for (String payload : payloads) {
+                        messages.add(AtlasType.fromV1Json(payload, EntityNotificationV2.class));
+                    }
+
+                    try {
+                        notificationInterface.send(ENTITIES, messages);
+                    } catch (NotificationException e) {
+                        throw new AtlasBaseException(AtlasErrorCode.ENTITY_NOTIFICATION_FAILED, e, OUTBOX_SINK_NAME);
+                    }
+                }
+            });
+        }
     }
 
     @Override
@@ -111,7 +141,19 @@ public class EntityNotificationListenerV2 implements EntityChangeListenerV2 {
             messages.add(new EntityNotificationV2(entity, operationType, getAllClassifications(entity)));
         }
 
-        if (!messages.isEmpty()) {
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        if (outbox != null && outbox.isEnabled()) { // sent after the graph transaction commits
+            List<String> payloads = new ArrayList<>(messages.size());
+
+            for (EntityNotificationV2 message : messages) {
+                payloads.add(AtlasType.toV1Json(message));
+            }
+
+            outbox.add(OUTBOX_SINK_NAME, payloads);
+        } else {
             try {
                 notificationInterface.send(ENTITIES, messages);
             } catch (NotificationException e) {
@@ -21,6 +21,8 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import kafka.utils.ShutdownableThread;
 import org.apache.atlas.ApplicationProperties;
+import org.apache.atlas.exception.AtlasBaseException;
+import org.apache.atlas.AtlasBaseClient;
 import org.apache.atlas.AtlasClient;
 import org.apache.atlas.AtlasClientV2;
 import org.apache.atlas.AtlasException;
@@ -55,6 +57,7 @@ import org.apache.atlas.web.filters.AuditFilter;
 import org.apache.atlas.web.filters.AuditFilter.AuditLog;
 import org.apache.atlas.web.service.ServiceState;
 import org.apache.commons.configuration.Configuration;
+import org.apache.commons.lang.StringUtils;
 import org.apache.kafka.common.TopicPartition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -66,6 +69,7 @@ import javax.inject.Inject;
 import java.util.*;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -90,9 +94,18 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
     public static final String CONSUMER_RETRY_INTERVAL           = "atlas.notification.consumer.retry.interval";
     public static final String CONSUMER_MIN_RETRY_INTERVAL       = "atlas.notification.consumer.min.retry.interval";
     public static final String CONSUMER_MAX_RETRY_INTERVAL       = "atlas.notification.consumer.max.retry.interval";
+    public static final String CONSUMER_PIPELINE_ENABLED         = "atlas.notification.hook.pipeline.enabled";
+    public static final String CONSUMER_PIPELINE_WORKERS         = "atlas.notification.hook.pipeline.workers";
+    public static final String CONSUMER_PIPELINE_MAX_PENDING     = "atlas.notification.hook.pipeline.max.pending";
+    public static final String CONSUMER_PIPELINE_COMMIT_INTERVAL = "atlas.notification.hook.pipeline.commit.interval.ms";
+    public static final String CONSUMER_COALESCE_ENABLED         = "atlas.notification.hook.coalesce.enabled";
+    public static final String CONSUMER_COALESCE_MAX_ENTITIES    = "atlas.notification.hook.coalesce.max.entities";
 
     public static final int SERVER_READY_WAIT_TIME_MS = 1000;
 
+    private static final String ATLAS_HOOK_TOPIC               = "ATLAS_HOOK";
+    private static final long   PIPELINE_SHUTDOWN_WAIT_TIME_MS = 5000;
+
     private final AtlasEntityStore       atlasEntityStore;
     private final ServiceState           serviceState;
     private final AtlasInstanceConverter instanceConverter;
@@ -101,6 +114,12 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
     private final int                    failedMsgCacheSize;
     private final int                    minWaitDuration;
     private final int                    maxWaitDuration;
+    private final boolean                pipelineEnabled;
+    private final int                    pipelineWorkers;
+    private final int                    pipelineMaxPending;
+    private final long                   pipelineCommitInterval;
+    private final boolean                coalesceEnabled;
+    private final int                    coalesceMaxEntities;
 
     private NotificationInterface notificationInterface;
     private ExecutorService       executors;
@@ -128,6 +147,18 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
         consumerRetryInterval = applicationProperties.getInt(CONSUMER_RETRY_INTERVAL, 500);
         minWaitDuration       = applicationProperties.getInt(CONSUMER_MIN_RETRY_INTERVAL, consumerRetryInterval); // 500 ms  by default
         maxWaitDuration       = applicationProperties.getInt(CONSUMER_MAX_RETRY_INTERVAL, minWaitDuration * 60);  //  30 sec by default
+
+        pipelineEnabled        = applicationProperties.getBoolean(CONSUMER_PIPELINE_ENABLED, false);
+        pipelineWorkers        = Math.max(applicationProperties.getInt(CONSUMER_PIPELINE_WORKERS, 4), 1);
+        pipelineMaxPending     = Math.max(applicationProperties.getInt(CONSUMER_PIPELINE_MAX_PENDING, 1000), 1);
+        pipelineCommitInterval = applicationProperties.getLong(CONSUMER_PIPELINE_COMMIT_INTERVAL, 1000);
+
+        coalesceEnabled     = applicationProperties.getBoolean(CONSUMER_COALESCE_ENABLED, false);
+        coalesceMaxEntities = Math.max(applicationProperties.getInt(CONSUMER_COALESCE_MAX_ENTITIES, 1000), 1);
+
+        if (pipelineEnabled && coalesceEnabled) {
+            LOG.warn("{} and {} are both enabled; messages will be processed in the pipelined mode, without coalescing", CONSUMER_PIPELINE_ENABLED, CONSUMER_COALESCE_ENABLED);
+        }
     }
 
     @Override
@@ -290,6 +321,90 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
         }
     }
 
+    /**
+     * Key of the entity affected by the message, used to process messages for the same entity in order
+     * in the pipelined mode. Messages with multiple entities are keyed by the first entity.
+     */
+    @VisibleForTesting
+    static String getEntityKey(HookNotification message) {
+        String ret = AbstractNotification.getMessageKey(message);
+
+        return ret != null ? ret : "";
+    }
+
+    /**
+     * Entities of a create/full-update message, in a form that can be merged with entities of other such messages.
+     *
+     * @return null if the message can't be coalesced with other messages
+     */
+    private AtlasEntitiesWithExtInfo getCoalescableEntities(HookNotification message) {
+        AtlasEntitiesWithExtInfo ret = null;
+
+        try {
+            switch (message.getType()) {
+                case ENTITY_CREATE:
+                    ret = instanceConverter.toAtlasEntities(((EntityCreateRequest) message).getEntities());
+                break;
+
+                case ENTITY_FULL_UPDATE:
+                    ret = instanceConverter.toAtlasEntities(((EntityUpdateRequest) message).getEntities());
+                break;
+
+                case ENTITY_CREATE_V2:
+                    ret = ((EntityCreateRequestV2) message).getEntities();
+                break;
+
+                case ENTITY_FULL_UPDATE_V2:
+                    ret = ((EntityUpdateRequestV2) message).getEntities();
+                break;
+            }
+        } catch (AtlasBaseException e) {
+            LOG.debug("message of type {} can't be coalesced; it will be processed separately", message.getType(), e);
+
+            ret = null;
+        }
+
+        return ret != null && ret.getEntities() != null ? ret : null;
+    }
+
+    private static AuditLog getCoalescedAuditLog(HookNotification message) {
+        final AtlasBaseClient.API api;
+
+        switch (message.getType()) {
+            case ENTITY_CREATE:
+                api = AtlasClient.API_V1.CREATE_ENTITY;
+            break;
+
+            case ENTITY_CREATE_V2:
+                api = AtlasClientV2.API_V2.CREATE_ENTITY;
+            break;
+
+            default:
+                api = AtlasClientV2.API_V2.UPDATE_ENTITY;
+            break;
+        }
+
+        return new AuditLog(message.getUser(), THREADNAME_PREFIX, api.getMethod(), api.getNormalizedPath());
+    }
+
+    private static class CoalescableMessage {
+        private final AtlasKafkaMessage<HookNotification> kafkaMessage;
+        private final AtlasEntitiesWithExtInfo            entities;
+
+        CoalescableMessage(AtlasKafkaMessage<HookNotification> kafkaMessage, AtlasEntitiesWithExtInfo entities) {
+            this.kafkaMessage = kafkaMessage;
+            this.entities     = entities;
+        }
+
+        String getUser() {
+            return kafkaMessage.getMessage().getUser();
+        }
+
+        int getEntityCount() {
+            return entities.getEntities().size() + (entities.getReferredEntities() != null ? entities.getReferredEntities().size() : 0);
+        }
+    }
+
     @VisibleForTesting
     class HookConsumer extends ShutdownableThread {
         private final NotificationConsumer<HookNotification> consumer;
@@ -313,13 +428,23 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
                 return;
             }
 
+            MessagePipeline pipeline = pipelineEnabled ? new MessagePipeline() : null;
+
             try {
                 while (shouldRun.get()) {
                     try {
                         List<AtlasKafkaMessage<HookNotification>> messages = consumer.receive();
 
-                        for (AtlasKafkaMessage<HookNotification> msg : messages) {
-                            handleMessage(msg);
+                        if (pipeline != null) {
+                            pipeline.dispatch(messages);
+
+                            pipeline.commitCompleted(false);
+                        } else if (coalesceEnabled) {
+                            handleMessages(messages);
+                        } else {
+                            for (AtlasKafkaMessage<HookNotification> msg : messages) {
+                                handleMessage(msg);
+                            }
                         }
                     } catch (IllegalStateException ex) {
                         adaptiveWaiter.pause(ex);
@@ -334,6 +459,10 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
                     }
                 }
             } finally {
+                if (pipeline != null) {
+                    pipeline.shutdown();
+                }
+
                 if (consumer != null) {
                     LOG.info("closing NotificationConsumer");
 
@@ -346,6 +475,129 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
 
         @VisibleForTesting
         void handleMessage(AtlasKafkaMessage<HookNotification> kafkaMsg) throws AtlasServiceException, AtlasException {
+            if (processMessage(kafkaMsg)) {
+                commit(kafkaMsg);
+            }
+        }
+
+        /**
+         * Processes the messages received in a poll. Consecutive create/full-update messages from the same user are
+         * merged and written in a single transaction; other messages are processed individually, in the order received.
+         */
+        @VisibleForTesting
+        void handleMessages(List<AtlasKafkaMessage<HookNotification>> messages) throws AtlasServiceException, AtlasException {
+            List<CoalescableMessage> batch            = new ArrayList<>();
+            int                      batchEntityCount = 0;
+
+            for (AtlasKafkaMessage<HookNotification> kafkaMsg : messages) {
+                AtlasEntitiesWithExtInfo entities = getCoalescableEntities(kafkaMsg.getMessage());
+
+                if (entities == null) { // the pending batch must be written before this message is processed
+                    processBatch(batch);
+
+                    batch.clear();
+                    batchEntityCount = 0;
+
+                    handleMessage(kafkaMsg);
+
+                    continue;
+                }
+
+                CoalescableMessage msg = new CoalescableMessage(kafkaMsg, entities);
+
+                if (!batch.isEmpty() && (batchEntityCount + msg.getEntityCount() > coalesceMaxEntities || !StringUtils.equals(batch.get(0).getUser(), msg.getUser()))) {
+                    processBatch(batch);
+
+                    batch.clear();
+                    batchEntityCount = 0;
+                }
+
+                batch.add(msg);
+                batchEntityCount += msg.getEntityCount();
+            }
+
+            processBatch(batch);
+        }
+
+        /**
+         * Writes the entities of the messages in a single transaction. If that fails, the batch is split in halves
+         * and each half is processed separately, down to individual messages - which are then retried and recorded
+         * as failed like any other message.
+         */
+        private void processBatch(List<CoalescableMessage> batch) throws AtlasServiceException, AtlasException {
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            if (batch.size() == 1) {
+                handleMessage(batch.get(0).kafkaMessage);
+            } else if (processCoalesced(batch)) {
+                Map<Integer, AtlasKafkaMessage<HookNotification>> lastMessageInPartitions = new LinkedHashMap<>();
+
+                for (CoalescableMessage msg : batch) {
+                    lastMessageInPartitions.put(msg.kafkaMessage.getPartition(), msg.kafkaMessage);
+                }
+
+                for (AtlasKafkaMessage<HookNotification> kafkaMsg : lastMessageInPartitions.values()) {
+                    commit(kafkaMsg);
+                }
+            } else {
+                int mid = batch.size() / 2;
+
+                processBatch(batch.subList(0, mid));
+                processBatch(batch.subList(mid, batch.size()));
+            }
+        }
+
+        private boolean processCoalesced(List<CoalescableMessage> batch) {
+            AtlasPerfTracer    perf      = null;
+            long               startTime = System.currentTimeMillis();
+            HookEntitiesMerger merger    = new HookEntitiesMerger();
+
+            if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
+                perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "coalesced(messages=" + batch.size() + ")");
+            }
+
+            for (CoalescableMessage msg : batch) {
+                merger.add(msg.entities);
+            }
+
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("processing {} coalesced messages, with {} entities", batch.size(), merger.getEntityCount());
+            }
+
+            try {
+                RequestContextV1.get().setUser(batch.get(0).getUser(), null);
+
+                atlasEntityStore.createOrUpdate(new AtlasEntityStream(merger.getMergedEntities()), false);
+            } catch (Throwable e) {
+                LOG.warn("Error handling {} coalesced messages; will process them in smaller batches", batch.size(), e);
+
+                return false;
+            } finally {
+                RequestContextV1.clear();
+
+                AtlasPerfTracer.log(perf);
+            }
+
+            long timeTaken = System.currentTimeMillis() - startTime;
+
+            for (CoalescableMessage msg : batch) {
+                AuditLog auditLog = getCoalescedAuditLog(msg.kafkaMessage.getMessage());
+
+                auditLog.setHttpStatus(SC_OK);
+                auditLog.setTimeTaken(timeTaken);
+
+                AuditFilter.audit(auditLog);
+            }
+
+            return true;
+        }
+
+        /**
+         * @return false if the message could not be processed, after retries
+         */
+        private boolean processMessage(AtlasKafkaMessage<HookNotification> kafkaMsg) throws AtlasServiceException, AtlasException {
             AtlasPerfTracer  perf        = null;
             HookNotification message     = kafkaMsg.getMessage();
             String           messageUser = message.getUser();
@@ -523,19 +775,16 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
 
                             isFailedMsg = true;
 
-                            failedMessages.add(message);
+                            addFailedMessage(message);
 
-                            if (failedMessages.size() >= failedMsgCacheSize) {
-                                recordFailedMessages();
-                            }
-                            return;
+                            return false;
                         }
                     } finally {
                         RequestContextV1.clear();
                     }
                 }
 
-                commit(kafkaMsg);
+                return true;
             } finally {
                 AtlasPerfTracer.log(perf);
 
@@ -548,23 +797,152 @@ public class NotificationHookConsumer implements Service, ActiveStateChangeHandl
             }
         }
 
-        private void recordFailedMessages() {
-            //logging failed messages
-            for (HookNotification message : failedMessages) {
-                FAILED_LOG.error("[DROPPED_NOTIFICATION] {}", AbstractNotification.getMessageJson(message));
+        private void addFailedMessage(HookNotification message) {
+            synchronized (failedMessages) { // pipeline workers add concurrently
+                failedMessages.add(message);
+
+                if (failedMessages.size() >= failedMsgCacheSize) {
+                    recordFailedMessages();
+                }
             }
+        }
 
-            failedMessages.clear();
+        private void recordFailedMessages() {
+            synchronized (failedMessages) {
+                //logging failed messages
+                for (HookNotification message : failedMessages) {
+                    FAILED_LOG.error("[DROPPED_NOTIFICATION] {}", AbstractNotification.getMessageJson(message));
+                }
+
+                failedMessages.clear();
+            }
         }
 
         private void commit(AtlasKafkaMessage<HookNotification> kafkaMessage) {
             recordFailedMessages();
 
-            TopicPartition partition = new TopicPartition("ATLAS_HOOK", kafkaMessage.getPartition());
+            TopicPartition partition = new TopicPartition(ATLAS_HOOK_TOPIC, kafkaMessage.getPartition());
 
             consumer.commit(partition, kafkaMessage.getOffset() + 1);
         }
 
+        /**
+         * Processes messages in a pool of workers, while this consumer thread keeps receiving messages.
+         * Messages are assigned to workers by the entity they affect, so that messages for an entity are
+         * processed in the order received. Offsets are committed periodically, up to the lowest offset
+         * not yet processed.
+         */
+        private class MessagePipeline {
+            private final ExecutorService[]    workers        = new ExecutorService[pipelineWorkers];
+            private final PendingOffsetTracker offsetTracker  = new PendingOffsetTracker();
+            private final Semaphore            pendingPermits = new Semaphore(pipelineMaxPending);
+            private       long                 lastCommitTime = System.currentTimeMillis();
+
+            MessagePipeline() {
+                for (int i = 0; i < workers.length; i++) {
+                    workers[i] = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat(THREADNAME_PREFIX + " worker-" + i).build());
+                }
+
+                LOG.info("HookConsumer: pipelined processing with {} workers, max pending messages {}", pipelineWorkers, pipelineMaxPending);
+            }
+
+            void dispatch(List<AtlasKafkaMessage<HookNotification>> messages) throws InterruptedException {
+                for (final AtlasKafkaMessage<HookNotification> msg : messages) {
+                    // wait for workers to catch up, while committing the offsets of completed messages
+                    while (!pendingPermits.tryAcquire(consumerRetryInterval, TimeUnit.MILLISECONDS)) {
+                        if (!shouldRun.get()) {
+                            return; // remaining messages will be received again
+                        }
+
+                        commitCompleted(false);
+                    }
+
+                    offsetTracker.add(msg.getPartition(), msg.getOffset());
+
+                    getWorker(msg.getMessage()).submit(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (!shouldRun.get()) {
+                                return; // not marked as completed, so the message will be received again
+                            }
+
+                            try {
+                                processMessage(msg);
+                            } catch (Throwable t) {
+                                LOG.warn("Error handling message at partition {}, offset {}", msg.getPartition(), msg.getOffset(), t);
+                            } finally {
+                                offsetTracker.complete(msg.getPartition(), msg.getOffset());
+
+                                pendingPermits.release();
+                            }
+                        }
+                    });
+                }
+            }
+
+            void commitCompleted(boolean isFinal) {
+                long now = System.currentTimeMillis();
+
+                if (!isFinal && (now - lastCommitTime) < pipelineCommitInterval) {
+                    return;
+                }
+
+                lastCommitTime = now;
+
+                Map<Integer, Long> offsets = offsetTracker.getCommittableOffsets();
+
+                if (offsets.isEmpty()) {
+                    return;
+                }
+
+                recordFailedMessages();
+
+                Map<TopicPartition, Long> partitionOffsets = new HashMap<>();
+
+                for (Map.Entry<Integer, Long> entry : offsets.entrySet()) {
+                    partitionOffsets.put(new TopicPartition(ATLAS_HOOK_TOPIC, entry.getKey()), entry.getValue());
+                }
+
+                if (isFinal) {
+                    for (Map.Entry<TopicPartition, Long> entry : partitionOffsets.entrySet()) {
+                        consumer.commit(entry.getKey(), entry.getValue());
+                    }
+                } else {
+                    consumer.commitAsync(partitionOffsets);
+                }
+            }
+
+            void shutdown() {
+                for (ExecutorService worker : workers) {
+                    worker.shutdown();
+                }
+
+                try {
+                    long waitUntil = System.currentTimeMillis() + PIPELINE_SHUTDOWN_WAIT_TIME_MS;
+
+                    for (ExecutorService worker : workers) {
+                        if (!worker.awaitTermination(Math.max(waitUntil - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS)) {
+                            LOG.warn("Timed out waiting for hook consumer worker to complete");
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    LOG.warn("Interrupted while waiting for hook consumer workers to complete");
+                }
+
+                try {
+                    commitCompleted(true);
+                } catch (Exception e) {
+                    LOG.warn("Failed to commit offsets of completed messages; these messages will be received again", e);
+                }
+
+                LOG.info("HookConsumer: pipeline stopped, {} messages pending", offsetTracker.getPendingCount());
+            }
+
+            private ExecutorService getWorker(HookNotification message) {
+                return workers[(getEntityKey(message).hashCode() & Integer.MAX_VALUE) % workers.length];
+            }
+        }
+
         boolean serverAvailable(Timer timer) {
             try {
                 while (serviceState.getState() != ServiceState.ServiceStateValue.ACTIVE) {
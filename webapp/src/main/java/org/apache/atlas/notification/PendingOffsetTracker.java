@@ -0,0 +1,91 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.notification;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Tracks the offsets of messages being processed out of order, to find the offsets that can be committed.
+ *
+ * For each partition, the committable offset is the lowest offset still being processed; if no message is being
+ * processed, it is the offset after the last message added. Messages are expected to be added in offset order
+ * for each partition, as they are received.
+ */
+class PendingOffsetTracker {
+    private final Map<Integer, PartitionOffsets> partitions = new HashMap<>();
+
+    public synchronized void add(int partition, long offset) {
+        PartitionOffsets partitionOffsets = partitions.get(partition);
+
+        if (partitionOffsets == null) {
+            partitionOffsets = new PartitionOffsets();
+
+            partitions.put(partition, partitionOffsets);
+        }
+
+        partitionOffsets.pending.add(offset);
+        partitionOffsets.nextOffset = Math.max(partitionOffsets.nextOffset, offset + 1);
+    }
+
+    public synchronized void complete(int partition, long offset) {
+        PartitionOffsets partitionOffsets = partitions.get(partition);
+
+        if (partitionOffsets != null) {
+            partitionOffsets.pending.remove(offset);
+        }
+    }
+
+    public synchronized int getPendingCount() {
+        int ret = 0;
+
+        for (PartitionOffsets partitionOffsets : partitions.values()) {
+            ret += partitionOffsets.pending.size();
+        }
+
+        return ret;
+    }
+
+    /**
+     * @return offsets to commit for partitions that made progress since the previous call; the offsets are
+     * considered committed once returned
+     */
+    public synchronized Map<Integer, Long> getCommittableOffsets() {
+        Map<Integer, Long> ret = new HashMap<>();
+
+        for (Map.Entry<Integer, PartitionOffsets> entry : partitions.entrySet()) {
+            PartitionOffsets partitionOffsets = entry.getValue();
+            long             offset           = partitionOffsets.pending.isEmpty() ? partitionOffsets.nextOffset : partitionOffsets.pending.first();
+
+            if (offset > partitionOffsets.committedOffset) {
+                partitionOffsets.committedOffset = offset;
+
+                ret.put(entry.getKey(), offset);
+            }
+        }
+
+        return ret;
+    }
+
+    private static class PartitionOffsets {
+        private final TreeSet<Long> pending         = new TreeSet<>();
+        private       long          nextOffset      = -1;
+        private       long          committedOffset = -1;
+    }
+}
@@ -33,6 +33,7 @@ import org.apache.atlas.model.impexp.AtlasExportResult;
 import org.apache.atlas.model.impexp.AtlasImportRequest;
 import org.apache.atlas.model.impexp.AtlasImportResult;
 import org.apache.atlas.model.metrics.AtlasMetrics;
+import org.apache.atlas.repository.graph.GraphBackedSearchIndexer;
 import org.apache.atlas.repository.impexp.ExportService;
 import org.apache.atlas.repository.impexp.ImportService;
 import org.apache.atlas.repository.impexp.ZipSink;
@@ -45,6 +46,7 @@ import org.apache.atlas.utils.AtlasJson;
 import org.apache.atlas.web.filters.AtlasCSRFPreventionFilter;
 import org.apache.atlas.web.service.ServiceState;
 import org.apache.atlas.web.util.Servlets;
+import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.configuration.Configuration;
 import org.apache.commons.configuration.ConfigurationException;
 import org.apache.commons.configuration.PropertiesConfiguration;
@@ -79,6 +81,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.locks.ReentrantLock;
@@ -119,6 +122,7 @@ public class AdminResource {
     private final ExportService exportService;
     private final ImportService importService;
     private final SearchTracker activeSearches;
+    private final GraphBackedSearchIndexer searchIndexer;
 
     static {
         try {
@@ -131,13 +135,15 @@ public class AdminResource {
     @Inject
     public AdminResource(ServiceState serviceState, MetricsService metricsService,
                          ExportService exportService, ImportService importService,
-                         SearchTracker activeSearches, AtlasTypeRegistry typeRegistry) {
+                         SearchTracker activeSearches, AtlasTypeRegistry typeRegistry,
+                         GraphBackedSearchIndexer searchIndexer) {
         this.serviceState               = serviceState;
         this.metricsService             = metricsService;
         this.exportService = exportService;
         this.importService = importService;
         this.activeSearches = activeSearches;
         this.typeRegistry = typeRegistry;
+        this.searchIndexer = searchIndexer;
         importExportOperationLock = new ReentrantLock();
     }
 
@@ -297,6 +303,84 @@ public class AdminResource {
         return metrics;
     }
 
+    /**
+     * Starts recounting entities from the graph in the background, to reconcile incrementally maintained entity counts.
+     * @return false if incremental entity counts are disabled, or a reconciliation is already in progress
+     */
+    @POST
+    @Path("metrics/reconcile")
+    @Produces(Servlets.JSON_MEDIA_TYPE)
+    public boolean reconcileMetrics() throws AtlasBaseException {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("==> AdminResource.reconcileMetrics()");
+        }
+
+        AtlasAuthorizationUtils.verifyAccess(new AtlasAdminAccessRequest(AtlasPrivilege.ADMIN_METRICS), "reconcileMetrics");
+
+        boolean ret = metricsService.reconcileEntityCounts();
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("<== AdminResource.reconcileMetrics(): {}", ret);
+        }
+
+        return ret;
+    }
+
+    /**
+     * Rewrites the indexed attributes of existing entities of the given types, and their sub-types, in the background,
+     * to add them to the search index
+     * @param typeNames names of entity/classification types
+     * @return progress of the index backfill
+     */
+    @POST
+    @Path("index/backfill")
+    @Produces(Servlets.JSON_MEDIA_TYPE)
+    public Map<String, Object> startIndexBackfill(@QueryParam("type") List<String> typeNames) throws AtlasBaseException {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("==> AdminResource.startIndexBackfill({})", typeNames);
+        }
+
+        AtlasAuthorizationUtils.verifyAccess(new AtlasAdminAccessRequest(AtlasPrivilege.ADMIN_INDEX_BACKFILL), "startIndexBackfill");
+
+        if (CollectionUtils.isEmpty(typeNames)) {
+            throw new AtlasBaseException(AtlasErrorCode.INVALID_PARAMETERS, "type is required");
+        }
+
+        Map<String, Object> ret = searchIndexer.startIndexBackfill(typeNames);
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("<== AdminResource.startIndexBackfill({}): {}", typeNames, ret);
+        }
+
+        return ret;
+    }
+
+    @GET
+    @Path("index/backfill")
+    @Produces(Servlets.JSON_MEDIA_TYPE)
+    public Map<String, Object> getIndexBackfillProgress() {
+        return searchIndexer.getIndexBackfillProgress();
+    }
+
+    @DELETE
+    @Path("index/backfill")
+    @Produces(Servlets.JSON_MEDIA_TYPE)
+    public boolean cancelIndexBackfill() throws AtlasBaseException {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("==> AdminResource.cancelIndexBackfill()");
+        }
+
+        AtlasAuthorizationUtils.verifyAccess(new AtlasAdminAccessRequest(AtlasPrivilege.ADMIN_INDEX_BACKFILL), "cancelIndexBackfill");
+
+        boolean ret = searchIndexer.cancelIndexBackfill();
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("<== AdminResource.cancelIndexBackfill(): {}", ret);
+        }
+
+        return ret;
+    }
+
     private void releaseExportImportLock() {
         importExportOperationLock.unlock();
     }
@@ -425,6 +509,19 @@ public class AdminResource {
         return activeSearches.getActiveSearches();
     }
 
+    @GET
+    @Path("activeSearches/{id}")
+    @Produces(Servlets.JSON_MEDIA_TYPE)
+    public Map<String, Object> getActiveSearch(@PathParam("id") String searchId) throws AtlasBaseException {
+        Map<String, Object> ret = activeSearches.getSearchProgress(searchId);
+
+        if (ret == null) {
+            throw new AtlasBaseException(AtlasErrorCode.EMPTY_RESULTS, "active search " + searchId);
+        }
+
+        return ret;
+    }
+
     @DELETE
     @Path("activeSearches/{id}")
     @Produces(Servlets.JSON_MEDIA_TYPE)
@@ -20,11 +20,15 @@ package org.apache.atlas.web.rest;
 import org.apache.atlas.AtlasErrorCode;
 import org.apache.atlas.SortOrder;
 import org.apache.atlas.discovery.AtlasDiscoveryService;
+import org.apache.atlas.discovery.SavedSearchMaterializer;
+import org.apache.atlas.discovery.SearchResultConsumer;
 import org.apache.atlas.exception.AtlasBaseException;
 import org.apache.atlas.model.discovery.AtlasSearchResult;
 import org.apache.atlas.model.discovery.SearchParameters;
+import org.apache.atlas.model.instance.AtlasEntityHeader;
 import org.apache.atlas.model.profile.AtlasUserSavedSearch;
 import org.apache.atlas.repository.Constants;
+import org.apache.atlas.type.AtlasType;
 import org.apache.atlas.utils.AtlasPerfTracer;
 import org.apache.atlas.web.util.Servlets;
 import org.apache.commons.collections.CollectionUtils;
@@ -46,7 +50,13 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 /**
@@ -58,16 +68,20 @@ import java.util.List;
 public class DiscoveryREST {
     private static final Logger PERF_LOG = AtlasPerfTracer.getPerfLogger("rest.DiscoveryREST");
 
+    public static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+
     @Context
     private       HttpServletRequest httpServletRequest;
     private final int                maxFullTextQueryLength;
     private final int                maxDslQueryLength;
 
-    private final AtlasDiscoveryService atlasDiscoveryService;
+    private final AtlasDiscoveryService   atlasDiscoveryService;
+    private final SavedSearchMaterializer savedSearchMaterializer;
 
     @Inject
-    public DiscoveryREST(AtlasDiscoveryService atlasDiscoveryService, Configuration configuration) {
-        this.atlasDiscoveryService = atlasDiscoveryService;
+    public DiscoveryREST(AtlasDiscoveryService atlasDiscoveryService, SavedSearchMaterializer savedSearchMaterializer, Configuration configuration) {
+        this.atlasDiscoveryService   = atlasDiscoveryService;
+        this.savedSearchMaterializer = savedSearchMaterializer;
         maxFullTextQueryLength = configuration.getInt(Constants.MAX_FULLTEXT_QUERY_STR_LENGTH, 4096);
         maxDslQueryLength = configuration.getInt(Constants.MAX_DSL_QUERY_STR_LENGTH, 4096);
     }
@@ -167,6 +181,9 @@ public class DiscoveryREST {
      * @param classification limit the result to only entities tagged with the given classification or or its sub-types
      * @param limit          limit the result set to only include the specified number of entries
      * @param offset         start offset of the result set (useful for pagination)
+     * @param continuationToken continuationToken from the result of the previous page; offset is ignored when specified
+     * @param sortBy         sort the result on this attribute of the entities
+     * @param sortOrder      ASCENDING (default) or DESCENDING
      * @return Search results
      * @throws AtlasBaseException
      * @HTTP 200 On successful FullText lookup with some results, might return an empty list if execution succeeded
@@ -182,9 +199,14 @@ public class DiscoveryREST {
                                               @QueryParam("classification")         String  classification,
                                               @QueryParam("excludeDeletedEntities") boolean excludeDeletedEntities,
                                               @QueryParam("limit")                  int     limit,
-                                              @QueryParam("offset")                 int     offset) throws AtlasBaseException {
+                                              @QueryParam("offset")                 int     offset,
+                                              @QueryParam("continuationToken")      String  continuationToken,
+                                              @QueryParam("sortBy")                 String  sortBy,
+                                              @QueryParam("sortOrder")              SortOrder sortOrder) throws AtlasBaseException {
         Servlets.validateQueryParamLength("typeName", typeName);
         Servlets.validateQueryParamLength("classification", classification);
+        Servlets.validateQueryParamLength("continuationToken", continuationToken);
+        Servlets.validateQueryParamLength("sortBy", sortBy);
         if (StringUtils.isNotEmpty(query) && query.length() > maxFullTextQueryLength) {
             throw new AtlasBaseException(AtlasErrorCode.INVALID_QUERY_LENGTH, Constants.MAX_FULLTEXT_QUERY_STR_LENGTH);
         }
@@ -204,6 +226,9 @@ public class DiscoveryREST {
             searchParameters.setExcludeDeletedEntities(excludeDeletedEntities);
             searchParameters.setLimit(limit);
             searchParameters.setOffset(offset);
+            searchParameters.setContinuationToken(continuationToken);
+            searchParameters.setSortBy(sortBy);
+            searchParameters.setSortOrder(sortOrder);
 
             return atlasDiscoveryService.searchWithParameters(searchParameters);
         } finally {
@@ -278,28 +303,87 @@ public class DiscoveryREST {
                 perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "DiscoveryREST.searchWithParameters(" + parameters + ")");
             }
 
-            if (parameters.getLimit() < 0 || parameters.getOffset() < 0) {
-                throw new AtlasBaseException(AtlasErrorCode.BAD_REQUEST, "Limit/offset should be non-negative");
-            }
+            validateBasicSearchParameters(parameters);
 
-            if (StringUtils.isEmpty(parameters.getTypeName()) && !isEmpty(parameters.getEntityFilters())) {
-                throw new AtlasBaseException(AtlasErrorCode.BAD_REQUEST, "EntityFilters specified without Type name");
-            }
+            return atlasDiscoveryService.searchWithParameters(parameters);
+        } finally {
+            AtlasPerfTracer.log(perf);
+        }
+    }
 
-            if (StringUtils.isEmpty(parameters.getClassification()) && !isEmpty(parameters.getTagFilters())) {
-                throw new AtlasBaseException(AtlasErrorCode.BAD_REQUEST, "TagFilters specified without tag name");
+    /**
+     * Attribute based search for entities satisfying the search parameters, with results streamed as they are found.
+     * The response has one entity header per line (NDJSON); there is no cap on the number of results other than
+     * the limit in the parameters, if specified.
+     *
+     * @param parameters Search parameters
+     * @return Matching entity headers, one per line
+     * @throws AtlasBaseException
+     * @HTTP 200 On successful search
+     * @HTTP 400 Tag/Entity doesn't exist, Tag/entity filter is present without tag/type name, or the index can't sort on sortBy
+     */
+    @Path("basic/stream")
+    @POST
+    @Consumes(Servlets.JSON_MEDIA_TYPE)
+    @Produces(NDJSON_MEDIA_TYPE)
+    public StreamingOutput searchWithParametersAsStream(final SearchParameters parameters) throws AtlasBaseException {
+        validateBasicSearchParameters(parameters);
+
+        atlasDiscoveryService.validateStreamSearchParameters(parameters);
+
+        return new StreamingOutput() {
+            @Override
+            public void write(OutputStream outputStream) throws IOException {
+                AtlasPerfTracer perf = null;
+
+                try {
+                    if (AtlasPerfTracer.isPerfTraceEnabled(PERF_LOG)) {
+                        perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "DiscoveryREST.searchWithParametersAsStream(" + parameters + ")");
+                    }
+
+                    final Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+
+                    atlasDiscoveryService.searchWithParameters(parameters, new SearchResultConsumer() {
+                        @Override
+                        public void consume(List<AtlasEntityHeader> entities) throws IOException {
+                            for (AtlasEntityHeader entity : entities) {
+                                writer.write(AtlasType.toJson(entity));
+                                writer.write('\n');
+                            }
+
+                            // blocks while the client is not reading, which holds back the search
+                            writer.flush();
+                        }
+                    });
+
+                    writer.flush();
+                } catch (AtlasBaseException e) {
+                    throw new IOException(e);
+                } finally {
+                    AtlasPerfTracer.log(perf);
+                }
             }
+        };
+    }
 
-            if (StringUtils.isEmpty(parameters.getTypeName()) && StringUtils.isEmpty(parameters.getClassification()) && StringUtils.isEmpty(parameters.getQuery())) {
-                throw new AtlasBaseException(AtlasErrorCode.INVALID_SEARCH_PARAMS);
-            }
+    private void validateBasicSearchParameters(SearchParameters parameters) throws AtlasBaseException {
+        if (parameters.getLimit() < 0 || parameters.getOffset() < 0) {
+            throw new AtlasBaseException(AtlasErrorCode.BAD_REQUEST, "Limit/offset should be non-negative");
+        }
 
-            validateSearchParameters(parameters);
+        if (StringUtils.isEmpty(parameters.getTypeName()) && !isEmpty(parameters.getEntityFilters())) {
+            throw new AtlasBaseException(AtlasErrorCode.BAD_REQUEST, "EntityFilters specified without Type name");
+        }
 
-            return atlasDiscoveryService.searchWithParameters(parameters);
-        } finally {
-            AtlasPerfTracer.log(perf);
+        if (StringUtils.isEmpty(parameters.getClassification()) && !isEmpty(parameters.getTagFilters())) {
+            throw new AtlasBaseException(AtlasErrorCode.BAD_REQUEST, "TagFilters specified without tag name");
         }
+
+        if (StringUtils.isEmpty(parameters.getTypeName()) && StringUtils.isEmpty(parameters.getClassification()) && StringUtils.isEmpty(parameters.getQuery())) {
+            throw new AtlasBaseException(AtlasErrorCode.INVALID_SEARCH_PARAMS);
+        }
+
+        validateSearchParameters(parameters);
     }
 
     /**
@@ -365,7 +449,11 @@ public class DiscoveryREST {
                 perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "DiscoveryREST.addSavedSearch(userName=" + savedSearch.getOwnerName() + ", name=" + savedSearch.getName() + ", searchType=" + savedSearch.getSearchType() + ")");
             }
 
-            return atlasDiscoveryService.addSavedSearch(Servlets.getUserName(httpServletRequest), savedSearch);
+            AtlasUserSavedSearch ret = atlasDiscoveryService.addSavedSearch(Servlets.getUserName(httpServletRequest), savedSearch);
+
+            savedSearchMaterializer.onSavedSearchSaved(ret);
+
+            return ret;
         } finally {
             AtlasPerfTracer.log(perf);
         }
@@ -391,7 +479,11 @@ public class DiscoveryREST {
                 perf = AtlasPerfTracer.getPerfTracer(PERF_LOG, "DiscoveryREST.updateSavedSearch(userName=" + savedSearch.getOwnerName() + ", name=" + savedSearch.getName() + ", searchType=" + savedSearch.getSearchType() + ")");
             }
 
-            return atlasDiscoveryService.updateSavedSearch(Servlets.getUserName(httpServletRequest), savedSearch);
+            AtlasUserSavedSearch ret = atlasDiscoveryService.updateSavedSearch(Servlets.getUserName(httpServletRequest), savedSearch);
+
+            savedSearchMaterializer.onSavedSearchSaved(ret);
+
+            return ret;
         } finally {
             AtlasPerfTracer.log(perf);
         }
@@ -470,6 +562,8 @@ public class DiscoveryREST {
             }
 
             atlasDiscoveryService.deleteSavedSearch(Servlets.getUserName(httpServletRequest), guid);
+
+            savedSearchMaterializer.onSavedSearchDeleted(guid);
         } finally {
             AtlasPerfTracer.log(perf);
         }
@@ -481,6 +575,8 @@ public class DiscoveryREST {
      *
      * @param searchName name of saved-search
      * @param userName saved-search owner
+     * @param limit    number of entities to return; the limit of the saved search if not specified
+     * @param offset   start offset of the result set; the offset of the saved search if not specified
      * @return Atlas search result
      * @throws AtlasBaseException
      */
@@ -489,7 +585,9 @@ public class DiscoveryREST {
     @Consumes(Servlets.JSON_MEDIA_TYPE)
     @Produces(Servlets.JSON_MEDIA_TYPE)
     public AtlasSearchResult executeSavedSearchByName(@PathParam("name") String searchName,
-                                                      @QueryParam("user") String userName) throws AtlasBaseException {
+                                                      @QueryParam("user") String userName,
+                                                      @QueryParam("limit") Integer limit,
+                                                      @QueryParam("offset") Integer offset) throws AtlasBaseException {
         Servlets.validateQueryParamLength("name", searchName);
         Servlets.validateQueryParamLength("user", userName);
 
@@ -503,7 +601,7 @@ public class DiscoveryREST {
 
             AtlasUserSavedSearch savedSearch = atlasDiscoveryService.getSavedSearchByName(Servlets.getUserName(httpServletRequest), userName, searchName);
 
-            return executeSavedSearch(savedSearch);
+            return executeSavedSearch(savedSearch, limit, offset);
         } finally {
             AtlasPerfTracer.log(perf);
         }
@@ -513,6 +611,8 @@ public class DiscoveryREST {
      * Attribute based search for entities satisfying the search parameters
      *
      * @param searchGuid Guid identifying saved search
+     * @param limit      number of entities to return; the limit of the saved search if not specified
+     * @param offset     start offset of the result set; the offset of the saved search if not specified
      * @return Atlas search result
      * @throws AtlasBaseException
      */
@@ -520,7 +620,9 @@ public class DiscoveryREST {
     @GET
     @Consumes(Servlets.JSON_MEDIA_TYPE)
     @Produces(Servlets.JSON_MEDIA_TYPE)
-    public AtlasSearchResult executeSavedSearchByGuid(@PathParam("guid") String searchGuid) throws AtlasBaseException {
+    public AtlasSearchResult executeSavedSearchByGuid(@PathParam("guid") String searchGuid,
+                                                      @QueryParam("limit") Integer limit,
+                                                      @QueryParam("offset") Integer offset) throws AtlasBaseException {
         Servlets.validateQueryParamLength("guid", searchGuid);
 
         AtlasPerfTracer perf = null;
@@ -532,7 +634,7 @@ public class DiscoveryREST {
 
             AtlasUserSavedSearch savedSearch = atlasDiscoveryService.getSavedSearchByGuid(Servlets.getUserName(httpServletRequest), searchGuid);
 
-            return executeSavedSearch(savedSearch);
+            return executeSavedSearch(savedSearch, limit, offset);
         } finally {
             AtlasPerfTracer.log(perf);
         }
@@ -543,15 +645,27 @@ public class DiscoveryREST {
                 (StringUtils.isEmpty(filterCriteria.getAttributeName()) && CollectionUtils.isEmpty(filterCriteria.getCriterion()));
     }
 
-    private AtlasSearchResult executeSavedSearch(AtlasUserSavedSearch savedSearch) throws AtlasBaseException {
-        SearchParameters sp = savedSearch.getSearchParameters();
+    private AtlasSearchResult executeSavedSearch(AtlasUserSavedSearch savedSearch, Integer limitParam, Integer offsetParam) throws AtlasBaseException {
+        SearchParameters sp     = savedSearch.getSearchParameters();
+        int              limit  = limitParam != null ? limitParam : sp.getLimit();
+        int              offset = offsetParam != null ? offsetParam : sp.getOffset();
 
         if(savedSearch.getSearchType() == AtlasUserSavedSearch.SavedSearchType.ADVANCED) {
             String dslQuery = atlasDiscoveryService.getDslQueryUsingTypeNameClassification(sp.getQuery(), sp.getTypeName(), sp.getClassification());
 
-            return atlasDiscoveryService.searchUsingDslQuery(dslQuery, sp.getLimit(), sp.getOffset());
+            return atlasDiscoveryService.searchUsingDslQuery(dslQuery, limit, offset);
         } else {
-            return atlasDiscoveryService.searchWithParameters(sp);
+            // materialized search is served from its snapshot, once available; parameters must match the saved ones
+            AtlasSearchResult ret = savedSearchMaterializer.getResults(savedSearch, limit, offset);
+
+            if (ret == null) {
+                sp.setLimit(limit);
+                sp.setOffset(offset);
+
+                ret = atlasDiscoveryService.searchWithParameters(sp);
+            }
+
+            return ret;
         }
     }
 
@@ -561,6 +675,10 @@ public class DiscoveryREST {
             Servlets.validateQueryParamLength("ownerName", savedSearch.getOwnerName());
             Servlets.validateQueryParamLength("guid", savedSearch.getGuid());
 
+            if (savedSearch.getMaterialized() && savedSearch.getSearchType() == AtlasUserSavedSearch.SavedSearchType.ADVANCED) {
+                throw new AtlasBaseException(AtlasErrorCode.INVALID_PARAMETERS, "materialized: only basic searches can be materialized");
+            }
+
             validateSearchParameters(savedSearch.getSearchParameters());
         }
     }
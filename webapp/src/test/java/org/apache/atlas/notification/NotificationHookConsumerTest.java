@@ -22,12 +22,19 @@ import org.apache.atlas.AtlasServiceException;
 import org.apache.atlas.exception.AtlasBaseException;
 import org.apache.atlas.ha.HAConfiguration;
 import org.apache.atlas.kafka.AtlasKafkaMessage;
+import org.apache.atlas.model.instance.AtlasEntity;
 import org.apache.atlas.model.instance.AtlasEntity.AtlasEntitiesWithExtInfo;
+import org.apache.atlas.model.instance.AtlasObjectId;
 import org.apache.atlas.model.instance.EntityMutationResponse;
+import org.apache.atlas.model.notification.HookNotification;
+import org.apache.atlas.model.notification.HookNotification.EntityCreateRequestV2;
+import org.apache.atlas.model.notification.HookNotification.EntityDeleteRequestV2;
+import org.apache.atlas.model.notification.HookNotification.EntityUpdateRequestV2;
 import org.apache.atlas.model.notification.HookNotification.HookNotificationType;
 import org.apache.atlas.notification.NotificationInterface.NotificationType;
 import org.apache.atlas.v1.model.instance.Referenceable;
 import org.apache.atlas.v1.model.notification.HookNotificationV1.EntityCreateRequest;
+import org.apache.atlas.v1.model.notification.HookNotificationV1.EntityPartialUpdateRequest;
 import org.apache.atlas.repository.converters.AtlasInstanceConverter;
 import org.apache.atlas.repository.store.graph.AtlasEntityStore;
 import org.apache.atlas.repository.store.graph.v1.EntityStream;
@@ -50,6 +57,7 @@ import java.util.List;
 import java.util.concurrent.ExecutorService;
 
 import static org.mockito.Mockito.*;
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 
@@ -320,6 +328,65 @@ public class NotificationHookConsumerTest {
         assertFalse(notificationHookConsumer.consumers.get(0).isAlive());
     }
 
+    @Test
+    public void testEntityKey() {
+        Referenceable table = new Referenceable("hive_table");
+
+        table.set("qualifiedName", "db1.table1@cl1");
+
+        EntityCreateRequest        createRequest = new EntityCreateRequest("user", table);
+        EntityPartialUpdateRequest updateRequest = new EntityPartialUpdateRequest("user", "hive_table", "qualifiedName", "db1.table1@cl1", table);
+        EntityDeleteRequestV2      deleteRequest = new EntityDeleteRequestV2("user", Collections.singletonList(new AtlasObjectId("hive_table", "qualifiedName", "db1.table1@cl1")));
+
+        assertEquals(NotificationHookConsumer.getEntityKey(createRequest), "db1.table1@cl1");
+        assertEquals(NotificationHookConsumer.getEntityKey(updateRequest), "db1.table1@cl1");
+        assertEquals(NotificationHookConsumer.getEntityKey(deleteRequest), "db1.table1@cl1");
+    }
+
+    @Test
+    public void testCoalescedMessagesAreWrittenInOneTransaction() throws AtlasServiceException, AtlasException, AtlasBaseException {
+        NotificationHookConsumer              notificationHookConsumer = new NotificationHookConsumer(notificationInterface, atlasEntityStore, serviceState, instanceConverter, typeRegistry);
+        NotificationConsumer                  consumer                 = mock(NotificationConsumer.class);
+        NotificationHookConsumer.HookConsumer hookConsumer             = notificationHookConsumer.new HookConsumer(consumer);
+
+        hookConsumer.handleMessages(Arrays.asList(createMessage(new EntityCreateRequestV2("user", createTableEntities("db1.table1@cl1")), 0),
+                                                  createMessage(new EntityUpdateRequestV2("user", createTableEntities("db1.table2@cl1")), 1),
+                                                  createMessage(new EntityUpdateRequestV2("user", createTableEntities("db1.table1@cl1")), 2)));
+
+        verify(atlasEntityStore, times(1)).createOrUpdate(any(EntityStream.class), anyBoolean());
+        verify(consumer).commit(new TopicPartition("ATLAS_HOOK", 0), 3);
+    }
+
+    @Test
+    public void testCoalescedMessagesAreSplitOnFailure() throws AtlasServiceException, AtlasException, AtlasBaseException {
+        NotificationHookConsumer              notificationHookConsumer = new NotificationHookConsumer(notificationInterface, atlasEntityStore, serviceState, instanceConverter, typeRegistry);
+        NotificationConsumer                  consumer                 = mock(NotificationConsumer.class);
+        NotificationHookConsumer.HookConsumer hookConsumer             = notificationHookConsumer.new HookConsumer(consumer);
+
+        when(atlasEntityStore.createOrUpdate(any(EntityStream.class), anyBoolean())).thenThrow(new RuntimeException("Simulating exception in processing batch"))
+                                                                                      .thenReturn(mock(EntityMutationResponse.class));
+
+        hookConsumer.handleMessages(Arrays.asList(createMessage(new EntityCreateRequestV2("user", createTableEntities("db1.table1@cl1")), 0),
+                                                  createMessage(new EntityCreateRequestV2("user", createTableEntities("db1.table2@cl1")), 1)));
+
+        // one attempt for the batch, then one per message
+        verify(atlasEntityStore, times(3)).createOrUpdate(any(EntityStream.class), anyBoolean());
+        verify(consumer).commit(new TopicPartition("ATLAS_HOOK", 0), 1);
+        verify(consumer).commit(new TopicPartition("ATLAS_HOOK", 0), 2);
+    }
+
+    private AtlasKafkaMessage<HookNotification> createMessage(HookNotification message, long offset) {
+        return new AtlasKafkaMessage<>(message, offset, 0);
+    }
+
+    private AtlasEntitiesWithExtInfo createTableEntities(String qualifiedName) {
+        AtlasEntity table = new AtlasEntity("hive_table");
+
+        table.setAttribute("qualifiedName", qualifiedName);
+
+        return new AtlasEntitiesWithExtInfo(table);
+    }
+
     private NotificationHookConsumer setupNotificationHookConsumer() throws AtlasException {
         List<NotificationConsumer<Object>> consumers                = new ArrayList();
         NotificationConsumer               notificationConsumerMock = mock(NotificationConsumer.class);
@@ -0,0 +1,56 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.atlas.notification;
+
+import org.testng.annotations.Test;
+
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class PendingOffsetTrackerTest {
+    @Test
+    public void testCommitUpToLowestPendingOffset() {
+        PendingOffsetTracker tracker = new PendingOffsetTracker();
+
+        tracker.add(0, 10);
+        tracker.add(0, 11);
+        tracker.add(0, 12);
+        tracker.add(1, 5);
+
+        tracker.complete(0, 11);
+        tracker.complete(0, 12);
+
+        Map<Integer, Long> offsets = tracker.getCommittableOffsets();
+
+        assertEquals(offsets.get(0).longValue(), 10);
+        assertEquals(offsets.get(1).longValue(), 5);
+        assertEquals(tracker.getPendingCount(), 2);
+
+        // no progress since the previous call
+        assertTrue(tracker.getCommittableOffsets().isEmpty());
+
+        tracker.complete(0, 10);
+
+        offsets = tracker.getCommittableOffsets();
+
+        assertEquals(offsets.size(), 1);
+        assertEquals(offsets.get(0).longValue(), 13);
+    }
+}